@@ -5,11 +5,17 @@ import shutil, os
 
 name = ["PIFO", "SPPIFO", "AIFO", "TCP"]
 
+# rank_trace.bin: big-endian records of (ownId, targetId, flowId, rank, timeNs)
+trace_dtype = numpy.dtype([('own', '>i4'), ('target', '>i4'), ('flowid', '>i8'), ('rankx', '>i8'), ('timex', '>i8')])
+
+def read_rank_trace(x):
+    trace = numpy.fromfile("temp/aifo/aifo_evaluation/pFabric/web_search_workload/3600/"+x+"/rank_trace.bin", dtype=trace_dtype)
+    return pd.DataFrame({'rankx': trace['rankx'], 'flowid': trace['flowid'], 'timex': trace['timex']})
+
 # move all temps into runs
 for x in name:
-    src_file = "temp/aifo/aifo_evaluation/pFabric/web_search_workload/3600/"+x+"/rank_at_10.log"
     dest_file = 'projects/aifo/plots/aifo_evaluation/selfDefinedFlows/' + x + ".dat"
-    shutil.copy(src_file, dest_file)
+    read_rank_trace(x).to_csv(dest_file, sep=' ', index=False, columns=['rankx', 'flowid', 'timex'])
 
 
 # figure 12
@@ -17,8 +23,7 @@ for x in name:
 
 # figure 16
 for x in name:
-    pat = "temp/aifo/aifo_evaluation/pFabric/web_search_workload/3600/"+x+"/rank_at_10.log"
-    df = pd.read_csv(pat, delim_whitespace=True, header=0)
+    df = read_rank_trace(x)
     plt.figure()
     plt.title(x)
     df = df[df['flowid']==2]                #select the smallest flow
@@ -1,16 +1,17 @@
 package ch.ethz.systems.netbench.core;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.log.EngineProfiler;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.random.RandomManager;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
+import ch.ethz.systems.netbench.core.utility.LongBitmap;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.PriorityQueue;
 import java.util.Random;
-import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -35,7 +36,7 @@ public class Simulator {
 
     // Threshold to end
     private static long finishFlowIdThreshold;
-    private static final Set<Long> finishedFlows = new HashSet<>();
+    private static final LongBitmap finishedFlows = new LongBitmap();
 
     // Whether the simulator is setup
     private static boolean isSetup = false;
@@ -164,6 +165,12 @@ public class Simulator {
             flowsFromStartToFinish = Long.MAX_VALUE;
         }
 
+        // Event loop profiler (only if enabled)
+        EngineProfiler profiler = null;
+        if (configuration != null && configuration.getBooleanPropertyWithDefault("enable_log_engine_profile", false)) {
+            profiler = new EngineProfiler();
+        }
+
         // Log start
         System.out.println("Starting simulation (total time: " + runtimeNanoseconds + "ns);...");
 
@@ -172,6 +179,9 @@ public class Simulator {
         long realTime = System.currentTimeMillis();
         long nextProgressLog = PROGRESS_SHOW_INTERVAL_NS;
         boolean endedDueToFlowThreshold = false;
+        if (profiler != null) {
+            profiler.start();
+        }
         // runtimeNanoseconds = runtimeNanoseconds * 10;
         while (!eventQueue.isEmpty() && now <= runtimeNanoseconds) {
     //    while (!eventQueue.isEmpty()) {
@@ -211,11 +221,18 @@ public class Simulator {
             // currentIndex = 0;
             Event event = nextEventList.get(currentIndex);
             nextEventList.remove(currentIndex);
-            event.trigger();
+            if (profiler == null) {
+                event.trigger();
+            } else {
+                profiler.trigger(event);
+            }
 
             // Log elapsed time
             if (now > nextProgressLog) {
                 nextProgressLog += PROGRESS_SHOW_INTERVAL_NS;
+                if (profiler != null) {
+                    profiler.logQueueDepth(now, eventQueue.size() + nextEventList.size());
+                }
                 long realTimeNow = System.currentTimeMillis();
                 System.out.println("Elapsed 0.01s simulation in " + ((realTimeNow - realTime) / 1000.0) + "s real (total progress: " + ((((double) now) / ((double) runtimeNanoseconds)) * 100) + "%).");
                 realTime = realTimeNow;
@@ -259,6 +276,12 @@ public class Simulator {
             now = runtimeNanoseconds;
         }
 
+        // Write event loop profile
+        if (profiler != null) {
+            profiler.finish(now);
+            profiler.write();
+        }
+
         // Log end
         System.out.println("Simulation finished (simulated " + (runtimeNanoseconds / 1e9) + "s in a real-world time of " + ((System.currentTimeMillis() - startTime) / 1000.0) + "s).");
 
@@ -284,6 +307,27 @@ public class Simulator {
         eventQueue.add(event);
     }
 
+    /**
+     * Register a batch of events in the simulation. If the batch is large compared to
+     * the event queue, the queue is rebuilt by a single O(n) heapify instead of
+     * inserting each event in O(log n). Events are totally ordered (by time and
+     * creation), so the order in which they are triggered is the same either way.
+     *
+     * @param events    Event instances
+     */
+    public static void registerEvents(Event[] events) {
+        int total = eventQueue.size() + events.length;
+        int log2Total = 32 - Integer.numberOfLeadingZeros(total);
+        if ((long) events.length * log2Total > total) {
+            List<Event> all = new ArrayList<>(total);
+            all.addAll(eventQueue);
+            Collections.addAll(all, events);
+            eventQueue = new PriorityQueue<>(all);
+        } else {
+            Collections.addAll(eventQueue, events);
+        }
+    }
+
     /**
      * Retrieve the current time plus the amount of nanoseconds specified.
      * This is used to plan events in the future.
@@ -323,16 +367,20 @@ public class Simulator {
 
     /**
      * Clean up everything of the simulation.
+     * If the simulator is not setup, the logger is left as is
+     * (such that it is safe to reset more than once).
      *
      * @param throwawayLogs     True iff the logs should be thrown out
      */
     public static void reset(boolean throwawayLogs) {
 
-        // Close logger
-        if (throwawayLogs) {
-            SimulationLogger.closeAndThrowaway();
-        } else {
-            SimulationLogger.close();
+        // Close logger (only opened by setup)
+        if (isSetup) {
+            if (throwawayLogs) {
+                SimulationLogger.closeAndThrowaway();
+            } else {
+                SimulationLogger.close();
+            }
         }
 
         // Reset random number generation
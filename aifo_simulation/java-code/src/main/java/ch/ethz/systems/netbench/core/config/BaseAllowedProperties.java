@@ -14,7 +14,13 @@ public class BaseAllowedProperties {
             "enable_rank_mapping",
             "enable_queue_bound_tracking",
             "enable_unpifoness_tracking",
-            "enable_inversions_tracking"
+            "enable_inversions_tracking",
+            "enable_log_statistic_breakdown",
+            "enable_log_engine_profile",
+            "rank_trace_ports",
+            "rank_trace_flows",
+            "rank_trace_sample_rate",
+            "log_memory_mapped_files"
     };
 
     public static final String[] PROPERTIES_RUN = new String[] {
@@ -23,6 +29,7 @@ public class BaseAllowedProperties {
             "scenario_topology_file",
             "scenario_topology_extend_with_servers",
             "scenario_topology_extend_servers_per_tl_node",
+            "scenario_topology_extend_write_file",
             "seed",
             "run_time_s",
             "run_time_ns",
@@ -40,6 +47,10 @@ public class BaseAllowedProperties {
 
             // Routing
             "network_device_routing",
+            "routing_ecmp_servers_via_tor",
+            "routing_ecmp_lazy",
+            "routing_ecmp_lazy_cache_size",
+            "routing_state_cache",
 
             // Traffic
             "traffic",
@@ -48,7 +59,14 @@ public class BaseAllowedProperties {
             "traffic_probabilities_generator",
             "traffic_probabilities_active_fraction",
             "traffic_probabilities_active_fraction_is_ordered",
-            "traffic_lambda_flow_starts_per_s"
+            "traffic_lambda_flow_starts_per_s",
+            "traffic_lazy_arrivals",
+            "traffic_plan_shards",
+            "traffic_arrival_process",
+            "traffic_rate_schedule",
+            "traffic_rate_schedule_interpolation",
+            "traffic_mmpp_rates",
+            "traffic_mmpp_mean_sojourn_ns"
 
     };
 
@@ -68,8 +86,14 @@ public class BaseAllowedProperties {
             "traffic_flow_size_dist_uniform_mean_bytes",
             "traffic_flow_size_dist_pareto_shape",
             "traffic_flow_size_dist_pareto_mean_kilobytes",
+            "traffic_flow_size_dist_cdf_file",
+            "traffic_flow_size_dist_cdf_interpolation",
             "traffic_pareto_skew_shape",
 
+            // Trace replay traffic
+            "traffic_trace_file",
+            "traffic_trace_window_ns",
+
             // Flowlet
             "FLOWLET_GAP_NS",
 
@@ -124,6 +148,11 @@ public class BaseAllowedProperties {
             "DCTCP_WEIGHT_NEW_ESTIMATION",
             "enable_log_congestion_window",
             "enable_log_packet_burst_gap",
+            "enable_log_max_flowlet",
+
+            // UDP
+            "UDP_RATE_BIT_PER_S",
+            "UDP_PACING_INTERVAL_NS",
 
             // K-shortest-paths
             "k_for_k_shortest_paths",
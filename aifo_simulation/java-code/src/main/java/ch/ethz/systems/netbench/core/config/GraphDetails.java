@@ -29,7 +29,8 @@ public class GraphDetails {
 
     /**
      * Get the identifying hash for the this topology.
-     * The identifying hash is the SHA-1 hash of the topology file's content.
+     * The identifying hash is the SHA-1 hash of the topology file's content, or for
+     * a topology extended in memory, the SHA-1 hash derived from that of the original and the extension.
      *
      * @return  Topology identifying hash
      */
@@ -282,6 +282,19 @@ public class NBProperties extends Properties {
         return graphDetails;
     }
 
+    /**
+     * Override the topology with a graph and its details which are already in memory
+     * (e.g. extended with servers), instead of the one read from file.
+     *
+     * @param graph     Graph instance of the topology
+     * @param details   Graph details
+     */
+    public void overrideGraph(Graph graph, GraphDetails details) {
+        this.graph = graph;
+        this.graphDetails = details;
+        this.graphIsRead = true;
+    }
+
     /**
      * Read in the graph and its details.
      */
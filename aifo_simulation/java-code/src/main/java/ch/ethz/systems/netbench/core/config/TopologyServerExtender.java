@@ -2,21 +2,33 @@ package ch.ethz.systems.netbench.core.config;
 
 import edu.asu.emit.algorithm.graph.Graph;
 import edu.asu.emit.algorithm.graph.Vertex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class TopologyServerExtender {
 
-    private String topologyFileNameIn;
-    private String topologyFileNameOut;
+    private final String topologyFileNameIn;
+    private final String topologyFileNameOut;
+
+    // Background writing of the output topology file
+    private Thread writer;
+    private volatile RuntimeException writeFailure;
 
     public TopologyServerExtender(String topologyFileNameIn, String topologyFileNameOut) {
         this.topologyFileNameIn = topologyFileNameIn;
         this.topologyFileNameOut = topologyFileNameOut;
+        this.writer = null;
+        this.writeFailure = null;
     }
 
     /**
@@ -30,26 +42,164 @@ public class TopologyServerExtender {
 
         // Read in original graph to extend
         Pair<Graph, GraphDetails> original = GraphReader.read(topologyFileNameIn);
-        Graph graph = original.getLeft();
-        GraphDetails details = original.getRight();
+        checkExtendable(original.getRight());
+
+        System.out.println(
+                "Extending topology file \"" + topologyFileNameIn + "\" by adding " +
+                        serversPerTransportLayerNode + " servers to each ToR."
+        );
+
+        System.out.print("Writing to output topology file...");
+        writeTopologyFile(original.getLeft(), original.getRight(), serversPerTransportLayerNode);
+        System.out.println(" done.");
+
+    }
+
+    /**
+     * Extends the in-memory topology of the input topology file with servers, in the same way as
+     * {@link #extendRegular(int)}, without writing and reading back the output topology file.
+     * The extended graph has the same vertices and edges (in the same order) and the same details
+     * as the output topology file would have, except for its identifying hash, which is derived
+     * from the identifying hash of the original topology and the extension. Caches keyed by the
+     * identifying hash (e.g. the paths cache) therefore do not reuse entries which were created
+     * for the same topology read from a written output topology file.
+     *
+     * @param graph                             Graph of the input topology file
+     * @param details                           Graph details of the input topology file
+     * @param serversPerTransportLayerNode      Desired number of serves to be added to each transport layer node
+     *
+     * @return  Extended graph and its details
+     */
+    public Pair<Graph, GraphDetails> extendRegular(Graph graph, GraphDetails details, int serversPerTransportLayerNode) {
+        checkExtendable(details);
+
+        System.out.println(
+                "Extending topology \"" + topologyFileNameIn + "\" in memory by adding " +
+                        serversPerTransportLayerNode + " servers to each ToR."
+        );
+
+        int originalN = details.getNumNodes();
+        int additionalNodes = serversPerTransportLayerNode * details.getServerNodeIds().size();
+        int newN = originalN + additionalNodes;
+
+        // Details, with the sets constructed in the same order as when reading them from file
+        GraphDetails extendedDetails = new GraphDetails(
+                details.getIdHash() == null ? null : DigestUtils.sha1Hex(details.getIdHash() + ":extend_regular:" + serversPerTransportLayerNode)
+        );
+        extendedDetails.setNumNodes(newN);
+        extendedDetails.setNumEdges(details.getNumEdges() + additionalNodes * 2);
+        extendedDetails.setIsAutoExtended();
+        Set<Integer> servers = new HashSet<>();
+        for (int i = originalN; i < newN; i++) {
+            servers.add(i);
+        }
+        extendedDetails.setServerNodeIds(servers);
+        extendedDetails.setSwitchNodeIds(copyInOrder(details.getSwitchNodeIds()));
+        extendedDetails.setTorNodeIds(copyInOrder(details.getTorNodeIds()));
+
+        // Original links
+        List<Pair<Integer, Integer>> linkDirectedPairs = new ArrayList<>();
+        for (Vertex v : graph.getVertexList()) {
+            for (Vertex w : graph.getAdjacentVertices(v)) {
+                linkDirectedPairs.add(new ImmutablePair<>(v.getId(), w.getId()));
+            }
+        }
+
+        // Extended links
+        int addedSoFar = 0;
+        for (Integer nodeId : details.getTorNodeIds()) {
+            for (int s = 0; s < serversPerTransportLayerNode; s++) {
+                linkDirectedPairs.add(new ImmutablePair<>(originalN + addedSoFar, nodeId));
+                linkDirectedPairs.add(new ImmutablePair<>(nodeId, originalN + addedSoFar));
+                extendedDetails.saveTorHasServer(nodeId, originalN + addedSoFar);
+                addedSoFar++;
+            }
+        }
+
+        return new ImmutablePair<>(new Graph(newN, linkDirectedPairs), extendedDetails);
+    }
+
+    /**
+     * Start writing the output topology file of the extension of the given topology in the background.
+     * Use {@link #awaitWritten()} to wait until it is finished.
+     *
+     * @param graph                             Graph of the input topology file
+     * @param details                           Graph details of the input topology file
+     * @param serversPerTransportLayerNode      Desired number of serves to be added to each transport layer node
+     */
+    public void startWriting(final Graph graph, final GraphDetails details, final int serversPerTransportLayerNode) {
+        if (writer != null) {
+            throw new IllegalStateException("TopologyServerExtender: output topology file is already being written.");
+        }
+        writer = new Thread(() -> {
+            try {
+                writeTopologyFile(graph, details, serversPerTransportLayerNode);
+            } catch (RuntimeException e) {
+                writeFailure = e;
+            }
+        }, "topology-extension-writer");
+        writer.start();
+    }
 
-        // Check that the graph can be extended
+    /**
+     * Wait until the output topology file started by {@link #startWriting(Graph, GraphDetails, int)} is written.
+     * Fails if writing it failed.
+     */
+    public void awaitWritten() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("TopologyServerExtender: interrupted while writing " + topologyFileNameOut);
+        }
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    /**
+     * Check that the graph can be extended.
+     *
+     * @param details   Graph details
+     */
+    private static void checkExtendable(GraphDetails details) {
         if (!details.getTorNodeIds().equals(details.getServerNodeIds())) {
             throw new IllegalArgumentException(
                     "Only a topology of which all its ToRs are marked as servers, " +
                             "and nothing else, is possible to be extended."
             );
         }
+    }
 
-        try {
-
-            System.out.println(
-                    "Extending topology file \"" + topologyFileNameIn + "\" by adding " +
-                            serversPerTransportLayerNode + " servers to each ToR."
-            );
+    /**
+     * Copy a set by adding its elements in iteration order, as reading it from
+     * a written set(...) would.
+     *
+     * @param ids   Set of identifiers
+     *
+     * @return  Copy of the set
+     */
+    private static Set<Integer> copyInOrder(Set<Integer> ids) {
+        Set<Integer> copy = new HashSet<>();
+        for (Integer id : ids) {
+            copy.add(id);
+        }
+        return copy;
+    }
 
+    /**
+     * Write the output topology file of the extension of a topology.
+     *
+     * @param graph                             Graph of the input topology file
+     * @param details                           Graph details of the input topology file
+     * @param serversPerTransportLayerNode      Desired number of serves to be added to each transport layer node
+     */
+    private void writeTopologyFile(Graph graph, GraphDetails details, int serversPerTransportLayerNode) {
 
-            System.out.print("Writing to output topology file...");
+        try {
 
             // Open output file stream
             BufferedWriter outputWriter = new BufferedWriter(new FileWriter(topologyFileNameOut));
@@ -92,8 +242,6 @@ public class TopologyServerExtender {
             // Close output file stream
             outputWriter.close();
 
-            System.out.println(" done.");
-
         } catch (IOException e) {
             throw new RuntimeException("TopologyServerExtender: failed to read/write a topology file: " + e.getMessage());
         }
@@ -0,0 +1,212 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low-overhead profiler of the simulator event loop.
+ *
+ * Counts the triggered events per event class, measures the wall-clock
+ * cost of a sample of them and tracks the event queue depth over time.
+ * The sample is taken per event class: its first {@link #SAMPLE_FIRST}
+ * triggers, and then one in every {@link #SAMPLE_INTERVAL} of its triggers,
+ * such that rare event classes are measured as well, and event classes that
+ * alternate in a fixed cycle do not alias with the sampling stride. The result is written
+ * to <i>engine_profile.log</i> at the end of the run.
+ */
+public class EngineProfiler {
+
+    // Number of first triggers of an event class of which the cost is always measured
+    private static final long SAMPLE_FIRST = 16;
+
+    // Every how many triggers of an event class the cost is measured after the first (power of two)
+    private static final long SAMPLE_INTERVAL = 64;
+
+    // Per event class statistics
+    private final Map<Class<?>, EventClassStatistics> statistics;
+    private Class<?> lastEventClass;
+    private EventClassStatistics lastStatistics;
+
+    // Totals
+    private long totalEvents;
+    private long startWallNs;
+    private long endWallNs;
+    private long simulatedNs;
+
+    // Queue depth over time
+    private final List<long[]> queueDepthSamples;
+
+    public EngineProfiler() {
+        this.statistics = new HashMap<>();
+        this.queueDepthSamples = new ArrayList<>();
+        this.totalEvents = 0;
+    }
+
+    /**
+     * Mark the start of the event loop.
+     */
+    public void start() {
+        this.startWallNs = System.nanoTime();
+    }
+
+    /**
+     * Trigger the event, recording its class and (sampled) cost.
+     *
+     * @param event     Event instance
+     */
+    public void trigger(Event event) {
+
+        // Resolve statistics of the class (consecutive events are often of the same class)
+        Class<?> eventClass = event.getClass();
+        EventClassStatistics stats;
+        if (eventClass == lastEventClass) {
+            stats = lastStatistics;
+        } else {
+            stats = statistics.get(eventClass);
+            if (stats == null) {
+                stats = new EventClassStatistics(eventClass.getSimpleName());
+                statistics.put(eventClass, stats);
+            }
+            lastEventClass = eventClass;
+            lastStatistics = stats;
+        }
+        stats.count++;
+        totalEvents++;
+
+        // Only measure a sample of the events of the class
+        if (stats.count <= SAMPLE_FIRST || (stats.count & (SAMPLE_INTERVAL - 1)) == 0) {
+            long before = System.nanoTime();
+            event.trigger();
+            stats.sampledNs += System.nanoTime() - before;
+            stats.sampledCount++;
+        } else {
+            event.trigger();
+        }
+
+    }
+
+    /**
+     * Retrieve the number of measured triggers of an event class.
+     *
+     * @param eventClass    Event class
+     *
+     * @return  Number of measured triggers (0 if it was never triggered)
+     */
+    long getSampledCount(Class<?> eventClass) {
+        EventClassStatistics stats = statistics.get(eventClass);
+        return stats == null ? 0 : stats.sampledCount;
+    }
+
+    /**
+     * Retrieve the total measured cost of the triggers of an event class.
+     *
+     * @param eventClass    Event class
+     *
+     * @return  Measured wall-clock time in nanoseconds (0 if it was never triggered)
+     */
+    long getSampledNs(Class<?> eventClass) {
+        EventClassStatistics stats = statistics.get(eventClass);
+        return stats == null ? 0 : stats.sampledNs;
+    }
+
+    /**
+     * Record the depth of the event queue at the current simulation time.
+     *
+     * @param simulationTimeNs      Current simulation time in nanoseconds
+     * @param queueDepth            Number of events in the queue
+     */
+    public void logQueueDepth(long simulationTimeNs, int queueDepth) {
+        queueDepthSamples.add(new long[]{simulationTimeNs, queueDepth, (System.nanoTime() - startWallNs) / 1000000L});
+    }
+
+    /**
+     * Mark the end of the event loop.
+     *
+     * @param simulatedNs   Amount of simulated nanoseconds
+     */
+    public void finish(long simulatedNs) {
+        this.endWallNs = System.nanoTime();
+        this.simulatedNs = simulatedNs;
+    }
+
+    /**
+     * Write the profile to <i>engine_profile.log</i> in the run folder.
+     */
+    public void write() {
+        try {
+            BufferedWriter writer = SimulationLogger.getExternalWriter("engine_profile.log");
+
+            // Totals
+            double wallS = (endWallNs - startWallNs) / 1e9;
+            writer.write("Total events: " + totalEvents + "\n");
+            writer.write("Wall time (s): " + wallS + "\n");
+            writer.write("Events per wall second: " + (wallS > 0 ? totalEvents / wallS : 0) + "\n");
+            writer.write("Simulated ns per wall second: " + (wallS > 0 ? simulatedNs / wallS : 0) + "\n");
+            writer.write("\n");
+
+            // Per event class, sorted on estimated total cost
+            List<EventClassStatistics> all = new ArrayList<>(statistics.values());
+            Collections.sort(all, new Comparator<EventClassStatistics>() {
+                @Override
+                public int compare(EventClassStatistics o1, EventClassStatistics o2) {
+                    return Double.compare(o2.getEstimatedTotalNs(), o1.getEstimatedTotalNs());
+                }
+            });
+            writer.write(String.format("%-40s%-14s%-10s%-16s%s\n", "Event class", "Count", "Share", "Mean (ns)", "Est. total (ms)"));
+            for (EventClassStatistics stats : all) {
+                writer.write(String.format(
+                        "%-40s%-14d%-10s%-16.1f%.1f\n",
+                        stats.name,
+                        stats.count,
+                        String.format("%.2f%%", totalEvents == 0 ? 0.0 : stats.count * 100.0 / totalEvents),
+                        stats.getMeanNs(),
+                        stats.getEstimatedTotalNs() / 1e6
+                ));
+            }
+            writer.write("\n");
+
+            // Queue depth over time
+            writer.write("simulation_time_ns,queue_depth,wall_time_ms\n");
+            for (long[] sample : queueDepthSamples) {
+                writer.write(sample[0] + "," + sample[1] + "," + sample[2] + "\n");
+            }
+            writer.flush();
+
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    /**
+     * Statistics of a single event class.
+     */
+    private static class EventClassStatistics {
+
+        private final String name;
+        private long count;
+        private long sampledCount;
+        private long sampledNs;
+
+        private EventClassStatistics(String name) {
+            this.name = name;
+        }
+
+        private double getMeanNs() {
+            return sampledCount == 0 ? 0.0 : (double) sampledNs / sampledCount;
+        }
+
+        private double getEstimatedTotalNs() {
+            return getMeanNs() * count;
+        }
+
+    }
+
+}
@@ -2,8 +2,6 @@ package ch.ethz.systems.netbench.core.log;
 
 import ch.ethz.systems.netbench.core.Simulator;
 
-import static ch.ethz.systems.netbench.core.Simulator.getConfiguration;
-
 public class FlowLogger {
 
     // Every how many packets does it write the interval
@@ -47,7 +45,7 @@ public class FlowLogger {
         }
 
         // True iff the flow throughput is enabled (or defaulted)
-        flowThroughputEnabled = getConfiguration().getBooleanPropertyWithDefault("enable_log_flow_throughput", true);
+        flowThroughputEnabled = SimulationLogger.hasFlowThroughputEnabled();
 
     }
 
@@ -71,7 +69,7 @@ public class FlowLogger {
         this.flowSizeByte = realFlowSizeByte;
         flowSizeByte = realFlowSizeByte;
         // True iff the flow throughput is enabled (or defaulted)
-        flowThroughputEnabled = getConfiguration().getBooleanPropertyWithDefault("enable_log_flow_throughput", true);
+        flowThroughputEnabled = SimulationLogger.hasFlowThroughputEnabled();
 
     }
 
@@ -96,7 +94,7 @@ public class FlowLogger {
         this.sourcePort = sourcePort;
         this.destinationPort = destinationPort;
         // True iff the flow throughput is enabled (or defaulted)
-        flowThroughputEnabled = getConfiguration().getBooleanPropertyWithDefault("enable_log_flow_throughput", true);
+        flowThroughputEnabled = SimulationLogger.hasFlowThroughputEnabled();
 
     }
 
@@ -123,7 +121,7 @@ public class FlowLogger {
         this.sourcePort = sourcePort;
         this.destinationPort = destinationPort;
         // True iff the flow throughput is enabled (or defaulted)
-        flowThroughputEnabled = getConfiguration().getBooleanPropertyWithDefault("enable_log_flow_throughput", true);
+        flowThroughputEnabled = SimulationLogger.hasFlowThroughputEnabled();
 
     }
 
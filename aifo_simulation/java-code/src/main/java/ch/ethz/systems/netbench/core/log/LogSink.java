@@ -0,0 +1,104 @@
+package ch.ethz.systems.netbench.core.log;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Log stream in the run folder, declared together with whether it is enabled.
+ *
+ * The underlying file is only opened on the first actual write, and
+ * a disabled sink ignores all writes, such that disabled logs
+ * neither create files nor hold file descriptors. High-volume logs
+ * can be backed by a {@link MappedLogWriter} instead of a buffered writer.
+ * Once closed, a sink ignores all writes (it does not reopen the log).
+ */
+public class LogSink {
+
+    // Shared sink which is never enabled
+    public static final LogSink DISABLED = new LogSink(null, null, false, false);
+
+    // Log file
+    private final String runFolder;
+    private final String logFileName;
+    private final boolean enabled;
+    private final boolean memoryMapped;
+    private Writer writer;
+    private boolean closed;
+
+    /**
+     * Create a log sink.
+     *
+     * @param runFolder     Run folder in which the log file is placed
+     * @param logFileName   Log file name
+     * @param enabled       True iff the log is enabled
+     * @param memoryMapped  True iff the log is written via memory-mapped segments
+     */
+    LogSink(String runFolder, String logFileName, boolean enabled, boolean memoryMapped) {
+        this.runFolder = runFolder;
+        this.logFileName = logFileName;
+        this.enabled = enabled;
+        this.memoryMapped = memoryMapped;
+        this.writer = null;
+        this.closed = false;
+    }
+
+    /**
+     * Check whether the sink is enabled. Callers can use this to avoid
+     * formatting a log line which would be thrown away anyway.
+     *
+     * @return  True iff writes end up in the log file
+     */
+    public boolean isEnabled() {
+        return enabled && !closed;
+    }
+
+    /**
+     * Check whether the log is written via memory-mapped segments.
+     *
+     * @return  True iff memory-mapped
+     */
+    boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Write a string to the log (opening it if it is the first write).
+     *
+     * @param s     String to write
+     */
+    public void write(String s) {
+        if (!enabled || closed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                if (memoryMapped) {
+                    writer = new MappedLogWriter(runFolder + "/" + logFileName);
+                } else {
+                    writer = new BufferedWriter(new FileWriter(runFolder + "/" + logFileName));
+                }
+            }
+            writer.write(s);
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    /**
+     * Close the log (if it was ever opened). Later writes are ignored.
+     */
+    void close() {
+        closed = true;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new LogFailureException(e);
+            }
+            writer = null;
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package ch.ethz.systems.netbench.core.log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only log writer which writes directly into memory-mapped
+ * segments of the log file, instead of going through a {@link java.io.BufferedWriter}.
+ *
+ * The file is mapped in fixed-size segments; when a segment is full, it is
+ * unmapped and the next segment is mapped. Characters are encoded as UTF-8.
+ * On close, the last segment is unmapped and the file is truncated to the
+ * amount actually written.
+ */
+public class MappedLogWriter extends Writer {
+
+    // Default size of a mapped segment
+    public static final int DEFAULT_SEGMENT_SIZE_BYTES = 64 * 1024 * 1024;
+
+    // File
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int segmentSizeBytes;
+
+    // Current segment
+    private MappedByteBuffer segment;
+    private long segmentStart;
+
+    // Scratch space to encode numbers without allocation
+    private final byte[] digits;
+
+    /**
+     * Create memory-mapped log writer with the default segment size.
+     *
+     * @param fileName  Log file name (is overwritten)
+     */
+    public MappedLogWriter(String fileName) {
+        this(fileName, DEFAULT_SEGMENT_SIZE_BYTES);
+    }
+
+    /**
+     * Create memory-mapped log writer.
+     *
+     * @param fileName          Log file name (is overwritten)
+     * @param segmentSizeBytes  Size of each mapped segment in bytes
+     */
+    public MappedLogWriter(String fileName, int segmentSizeBytes) {
+        if (segmentSizeBytes <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSizeBytes);
+        }
+        try {
+            this.file = new RandomAccessFile(fileName, "rw");
+            this.file.setLength(0);
+            this.channel = file.getChannel();
+            this.segmentSizeBytes = segmentSizeBytes;
+            this.segmentStart = 0;
+            this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+            this.digits = new byte[20];
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    /**
+     * Map the segment directly following the current one.
+     */
+    private void nextSegment() throws IOException {
+        segmentStart += segment.position();
+        unmap(segment);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, segmentSizeBytes);
+    }
+
+    /**
+     * Release a mapped segment right away instead of when it is garbage collected,
+     * such that the file can be truncated (which is not possible while it is mapped
+     * on some platforms). The segment must not be used afterwards.
+     *
+     * If the platform does not allow it, the segment is left to the garbage collector.
+     *
+     * @param buffer    Mapped segment
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {
+            try {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Left to the garbage collector
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Left to the garbage collector
+        }
+    }
+
+    /**
+     * Write a pre-encoded record.
+     *
+     * @param record    Record bytes
+     * @param off       Offset in the record array
+     * @param len       Amount of bytes to write
+     */
+    public void write(byte[] record, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!segment.hasRemaining()) {
+                nextSegment();
+            }
+            int n = Math.min(len, segment.remaining());
+            segment.put(record, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Write the decimal representation of a long value without allocating.
+     *
+     * @param value     Value
+     */
+    public void writeDecimal(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        int i = digits.length;
+        boolean negative = value < 0;
+        long v = negative ? -value : value;
+        do {
+            digits[--i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (negative) {
+            digits[--i] = '-';
+        }
+        write(digits, i, digits.length - i);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c >= 0x80) {
+            write(String.valueOf((char) c));
+            return;
+        }
+        if (!segment.hasRemaining()) {
+            nextSegment();
+        }
+        segment.put((byte) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        byte[] bytes = new String(cbuf, off, len).getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        byte[] bytes = (off == 0 && len == str.length() ? str : str.substring(off, off + len)).getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Retrieve the amount of bytes written so far.
+     *
+     * @return  Bytes written
+     */
+    public long getSizeBytes() {
+        return segmentStart + segment.position();
+    }
+
+    @Override
+    public void flush() {
+        // Writes are directly in the mapped memory, the OS takes care of writing it back
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (segment == null) {
+            return;
+        }
+        long size = getSizeBytes();
+        unmap(segment);
+        segment = null;
+        channel.truncate(size);
+        channel.close();
+        file.close();
+    }
+
+}
@@ -30,7 +30,7 @@ public class PortLogger {
         this.targetId = port.getTargetId();
         this.attachedToServer = port.getOwnDevice().isServer() || port.getTargetDevice().isServer();
         SimulationLogger.registerPortLogger(this);
-        this.logQueueStateEnabled = Simulator.getConfiguration().getBooleanPropertyWithDefault("enable_log_port_queue_state", false);
+        this.logQueueStateEnabled = SimulationLogger.hasPortQueueStateEnabled();
     }
 
     /**
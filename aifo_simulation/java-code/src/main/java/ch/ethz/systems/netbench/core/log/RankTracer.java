@@ -0,0 +1,69 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.xpt.tcpbase.PriorityHeader;
+
+import java.util.Set;
+
+/**
+ * Rank trace of the packets dispatched by a single output port.
+ *
+ * A tracer only exists for the ports selected by <i>rank_trace_ports</i>
+ * (see {@link SimulationLogger#getRankTracer(int, int)}), such that
+ * untraced ports do not pay for tracing at all. Each record
+ * is written to the binary <i>rank_trace.bin</i> stream.
+ */
+public class RankTracer {
+
+    // Port information
+    private final int ownId;
+    private final int targetId;
+
+    // Selection
+    private final Set<Long> flowIds;
+    private final double sampleRate;
+    private double sampleCredit;
+
+    /**
+     * Create rank tracer for a port.
+     *
+     * @param ownId         Port source network device identifier
+     * @param targetId      Port target network device identifier
+     * @param flowIds       Flow identifiers to trace (null to trace all flows)
+     * @param sampleRate    Fraction of the selected packets to trace, in (0, 1]
+     */
+    RankTracer(int ownId, int targetId, Set<Long> flowIds, double sampleRate) {
+        this.ownId = ownId;
+        this.targetId = targetId;
+        this.flowIds = flowIds;
+        this.sampleRate = sampleRate;
+        this.sampleCredit = 1.0 - sampleRate; // First selected packet is always traced
+    }
+
+    /**
+     * Trace the packet dispatched by the port.
+     *
+     * @param packet    Packet instance
+     */
+    public void trace(Packet packet) {
+
+        // Flow selection
+        if (flowIds != null && !flowIds.contains(packet.getFlowId())) {
+            return;
+        }
+
+        // Deterministic sampling
+        sampleCredit += sampleRate;
+        if (sampleCredit < 1.0) {
+            return;
+        }
+        sampleCredit -= 1.0;
+
+        // Rank is only known for packets carrying a priority
+        long rank = (packet instanceof PriorityHeader ? ((PriorityHeader) packet).getPriority() : -1);
+        SimulationLogger.logRankTrace(ownId, targetId, packet.getFlowId(), rank, Simulator.getCurrentTime());
+
+    }
+
+}
@@ -2,10 +2,13 @@ package ch.ethz.systems.netbench.core.log;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
-import ch.ethz.systems.netbench.core.run.MainFromProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import org.apache.commons.io.output.TeeOutputStream;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -18,33 +21,39 @@ public class SimulationLogger {
     // Access to files for logging (are kept open during simulation run)
     private static BufferedWriter writerRunInfoFile;
     private static BufferedWriter writerFlowCompletionCsvFile;
-    private static BufferedWriter writerFlowThroughputFile;
     private static BufferedWriter writerFlowCompletionFile;
-    private static BufferedWriter writerPortQueueStateFile;
     private static BufferedWriter writerPortUtilizationFile;
     private static BufferedWriter writerPortUtilizationCsvFile;
-    private static BufferedWriter writerWindowLengthFile;
     private static Map<String, BufferedWriter> writersAdded = new HashMap<>();
+    private static Map<String, MappedLogWriter> mappedWritersAdded = new HashMap<>();
+
+    // Optional logs (only opened on their first write, if enabled)
+    private static Map<String, LogSink> logSinks = new HashMap<>();
+    private static Set<String> memoryMappedLogs = new HashSet<>();
+    private static LogSink sinkFlowThroughput = LogSink.DISABLED;
+    private static LogSink sinkPortQueueState = LogSink.DISABLED;
+    private static LogSink sinkWindowLength = LogSink.DISABLED;
 
     // SP-PIFO Extension
-    private static BufferedWriter writerRanktoQueuesMapping;
-    private static boolean rankMappingEnabled;
-    private static BufferedWriter writerQueueBoundTracking;
-    private static boolean queueBoundTrackingEnabled;
-    private static BufferedWriter writerUnpifonessTracking;
-    private static boolean unpifonessTrackingEnabled;
-    private static BufferedWriter writerInversionsTracking;
-    private static boolean inversionsTrackingEnabled;
+    private static LogSink sinkRankToQueuesMapping = LogSink.DISABLED;
+    private static LogSink sinkQueueBoundTracking = LogSink.DISABLED;
+    private static LogSink sinkUnpifonessTracking = LogSink.DISABLED;
+    private static LogSink sinkInversionsTracking = LogSink.DISABLED;
 
     // Specific component loggers
     private static List<PortLogger> portLoggers = new ArrayList<>();
     private static List<FlowLogger> flowLoggers = new ArrayList<>();
     private static List<LoggerCallback> callbacks = new ArrayList<>();
 
-    // Statistic counters
-    private static Map<String, Long> statisticCounters = new HashMap<>();
+    // Statistic counters (handles stay valid across runs, values are reset on close)
+    private static Map<String, StatisticCounter> statisticCounters = new HashMap<>();
+    private static List<StatisticCounter> scopedStatisticCounters = new ArrayList<>();
 
-    private static BufferedWriter writerRankReceived;
+    // Rank trace (binary records: ownId, targetId, flowId, rank, timeNs)
+    private static Set<Long> rankTracePorts;
+    private static Set<Long> rankTraceFlows;
+    private static double rankTraceSampleRate;
+    private static DataOutputStream rankTraceStream;
 
     // Print streams used
     private static PrintStream originalOutOutputStream;
@@ -53,19 +62,59 @@ public class SimulationLogger {
 
     // Settings
     private static boolean logHumanReadableFlowCompletionEnabled;
+    private static boolean statisticBreakdownEnabled;
+
+    // Phases of the flow arrival process (flows are attributed to the phase their start falls in)
+    private static long[] flowStartPhaseStartNs;
+    private static String[] flowStartPhaseLabels;
 
     /**
      * Increase a basic statistic counter with the given name by one.
      *
+     * Prefer resolving a {@link StatisticCounter} handle once via
+     * {@link #getStatisticCounter(String)} on frequently occurring paths.
+     *
      * @param name  Statistic name
      */
     public static void increaseStatisticCounter(String name) {
-        Long val = statisticCounters.get(name);
-        if (val == null) {
-            statisticCounters.put(name, 1L);
-        } else {
-            statisticCounters.put(name, val + 1L);
+        getStatisticCounter(name).increase();
+    }
+
+    /**
+     * Retrieve the handle of the basic statistic counter with the given name.
+     * The handle remains valid for all subsequent runs.
+     *
+     * @param name  Statistic name
+     *
+     * @return  Statistic counter handle
+     */
+    public static StatisticCounter getStatisticCounter(String name) {
+        StatisticCounter counter = statisticCounters.get(name);
+        if (counter == null) {
+            counter = new StatisticCounter(name, null, null);
+            statisticCounters.put(name, counter);
         }
+        return counter;
+    }
+
+    /**
+     * Retrieve a handle of the basic statistic counter with the given name for a specific scope
+     * (e.g. a port or a device). If the statistic breakdown is enabled (<i>enable_log_statistic_breakdown</i>),
+     * the scoped value is written to <i>statistics_breakdown.log</i>; the aggregate counter is always increased.
+     *
+     * @param name      Statistic name
+     * @param scope     Scope description (e.g. "port 3->7")
+     *
+     * @return  Statistic counter handle
+     */
+    public static StatisticCounter getStatisticCounter(String name, String scope) {
+        StatisticCounter aggregate = getStatisticCounter(name);
+        if (!statisticBreakdownEnabled) {
+            return aggregate;
+        }
+        StatisticCounter counter = new StatisticCounter(name, scope, aggregate);
+        scopedStatisticCounters.add(counter);
+        return counter;
     }
 
     /**
@@ -113,9 +162,21 @@ public class SimulationLogger {
      */
     public static void open(NBProperties tempRunConfiguration) {
 
-        // Settings
+        // Flow start phases are registered anew by each run
+        flowStartPhaseStartNs = null;
+        flowStartPhaseLabels = null;
+
+        // Settings (defaults also apply when opened without run configuration)
+        statisticBreakdownEnabled = false;
+        memoryMappedLogs.clear();
         String specificRunFolderName = null;
         String specificRunFolderBaseDirectory = null;
+        boolean flowThroughputEnabled = true;
+        boolean portQueueStateEnabled = false;
+        boolean rankMappingEnabled = false;
+        boolean queueBoundTrackingEnabled = false;
+        boolean unpifonessTrackingEnabled = false;
+        boolean inversionsTrackingEnabled = false;
         if (tempRunConfiguration != null) {
             // logPacketBurstGapEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_log_packet_burst_gap", false);
 
@@ -126,11 +187,28 @@ public class SimulationLogger {
             // Enabling human readable version
             logHumanReadableFlowCompletionEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_generate_human_readable_flow_completion_log", true);
 
+            // Per-port/per-device breakdown of the statistic counters
+            statisticBreakdownEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_log_statistic_breakdown", false);
+
+            // Optional logs
+            flowThroughputEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_log_flow_throughput", true);
+            portQueueStateEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_log_port_queue_state", false);
+
+            // Optional logs which are written via memory-mapped segments, e.g. "congestion_window.csv.log,flow_throughput.csv.log"
+            for (String logFileName : tempRunConfiguration.getPropertyWithDefault("log_memory_mapped_files", "").split(",")) {
+                if (!logFileName.trim().isEmpty()) {
+                    memoryMappedLogs.add(logFileName.trim());
+                }
+            }
+
             // SP-PIFO: Enabling logs
             rankMappingEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_rank_mapping", false);
             queueBoundTrackingEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_queue_bound_tracking", false);
             unpifonessTrackingEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_unpifoness_tracking", false);
             inversionsTrackingEnabled = tempRunConfiguration.getBooleanPropertyWithDefault("enable_inversions_tracking", false);
+
+            // Rank trace selection
+            readRankTraceSelection(tempRunConfiguration);
         }
 
         // Overwrite if run folder name was specified in run configuration
@@ -166,25 +244,22 @@ public class SimulationLogger {
             writerRunInfoFile = openWriter("initialization.info");
 
             // Port log writers
-            writerPortQueueStateFile = openWriter("port_queue_length.csv.log");
+            sinkPortQueueState = getLogSink("port_queue_length.csv.log", portQueueStateEnabled);
             writerPortUtilizationCsvFile = openWriter("port_utilization.csv.log");
             writerPortUtilizationFile = openWriter("port_utilization.log");
 
-            // SP-PIFO log writers
-            writerRanktoQueuesMapping = openWriter("rank_mapping.csv.log");
-            writerQueueBoundTracking = openWriter("queuebound_tracking.csv.log");
-            writerUnpifonessTracking = openWriter("unpifoness_tracking.csv.log");
-            writerInversionsTracking = openWriter("inversions_tracking.csv.log");
+            // SP-PIFO log sinks
+            sinkRankToQueuesMapping = getLogSink("rank_mapping.csv.log", rankMappingEnabled);
+            sinkQueueBoundTracking = getLogSink("queuebound_tracking.csv.log", queueBoundTrackingEnabled);
+            sinkUnpifonessTracking = getLogSink("unpifoness_tracking.csv.log", unpifonessTrackingEnabled);
+            sinkInversionsTracking = getLogSink("inversions_tracking.csv.log", inversionsTrackingEnabled);
 
             // Flow log writers
-            writerFlowThroughputFile = openWriter("flow_throughput.csv.log");
+            sinkFlowThroughput = getLogSink("flow_throughput.csv.log", flowThroughputEnabled);
             writerFlowCompletionCsvFile = openWriter("flow_completion.csv.log");
             writerFlowCompletionFile = openWriter("flow_completion.log");
 
-            writerWindowLengthFile = openWriter("window_length.log");
-
-            writerRankReceived = openWriter("rank_at_10.log");
-            writerRankReceived.write("rankx" + "   " + "flowid" + "   "+ "timex"+"\n");
+            sinkWindowLength = getLogSink("window_length.log", true);
 
             // Writer out the final properties' values
             if (tempRunConfiguration != null) {
@@ -241,6 +316,42 @@ public class SimulationLogger {
         return writer;
     }
 
+    /**
+     * Create (or fetch) an external memory-mapped writer, which can be used for your own
+     * high-volume personal logs (see {@link MappedLogWriter}).
+     *
+     * @param logFileName   Log file name
+     *
+     * @return Writer instance (already opened, is automatically closed when calling {@link #close()})
+     */
+    public static MappedLogWriter getExternalMappedWriter(String logFileName) {
+        MappedLogWriter writer = mappedWritersAdded.get(logFileName);
+        if (writer == null) {
+            writer = new MappedLogWriter(getRunFolderFull() + "/" + logFileName);
+            mappedWritersAdded.put(logFileName, writer);
+        }
+        return writer;
+    }
+
+    /**
+     * Declare (or fetch, if already declared in this run) an optional log in the run folder.
+     * The log file is only created on the first write, and writes are ignored if it is not enabled.
+     * Logs listed in <i>log_memory_mapped_files</i> are written via memory-mapped segments.
+     *
+     * @param logFileName   Log file name
+     * @param enabled       True iff the log is enabled (only used by the first declaration)
+     *
+     * @return Log sink (is automatically closed when calling {@link #close()})
+     */
+    public static LogSink getLogSink(String logFileName, boolean enabled) {
+        LogSink sink = logSinks.get(logFileName);
+        if (sink == null) {
+            sink = new LogSink(getRunFolderFull(), logFileName, enabled, memoryMappedLogs.contains(logFileName));
+            logSinks.put(logFileName, sink);
+        }
+        return sink;
+    }
+
     /**
      * Log summaries and close log file writers.
      */
@@ -254,46 +365,75 @@ public class SimulationLogger {
 
         // Most important logs
         logFlowSummary();
+        logFlowPhaseSummary();
         logPortUtilization();
 
         try {
 
-            // Write basic statistics about the run
+            // Write basic statistics about the run (only counters which occurred)
             BufferedWriter writerStatistics = openWriter("statistics.log");
             ArrayList<String> stats = new ArrayList<>();
             stats.addAll(statisticCounters.keySet());
             Collections.sort(stats);
             for (String s : stats) {
-                writerStatistics.write(s + ": " + statisticCounters.get(s) + "\n");
+                StatisticCounter counter = statisticCounters.get(s);
+                if (counter.getValue() != 0) {
+                    writerStatistics.write(s + ": " + counter.getValue() + "\n");
+                }
+                counter.reset();
             }
-            statisticCounters.clear();
             writerStatistics.close();
 
+            // Write the per-scope breakdown of the statistics
+            if (statisticBreakdownEnabled) {
+                BufferedWriter writerStatisticsBreakdown = openWriter("statistics_breakdown.log");
+                for (StatisticCounter counter : scopedStatisticCounters) {
+                    if (counter.getValue() != 0) {
+                        writerStatisticsBreakdown.write(counter.getName() + " [" + counter.getScope() + "]: " + counter.getValue() + "\n");
+                    }
+                }
+                writerStatisticsBreakdown.close();
+            }
+            scopedStatisticCounters.clear();
+            statisticBreakdownEnabled = false;
+
             // Close *all* the running log files
             writerRunInfoFile.close();
             writerFlowCompletionCsvFile.close();
-            writerFlowThroughputFile.close();
-            writerPortQueueStateFile.close();
             writerPortUtilizationFile.close();
             writerPortUtilizationCsvFile.close();
             writerFlowCompletionFile.close();
 
-            writerWindowLengthFile.close();
-
-            // SP-PIFO: Close log files
-            writerRanktoQueuesMapping.close();
-            writerQueueBoundTracking.close();
-            writerUnpifonessTracking.close();
-            writerInversionsTracking.close();
-
-            writerRankReceived.close();
-
+            // Optional logs (including SP-PIFO) which were opened
+            for (LogSink sink : logSinks.values()) {
+                sink.close();
+            }
+            logSinks.clear();
+            sinkFlowThroughput = LogSink.DISABLED;
+            sinkPortQueueState = LogSink.DISABLED;
+            sinkWindowLength = LogSink.DISABLED;
+            sinkRankToQueuesMapping = LogSink.DISABLED;
+            sinkQueueBoundTracking = LogSink.DISABLED;
+            sinkUnpifonessTracking = LogSink.DISABLED;
+            sinkInversionsTracking = LogSink.DISABLED;
+
+            // Rank trace is only opened if a port is traced
+            if (rankTraceStream != null) {
+                rankTraceStream.close();
+                rankTraceStream = null;
+            }
+            rankTracePorts = null;
+            rankTraceFlows = null;
 
             // Also added ones are closed automatically at the end
             for (BufferedWriter writer : writersAdded.values()) {
                 writer.close();
             }
             writersAdded.clear();
+            for (MappedLogWriter writer : mappedWritersAdded.values()) {
+                writer.close();
+            }
+            mappedWritersAdded.clear();
 
             // Set diverted print streams back
             System.out.flush();
@@ -313,45 +453,32 @@ public class SimulationLogger {
     }
 
     public static void logRankMapping(int id, long rank, long queue) {
-        try {
-            writerRanktoQueuesMapping.write(id + "," + rank + "," + queue + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkRankToQueuesMapping.isEnabled()) {
+            sinkRankToQueuesMapping.write(id + "," + rank + "," + queue + "\n");
         }
     }
 
     public static void logQueueBound(int id, int queue, int queueBound) {
-        try {
-            writerQueueBoundTracking.write(id + "," + queue + "," + queueBound + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkQueueBoundTracking.isEnabled()) {
+            sinkQueueBoundTracking.write(id + "," + queue + "," + queueBound + "\n");
         }
     }
 
     public static void logInversionsPerRank(int id, int rank, long inversion) {
-        try {
-            //System.out.println(id + "-------------"+rank+"------------"+inversion);
-            writerInversionsTracking.write(id + "," + rank + "," + inversion + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkInversionsTracking.isEnabled()) {
+            sinkInversionsTracking.write(id + "," + rank + "," + inversion + "\n");
         }
     }
 
     public static void logUnpifoness(int id, long unpifoness) {
-        try {
-            writerUnpifonessTracking.write(id + "," + unpifoness + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkUnpifonessTracking.isEnabled()) {
+            sinkUnpifonessTracking.write(id + "," + unpifoness + "\n");
         }
     }
 
 
     public static void logWindowLength(int windowLength) {
-        try {
-            writerWindowLengthFile.write(windowLength + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
-        }
+        sinkWindowLength.write(windowLength + "\n");
     }
     /**
      * Log a general parameter to indicate some information
@@ -381,10 +508,8 @@ public class SimulationLogger {
      * @param absEndTimeNs      Interval end in nanoseconds
      */
     static void logFlowThroughput(long flowId, int sourceId, int targetId, long amountBytes, long absStartTimeNs, long absEndTimeNs) {
-        try {
-            writerFlowThroughputFile.write(flowId + "," + sourceId + "," + targetId + "," + amountBytes + "," + absStartTimeNs + "," + absEndTimeNs + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkFlowThroughput.isEnabled()) {
+            sinkFlowThroughput.write(flowId + "," + sourceId + "," + targetId + "," + amountBytes + "," + absStartTimeNs + "," + absEndTimeNs + "\n");
         }
     }
 
@@ -398,10 +523,8 @@ public class SimulationLogger {
      * @param absTimeNs             Absolute timestamp in nanoseconds since simulation epoch
      */
     static void logPortQueueState(long ownId, long targetId, int queueLength, long bufferOccupiedBits, long absTimeNs) {
-        try {
-            writerPortQueueStateFile.write(ownId + "," + targetId + "," + queueLength + "," + bufferOccupiedBits + "," + absTimeNs + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (sinkPortQueueState.isEnabled()) {
+            sinkPortQueueState.write(ownId + "," + targetId + "," + queueLength + "," + bufferOccupiedBits + "," + absTimeNs + "\n");
         }
     }
 
@@ -480,6 +603,78 @@ public class SimulationLogger {
 
     }
 
+    /**
+     * Register the phases of the flow arrival process (e.g. of a time-varying
+     * rate schedule), such that the flow completion statistics are also
+     * summarized per phase. Phases with the same label are aggregated.
+     *
+     * @param phaseStartNs  Start of each phase in nanoseconds (increasing, first is 0)
+     * @param phaseLabels   Label of each phase
+     */
+    public static void registerFlowStartPhases(long[] phaseStartNs, String[] phaseLabels) {
+        if (phaseStartNs.length != phaseLabels.length || phaseStartNs.length == 0) {
+            throw new IllegalArgumentException("Flow start phases must be non-empty and have a label for each phase.");
+        }
+        flowStartPhaseStartNs = phaseStartNs.clone();
+        flowStartPhaseLabels = phaseLabels.clone();
+    }
+
+    /**
+     * Write the flow completion statistics per registered flow start phase:
+     * phase, number of flows, number completed, mean, median and 99th percentile
+     * flow completion time in nanoseconds of the completed flows.
+     */
+    private static void logFlowPhaseSummary() {
+        if (flowStartPhaseStartNs == null) {
+            return;
+        }
+
+        // Completion times per phase label (in order of first phase)
+        Map<String, List<Long>> completionTimes = new LinkedHashMap<>();
+        Map<String, Long> numFlows = new HashMap<>();
+        for (String label : flowStartPhaseLabels) {
+            completionTimes.put(label, new ArrayList<Long>());
+            numFlows.put(label, 0L);
+        }
+        for (FlowLogger logger : flowLoggers) {
+            int phase = Arrays.binarySearch(flowStartPhaseStartNs, logger.getFlowStartTime());
+            if (phase < 0) {
+                phase = Math.max(0, -phase - 2);
+            }
+            String label = flowStartPhaseLabels[phase];
+            numFlows.put(label, numFlows.get(label) + 1);
+            if (logger.isCompleted()) {
+                completionTimes.get(label).add(logger.getFlowEndTime() - logger.getFlowStartTime());
+            }
+        }
+
+        try {
+            BufferedWriter writer = openWriter("flow_completion_phases.csv.log");
+            for (Map.Entry<String, List<Long>> entry : completionTimes.entrySet()) {
+                List<Long> fcts = entry.getValue();
+                Collections.sort(fcts);
+                long sum = 0;
+                for (long fct : fcts) {
+                    sum += fct;
+                }
+                writer.write(
+                        entry.getKey() + "," +
+                                numFlows.get(entry.getKey()) + "," +
+                                fcts.size() + "," +
+                                (fcts.isEmpty() ? 0 : sum / fcts.size()) + "," +
+                                (fcts.isEmpty() ? 0 : fcts.get((fcts.size() - 1) / 2)) + "," +
+                                (fcts.isEmpty() ? 0 : fcts.get((int) Math.ceil(0.99 * fcts.size()) - 1)) + "\n"
+                );
+            }
+            writer.close();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+
+        flowStartPhaseStartNs = null;
+        flowStartPhaseLabels = null;
+    }
+
     /**
      * Print a human-readable summary of all the port utilization.
      */
@@ -543,12 +738,98 @@ public class SimulationLogger {
 
 
     /**
-     * log the rank received by server 10
-     * @param rank
+     * Read which ports and flows are selected for the rank trace.
+     *
+     * @param runConfiguration  Run configuration
      */
-    public static void logRankReceived(long flowid, long rank, long time) {
+    private static void readRankTraceSelection(NBProperties runConfiguration) {
+
+        // Ports, e.g. "144->10,145->26"
+        if (runConfiguration.isPropertyDefined("rank_trace_ports")) {
+            rankTracePorts = new HashSet<>();
+            try {
+                List<Integer> pairs = runConfiguration.getDirectedPairsListPropertyOrFail("rank_trace_ports");
+                for (int i = 0; i < pairs.size(); i += 2) {
+                    rankTracePorts.add(portKey(pairs.get(i), pairs.get(i + 1)));
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new PropertyValueInvalidException(runConfiguration, "rank_trace_ports");
+            }
+        }
+
+        // Flows, e.g. "0,1,2" (all flows if not defined)
+        if (runConfiguration.isPropertyDefined("rank_trace_flows")) {
+            rankTraceFlows = new HashSet<>();
+            try {
+                for (String flowId : runConfiguration.getPropertyOrFail("rank_trace_flows").split(",")) {
+                    rankTraceFlows.add(Long.valueOf(flowId.trim()));
+                }
+            } catch (NumberFormatException e) {
+                throw new PropertyValueInvalidException(runConfiguration, "rank_trace_flows");
+            }
+        }
+
+        // Fraction of the selected packets which is traced
+        rankTraceSampleRate = runConfiguration.getDoublePropertyWithDefault("rank_trace_sample_rate", 1.0);
+        if (rankTraceSampleRate <= 0.0 || rankTraceSampleRate > 1.0) {
+            throw new PropertyValueInvalidException(runConfiguration, "rank_trace_sample_rate");
+        }
+
+    }
+
+    /**
+     * Encode a port into a single key.
+     *
+     * @param ownId     Port source network device identifier
+     * @param targetId  Port target network device identifier
+     *
+     * @return  Port key
+     */
+    private static long portKey(int ownId, int targetId) {
+        return ((long) ownId << 32) | (targetId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Retrieve the rank tracer of a port.
+     *
+     * @param ownId     Port source network device identifier
+     * @param targetId  Port target network device identifier
+     *
+     * @return  Rank tracer, or null if the port is not selected by <i>rank_trace_ports</i>
+     */
+    public static RankTracer getRankTracer(int ownId, int targetId) {
+        if (rankTracePorts == null || !rankTracePorts.contains(portKey(ownId, targetId))) {
+            return null;
+        }
+        if (rankTraceStream == null) {
+            try {
+                rankTraceStream = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(getRunFolderFull() + "/rank_trace.bin")
+                ));
+            } catch (IOException e) {
+                throw new LogFailureException(e);
+            }
+        }
+        return new RankTracer(ownId, targetId, rankTraceFlows, rankTraceSampleRate);
+    }
+
+    /**
+     * Log the rank of a packet dispatched by a traced port
+     * as a fixed-size big-endian record (int, int, long, long, long).
+     *
+     * @param ownId     Port source network device identifier
+     * @param targetId  Port target network device identifier
+     * @param flowId    Flow identifier
+     * @param rank      Rank of the packet (-1 if it carries none)
+     * @param timeNs    Absolute timestamp in nanoseconds since simulation epoch
+     */
+    static void logRankTrace(int ownId, int targetId, long flowId, long rank, long timeNs) {
         try {
-            writerRankReceived.write(rank + "   " + flowid + "   "+ time + "\n");
+            rankTraceStream.writeInt(ownId);
+            rankTraceStream.writeInt(targetId);
+            rankTraceStream.writeLong(flowId);
+            rankTraceStream.writeLong(rank);
+            rankTraceStream.writeLong(timeNs);
         } catch (IOException e) {
             throw new LogFailureException(e);
         }
@@ -595,7 +876,7 @@ public class SimulationLogger {
      */
     private static void copyFileToRunFolder(String fileName) {
         System.out.println("Copying file \"" + fileName + "\" to run folder...");
-        MainFromProperties.runCommand("cp " + fileName + " " + getRunFolderFull(), false);
+        copyFile(fileName, getRunFolderFull() + "/" + new File(fileName).getName());
     }
 
     /**
@@ -606,7 +887,21 @@ public class SimulationLogger {
      */
     public static void copyFileToRunFolder(String fileName, String newFileName) {
         System.out.println("Copying file \"" + fileName + "\" to run folder using new file name \"" + newFileName + "\"...");
-        MainFromProperties.runCommand("cp " + fileName + " " + getRunFolderFull() + "/" + newFileName, false);
+        copyFile(fileName, getRunFolderFull() + "/" + newFileName);
+    }
+
+    /**
+     * Copy a file, replacing the target if it exists.
+     *
+     * @param fileName          File name
+     * @param targetFileName    Target file name
+     */
+    private static void copyFile(String fileName, String targetFileName) {
+        try {
+            Files.copy(Paths.get(fileName), Paths.get(targetFileName), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to copy file \"" + fileName + "\" to \"" + targetFileName + "\": " + e.getMessage());
+        }
     }
 
     /**
@@ -617,16 +912,24 @@ public class SimulationLogger {
         throwaway();
     }
 
+    static boolean hasFlowThroughputEnabled() {
+        return sinkFlowThroughput.isEnabled();
+    }
+
+    static boolean hasPortQueueStateEnabled() {
+        return sinkPortQueueState.isEnabled();
+    }
+
     public static boolean hasRankMappingEnabled() {
-        return rankMappingEnabled;
+        return sinkRankToQueuesMapping.isEnabled();
     }
 
     public static boolean hasQueueBoundTrackingEnabled() {
-        return queueBoundTrackingEnabled;
+        return sinkQueueBoundTracking.isEnabled();
     }
 
-    public static boolean hasUnpifonessTrackingEnabled() { return unpifonessTrackingEnabled; }
+    public static boolean hasUnpifonessTrackingEnabled() { return sinkUnpifonessTracking.isEnabled(); }
 
-    public static boolean hasInversionsTrackingEnabled() { return inversionsTrackingEnabled; }
+    public static boolean hasInversionsTrackingEnabled() { return sinkInversionsTracking.isEnabled(); }
 
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package ch.ethz.systems.netbench.core.log;
+
+/**
+ * Pre-resolved handle to a basic statistic counter.
+ *
+ * Components obtain a handle once via {@link SimulationLogger#getStatisticCounter(String)}
+ * (or its scoped variant) and afterwards increase it with a plain field update,
+ * instead of a name lookup on every occurrence.
+ */
+public final class StatisticCounter {
+
+    // Counter identity
+    private final String name;
+    private final String scope;
+
+    // Aggregate counter also increased (null if this is an aggregate counter itself)
+    private final StatisticCounter aggregate;
+
+    // Current value
+    private long value;
+
+    /**
+     * Create statistic counter.
+     *
+     * @param name          Statistic name
+     * @param scope         Scope of the counter (e.g. a port), null for an aggregate counter
+     * @param aggregate     Aggregate counter to increase as well (null for an aggregate counter)
+     */
+    StatisticCounter(String name, String scope, StatisticCounter aggregate) {
+        this.name = name;
+        this.scope = scope;
+        this.aggregate = aggregate;
+        this.value = 0;
+    }
+
+    /**
+     * Increase the counter by one.
+     */
+    public void increase() {
+        value++;
+        if (aggregate != null) {
+            aggregate.value++;
+        }
+    }
+
+    /**
+     * Increase the counter by an amount.
+     *
+     * @param amount    Amount (non-negative)
+     */
+    public void increase(long amount) {
+        value += amount;
+        if (aggregate != null) {
+            aggregate.value += amount;
+        }
+    }
+
+    /**
+     * Retrieve the current value of the counter.
+     *
+     * @return  Counter value
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Retrieve the statistic name.
+     *
+     * @return  Statistic name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve the scope of the counter.
+     *
+     * @return  Scope description (null for an aggregate counter)
+     */
+    String getScope() {
+        return scope;
+    }
+
+    /**
+     * Reset the counter value to zero.
+     */
+    void reset() {
+        value = 0;
+    }
+
+}
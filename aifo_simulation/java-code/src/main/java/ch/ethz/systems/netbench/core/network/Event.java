@@ -6,10 +6,10 @@ public abstract class Event implements Comparable<Event> {
 
     // Added for absolute determinism in the event priority queue
     private static long c = 0;
-    private final long eid;
+    private long eid;
 
     // Time to trigger
-    private final long time;
+    private long time;
 
     /**
      * Create event which will happen the given amount of nanoseconds later.
@@ -22,6 +22,20 @@ public abstract class Event implements Comparable<Event> {
         c++;
     }
 
+    /**
+     * Re-arm the event to happen the given amount of nanoseconds later, such that
+     * the same instance can be registered again after it has been triggered
+     * (it must not be in the event queue). It is ordered exactly as a newly
+     * created event would be.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     */
+    protected final void rearm(long timeFromNowNs) {
+        this.time = Simulator.getTimeFromNow(timeFromNowNs);
+        this.eid = c;
+        c++;
+    }
+
     /**
      * Trigger whatever has to happen with the event
      * and the data it contains.
@@ -1,6 +1,7 @@
 package ch.ethz.systems.netbench.core.network;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ public abstract class NetworkDevice {
     protected final int identifier;
     protected final List<Integer> connectedTo;
     protected final Map<Integer, OutputPort> targetIdToOutputPort;
+    protected OutputPort[] outputPorts;
     protected final Intermediary intermediary;
 
     /**
@@ -42,6 +44,7 @@ public abstract class NetworkDevice {
         // Initialize internal data structures
         this.connectedTo = new ArrayList<>();
         this.targetIdToOutputPort = new HashMap<>();
+        this.outputPorts = new OutputPort[0];
 
         // Set the server and whether it exists
         this.transportLayer = transportLayer;
@@ -76,16 +79,37 @@ public abstract class NetworkDevice {
         }
 
         // Port going there already exists
-        if (connectedTo.contains(outputPort.getTargetId())) {
+        if (hasConnection(outputPort.getTargetId())) {
             throw new IllegalArgumentException("Impossible to add a duplicate port from " + outputPort.getOwnId() + " to " + outputPort.getTargetId() + ".");
         }
 
         // Add to mappings
         connectedTo.add(outputPort.getTargetId());
         targetIdToOutputPort.put(outputPort.getTargetId(), outputPort);
+        outputPorts = Arrays.copyOf(outputPorts, outputPorts.length + 1);
+        outputPorts[outputPorts.length - 1] = outputPort;
 
     }
 
+    /**
+     * Retrieve the local port number of the outgoing port to the target.
+     * Ports are numbered in order of addition, and are the index in {@link #outputPorts}.
+     * The ports are scanned, which is cheap as a device only has few of them
+     * (and it keeps no per-target map next to {@link #outputPorts}).
+     *
+     * @param target    Target network device identifier
+     *
+     * @return  Local port number, or -1 if there is no outgoing port to the target
+     */
+    protected int getPortIndex(int target) {
+        for (int i = 0; i < outputPorts.length; i++) {
+            if (outputPorts[i].getTargetId() == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Check whether this network device has an outgoing port to the target.
      *
@@ -94,7 +118,7 @@ public abstract class NetworkDevice {
      * @return  True iff an outgoing port from this network device exists to the target
      */
     public boolean hasConnection(int target) {
-        return connectedTo.contains(target);
+        return getPortIndex(target) != -1;
     }
 
     /**
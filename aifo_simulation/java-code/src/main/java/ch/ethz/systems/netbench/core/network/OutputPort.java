@@ -2,15 +2,15 @@ package ch.ethz.systems.netbench.core.network;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.PortLogger;
+import ch.ethz.systems.netbench.core.log.RankTracer;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.log.StatisticCounter;
 import ch.ethz.systems.netbench.ext.basic.IpHeader;
 import ch.ethz.systems.netbench.xpt.aifo.ports.PIFO.PIFOQueue;
 import ch.ethz.systems.netbench.xpt.aifo.ports.PIFO_WFQ.WFQPIFOQueue;
 import ch.ethz.systems.netbench.xpt.aifo.ports.AIFO_WFQ.WFQAIFOOutputQueue;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 
-import ch.ethz.systems.netbench.core.SelfDefinedFlows;
-
 import java.util.LinkedList; 
 import java.util.Queue;
 
@@ -40,6 +40,9 @@ public abstract class OutputPort {
 
     // Logging utility
     private final PortLogger logger;
+    private final StatisticCounter packetsDroppedCounter;
+    private final StatisticCounter packetsDroppedAtSourceCounter;
+    private final RankTracer rankTracer;                // Null if this port is not traced
 
     public int[] A;
     public Queue  buffQueue;
@@ -68,6 +71,10 @@ public abstract class OutputPort {
 
         // Logging
         this.logger = new PortLogger(this);
+        String counterScope = "port " + this.ownId + "->" + this.targetId;
+        this.packetsDroppedCounter = SimulationLogger.getStatisticCounter("PACKETS_DROPPED", counterScope);
+        this.packetsDroppedAtSourceCounter = SimulationLogger.getStatisticCounter("PACKETS_DROPPED_AT_SOURCE", counterScope);
+        this.rankTracer = SimulationLogger.getRankTracer(this.ownId, this.targetId);
 
         this.buffQueue = new LinkedList();
     }
@@ -117,12 +124,7 @@ public abstract class OutputPort {
                 bufferOccupiedBits += packet.getSizeBit();
                 logger.logQueueState(queue.size(), bufferOccupiedBits);
             } else {
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                // Convert to IP packet
-                IpHeader ipHeader = (IpHeader) packet;
-                if (ipHeader.getSourceId() == this.getOwnId()) {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                }
+                countPacketDropped(packet);
             }
         }
     }
@@ -166,12 +168,7 @@ public abstract class OutputPort {
             // Decrease the size of dropped packet from buffer size
             if (droppedPacket != null){
                 bufferOccupiedBits -= droppedPacket.getSizeBit();
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                // Convert to IP packet
-                IpHeader ipHeader = (IpHeader) droppedPacket;
-                if (ipHeader.getSourceId() == this.getOwnId()) {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                }
+                countPacketDropped(droppedPacket);
             }
         }
     }
@@ -227,14 +224,9 @@ public abstract class OutputPort {
                     )
             );
 
-            // For Figure 12
-            // This is to test customized flows in ext/poisontraffic/PoisonArrivalPlanner
-            // write some stats to the output log
-            if (SelfDefinedFlows.isSDF == true) {
-                if (this.getOwnId() == 144 && ((IpHeader) packet).getDestinationId() == 10) {
-                    long rank = ((FullExtTcpPacket) packet).getPriority();
-                    SimulationLogger.logRankReceived(((IpHeader) packet).getFlowId(),rank, Simulator.getCurrentTime());
-                }
+            // Rank trace (e.g. Figure 12 traces port 144->10)
+            if (rankTracer != null) {
+                rankTracer.trace(packet);
             }
         }
 
@@ -303,16 +295,24 @@ public abstract class OutputPort {
             // Update the size of the buffer with the size of packet dropped
             if (droppedPacket != null){
                 bufferOccupiedBits -= droppedPacket.getSizeBit();
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                // Convert to IP packet
-                IpHeader ipHeader = (IpHeader) droppedPacket;
-                if (ipHeader.getSourceId() == this.getOwnId()) {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                }
+                countPacketDropped(droppedPacket);
             }
         }
     }
 
+    /**
+     * Count the given packet as dropped at this output port
+     * (and as dropped at the source if this port is attached to its source).
+     *
+     * @param packet    Dropped packet instance
+     */
+    protected final void countPacketDropped(Packet packet) {
+        packetsDroppedCounter.increase();
+        if (((IpHeader) packet).getSourceId() == this.ownId) {
+            packetsDroppedAtSourceCounter.increase();
+        }
+    }
+
     /**
      * Return the network identifier of its own device (to which this output port is attached to).
      *
@@ -1,12 +1,12 @@
 package ch.ethz.systems.netbench.core.network;
 
+import ch.ethz.systems.netbench.core.utility.LongBitmap;
+import ch.ethz.systems.netbench.core.utility.LongObjectMap;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * The transport layer represents the entity that communicates
@@ -23,11 +23,14 @@ public abstract class TransportLayer {
     // Generator for unique flow identifiers amongst all transport layers
     private static long flowIdCounter = 0;
     public boolean udpException = false;
-    private static Map<Long, TransportLayer> flowIdToReceiver = new HashMap<>();
+    private static LongObjectMap<TransportLayer> flowIdToReceiver = new LongObjectMap<>();
+
+    // Finished flows (a flow is finished at its sender and receiver at once,
+    // and flow identifiers are dense, so a single bitmap suffices)
+    private static LongBitmap finishedFlowIds = new LongBitmap();
 
     // Map the flow identifier to the responsible socket
-    private Map<Long, Socket> flowIdToSocket;
-    private Set<Long> finishedFlowIds;
+    private LongObjectMap<Socket> flowIdToSocket;
 
     // Map priority carried by data packets to flow identifier. Purpose: so that the same priority can
     // be applied to ACK packets as well. Only works for those cases in which priorities are fixed throughout all packets
@@ -39,8 +42,7 @@ public abstract class TransportLayer {
 
     public TransportLayer(int identifier) {
         this.identifier = identifier;
-        this.flowIdToSocket = new HashMap<>();
-        this.finishedFlowIds = new HashSet<>();
+        this.flowIdToSocket = new LongObjectMap<>();
         this.flowIdToPriority = new HashMap<>();
     }
 
@@ -209,7 +211,6 @@ public abstract class TransportLayer {
      * @param flowId    Flow identifier
      */
     private void removeSocket(long flowId) {
-        this.finishedFlowIds.add(flowId);
         this.flowIdToSocket.remove(flowId);
     }
 
@@ -224,8 +225,12 @@ public abstract class TransportLayer {
      * @param flowId    Flow identifier
      */
     void cleanupSockets(long flowId) {
+        finishedFlowIds.add(flowId);
         this.removeSocket(flowId);
-        flowIdToReceiver.get(flowId).removeSocket(flowId);
+        TransportLayer receiver = flowIdToReceiver.remove(flowId);
+        if (receiver != null) {
+            receiver.removeSocket(flowId);
+        }
     }
 
     /**
@@ -234,6 +239,7 @@ public abstract class TransportLayer {
     public static void staticReset() {
 //        flowIdCounter = 0;
         flowIdToReceiver.clear();
+        finishedFlowIds.clear();
     }
 
 //    public static void increaseFlowIdCounter() {
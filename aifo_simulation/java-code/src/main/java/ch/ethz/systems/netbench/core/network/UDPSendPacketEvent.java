@@ -1,16 +1,34 @@
 package ch.ethz.systems.netbench.core.network;
 
-import ch.ethz.systems.netbench.core.log.SimulationLogger;
-import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import ch.ethz.systems.netbench.core.Simulator;
 
+/**
+ * Pacing event of a UDP socket: a single instance per socket is
+ * re-registered for every wake-up of the sender.
+ */
 public class UDPSendPacketEvent extends Event {
+
     private final Socket udpsocket;
+
     public UDPSendPacketEvent(long timeFromNowNS, Socket udpsocket) {
         super(timeFromNowNS);
         this.udpsocket = udpsocket;
     }
+
+    /**
+     * Register this event again, to happen the given amount of
+     * nanoseconds after it has been triggered.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     */
+    public void reschedule(long timeFromNowNs) {
+        rearm(timeFromNowNs);
+        Simulator.registerEvent(this);
+    }
+
     @java.lang.Override
     public void trigger() {
         this.udpsocket.start();
     }
+
 }
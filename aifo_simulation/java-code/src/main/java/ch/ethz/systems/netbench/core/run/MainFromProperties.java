@@ -3,6 +3,7 @@ package ch.ethz.systems.netbench.core.run;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.GraphDetails;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.config.TopologyServerExtender;
 import ch.ethz.systems.netbench.core.config.exceptions.PropertyConflictException;
@@ -15,6 +16,8 @@ import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
 import ch.ethz.systems.netbench.core.run.routing.RoutingPopulator;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 import ch.ethz.systems.netbench.core.utility.UnitConverter;
+import edu.asu.emit.algorithm.graph.Graph;
+import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -45,7 +48,7 @@ public class MainFromProperties {
         SimulationLogger.copyRunConfiguration();
 
         // Manage topology (e.g. extend with servers if said by configuration)
-        manageTopology();
+        TopologyServerExtender topologyWriter = manageTopology();
 
         // Initialization of the three components
         BaseInitializer initializer = generateInfrastructure();
@@ -61,6 +64,9 @@ public class MainFromProperties {
         System.out.println("ACTUAL RUN\n==================");
         Simulator.runNs(runtimeNs, Simulator.getConfiguration().getLongPropertyWithDefault("finish_when_first_flows_finish", -1));
         Simulator.reset(false);
+        if (topologyWriter != null) {
+            topologyWriter.awaitWritten();
+        }
         System.out.println("Finished run.\n");
         
         // Perform analysis
@@ -213,39 +219,67 @@ public class MainFromProperties {
      * scenario_topology_file=/path/to/topology.txt
      * scenario_topology_extend_with_servers=regular
      * scenario_topology_extend_servers_per_tl_node=4
+     * scenario_topology_extend_write_file=true
+     *
+     * The topology is extended in memory and overrides the topology of the existing configuration.
+     * Unless scenario_topology_extend_write_file=false, the extended topology is also written to the
+     * run folder in the background, and it will override the scenario_topology_file in the existing
+     * configuration. Otherwise, the effective (in-memory) topology is described in the run info.
      *
-     * It will override the scenario_topology_file in the existing configuration.
+     * @return  Topology extender, of which the extended topology file must be awaited (null if not extended)
      */
-    private static void manageTopology() {
+    private static TopologyServerExtender manageTopology() {
 
         // Copy of original topology to the run folder
         SimulationLogger.copyFileToRunFolder(Simulator.getConfiguration().getPropertyOrFail("scenario_topology_file"), "original_topology.txt");
 
         // Topology extension
+        TopologyServerExtender extender = null;
         if (Simulator.getConfiguration().isPropertyDefined("scenario_topology_extend_with_servers")) {
+            String extendedTopologyFile = SimulationLogger.getRunFolderFull() + "/extended_topology.txt";
+            boolean writeFile = Simulator.getConfiguration().getBooleanPropertyWithDefault("scenario_topology_extend_write_file", true);
+            Pair<Graph, GraphDetails> extended;
             if (Simulator.getConfiguration().getPropertyWithDefault("scenario_topology_extend_with_servers", "").equals("regular")) {
 
                 // Number of servers to add to each transport layer node
                 int serversPerNodeToExtendWith = Simulator.getConfiguration().getIntegerPropertyOrFail("scenario_topology_extend_servers_per_tl_node");
 
-                // Extend topology
-                new TopologyServerExtender(
-                        Simulator.getConfiguration().getTopologyFileNameOrFail(),
-                        SimulationLogger.getRunFolderFull() + "/extended_topology.txt"
-                ).extendRegular(serversPerNodeToExtendWith);
+                // Extend topology in memory, and write it to file in the background
+                Graph graph = Simulator.getConfiguration().getGraph();
+                GraphDetails details = Simulator.getConfiguration().getGraphDetails();
+                extender = new TopologyServerExtender(Simulator.getConfiguration().getTopologyFileNameOrFail(), extendedTopologyFile);
+                extended = extender.extendRegular(graph, details, serversPerNodeToExtendWith);
+                if (writeFile) {
+                    extender.startWriting(graph, details, serversPerNodeToExtendWith);
+                }
+
                 // Log info about extension
                 SimulationLogger.logInfo("OVERRODE_TOPOLOGY_FILE_WITH_SERVER_EXTENSION", "servers/node=" + serversPerNodeToExtendWith);
+                if (!writeFile) {
+                    GraphDetails extendedDetails = extended.getRight();
+                    SimulationLogger.logInfo(
+                            "EFFECTIVE_TOPOLOGY",
+                            "in-memory extension of " + Simulator.getConfiguration().getTopologyFileNameOrFail() +
+                                    " (servers/node=" + serversPerNodeToExtendWith + ", |V|=" + extendedDetails.getNumNodes() +
+                                    ", |E|=" + extendedDetails.getNumEdges() + ", id_hash=" + extendedDetails.getIdHash() + ")"
+                    );
+                }
 
             } else {
                 throw new PropertyValueInvalidException(Simulator.getConfiguration(), "scenario_topology_extend_with_servers");
             }
 
             // Override configuration property
-            Simulator.getConfiguration().overrideProperty("scenario_topology_file", SimulationLogger.getRunFolderFull() + "/extended_topology.txt");
-            SimulationLogger.logInfo("ARG_OVERRIDE_PARAM(scenario_topology_file)", SimulationLogger.getRunFolderFull() + "/extended_topology.txt");
+            if (writeFile) {
+                Simulator.getConfiguration().overrideProperty("scenario_topology_file", extendedTopologyFile);
+                SimulationLogger.logInfo("ARG_OVERRIDE_PARAM(scenario_topology_file)", extendedTopologyFile);
+            }
+            Simulator.getConfiguration().overrideGraph(extended.getLeft(), extended.getRight());
 
         }
 
+        return extender;
+
     }
 
     /**
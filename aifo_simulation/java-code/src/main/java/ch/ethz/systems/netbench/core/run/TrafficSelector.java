@@ -6,6 +6,7 @@ import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.ext.poissontraffic.FromStringArrivalPlanner;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.PoissonArrivalPlanner;
+import ch.ethz.systems.netbench.ext.tracereplay.TraceReplayPlanner;
 import ch.ethz.systems.netbench.ext.trafficpair.TrafficPairPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.*;
 
@@ -82,6 +83,25 @@ class TrafficSelector {
                         break;
                     }
 
+                    case "empirical_cdf": {
+                        EmpiricalCdfFSD.Interpolation interpolation;
+                        switch (Simulator.getConfiguration().getPropertyWithDefault("traffic_flow_size_dist_cdf_interpolation", "discrete")) {
+                            case "discrete":
+                                interpolation = EmpiricalCdfFSD.Interpolation.DISCRETE;
+                                break;
+                            case "linear":
+                                interpolation = EmpiricalCdfFSD.Interpolation.LINEAR;
+                                break;
+                            default:
+                                throw new PropertyValueInvalidException(Simulator.getConfiguration(), "traffic_flow_size_dist_cdf_interpolation");
+                        }
+                        flowSizeDistribution = new EmpiricalCdfFSD(
+                                Simulator.getConfiguration().getPropertyOrFail("traffic_flow_size_dist_cdf_file"),
+                                interpolation
+                        );
+                        break;
+                    }
+
                     default: {
                         throw new PropertyValueInvalidException(
                                 Simulator.getConfiguration(),
@@ -99,7 +119,7 @@ class TrafficSelector {
                     // Create poisson arrival plan from file
 	                return new PoissonArrivalPlanner(
 	                        idToTransportLayer,
-	                        Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+	                        selectLambdaFlowStartsPerSecond(),
 	                        flowSizeDistribution,
                             Simulator.getConfiguration().getPropertyOrFail("traffic_probabilities_file")
 	                );
@@ -114,7 +134,7 @@ class TrafficSelector {
 
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.ALL_TO_ALL
                             );
@@ -122,7 +142,7 @@ class TrafficSelector {
                         case "all_to_all_fraction":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.ALL_TO_ALL_FRACTION
                             );
@@ -130,7 +150,7 @@ class TrafficSelector {
                         case "all_to_all_server_fraction":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.ALL_TO_ALL_SERVER_FRACTION
                             );
@@ -138,7 +158,7 @@ class TrafficSelector {
                         case "pairings_fraction":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.PAIRINGS_FRACTION
                             );
@@ -146,7 +166,7 @@ class TrafficSelector {
                         case "skew_pareto_distribution":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getDoublePropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.PARETO_SKEW_DISTRIBUTION
                             );
@@ -154,7 +174,7 @@ class TrafficSelector {
                         case "dual_all_to_all_fraction":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.DUAL_ALL_TO_ALL_FRACTION
                             );
@@ -162,7 +182,7 @@ class TrafficSelector {
                         case "dual_all_to_all_server_fraction":
                             return new PoissonArrivalPlanner(
                                     idToTransportLayer,
-                                    Simulator.getConfiguration().getIntegerPropertyOrFail("traffic_lambda_flow_starts_per_s"),
+                                    selectLambdaFlowStartsPerSecond(),
                                     flowSizeDistribution,
                                     PoissonArrivalPlanner.PairDistribution.DUAL_ALL_TO_ALL_SERVER_FRACTION
                             );
@@ -214,6 +234,13 @@ class TrafficSelector {
             case "traffic_arrivals_string":
                 return new FromStringArrivalPlanner(idToTransportLayer, Simulator.getConfiguration().getPropertyOrFail("traffic_arrivals_list"));
 
+            case "trace_replay":
+                return new TraceReplayPlanner(
+                        idToTransportLayer,
+                        Simulator.getConfiguration().getPropertyOrFail("traffic_trace_file"),
+                        Simulator.getConfiguration().getLongPropertyWithDefault("traffic_trace_window_ns", 1000000L)
+                );
+
             default:
                 throw new PropertyValueInvalidException(
                         Simulator.getConfiguration(),
@@ -224,4 +251,21 @@ class TrafficSelector {
 
     }
 
+    /**
+     * Select the (constant) Poisson arrival rate. Time-varying arrival
+     * processes take their rates from their own schedule, so for them
+     * it is optional.
+     *
+     * Selected using following property:
+     * traffic_lambda_flow_starts_per_s=...
+     *
+     * @return Arrival rate in flow starts per second
+     */
+    private static double selectLambdaFlowStartsPerSecond() {
+        if (!Simulator.getConfiguration().getPropertyWithDefault("traffic_arrival_process", "poisson").equals("poisson")) {
+            return Simulator.getConfiguration().getDoublePropertyWithDefault("traffic_lambda_flow_starts_per_s", 0);
+        }
+        return Simulator.getConfiguration().getDoublePropertyOrFail("traffic_lambda_flow_starts_per_s");
+    }
+
 }
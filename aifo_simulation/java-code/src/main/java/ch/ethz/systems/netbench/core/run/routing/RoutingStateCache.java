@@ -0,0 +1,235 @@
+package ch.ethz.systems.netbench.core.run.routing;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.GraphDetails;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary cache of the routing state a routing populator sets in the network devices,
+ * such that runs on the same topology with the same routing do not recompute it.
+ *
+ * The routing state is recorded as the sequence of entries (device, destination, next hop)
+ * set while it is computed, and a later run replays them in the same order. The cache of
+ * a topology and routing is the file routing-cache/[topology hash]_[routing key].rsbin,
+ * which consists of big-endian integers such that it can be memory-mapped:
+ *
+ *   header:     magic, version, topology SHA-1 (20 bytes), routing key length, routing key (UTF-8, padded to 4 bytes),
+ *               number of entries (long)
+ *   per entry:  device, destination, next hop
+ *
+ * A cache is recorded into a temporary file of its own and atomically moved into place once
+ * complete, such that runs in parallel on the same topology do not corrupt each other's cache.
+ * A cache of which the number of entries does not match its size is not used.
+ *
+ * The cache is only used if routing_state_cache=true.
+ */
+public class RoutingStateCache {
+
+    private static final String CACHE_DIRECTORY = "routing-cache";
+    private static final int MAGIC = 0x52535443; // "RSTC"
+    private static final int VERSION = 2;
+    private static final int SHA1_LENGTH = 20;
+
+    /**
+     * Consumer of routing state entries.
+     */
+    public interface EntryConsumer {
+
+        /**
+         * Accept an entry.
+         *
+         * @param deviceId          Identifier of the network device
+         * @param destinationId     Destination identifier
+         * @param nextHopId         Next hop identifier
+         */
+        void accept(int deviceId, int destinationId, int nextHopId);
+
+    }
+
+    private final boolean enabled;
+    private final String fileName;
+    private final byte[] header;
+    private DataOutputStream out;
+    private Path recording;
+    private long numRecorded;
+
+    /**
+     * Cache of the routing state of a routing on the topology of the run configuration.
+     *
+     * @param routingKey    Routing type and parameters (only a-z, 0-9 and underscores)
+     */
+    public RoutingStateCache(String routingKey) {
+        this(Simulator.getConfiguration().getGraphDetails(), routingKey,
+                Simulator.getConfiguration().getBooleanPropertyWithDefault("routing_state_cache", false));
+    }
+
+    /**
+     * Cache of the routing state of a routing on a topology.
+     *
+     * @param details       Topology details
+     * @param routingKey    Routing type and parameters (only a-z, 0-9 and underscores)
+     * @param enabled       True iff the cache is used
+     */
+    RoutingStateCache(GraphDetails details, String routingKey, boolean enabled) {
+        if (!routingKey.matches("[a-z0-9_]+")) {
+            throw new IllegalArgumentException("Routing state cache key must only consist of a-z, 0-9 and underscores: " + routingKey);
+        }
+        this.enabled = enabled && details.getIdHash() != null;
+        this.fileName = CACHE_DIRECTORY + "/" + details.getIdHash() + "_" + routingKey + ".rsbin";
+        this.header = this.enabled ? createHeader(details.getIdHash(), routingKey) : null;
+        this.out = null;
+        this.recording = null;
+        this.numRecorded = 0;
+    }
+
+    /**
+     * Retrieve the cache file name.
+     *
+     * @return  Cache file name (no guarantee that it exists, only what is expected)
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Replay all entries of the cache, if it is present.
+     *
+     * @param consumer  Consumer of the entries (in recorded order)
+     *
+     * @return  True iff the cache was present and replayed
+     */
+    public boolean read(EntryConsumer consumer) {
+        File file = new File(fileName);
+        if (!enabled || !file.exists() || file.length() < header.length + 8) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] fileHeader = new byte[header.length];
+            buffer.get(fileHeader);
+            if (!Arrays.equals(fileHeader, header) || buffer.getLong() * 12 != channel.size() - header.length - 8) {
+                return false;
+            }
+            IntBuffer ints = buffer.asIntBuffer();
+            while (ints.hasRemaining()) {
+                consumer.accept(ints.get(), ints.get(), ints.get());
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Routing state cache: failed to read " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start recording the entries into the cache.
+     * The cache is only complete after {@link #commit()}.
+     *
+     * @param consumer  Consumer which sets the entries in the network devices
+     *
+     * @return  Consumer which records each entry and passes it on to the given consumer
+     */
+    public EntryConsumer record(final EntryConsumer consumer) {
+        if (!enabled) {
+            return consumer;
+        }
+        File directory = new File(CACHE_DIRECTORY);
+        if (!directory.mkdirs() && !directory.exists()) {
+            throw new RuntimeException("Could not create routing state cache folder: " + CACHE_DIRECTORY + ".");
+        }
+        try {
+            recording = Files.createTempFile(directory.toPath(), new File(fileName).getName() + ".", ".tmp");
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recording), 1 << 16));
+            out.write(header);
+            out.writeLong(0); // Number of entries, set on commit
+            numRecorded = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Routing state cache: failed to write " + fileName + ": " + e.getMessage());
+        }
+        return (deviceId, destinationId, nextHopId) -> {
+            consumer.accept(deviceId, destinationId, nextHopId);
+            try {
+                out.writeInt(deviceId);
+                out.writeInt(destinationId);
+                out.writeInt(nextHopId);
+                numRecorded++;
+            } catch (IOException e) {
+                throw new RuntimeException("Routing state cache: failed to write " + fileName + ": " + e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Complete the recording, making the cache available to later runs.
+     */
+    public void commit() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+            out = null;
+            try (FileChannel channel = FileChannel.open(recording, StandardOpenOption.WRITE)) {
+                ByteBuffer count = ByteBuffer.allocate(8);
+                count.putLong(0, numRecorded);
+                channel.write(count, header.length);
+            }
+            Files.move(recording, new File(fileName).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            recording = null;
+        } catch (IOException e) {
+            throw new RuntimeException("Routing state cache: failed to write " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Create the header identifying the topology and routing.
+     *
+     * @param topologyHash  SHA-1 hash (hexadecimal) of the topology
+     * @param routingKey    Routing key
+     *
+     * @return  Header bytes
+     */
+    private static byte[] createHeader(String topologyHash, String routingKey) {
+        byte[] hash;
+        try {
+            hash = Hex.decodeHex(topologyHash.toCharArray());
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Topology hash is not hexadecimal: " + topologyHash);
+        }
+        if (hash.length != SHA1_LENGTH) {
+            throw new IllegalArgumentException("Topology hash is not a SHA-1 hash: " + topologyHash);
+        }
+        byte[] key = routingKey.getBytes(StandardCharsets.UTF_8);
+        int paddedKeyLength = (key.length + 3) & ~3;
+        byte[] header = new byte[4 + 4 + SHA1_LENGTH + 4 + paddedKeyLength];
+        putInt(header, 0, MAGIC);
+        putInt(header, 4, VERSION);
+        System.arraycopy(hash, 0, header, 8, SHA1_LENGTH);
+        putInt(header, 8 + SHA1_LENGTH, key.length);
+        System.arraycopy(key, 0, header, 12 + SHA1_LENGTH, key.length);
+        return header;
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+}
@@ -0,0 +1,135 @@
+package ch.ethz.systems.netbench.core.run.traffic;
+
+import java.util.Arrays;
+
+/**
+ * Batch of flow start descriptors, stored as parallel primitive arrays
+ * (one row per flow), to be registered at once by a {@link TrafficPlanner}.
+ *
+ * Flows are assigned their flow identifier in the order they were added.
+ */
+public class FlowStartBatch {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] timeNs;
+    private int[] srcId;
+    private int[] dstId;
+    private long[] flowSizeByte;
+    private int[] sourcePort;
+    private int[] destinationPort;
+    private boolean[] udpExp;
+    private int size;
+
+    /**
+     * Create empty batch.
+     */
+    public FlowStartBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create empty batch.
+     *
+     * @param capacity  Initial capacity (number of flows)
+     */
+    public FlowStartBatch(int capacity) {
+        if (capacity < 1) {
+            capacity = 1;
+        }
+        this.timeNs = new long[capacity];
+        this.srcId = new int[capacity];
+        this.dstId = new int[capacity];
+        this.flowSizeByte = new long[capacity];
+        this.sourcePort = new int[capacity];
+        this.destinationPort = new int[capacity];
+        this.udpExp = new boolean[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Add a flow start.
+     *
+     * @param time              Time at which it starts (from now) in nanoseconds
+     * @param srcId             Source network device identifier
+     * @param dstId             Destination network device identifier
+     * @param flowSizeByte      Flow size in bytes
+     * @param sourcePort        Source port
+     * @param destinationPort   Destination port
+     * @param udpExp            True iff the flow is part of a UDP experiment
+     */
+    public void add(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort, boolean udpExp) {
+        if (size == timeNs.length) {
+            int capacity = size + (size >> 1) + 1;
+            this.timeNs = Arrays.copyOf(this.timeNs, capacity);
+            this.srcId = Arrays.copyOf(this.srcId, capacity);
+            this.dstId = Arrays.copyOf(this.dstId, capacity);
+            this.flowSizeByte = Arrays.copyOf(this.flowSizeByte, capacity);
+            this.sourcePort = Arrays.copyOf(this.sourcePort, capacity);
+            this.destinationPort = Arrays.copyOf(this.destinationPort, capacity);
+            this.udpExp = Arrays.copyOf(this.udpExp, capacity);
+        }
+        this.timeNs[size] = time;
+        this.srcId[size] = srcId;
+        this.dstId[size] = dstId;
+        this.flowSizeByte[size] = flowSizeByte;
+        this.sourcePort[size] = sourcePort;
+        this.destinationPort[size] = destinationPort;
+        this.udpExp[size] = udpExp;
+        size++;
+    }
+
+    /**
+     * Add a (non-UDP experiment) flow start.
+     *
+     * @param time              Time at which it starts (from now) in nanoseconds
+     * @param srcId             Source network device identifier
+     * @param dstId             Destination network device identifier
+     * @param flowSizeByte      Flow size in bytes
+     * @param sourcePort        Source port
+     * @param destinationPort   Destination port
+     */
+    public void add(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
+        add(time, srcId, dstId, flowSizeByte, sourcePort, destinationPort, false);
+    }
+
+    /**
+     * Remove all flow starts (the capacity is retained).
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    long getTime(int i) {
+        return timeNs[i];
+    }
+
+    int getSrcId(int i) {
+        return srcId[i];
+    }
+
+    int getDstId(int i) {
+        return dstId[i];
+    }
+
+    long getFlowSizeByte(int i) {
+        return flowSizeByte[i];
+    }
+
+    int getSourcePort(int i) {
+        return sourcePort[i];
+    }
+
+    int getDestinationPort(int i) {
+        return destinationPort[i];
+    }
+
+    boolean isUdpExp(int i) {
+        return udpExp[i];
+    }
+
+}
@@ -8,10 +8,10 @@ public class FlowStartEvent extends Event {
     private final TransportLayer transportLayer;
     private final int targetId;
     private final long flowSizeByte;
-    private long flowIdCounter;
-    private boolean udpExp;
-    private int sourcePort;
-    private int destinationPort;
+    private final long flowIdCounter;
+    private final boolean udpExp;
+    private final int sourcePort;
+    private final int destinationPort;
     /**
      * Create event which will happen the given amount of nanoseconds later.
      *
@@ -21,14 +21,7 @@ public class FlowStartEvent extends Event {
      * @param flowSizeByte      Size of the flow to send in bytes
      */
     public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte) {
-        super(timeFromNowNs);
-        this.transportLayer = transportLayer;
-        this.targetId = targetId;
-        this.flowSizeByte = flowSizeByte;
-        this.flowIdCounter = -1;
-        this.udpExp = false;
-        this.sourcePort = 80;
-        this.destinationPort = 80;
+        this(timeFromNowNs, transportLayer, targetId, flowSizeByte, -1, false, 80, 80);
     }
 
 //    public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte, boolean udpExp) {
@@ -41,36 +34,30 @@ public class FlowStartEvent extends Event {
 //    }
 //
     public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte, long flowId) {
-        super(timeFromNowNs);
-        this.transportLayer = transportLayer;
-        this.targetId = targetId;
-        this.flowSizeByte = flowSizeByte;
-        this.flowIdCounter = flowId;
-        this.udpExp = false;
+        this(timeFromNowNs, transportLayer, targetId, flowSizeByte, flowId, false, 0, 0);
     }
 
     public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte, long flowId, boolean udpExp) {
-        super(timeFromNowNs);
-        this.transportLayer = transportLayer;
-        this.targetId = targetId;
-        this.flowSizeByte = flowSizeByte;
-        this.flowIdCounter = flowId;
-        this.udpExp = udpExp;
-        this.sourcePort = 80;
-        this.destinationPort = 80;
+        this(timeFromNowNs, transportLayer, targetId, flowSizeByte, flowId, udpExp, 80, 80);
     }
 
     public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte, long flowId, int sourcePort, int destinationPort) {
-        super(timeFromNowNs);
-        this.transportLayer = transportLayer;
-        this.targetId = targetId;
-        this.flowSizeByte = flowSizeByte;
-        this.flowIdCounter = flowId;
-        this.udpExp = false;
-        this.sourcePort = sourcePort;
-        this.destinationPort = destinationPort;
+        this(timeFromNowNs, transportLayer, targetId, flowSizeByte, flowId, false, sourcePort, destinationPort);
     }
 
+    /**
+     * Create event which will happen the given amount of nanoseconds later,
+     * starting a flow with a pre-assigned flow identifier.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     * @param transportLayer    Source transport layer that wants to send the flow to the target
+     * @param targetId          Target network device identifier
+     * @param flowSizeByte      Size of the flow to send in bytes
+     * @param flowId            Flow identifier
+     * @param udpExp            True iff the flow is part of a UDP experiment
+     * @param sourcePort        Source port
+     * @param destinationPort   Destination port
+     */
     public FlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte, long flowId, boolean udpExp, int sourcePort, int destinationPort) {
         super(timeFromNowNs);
         this.transportLayer = transportLayer;
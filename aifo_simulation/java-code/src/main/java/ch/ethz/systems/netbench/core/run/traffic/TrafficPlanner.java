@@ -2,6 +2,7 @@ package ch.ethz.systems.netbench.core.run.traffic;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
+import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 
 import java.util.Map;
@@ -12,6 +13,9 @@ public abstract class TrafficPlanner {
     protected final Map<Integer, TransportLayer> idToTransportLayerMap;
     protected final GraphDetails graphDetails;
 
+    // Transport layer indexed by network device identifier (null if it has none)
+    private final TransportLayer[] transportLayers;
+
     /**
      * Constructor.
      *
@@ -22,6 +26,16 @@ public abstract class TrafficPlanner {
         // Create mappings
         this.idToTransportLayerMap = idToTransportLayerMap;
         this.graphDetails = Simulator.getConfiguration().getGraphDetails();
+        int maxId = -1;
+        for (int id : idToTransportLayerMap.keySet()) {
+            maxId = Math.max(maxId, id);
+        }
+        this.transportLayers = new TransportLayer[maxId + 1];
+        for (Map.Entry<Integer, TransportLayer> entry : idToTransportLayerMap.entrySet()) {
+            if (entry.getKey() >= 0) {
+                transportLayers[entry.getKey()] = entry.getValue();
+            }
+        }
 
     }
 
@@ -36,101 +50,131 @@ public abstract class TrafficPlanner {
      * @param flowSizeByte  Flow size in bytes
      */
     protected void registerFlow(long time, int srcId, int dstId, long flowSizeByte) {
+        registerFlowStart(time, srcId, dstId, flowSizeByte, false, 0, 0);
+    }
 
-        // Some checking
-        if (srcId == dstId) {
-            throw new RuntimeException("Invalid traffic pair; source (" + srcId + ") and destination (" + dstId + ") are the same.");
-        } else if (idToTransportLayerMap.get(srcId) == null) {
-            throw new RuntimeException("Source network device " + srcId + " does not have a transport layer.");
-        } else if (idToTransportLayerMap.get(dstId) == null) {
-            throw new RuntimeException("Destination network device " + dstId + ") does not have a transport layer.");
-        } else if (time < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative timestamp of " + time);
-        } else if (flowSizeByte < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative flow size (in bytes) of " + flowSizeByte);
-        }
+    protected void registerFlow_udp(long time, int srcId, int dstId, long flowSizeByte) {
+        registerFlowStart(time, srcId, dstId, flowSizeByte, true, 80, 80);
+    }
 
-        // Create event
-//        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte);
-        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, flowIdCounter);
-        flowIdCounter++;
-        // Register event
-        Simulator.registerEvent(event);
+    protected void registerFlowWithPort(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
+        registerFlowStart(time, srcId, dstId, flowSizeByte, false, sourcePort, destinationPort);
+    }
 
+    protected void registerFlowWithPort_udp(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
+        registerFlowStart(time, srcId, dstId, flowSizeByte, true, sourcePort, destinationPort);
     }
 
-    protected void registerFlow_udp(long time, int srcId, int dstId, long flowSizeByte) {
+    /**
+     * Register all flows of the batch, in order (such that they are assigned consecutive
+     * flow identifiers). All flows are checked before any is registered, and the flow start
+     * events are added to the event queue at once.
+     *
+     * @param batch     Batch of flow starts (can be cleared and reused afterwards)
+     */
+    protected void registerFlows(FlowStartBatch batch) {
 
-        // Some checking
-        if (srcId == dstId) {
-            throw new RuntimeException("Invalid traffic pair; source (" + srcId + ") and destination (" + dstId + ") are the same.");
-        } else if (idToTransportLayerMap.get(srcId) == null) {
-            throw new RuntimeException("Source network device " + srcId + " does not have a transport layer.");
-        } else if (idToTransportLayerMap.get(dstId) == null) {
-            throw new RuntimeException("Destination network device " + dstId + ") does not have a transport layer.");
-        } else if (time < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative timestamp of " + time);
-        } else if (flowSizeByte < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative flow size (in bytes) of " + flowSizeByte);
+        // Check all flows
+        int n = batch.size();
+        for (int i = 0; i < n; i++) {
+            checkFlow(batch.getTime(i), batch.getSrcId(i), batch.getDstId(i), batch.getFlowSizeByte(i));
         }
 
-        // Create event
-//        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte);
-        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, flowIdCounter, true);
-        flowIdCounter++;
-        // Register event
-        Simulator.registerEvent(event);
+        // Create events
+        Event[] events = new Event[n];
+        for (int i = 0; i < n; i++) {
+            events[i] = new FlowStartEvent(
+                    batch.getTime(i), transportLayers[batch.getSrcId(i)], batch.getDstId(i), batch.getFlowSizeByte(i),
+                    flowIdCounter, batch.isUdpExp(i), batch.getSourcePort(i), batch.getDestinationPort(i)
+            );
+            flowIdCounter++;
+        }
+
+        // Register events
+        Simulator.registerEvents(events);
 
     }
 
-    protected void registerFlowWithPort(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
+    /**
+     * Check and register a single flow start.
+     *
+     * @param time              Time at which it start in nanoseconds
+     * @param srcId             Source network device identifier
+     * @param dstId             Destination network device identifier
+     * @param flowSizeByte      Flow size in bytes
+     * @param udpExp            True iff the flow is part of a UDP experiment
+     * @param sourcePort        Source port
+     * @param destinationPort   Destination port
+     */
+    private void registerFlowStart(long time, int srcId, int dstId, long flowSizeByte, boolean udpExp, int sourcePort, int destinationPort) {
 
         // Some checking
-        if (srcId == dstId) {
-            throw new RuntimeException("Invalid traffic pair; source (" + srcId + ") and destination (" + dstId + ") are the same.");
-        } else if (idToTransportLayerMap.get(srcId) == null) {
-            throw new RuntimeException("Source network device " + srcId + " does not have a transport layer.");
-        } else if (idToTransportLayerMap.get(dstId) == null) {
-            throw new RuntimeException("Destination network device " + dstId + ") does not have a transport layer.");
-        } else if (time < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative timestamp of " + time);
-        } else if (flowSizeByte < 0) {
-            throw new RuntimeException("Cannot register a flow with a negative flow size (in bytes) of " + flowSizeByte);
-        }
+        checkFlow(time, srcId, dstId, flowSizeByte);
 
         // Create event
-//        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte);
-        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, flowIdCounter, sourcePort, destinationPort);
+        FlowStartEvent event = new FlowStartEvent(time, transportLayers[srcId], dstId, flowSizeByte, flowIdCounter, udpExp, sourcePort, destinationPort);
         flowIdCounter++;
+
         // Register event
         Simulator.registerEvent(event);
 
     }
 
-    protected void registerFlowWithPort_udp(long time, int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
-
-        // Some checking
+    /**
+     * Check that a flow start is valid.
+     *
+     * @param time          Time at which it start in nanoseconds
+     * @param srcId         Source network device identifier
+     * @param dstId         Destination network device identifier
+     * @param flowSizeByte  Flow size in bytes
+     */
+    private void checkFlow(long time, int srcId, int dstId, long flowSizeByte) {
         if (srcId == dstId) {
             throw new RuntimeException("Invalid traffic pair; source (" + srcId + ") and destination (" + dstId + ") are the same.");
-        } else if (idToTransportLayerMap.get(srcId) == null) {
+        } else if (getTransportLayer(srcId) == null) {
             throw new RuntimeException("Source network device " + srcId + " does not have a transport layer.");
-        } else if (idToTransportLayerMap.get(dstId) == null) {
+        } else if (getTransportLayer(dstId) == null) {
             throw new RuntimeException("Destination network device " + dstId + ") does not have a transport layer.");
         } else if (time < 0) {
             throw new RuntimeException("Cannot register a flow with a negative timestamp of " + time);
         } else if (flowSizeByte < 0) {
             throw new RuntimeException("Cannot register a flow with a negative flow size (in bytes) of " + flowSizeByte);
         }
+    }
 
-        // Create event
-//        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte);
-        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, flowIdCounter, true, sourcePort, destinationPort);
+    /**
+     * Start the flow from [srcId] to [dstId] right now, instead of registering
+     * a {@link FlowStartEvent} for it. It is assigned the next flow identifier,
+     * exactly as if it had been registered.
+     *
+     * @param srcId             Source network device identifier
+     * @param dstId             Destination network device identifier
+     * @param flowSizeByte      Flow size in bytes
+     * @param sourcePort        Source port
+     * @param destinationPort   Destination port
+     */
+    protected void startFlowWithPort(int srcId, int dstId, long flowSizeByte, int sourcePort, int destinationPort) {
+
+        // Some checking (it starts now)
+        checkFlow(Simulator.getCurrentTime(), srcId, dstId, flowSizeByte);
+
+        // Start flow
+        transportLayers[srcId].startFlowWithPortAndFlowId(dstId, flowSizeByte, flowIdCounter, false, sourcePort, destinationPort);
         flowIdCounter++;
-        // Register event
-        Simulator.registerEvent(event);
 
     }
 
+    /**
+     * Retrieve the transport layer of a network device.
+     *
+     * @param id    Network device identifier
+     *
+     * @return  Transport layer, or null if it does not have one
+     */
+    private TransportLayer getTransportLayer(int id) {
+        return id >= 0 && id < transportLayers.length ? transportLayers[id] : null;
+    }
+
     public static void increaseFlowIdCounter() {
         flowIdCounter += 1000000;
     }
@@ -0,0 +1,123 @@
+package ch.ethz.systems.netbench.core.utility;
+
+import java.util.Arrays;
+
+/**
+ * Set of non-negative long values (e.g. dense flow identifiers) stored as a
+ * paged bitmap. Pages of 65536 bits are only allocated once a value in their
+ * range is added, and a page of which all values have been added is replaced
+ * by a shared full marker, so long runs of consecutive values (such as the
+ * identifiers of all finished flows of a long run) take almost no memory.
+ */
+public class LongBitmap {
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) >>> 6;
+    private static final long[] FULL = new long[0];
+
+    private long[][] pages;
+    private int[] pageCardinality;
+    private long size;
+
+    /**
+     * Create empty bitmap.
+     */
+    public LongBitmap() {
+        clear();
+    }
+
+    /**
+     * Add a value.
+     *
+     * @param value     Value (non-negative)
+     *
+     * @return  True iff the value was not yet present
+     */
+    public boolean add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot add a negative value (" + value + ") to a bitmap.");
+        }
+        long pageIndexLong = value >>> PAGE_SHIFT;
+        if (pageIndexLong >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value " + value + " exceeds the bitmap range.");
+        }
+        int pageIndex = (int) pageIndexLong;
+        if (pageIndex >= pages.length) {
+            int capacity = Math.max(pageIndex + 1, pages.length * 2);
+            pages = Arrays.copyOf(pages, capacity);
+            pageCardinality = Arrays.copyOf(pageCardinality, capacity);
+        }
+        long[] page = pages[pageIndex];
+        if (page == FULL) {
+            return false;
+        }
+        if (page == null) {
+            page = new long[WORDS_PER_PAGE];
+            pages[pageIndex] = page;
+        }
+        int bit = (int) (value & ((1 << PAGE_SHIFT) - 1));
+        long mask = 1L << bit;
+        if ((page[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        page[bit >>> 6] |= mask;
+        size++;
+        if (++pageCardinality[pageIndex] == (1 << PAGE_SHIFT)) {
+            pages[pageIndex] = FULL;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a value is present.
+     *
+     * @param value     Value
+     *
+     * @return  True iff the value is present
+     */
+    public boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        long pageIndex = value >>> PAGE_SHIFT;
+        if (pageIndex >= pages.length) {
+            return false;
+        }
+        long[] page = pages[(int) pageIndex];
+        if (page == null) {
+            return false;
+        }
+        if (page == FULL) {
+            return true;
+        }
+        int bit = (int) (value & ((1 << PAGE_SHIFT) - 1));
+        return (page[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Check whether the page of a value is replaced by the full marker,
+     * i.e. all values of its page are present.
+     *
+     * @param value     Value (non-negative)
+     *
+     * @return  True iff the page of the value is full
+     */
+    boolean isPageFull(long value) {
+        long pageIndex = value >>> PAGE_SHIFT;
+        return pageIndex < pages.length && pages[(int) pageIndex] == FULL;
+    }
+
+    /**
+     * Remove all values (and release all pages).
+     */
+    public void clear() {
+        this.pages = new long[1][];
+        this.pageCardinality = new int[1];
+        this.size = 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+}
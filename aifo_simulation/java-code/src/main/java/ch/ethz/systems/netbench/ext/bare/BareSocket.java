@@ -2,6 +2,7 @@ package ch.ethz.systems.netbench.ext.bare;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.log.StatisticCounter;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
@@ -22,6 +23,11 @@ public class BareSocket extends Socket {
     private static final double DCTCP_WEIGHT_OLD_ESTIMATION = 1 - DCTCP_WEIGHT_NEW_ESTIMATION; // against the past estimation of alpha
     private static final long ROUND_TRIP_TIMEOUT_NS = 5000000L; // 5ms
 
+    // Statistic counters
+    private static final StatisticCounter STATISTIC_RESEND_PACKETS_SENT = SimulationLogger.getStatisticCounter("RESEND_PACKETS_SENT");
+    private static final StatisticCounter STATISTIC_NO_RESEND_PACKETS_SENT = SimulationLogger.getStatisticCounter("NO_RESEND_PACKETS_SENT");
+    private static final StatisticCounter STATISTIC_RESEND_OCCURRED = SimulationLogger.getStatisticCounter("RESEND_OCCURRED");
+
     // TCP state variables
     private double slowStartThreshold;   // ssthresh:    Threshold for congestion window when it goes to congestion avoidance phase
     private double congestionWindow;     // cwnd:        Congestion window size, maximum out size defined by network
@@ -63,7 +69,7 @@ public class BareSocket extends Socket {
         this.highestSentOutNumber = 0;
         this.seqNumbToResendEventMap = new HashMap<>();
         this.acknowledgedSegStartSeqNumbers = new HashSet<>();
-        this.logger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.logger = TcpLogger.create(flowId, flowSizeByte == -1);
     }
 
     @Override
@@ -230,7 +236,7 @@ public class BareSocket extends Socket {
      * @param packet     Packet instance
      */
     private void sendWithResend(BarePacket packet) {
-        SimulationLogger.increaseStatisticCounter("RESEND_PACKETS_SENT");
+        STATISTIC_RESEND_PACKETS_SENT.increase();
 
         // Register resend event
         BarePacketResendEvent event = new BarePacketResendEvent(getRoundTripTimeoutNs(), packet, this);
@@ -253,7 +259,7 @@ public class BareSocket extends Socket {
      * @param packet     Packet instance
      */
     private void sendWithoutResend(Packet packet) {
-        SimulationLogger.increaseStatisticCounter("NO_RESEND_PACKETS_SENT");
+        STATISTIC_NO_RESEND_PACKETS_SENT.increase();
         transportLayer.send(packet);
     }
 
@@ -274,7 +280,7 @@ public class BareSocket extends Socket {
         );
 
         // Log statistic
-        SimulationLogger.increaseStatisticCounter("RESEND_OCCURRED");
+        STATISTIC_RESEND_OCCURRED.increase();
 
         // Halve congestion window as the congestion control action
         packetLostAction();
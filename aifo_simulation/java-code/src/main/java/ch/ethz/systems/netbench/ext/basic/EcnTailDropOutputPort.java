@@ -3,7 +3,6 @@ package ch.ethz.systems.netbench.ext.basic;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.network.Link;
 import ch.ethz.systems.netbench.core.network.OutputPort;
-import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Packet;
 
 import java.util.concurrent.LinkedBlockingQueue;
@@ -43,10 +42,7 @@ public class EcnTailDropOutputPort extends OutputPort {
         if (getBufferOccupiedBits() + ipHeader.getSizeBit() <= maxQueueSizeBits) {
             guaranteedEnqueue(packet);
         } else {
-            SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-            if (ipHeader.getSourceId() == this.getOwnId()) {
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-            }
+            countPacketDropped(packet);
         }
 
     }
@@ -0,0 +1,75 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import ch.ethz.systems.netbench.core.config.GraphDetails;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mapping of destinations onto the rows of server-aware ECMP forwarding tables,
+ * shared by all switches.
+ *
+ * Every node that is not a server hanging off a ToR (so every switch, ToR, or
+ * ToR which is a server itself) has a row of its own. A server of a ToR shares
+ * the row of its ToR, as all its shortest paths go via that ToR; only the ToR
+ * itself keeps a direct port per server, selected by the rank of the server
+ * among the servers of the ToR.
+ */
+class EcmpDestinationIndex {
+
+    // Number of rows
+    final int numRows;
+
+    // Node identifier of each row
+    final int[] rowToNode;
+
+    // Row of each node (for a server of a ToR: -(row of the ToR) - 1)
+    final int[] rowOf;
+
+    // Rank of each server among the servers of its ToR (-1 for rows)
+    final int[] serverRank;
+
+    /**
+     * Create the index of a topology.
+     *
+     * @param details   Graph details
+     */
+    EcmpDestinationIndex(GraphDetails details) {
+
+        int numNodes = details.getNumNodes();
+        this.rowOf = new int[numNodes];
+        this.serverRank = new int[numNodes];
+        Arrays.fill(serverRank, -1);
+
+        // Servers which are not ToRs themselves hang off a ToR
+        Set<Integer> torServers = new TreeSet<>(details.getServerNodeIds());
+        torServers.removeAll(details.getTorNodeIds());
+
+        // Every other node gets a row
+        int[] rows = new int[numNodes - torServers.size()];
+        int numRows = 0;
+        for (int id = 0; id < numNodes; id++) {
+            if (!torServers.contains(id)) {
+                rows[numRows] = id;
+                rowOf[id] = numRows;
+                numRows++;
+            }
+        }
+        this.numRows = numRows;
+        this.rowToNode = rows;
+
+        // Servers share the row of their ToR
+        int[] numServersOfTor = new int[numNodes];
+        for (int serverId : torServers) {
+            Integer torId = details.getTorIdOfServer(serverId);
+            if (torId == null) {
+                throw new IllegalArgumentException("Server " + serverId + " is not a ToR itself, but is also not connected to one.");
+            }
+            rowOf[serverId] = -rowOf[torId] - 1;
+            serverRank[serverId] = numServersOfTor[torId]++;
+        }
+
+    }
+
+}
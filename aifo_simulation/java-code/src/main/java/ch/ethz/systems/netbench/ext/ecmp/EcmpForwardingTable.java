@@ -0,0 +1,256 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import java.util.Arrays;
+
+/**
+ * ECMP forwarding table of a single switch, mapping each destination to its
+ * possible next hops as local output port numbers.
+ *
+ * During setup the next hops are staged per destination; on the first lookup
+ * the table is compacted into compressed sparse row form (an offset per
+ * destination into one flat port array), such that a lookup is two array reads.
+ * Adding a next hop after compaction stages the table again.
+ *
+ * A server-aware table only has rows for the destinations which are not servers
+ * of a ToR (see {@link EcmpDestinationIndex}): a server resolves to the row of its
+ * ToR, except at its ToR, which keeps a direct port for each of its servers.
+ * A server itself only has a default port (towards its ToR).
+ *
+ * A lazy table (see {@link LazyEcmpForwardingTable}) has no rows at all, and
+ * looks up its next hops on demand.
+ */
+public class EcmpForwardingTable {
+
+    private static final int[] NONE = new int[0];
+
+    private final int numDestinations;
+    private final int numRows;
+
+    // Server-aware destination index (null if every destination has its own row)
+    private final EcmpDestinationIndex index;
+    private final int ownRow;
+    private int[] serverPorts;
+    private int defaultPort;
+
+    // Staged next hops (valid if offsets is null)
+    private int[][] staged;
+    private int[] stagedCount;
+
+    // Compact next hops (valid if not null)
+    private int[] offsets;
+    private int[] ports;
+
+    /**
+     * Create empty forwarding table.
+     *
+     * @param numDestinations   Number of destinations (network devices in the entire network)
+     */
+    public EcmpForwardingTable(int numDestinations) {
+        this(numDestinations, numDestinations, null, -1);
+    }
+
+    /**
+     * Create empty server-aware forwarding table.
+     *
+     * @param index     Destination index shared by all switches
+     * @param ownRow    Row of the switch itself (-1 if it is a server of a ToR)
+     */
+    EcmpForwardingTable(EcmpDestinationIndex index, int ownRow) {
+        this(index.rowOf.length, index.numRows, index, ownRow);
+    }
+
+    /**
+     * Create empty forwarding table with a number of rows.
+     *
+     * @param numDestinations   Number of destinations (network devices in the entire network)
+     * @param numRows           Number of rows
+     * @param index             Destination index shared by all switches (null if every destination has its own row)
+     * @param ownRow            Row of the switch itself (-1 if it is a server of a ToR)
+     */
+    EcmpForwardingTable(int numDestinations, int numRows, EcmpDestinationIndex index, int ownRow) {
+        this.numDestinations = numDestinations;
+        this.numRows = numRows;
+        this.index = index;
+        this.ownRow = ownRow;
+        this.serverPorts = NONE;
+        this.defaultPort = -1;
+        this.staged = new int[numRows][];
+        this.stagedCount = new int[numRows];
+        this.offsets = null;
+        this.ports = null;
+    }
+
+    /**
+     * Add a next hop port for a destination.
+     *
+     * @param destinationId     Destination identifier
+     * @param port              Local output port number
+     *
+     * @return  True iff the port was not yet a next hop for the destination
+     */
+    public boolean add(int destinationId, int port) {
+        int row = destinationId;
+        if (index != null) {
+            row = index.rowOf[destinationId];
+            if (row < 0) {
+                return addServer(destinationId, -row - 1, port);
+            }
+        }
+        if (offsets != null) {
+            stage();
+        }
+        int[] current = staged[row];
+        int count = stagedCount[row];
+        for (int i = 0; i < count; i++) {
+            if (current[i] == port) {
+                return false;
+            }
+        }
+        if (current == null) {
+            current = new int[2];
+            staged[row] = current;
+        } else if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            staged[row] = current;
+        }
+        current[count] = port;
+        stagedCount[row] = count + 1;
+        return true;
+    }
+
+    /**
+     * Add the direct port of a ToR to one of its servers.
+     *
+     * @param serverId  Server identifier
+     * @param torRow    Row of the ToR of the server
+     * @param port      Local output port number
+     *
+     * @return  True iff the port was not yet set
+     */
+    private boolean addServer(int serverId, int torRow, int port) {
+        if (torRow != ownRow) {
+            throw new IllegalArgumentException("Cannot add a next hop for server " + serverId + " of another ToR (it is routed via its ToR).");
+        }
+        int rank = index.serverRank[serverId];
+        if (rank >= serverPorts.length) {
+            int oldLength = serverPorts.length;
+            serverPorts = Arrays.copyOf(serverPorts, Math.max(rank + 1, oldLength * 2));
+            Arrays.fill(serverPorts, oldLength, serverPorts.length, -1);
+        }
+        if (serverPorts[rank] == port) {
+            return false;
+        } else if (serverPorts[rank] != -1) {
+            throw new IllegalArgumentException("Cannot add a second next hop for server " + serverId + " directly connected to its ToR.");
+        }
+        serverPorts[rank] = port;
+        return true;
+    }
+
+    /**
+     * Set the port used for every destination (for a server of a ToR: the port to its ToR).
+     *
+     * @param port  Local output port number
+     */
+    void setDefaultPort(int port) {
+        this.defaultPort = port;
+    }
+
+    /**
+     * Select the next hop port for a destination.
+     *
+     * @param destinationId     Destination identifier
+     * @param hash              Non-negative hash selecting among the possibilities
+     *
+     * @return  Local output port number
+     */
+    public int select(int destinationId, int hash) {
+        int row = destinationId;
+        if (index != null) {
+            if (defaultPort != -1) {
+                return defaultPort;
+            }
+            row = index.rowOf[destinationId];
+            if (row < 0) {
+                row = -row - 1;
+                if (row == ownRow) {
+                    return serverPorts[index.serverRank[destinationId]];
+                }
+            }
+        }
+        if (offsets == null) {
+            compact();
+        }
+        int start = offsets[row];
+        return ports[start + hash % (offsets[row + 1] - start)];
+    }
+
+    /**
+     * Retrieve the next hop ports of a destination.
+     *
+     * @param destinationId     Destination identifier
+     *
+     * @return  Local output port numbers (copy, in order of addition)
+     */
+    public int[] getPorts(int destinationId) {
+        int row = destinationId;
+        if (index != null) {
+            if (defaultPort != -1) {
+                return new int[]{defaultPort};
+            }
+            row = index.rowOf[destinationId];
+            if (row < 0) {
+                row = -row - 1;
+                if (row == ownRow) {
+                    int rank = index.serverRank[destinationId];
+                    return rank < serverPorts.length && serverPorts[rank] != -1 ? new int[]{serverPorts[rank]} : NONE;
+                }
+            }
+        }
+        if (offsets == null) {
+            return staged[row] == null ? NONE : Arrays.copyOf(staged[row], stagedCount[row]);
+        }
+        return Arrays.copyOfRange(ports, offsets[row], offsets[row + 1]);
+    }
+
+    public int getNumDestinations() {
+        return numDestinations;
+    }
+
+    /**
+     * Move the staged next hops into the flat arrays.
+     */
+    private void compact() {
+        int[] compactOffsets = new int[numRows + 1];
+        for (int r = 0; r < numRows; r++) {
+            compactOffsets[r + 1] = compactOffsets[r] + stagedCount[r];
+        }
+        int[] compactPorts = new int[compactOffsets[numRows]];
+        for (int r = 0; r < numRows; r++) {
+            if (stagedCount[r] > 0) {
+                System.arraycopy(staged[r], 0, compactPorts, compactOffsets[r], stagedCount[r]);
+            }
+        }
+        this.offsets = compactOffsets;
+        this.ports = compactPorts;
+        this.staged = null;
+        this.stagedCount = null;
+    }
+
+    /**
+     * Move the flat arrays back into staged next hops.
+     */
+    private void stage() {
+        this.staged = new int[numRows][];
+        this.stagedCount = new int[numRows];
+        for (int r = 0; r < numRows; r++) {
+            int count = offsets[r + 1] - offsets[r];
+            if (count > 0) {
+                staged[r] = Arrays.copyOfRange(ports, offsets[r], offsets[r + 1]);
+                stagedCount[r] = count;
+            }
+        }
+        this.offsets = null;
+        this.ports = null;
+    }
+
+}
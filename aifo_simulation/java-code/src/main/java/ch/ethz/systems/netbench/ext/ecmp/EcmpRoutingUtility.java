@@ -1,54 +1,75 @@
 package ch.ethz.systems.netbench.ext.ecmp;
 
+import ch.ethz.systems.netbench.core.config.GraphDetails;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyConflictException;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.run.routing.RoutingStateCache;
+import edu.asu.emit.algorithm.graph.CsrGraph;
 import edu.asu.emit.algorithm.graph.Graph;
-import edu.asu.emit.algorithm.graph.Vertex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class EcmpRoutingUtility {
 
-    private static final int INFINITY = 999999999;
+    // Shortest path length of an unreachable destination
+    static final short UNREACHABLE = -1;
+
+    // Number of sources searched by a single task
+    private static final int SOURCES_PER_TASK = 64;
 
     private EcmpRoutingUtility() {
         // Cannot be instantiated
     }
 
     /**
-     * Calculate all the shortest paths and store them internally.
-     * Uses the modified Floyd-Warshall algorithm.
+     * Calculate the (unit-weight) shortest path lengths between all pairs of nodes.
+     * Performs a breadth-first search from every source, with the sources divided
+     * over parallel tasks.
+     *
+     * @param adjacency     Graph in compressed sparse row form
+     *
+     * @return  Shortest path length matrix [source][destination] (UNREACHABLE if there is no path)
      */
-    private static int[][] calculateShortestPaths(Graph graph) {
+    static short[][] calculateShortestPaths(final CsrGraph adjacency) {
 
         System.out.print("Calculating shortest path lengths...");
 
-        int numNodes = graph.getVertexList().size();
-        int[][] shortestPathLen = new int[numNodes][numNodes];
+        final int numNodes = adjacency.getNumVertices();
+        final short[][] shortestPathLen = new short[numNodes][];
 
-        // Initial scan to find easy shortest paths
-        for (int i = 0; i < numNodes; i++) {
-            for (int j = 0; j < numNodes; j++) {
-                if (i == j) {
-                    shortestPathLen[i][j] = 0;              // To itself
-                } else if (graph.getAdjacentVertices(graph.getVertex(i)).contains(graph.getVertex(j))) {
-                    shortestPathLen[i][j] = 1;              // To direct neighbor
-                } else {
-                    shortestPathLen[i][j] = INFINITY;       // To someone not directly connected
+        // Divide the sources over tasks
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int first = 0; first < numNodes; first += SOURCES_PER_TASK) {
+            final int from = first;
+            final int to = Math.min(numNodes, first + SOURCES_PER_TASK);
+            tasks.add(() -> {
+                int[] queue = new int[numNodes];
+                for (int source = from; source < to; source++) {
+                    shortestPathLen[source] = breadthFirstSearch(adjacency, source, queue);
                 }
-            }
+                return null;
+            });
         }
 
-        // Floyd-Warshall algorithm
-        for (int k = 0; k < numNodes; k++) {
-            for (int i = 0; i < numNodes; i++) {
-                for (int j = 0; j < numNodes; j++) {
-                    if (shortestPathLen[i][j] > shortestPathLen[i][k] + shortestPathLen[k][j]) {
-                        shortestPathLen[i][j] = shortestPathLen[i][k] + shortestPathLen[k][j];
-                    }
-                }
+        // Run the tasks in parallel
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
             }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("ECMP routing: failed to calculate shortest path lengths: " + e.getMessage());
+        } finally {
+            pool.shutdown();
         }
 
         System.out.println(" done.");
@@ -57,56 +78,243 @@ public class EcmpRoutingUtility {
 
     }
 
+    /**
+     * Calculate the shortest path length from a source to all nodes.
+     *
+     * @param adjacency     Graph in compressed sparse row form
+     * @param source        Source node identifier
+     * @param queue         Queue work array (at least the number of nodes)
+     *
+     * @return  Shortest path length to every node (UNREACHABLE if there is no path)
+     */
+    private static short[] breadthFirstSearch(CsrGraph adjacency, int source, int[] queue) {
+        short[] len = new short[adjacency.getNumVertices()];
+        Arrays.fill(len, UNREACHABLE);
+        len[source] = 0;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int u = queue[head++];
+            int next = len[u] + 1;
+            if (next > Short.MAX_VALUE) {
+                throw new RuntimeException("ECMP routing: shortest path length exceeds " + Short.MAX_VALUE + " hops.");
+            }
+            for (int k = adjacency.outStart(u); k < adjacency.outEnd(u); k++) {
+                int v = adjacency.outTarget(k);
+                if (len[v] == UNREACHABLE) {
+                    len[v] = (short) next;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return len;
+    }
+
     /**
      * Initializes the multi-forwarding ECMP routing tables in the network devices.
      * The network devices must be ECMP switches, and should have been generated
      * corresponding to the topology graph defined in the run configuration.
+     * If the routing state cache is enabled (routing_state_cache=true), the routing state is
+     * taken from the cache if present, else it is calculated and recorded into the cache. With routing_ecmp_lazy=true, the next hops
+     * are instead calculated on demand for each destination.
      *
      * @param idToNetworkDevice     Mapping of network device identifier to network device
      */
-    public static void populateShortestPathRoutingTables(Map<Integer, NetworkDevice> idToNetworkDevice, boolean isEcmp) {
+    public static void populateShortestPathRoutingTables(final Map<Integer, NetworkDevice> idToNetworkDevice, boolean isEcmp) {
 
         // Create graph and prepare shortest path algorithm
         Graph graph = Simulator.getConfiguration().getGraph();
-        int numNodes = Simulator.getConfiguration().getGraphDetails().getNumNodes();
+        GraphDetails details = Simulator.getConfiguration().getGraphDetails();
+
+        // Servers of ToRs can be routed via their ToR
+        boolean serversViaTor = Simulator.getConfiguration().getBooleanPropertyWithDefault("routing_ecmp_servers_via_tor", false);
+
+        // Next hops can be calculated on demand instead of in advance
+        if (Simulator.getConfiguration().getBooleanPropertyWithDefault("routing_ecmp_lazy", false)) {
+            if (!isEcmp) {
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), "routing_ecmp_lazy");
+            }
+            if (serversViaTor) {
+                throw new PropertyConflictException(Simulator.getConfiguration(), "routing_ecmp_lazy", "routing_ecmp_servers_via_tor");
+            }
+            useLazyRoutingTables(idToNetworkDevice, graph, Simulator.getConfiguration().getIntegerPropertyWithDefault("routing_ecmp_lazy_cache_size", 1024));
+            return;
+        }
+
+        EcmpDestinationIndex index = null;
+        if (serversViaTor) {
+            if (!isEcmp) {
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), "routing_ecmp_servers_via_tor");
+            }
+            index = useServerAwareRoutingTables(idToNetworkDevice, details);
+        }
+
+        // ECMP stores all the possible hops, whereas single-forward routing only stores a single hop entry
+        RoutingStateCache.EntryConsumer setEntry;
+        if (isEcmp) {
+            setEntry = (i, j, v) -> ((EcmpSwitchRoutingInterface) idToNetworkDevice.get(i)).addDestinationToNextSwitch(j, v);
+        } else {
+            setEntry = (i, j, v) -> ((ForwarderSwitch) idToNetworkDevice.get(i)).setDestinationToNextSwitch(j, v);
+        }
+
+        // Read from cache if present
+        RoutingStateCache cache = new RoutingStateCache(isEcmp ? (serversViaTor ? "ecmp_servers_via_tor" : "ecmp") : "single_forward");
+        if (cache.read(setEntry)) {
+            System.out.println("Populated ECMP forward routing tables from cache " + cache.getFileName() + ".");
+            return;
+        }
+
+        // Calculate, recording into the cache
+        if (index != null) {
+            populateServerAwareRoutingTables(cache.record(setEntry), graph, details, index);
+        } else {
+            populateShortestPathRoutingTables(cache.record(setEntry), graph, details.getNumNodes(), isEcmp);
+        }
+        cache.commit();
+
+    }
+
+    /**
+     * Calculates the routing table entries to the shortest path next hops between all nodes.
+     *
+     * @param setEntry      Consumer of the routing table entries (device, destination, next hop)
+     * @param graph         Topology graph
+     * @param numNodes      Number of nodes
+     * @param isEcmp        True iff all next hops on a shortest path are entries, else only the first
+     */
+    private static void populateShortestPathRoutingTables(RoutingStateCache.EntryConsumer setEntry, Graph graph, int numNodes, boolean isEcmp) {
 
         // Calculate shortest path length
-        int[][] shortestPathLen = EcmpRoutingUtility.calculateShortestPaths(graph);
+        CsrGraph adjacency = graph.getCsrGraph();
+        short[][] shortestPathLen = EcmpRoutingUtility.calculateShortestPaths(adjacency);
 
         System.out.print("Populating ECMP forward routing tables...");
 
         // Go over every network device pair and set the forwarder switch routing table
         for (int i = 0; i < numNodes; i++) {
+            short[] lenFromI = shortestPathLen[i];
             for (int j = 0; j < numNodes; j++) {
-                if (i != j) {
+                if (i != j && lenFromI[j] != UNREACHABLE) {
+
+                    // For every outgoing edge (i, v) check if it is on a shortest path to j
+                    for (int k = adjacency.outStart(i); k < adjacency.outEnd(i); k++) {
+                        int v = adjacency.outTarget(k);
+                        if (lenFromI[j] != shortestPathLen[v][j] + 1) {
+                            continue;
+                        }
+                        setEntry.accept(i, j, v);
+                        if (!isEcmp) {
+                            break; // We only need a single possibility
+                        }
+                    }
+                }
 
-                    // For every outgoing edge (i, j) check if it is on a shortest path to j
-                    List<Vertex> adjacent = graph.getAdjacentVertices(graph.getVertex(i));
-                    for (Vertex v : adjacent) {
+            }
 
-                        // ECMP stores all the possible hops
-                        if (isEcmp) {
+            // Log progress...
+            if (numNodes > 10 && (i + 1) % ((numNodes / 10)) == 0) {
+                System.out.print(" " + (((double) i + 1) / (numNodes) * 100) + "%...");
+            }
 
-                            if (shortestPathLen[i][j] == shortestPathLen[v.getId()][j] + 1) {
-                                ((EcmpSwitchRoutingInterface) idToNetworkDevice.get(i)).addDestinationToNextSwitch(j, v.getId());
-                            }
+        }
 
-                        // ... whereas single-forward routing only stores a single hop entry
-                        } else {
-                            if (shortestPathLen[i][j] == shortestPathLen[v.getId()][j] + 1) {
-                                ((ForwarderSwitch) idToNetworkDevice.get(i)).setDestinationToNextSwitch(j, v.getId());
-                                break; // We only need a single possibility
-                            }
-                        }
+        System.out.println(" done.");
+
+    }
+
+    /**
+     * Switch the network devices, which must be ECMP switches, to lazy routing tables, which
+     * calculate the next hops towards a destination when it is first looked up, and share them
+     * in a cache of a bounded number of destinations (see {@link LazyEcmpRouting}).
+     * Only the entries to the direct neighbors are set, through which every switch maps its
+     * outgoing edges to its output ports.
+     *
+     * @param idToNetworkDevice     Mapping of network device identifier to network device
+     * @param graph                 Topology graph
+     * @param cacheSize             Maximum number of destinations of which the next hops are kept
+     */
+    private static void useLazyRoutingTables(Map<Integer, NetworkDevice> idToNetworkDevice, Graph graph, int cacheSize) {
+        CsrGraph adjacency = graph.getCsrGraph();
+        LazyEcmpRouting routing = new LazyEcmpRouting(adjacency, cacheSize);
+        for (int i = 0; i < adjacency.getNumVertices(); i++) {
+            if (!(idToNetworkDevice.get(i) instanceof EcmpSwitch)) {
+                throw new IllegalArgumentException("Lazy ECMP routing requires ECMP switches (network device " + i + " is not).");
+            }
+            EcmpSwitch device = (EcmpSwitch) idToNetworkDevice.get(i);
+            device.destinationToNextSwitch = new LazyEcmpForwardingTable(routing, i);
+            for (int k = adjacency.outStart(i); k < adjacency.outEnd(i); k++) {
+                device.addDestinationToNextSwitch(adjacency.outTarget(k), adjacency.outTarget(k));
+            }
+        }
+        System.out.println("Using lazy ECMP forward routing tables (next hops of at most " + cacheSize + " destinations kept).");
+    }
 
+    /**
+     * Switch the network devices, which must be ECMP switches, to server-aware routing tables.
+     *
+     * @param idToNetworkDevice     Mapping of network device identifier to network device
+     * @param details               Topology graph details
+     *
+     * @return  Destination index of the server-aware routing tables
+     */
+    private static EcmpDestinationIndex useServerAwareRoutingTables(Map<Integer, NetworkDevice> idToNetworkDevice, GraphDetails details) {
+        EcmpDestinationIndex index = new EcmpDestinationIndex(details);
+        for (int i = 0; i < details.getNumNodes(); i++) {
+            if (!(idToNetworkDevice.get(i) instanceof EcmpSwitch)) {
+                throw new IllegalArgumentException("Server-aware ECMP routing requires ECMP switches (network device " + i + " is not).");
+            }
+            ((EcmpSwitch) idToNetworkDevice.get(i)).useServerAwareRoutingTable(index);
+        }
+        return index;
+    }
+
+    /**
+     * Calculates the server-aware ECMP routing table entries.
+     * Shortest paths are only calculated between the nodes which are not servers of a ToR (every such server
+     * has its ToR as only neighbor, so its shortest paths are those of its ToR). The routing tables of the
+     * switches only have entries for these nodes and for the servers directly connected to them, and a
+     * server only has a default entry towards its ToR.
+     *
+     * @param setEntry      Consumer of the routing table entries (device, destination, next hop)
+     * @param graph         Topology graph
+     * @param details       Topology graph details
+     * @param index         Destination index of the server-aware routing tables
+     */
+    private static void populateServerAwareRoutingTables(RoutingStateCache.EntryConsumer setEntry, Graph graph, GraphDetails details, EcmpDestinationIndex index) {
+
+        // Calculate shortest path length between the switches
+        CsrGraph adjacency = new CsrGraph(graph, index.rowToNode, index.rowOf);
+        short[][] shortestPathLen = EcmpRoutingUtility.calculateShortestPaths(adjacency);
+
+        System.out.print("Populating server-aware ECMP forward routing tables (" + index.numRows + " of " + details.getNumNodes() + " nodes)...");
+
+        // Go over every switch pair and set the routing table
+        int numRows = index.numRows;
+        for (int r = 0; r < numRows; r++) {
+            int i = index.rowToNode[r];
+            short[] lenFromR = shortestPathLen[r];
+            for (int c = 0; c < numRows; c++) {
+                if (r != c && lenFromR[c] != UNREACHABLE) {
+                    for (int k = adjacency.outStart(r); k < adjacency.outEnd(r); k++) {
+                        int v = adjacency.outTarget(k);
+                        if (lenFromR[c] == shortestPathLen[v][c] + 1) {
+                            setEntry.accept(i, index.rowToNode[c], index.rowToNode[v]);
+                        }
                     }
                 }
+            }
 
+            // Directly connected servers
+            if (details.getTorNodeIds().contains(i)) {
+                for (int serverId : details.getServersOfTor(i)) {
+                    setEntry.accept(i, serverId, serverId);
+                }
             }
 
             // Log progress...
-            if (numNodes > 10 && (i + 1) % ((numNodes / 10)) == 0) {
-                System.out.print(" " + (((double) i + 1) / (numNodes) * 100) + "%...");
+            if (numRows > 10 && (r + 1) % ((numRows / 10)) == 0) {
+                System.out.print(" " + (((double) r + 1) / (numRows) * 100) + "%...");
             }
 
         }
@@ -8,8 +8,8 @@ import java.util.List;
 
 public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterface {
 
-    // Routing table
-    protected final List<List<Integer>> destinationToNextSwitch;
+    // Routing table (next hops as local port numbers)
+    protected EcmpForwardingTable destinationToNextSwitch;
 
     /**
      * Constructor for ECMP switch.
@@ -21,10 +21,7 @@ public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterf
      */
     public EcmpSwitch(int identifier, TransportLayer transportLayer, int n, Intermediary intermediary) {
         super(identifier, transportLayer, intermediary);
-        this.destinationToNextSwitch = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            this.destinationToNextSwitch.add(new ArrayList<>());
-        }
+        this.destinationToNextSwitch = new EcmpForwardingTable(n);
     }
 
     @Override
@@ -42,8 +39,7 @@ public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterf
         } else {
 
             // Forward to the next switch
-            List<Integer> possibilities = destinationToNextSwitch.get(tcpHeader.getDestinationId());
-            this.targetIdToOutputPort.get(possibilities.get(tcpHeader.getHash(this.identifier) % possibilities.size())).enqueue(genericPacket);
+            this.outputPorts[destinationToNextSwitch.select(tcpHeader.getDestinationId(), tcpHeader.getHash(this.identifier))].enqueue(genericPacket);
 //            System.out.println("Switch forwarding...");
         }
 
@@ -66,19 +62,52 @@ public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterf
     public void addDestinationToNextSwitch(int destinationId, int nextHopId) {
 
         // Check for not possible identifier
-        if (!connectedTo.contains(nextHopId)) {
+        int port = getPortIndex(nextHopId);
+        if (port == -1) {
             throw new IllegalArgumentException("Cannot add hop to a network device to which it is not connected (" + nextHopId + ")");
         }
 
-        // Check for duplicate
-        List<Integer> current = this.destinationToNextSwitch.get(destinationId);
-        if (current.contains(nextHopId)) {
+        // Add to current ones, unless it is a duplicate
+        if (!this.destinationToNextSwitch.add(destinationId, port)) {
             throw new IllegalArgumentException("Cannot add a duplicate next hop network device identifier (" + nextHopId + ")");
         }
 
-        // Add to current ones
-        current.add(nextHopId);
+    }
+
+    /**
+     * Replace the (empty) routing table by a server-aware routing table, in which servers of a ToR
+     * are routed via the entries of their ToR. A server of a ToR sends everything to its ToR.
+     *
+     * @param index     Destination index shared by all switches
+     */
+    void useServerAwareRoutingTable(EcmpDestinationIndex index) {
+        int ownRow = index.rowOf[this.identifier];
+        if (ownRow >= 0) {
+            this.destinationToNextSwitch = new EcmpForwardingTable(index, ownRow);
+        } else {
+            this.destinationToNextSwitch = new EcmpForwardingTable(index, -1);
+            int torId = index.rowToNode[-ownRow - 1];
+            int port = getPortIndex(torId);
+            if (port == -1) {
+                throw new IllegalArgumentException("Server " + this.identifier + " is not connected to its ToR (" + torId + ")");
+            }
+            this.destinationToNextSwitch.setDefaultPort(port);
+        }
+    }
 
+    /**
+     * Retrieve the next hop opportunities in the routing table for the given destination.
+     *
+     * @param destinationId     Destination identifier
+     *
+     * @return  Next hop network device identifiers
+     */
+    protected List<Integer> getNextHops(int destinationId) {
+        List<Integer> nextHops = new ArrayList<>();
+        for (int port : destinationToNextSwitch.getPorts(destinationId)) {
+            nextHops.add(outputPorts[port].getTargetId());
+        }
+        return nextHops;
     }
 
     @Override
@@ -89,13 +118,13 @@ public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterf
         builder.append(", connected=");
         builder.append(connectedTo);
         builder.append(", routing: ");
-        for (int i = 0; i < destinationToNextSwitch.size(); i++) {
+        for (int i = 0; i < destinationToNextSwitch.getNumDestinations(); i++) {
             if (i != 0) {
                 builder.append(", ");
             }
             builder.append(i);
             builder.append("->");
-            builder.append(destinationToNextSwitch.get(i));
+            builder.append(getNextHops(i));
         }
         builder.append(">");
         return builder.toString();
@@ -6,6 +6,8 @@ import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.ext.basic.IpHeader;
 
+import java.util.Arrays;
+
 /**
  * Forwarder switch.
  *
@@ -15,8 +17,8 @@ import ch.ethz.systems.netbench.ext.basic.IpHeader;
  */
 public class ForwarderSwitch extends NetworkDevice {
 
-    // Routing table
-    private int[] destinationToNextSwitch;
+    // Routing table (next hop as local port number, -1 if not set)
+    private final int[] destinationToNextSwitch;
 
     /**
      * Constructor for single forwarder switch.
@@ -29,6 +31,7 @@ public class ForwarderSwitch extends NetworkDevice {
     ForwarderSwitch(int identifier, TransportLayer transportLayer, int n, Intermediary intermediary) {
         super(identifier, transportLayer, intermediary);
         this.destinationToNextSwitch = new int[n];
+        Arrays.fill(this.destinationToNextSwitch, -1);
     }
 
     @Override
@@ -45,7 +48,7 @@ public class ForwarderSwitch extends NetworkDevice {
         } else { // Else, it has not arrived
 
             // Forward to the next switch
-            this.targetIdToOutputPort.get(destinationToNextSwitch[ipHeader.getDestinationId()]).enqueue(genericPacket);
+            this.outputPorts[destinationToNextSwitch[ipHeader.getDestinationId()]].enqueue(genericPacket);
 
         }
 
@@ -64,10 +67,11 @@ public class ForwarderSwitch extends NetworkDevice {
      * @param nextHopId         Next hop
      */
     void setDestinationToNextSwitch(int destinationId, int nextHopId) {
-        if (!connectedTo.contains(nextHopId)) {
+        int port = getPortIndex(nextHopId);
+        if (port == -1) {
             throw new IllegalArgumentException("Cannot add hop to a network device to which it is not connected (" + nextHopId + ")");
         }
-        this.destinationToNextSwitch[destinationId] = nextHopId;
+        this.destinationToNextSwitch[destinationId] = port;
     }
 
     @Override
@@ -84,7 +88,7 @@ public class ForwarderSwitch extends NetworkDevice {
             }
             builder.append(i);
             builder.append("->");
-            builder.append(destinationToNextSwitch[i]);
+            builder.append(destinationToNextSwitch[i] == -1 ? -1 : outputPorts[destinationToNextSwitch[i]].getTargetId());
         }
         builder.append(">");
         return builder.toString();
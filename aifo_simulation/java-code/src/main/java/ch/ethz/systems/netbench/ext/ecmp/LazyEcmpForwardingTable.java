@@ -0,0 +1,88 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import edu.asu.emit.algorithm.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * ECMP forwarding table of a single switch of which the next hops are not stored,
+ * but looked up in the lazy ECMP routing shared by all switches (see {@link LazyEcmpRouting}).
+ *
+ * The only entries added to the table are those to the direct neighbors of the switch,
+ * through which it learns the local output port of each of its outgoing edges.
+ */
+class LazyEcmpForwardingTable extends EcmpForwardingTable {
+
+    private static final int[] NONE = new int[0];
+
+    private final LazyEcmpRouting routing;
+    private final CsrGraph graph;
+    private final int ownId;
+
+    // Local output port of each outgoing edge (by rank)
+    private final int[] rankToPort;
+
+    /**
+     * Create lazy forwarding table.
+     *
+     * @param routing   Lazy ECMP routing shared by all switches
+     * @param ownId     Identifier of the switch itself
+     */
+    LazyEcmpForwardingTable(LazyEcmpRouting routing, int ownId) {
+        super(routing.getGraph().getNumVertices(), 0, null, -1);
+        this.routing = routing;
+        this.graph = routing.getGraph();
+        this.ownId = ownId;
+        this.rankToPort = new int[graph.outEnd(ownId) - graph.outStart(ownId)];
+        Arrays.fill(rankToPort, -1);
+    }
+
+    /**
+     * Add the port to a direct neighbor.
+     *
+     * @param destinationId     Neighbor identifier
+     * @param port              Local output port number
+     *
+     * @return  True iff the port was not yet set
+     */
+    @Override
+    public boolean add(int destinationId, int port) {
+        int edge = graph.findEdge(ownId, destinationId);
+        if (edge == -1) {
+            throw new IllegalArgumentException("Lazy ECMP forwarding table only takes the port to a neighbor (" + destinationId + " is not): other next hops are calculated on demand.");
+        }
+        int rank = edge - graph.outStart(ownId);
+        if (rankToPort[rank] == port) {
+            return false;
+        }
+        rankToPort[rank] = port;
+        return true;
+    }
+
+    @Override
+    public int select(int destinationId, int hash) {
+        LazyEcmpRouting.NextHops hops = routing.get(destinationId);
+        int start = hops.offsets[ownId];
+        int count = hops.offsets[ownId + 1] - start;
+        if (count == 0) {
+            throw new IllegalArgumentException("There is no path from " + ownId + " to " + destinationId + ".");
+        }
+        return rankToPort[hops.ranks[start + hash % count]];
+    }
+
+    @Override
+    public int[] getPorts(int destinationId) {
+        LazyEcmpRouting.NextHops hops = routing.get(destinationId);
+        int start = hops.offsets[ownId];
+        int count = hops.offsets[ownId + 1] - start;
+        if (count == 0) {
+            return NONE;
+        }
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = rankToPort[hops.ranks[start + i]];
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,198 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import edu.asu.emit.algorithm.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * ECMP next hops computed on demand, shared by the lazy forwarding tables of all switches.
+ *
+ * The next hops of all nodes towards a destination are calculated by a breadth-first search
+ * over the incoming edges from the destination, the first time any switch looks up that
+ * destination. They are kept in a least-recently-used cache of a bounded number of destinations,
+ * such that only the destinations which actually receive traffic cost time and memory, instead
+ * of the full n x n routing tables.
+ *
+ * The next hops of a node are stored as the ranks of their edges among the outgoing edges of
+ * the node, in the adjacency order of the graph, which is the order in which the full ECMP
+ * routing tables add them.
+ */
+class LazyEcmpRouting {
+
+    /**
+     * Next hops of all nodes towards a single destination.
+     */
+    static final class NextHops {
+
+        // Next hop ranks of node u are ranks[offsets[u]] to ranks[offsets[u + 1] - 1]
+        final int[] offsets;
+        final int[] ranks;
+
+        private NextHops(int[] offsets, int[] ranks) {
+            this.offsets = offsets;
+            this.ranks = ranks;
+        }
+
+    }
+
+    private final CsrGraph graph;
+    private final int capacity;
+
+    // Cached destinations, in a doubly linked list from newest (most recently used) to oldest
+    private final NextHops[] cached;
+    private final int[] newer;
+    private final int[] older;
+    private int newest;
+    private int oldest;
+    private int size;
+    private long numCalculated;
+
+    // Breadth-first search workspace
+    private final int[] distance;
+    private final int[] queue;
+
+    /**
+     * Create lazy ECMP routing on a graph.
+     *
+     * @param graph         Graph in compressed sparse row form
+     * @param capacity      Maximum number of destinations of which the next hops are kept
+     */
+    LazyEcmpRouting(CsrGraph graph, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Lazy ECMP routing must be able to keep at least one destination (capacity: " + capacity + ").");
+        }
+        int numNodes = graph.getNumVertices();
+        this.graph = graph;
+        this.capacity = capacity;
+        this.cached = new NextHops[numNodes];
+        this.newer = new int[numNodes];
+        this.older = new int[numNodes];
+        this.newest = -1;
+        this.oldest = -1;
+        this.size = 0;
+        this.numCalculated = 0;
+        this.distance = new int[numNodes];
+        this.queue = new int[numNodes];
+    }
+
+    CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Retrieve the number of times next hops were calculated (cache misses).
+     *
+     * @return  Number of calculations
+     */
+    long getNumCalculated() {
+        return numCalculated;
+    }
+
+    /**
+     * Retrieve the next hops of all nodes towards a destination, calculating them if they are not cached.
+     *
+     * @param destinationId     Destination identifier
+     *
+     * @return  Next hops towards the destination
+     */
+    NextHops get(int destinationId) {
+        NextHops hops = cached[destinationId];
+        if (hops == null) {
+            hops = calculate(destinationId);
+            if (size == capacity) {
+                int evicted = oldest;
+                unlink(evicted);
+                cached[evicted] = null;
+                size--;
+            }
+            cached[destinationId] = hops;
+            size++;
+            linkAsNewest(destinationId);
+        } else if (destinationId != newest) {
+            unlink(destinationId);
+            linkAsNewest(destinationId);
+        }
+        return hops;
+    }
+
+    /**
+     * Calculate the next hops of all nodes towards a destination.
+     *
+     * @param destinationId     Destination identifier
+     *
+     * @return  Next hops towards the destination
+     */
+    private NextHops calculate(int destinationId) {
+        numCalculated++;
+        int numNodes = graph.getNumVertices();
+
+        // Shortest path length of every node to the destination
+        Arrays.fill(distance, -1);
+        distance[destinationId] = 0;
+        queue[0] = destinationId;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int i = graph.inStart(v); i < graph.inEnd(v); i++) {
+                int u = graph.inSource(i);
+                if (distance[u] == -1) {
+                    distance[u] = distance[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+
+        // An outgoing edge (u, v) is a next hop if it is on a shortest path
+        int[] offsets = new int[numNodes + 1];
+        for (int u = 0; u < numNodes; u++) {
+            int count = 0;
+            if (distance[u] > 0) {
+                for (int k = graph.outStart(u); k < graph.outEnd(u); k++) {
+                    if (distance[graph.outTarget(k)] == distance[u] - 1) {
+                        count++;
+                    }
+                }
+            }
+            offsets[u + 1] = offsets[u] + count;
+        }
+        int[] ranks = new int[offsets[numNodes]];
+        for (int u = 0; u < numNodes; u++) {
+            int j = offsets[u];
+            for (int k = graph.outStart(u); j < offsets[u + 1]; k++) {
+                if (distance[graph.outTarget(k)] == distance[u] - 1) {
+                    ranks[j++] = k - graph.outStart(u);
+                }
+            }
+        }
+
+        return new NextHops(offsets, ranks);
+    }
+
+    private void unlink(int destinationId) {
+        int newerId = newer[destinationId];
+        int olderId = older[destinationId];
+        if (newerId == -1) {
+            newest = olderId;
+        } else {
+            older[newerId] = olderId;
+        }
+        if (olderId == -1) {
+            oldest = newerId;
+        } else {
+            newer[olderId] = newerId;
+        }
+    }
+
+    private void linkAsNewest(int destinationId) {
+        newer[destinationId] = -1;
+        older[destinationId] = newest;
+        if (newest == -1) {
+            oldest = destinationId;
+        } else {
+            newer[newest] = destinationId;
+        }
+        newest = destinationId;
+    }
+
+}
@@ -56,8 +56,8 @@ public class EcmpThenValiantSwitch extends RangeValiantSwitch {
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append("\n\nEcmpThenValiantSwitch<switchThreshold=" + switchThresholdBytes + ", id=" + getIdentifier() + ", connected=" + connectedTo + ",\nrouting:\n");
-        for (int i = 0; i < destinationToNextSwitch.size(); i++) {
-            builder.append("\tfor " + i + " next hops are "  + destinationToNextSwitch.get(i) + "\n");
+        for (int i = 0; i < destinationToNextSwitch.getNumDestinations(); i++) {
+            builder.append("\tfor " + i + " next hops are "  + getNextHops(i) + "\n");
         }
         builder.append(",\ninclusive valiant range: [" + lowBoundValiantRangeIncl + ", " + highBoundValiantRangeIncl + "]\n");
         builder.append(">\n\n");
@@ -0,0 +1,166 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Weighted sampler of (source, destination) pairs using Walker's alias method
+ * (with Vose's construction), drawing a pair in O(1).
+ *
+ * Pairs are stored in primitive arrays instead of boxed pair objects.
+ * The alias table is built on the first draw, after which no more
+ * pairs can be added. Each draw consumes exactly one
+ * {@link Random#nextDouble()}, so that the outcome is the same with the given
+ * random number generator when adding and drawing in exactly the same sequence.
+ */
+public class AliasPairSampler implements PairSampler {
+
+    private final Random random;
+
+    // Pairs and their weights
+    private int[] src;
+    private int[] dst;
+    private double[] weight;
+    private int size;
+    private double total;
+
+    // Alias table (built on first draw)
+    private volatile AliasTable table;
+
+    // Last drawn pair
+    private int drawnIndex;
+
+    /**
+     * Instantiate alias pair sampler.
+     *
+     * @param random    Random number generator instance
+     */
+    public AliasPairSampler(Random random) {
+        this.random = random;
+        this.src = new int[16];
+        this.dst = new int[16];
+        this.weight = new double[16];
+        this.size = 0;
+        this.total = 0;
+    }
+
+    /**
+     * Add a new pair with the given weight.
+     *
+     * @param pairWeight    Probability weight of the pair
+     * @param srcId         Source identifier
+     * @param dstId         Destination identifier
+     */
+    public void add(double pairWeight, int srcId, int dstId) {
+        if (pairWeight <= 0) {
+            throw new IllegalArgumentException("Cannot add negative weight (" + pairWeight + ") to alias pair sampler.");
+        }
+        if (table != null) {
+            throw new IllegalStateException("Cannot add a pair to the alias pair sampler after the first draw.");
+        }
+        if (size == src.length) {
+            src = Arrays.copyOf(src, size * 2);
+            dst = Arrays.copyOf(dst, size * 2);
+            weight = Arrays.copyOf(weight, size * 2);
+        }
+        src[size] = srcId;
+        dst[size] = dstId;
+        weight[size] = pairWeight;
+        total += pairWeight;
+        size++;
+    }
+
+    /**
+     * Independently draw, respecting the weights, the index of a next pair.
+     * The total weight must be extremely close to 1.
+     *
+     * @return  Index of the drawn pair (see {@link #getSource(int)} and {@link #getDestination(int)})
+     */
+    public int nextIndex() {
+        return nextIndex(random);
+    }
+
+    /**
+     * Draw the index of a next pair using the given random number generator.
+     *
+     * @param random    Random number generator instance
+     *
+     * @return  Index of the drawn pair
+     */
+    private int nextIndex(Random random) {
+        AliasTable t = table;
+        if (t == null) {
+            t = build();
+        }
+        return t.sample(random.nextDouble());
+    }
+
+    /**
+     * Build the alias table (once) from the added weights.
+     *
+     * @return  Alias table
+     */
+    private synchronized AliasTable build() {
+        if (table == null) {
+            if (Math.abs(1.0 - total) > 1e-6) {
+                throw new IllegalArgumentException("Total weight (" + total + ") in alias pair sampler differs too much (> 1e-6) from 1.");
+            }
+            table = new AliasTable(weight, size, total);
+            weight = null;
+        }
+        return table;
+    }
+
+    @Override
+    public void drawPair() {
+        drawnIndex = nextIndex();
+    }
+
+    @Override
+    public long drawPair(Random random) {
+        int index = nextIndex(random);
+        return ((long) src[index] << 32) | (dst[index] & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public int getDrawnSource() {
+        return src[drawnIndex];
+    }
+
+    @Override
+    public int getDrawnDestination() {
+        return dst[drawnIndex];
+    }
+
+    /**
+     * Retrieve the source of a pair.
+     *
+     * @param index     Pair index
+     *
+     * @return  Source identifier
+     */
+    public int getSource(int index) {
+        return src[index];
+    }
+
+    /**
+     * Retrieve the destination of a pair.
+     *
+     * @param index     Pair index
+     *
+     * @return  Destination identifier
+     */
+    public int getDestination(int index) {
+        return dst[index];
+    }
+
+    /**
+     * Retrieve the number of pairs.
+     *
+     * @return  Number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+}
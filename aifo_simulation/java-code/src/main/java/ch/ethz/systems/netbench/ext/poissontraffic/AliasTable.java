@@ -0,0 +1,87 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+/**
+ * Alias table (Walker's alias method, with Vose's construction) to draw
+ * an index respecting a set of weights in O(1) from one uniform number.
+ */
+class AliasTable {
+
+    private final int size;
+    private final double[] prob;
+    private final int[] alias;
+
+    /**
+     * Build the alias table.
+     *
+     * @param weight    Non-negative weight of each index (need not be normalized)
+     * @param size      Number of indices (the first <i>size</i> weights are used)
+     * @param total     Sum of the weights
+     */
+    AliasTable(double[] weight, int size, double total) {
+        if (size <= 0 || total <= 0) {
+            throw new IllegalArgumentException("Cannot build an alias table without any (positive) weight.");
+        }
+        this.size = size;
+        this.prob = new double[size];
+        this.alias = new int[size];
+
+        // Scale such that the average weight is 1, and split into small (< 1) and large (>= 1) worklists
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weight[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+
+        // Fill up each small column with the remainder of a large one
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+
+        // Whatever remains is (up to rounding) exactly full
+        while (numLarge > 0) {
+            int l = large[--numLarge];
+            prob[l] = 1.0;
+            alias[l] = l;
+        }
+        while (numSmall > 0) {
+            int s = small[--numSmall];
+            prob[s] = 1.0;
+            alias[s] = s;
+        }
+
+    }
+
+    /**
+     * Draw an index.
+     *
+     * @param uniform   Uniform random number in [0, 1]
+     *
+     * @return  Index
+     */
+    int sample(double uniform) {
+        double u = uniform * size;
+        int column = (int) u;
+        if (column >= size) { // Only if the uniform random number is 1.0
+            column = size - 1;
+        }
+        return (u - column < prob[column]) ? column : alias[column];
+    }
+
+}
@@ -2,6 +2,7 @@ package ch.ethz.systems.netbench.ext.poissontraffic;
 
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartBatch;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 
 import java.util.Map;
@@ -32,18 +33,22 @@ public class FromStringArrivalPlanner extends TrafficPlanner {
     public void createPlan(long durationNs) {
 
         String[] spl = arrivals.split(";");
+        FlowStartBatch batch = new FlowStartBatch(spl.length);
         for (String s : spl) {
             s = s.substring(1, s.length() - 1);
 
             String[] arrivalSpl = s.split(",");
-            this.registerFlow(
+            batch.add(
                 Long.valueOf(arrivalSpl[0].trim()),
                 Integer.valueOf(arrivalSpl[1].trim()),
                 Integer.valueOf(arrivalSpl[2].trim()),
-                Long.valueOf(arrivalSpl[3].trim())
+                Long.valueOf(arrivalSpl[3].trim()),
+                0,
+                0
             );
 
         }
+        this.registerFlows(batch);
 
     }
 
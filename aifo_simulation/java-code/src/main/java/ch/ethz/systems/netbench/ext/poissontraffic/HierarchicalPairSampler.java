@@ -0,0 +1,145 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Factored sampler of (source, destination) pairs between groups (typically
+ * the servers of ToRs) with product-form probabilities: each group i has a
+ * weight w_i, a group pair (i, j) with i != j has probability
+ * w_i * w_j / (1 - sum_k w_k^2), and within a group pair every member pair
+ * is equally likely.
+ *
+ * Instead of materializing all member pairs, a draw takes the source group
+ * (marginal w_i * (1 - w_i) / (1 - sum_k w_k^2)), then the destination group
+ * conditioned on the source (w_j / (1 - w_i), by redrawing on the diagonal),
+ * and then a member uniformly within each group. Setup is O(#groups) and memory
+ * O(#groups + #members), with the exact same pair probabilities.
+ */
+public class HierarchicalPairSampler implements PairSampler {
+
+    private final Random random;
+
+    // Members of group k are members[memberOffset[k]] ... members[memberOffset[k + 1] - 1]
+    private final int[] memberOffset;
+    private final int[] members;
+
+    // Alias tables of the source group and (unconditioned) destination group
+    private final AliasTable sourceTable;
+    private final AliasTable destinationTable;
+
+    // Last drawn pair
+    private int drawnSource;
+    private int drawnDestination;
+
+    /**
+     * Instantiate hierarchical pair sampler.
+     *
+     * @param random        Random number generator instance
+     * @param groupWeights  Weight w_i of each group (need not be normalized)
+     * @param groupMembers  Members of each group (e.g. the servers of a ToR)
+     */
+    public HierarchicalPairSampler(Random random, double[] groupWeights, Collection<? extends Collection<Integer>> groupMembers) {
+        this.random = random;
+        int numGroups = groupWeights.length;
+        if (groupMembers.size() != numGroups) {
+            throw new IllegalArgumentException("Number of group weights (" + numGroups + ") and groups (" + groupMembers.size() + ") differ.");
+        }
+
+        // Flatten members
+        int numMembers = 0;
+        for (Collection<Integer> group : groupMembers) {
+            numMembers += group.size();
+        }
+        this.memberOffset = new int[numGroups + 1];
+        this.members = new int[numMembers];
+        int k = 0;
+        int m = 0;
+        for (Collection<Integer> group : groupMembers) {
+            if (group.isEmpty() && groupWeights[k] > 0) {
+                throw new IllegalArgumentException("Group " + k + " has a positive weight but no members.");
+            }
+            memberOffset[k] = m;
+            for (int member : group) {
+                members[m++] = member;
+            }
+            k++;
+        }
+        memberOffset[numGroups] = m;
+
+        // Normalize weights
+        double total = 0;
+        int numPositive = 0;
+        for (double w : groupWeights) {
+            if (w < 0) {
+                throw new IllegalArgumentException("Cannot have a negative group weight (" + w + ").");
+            }
+            total += w;
+            numPositive += w > 0 ? 1 : 0;
+        }
+        if (numPositive < 2) {
+            throw new IllegalArgumentException("At least two groups must have a positive weight to draw pairs between groups.");
+        }
+
+        // Source group marginal is proportional to w_i * (1 - w_i)
+        double[] normalized = new double[numGroups];
+        double[] sourceWeights = new double[numGroups];
+        double sourceTotal = 0;
+        for (int i = 0; i < numGroups; i++) {
+            normalized[i] = groupWeights[i] / total;
+            sourceWeights[i] = normalized[i] * (1.0 - normalized[i]);
+            sourceTotal += sourceWeights[i];
+        }
+        this.sourceTable = new AliasTable(sourceWeights, numGroups, sourceTotal);
+        this.destinationTable = new AliasTable(normalized, numGroups, 1.0);
+
+    }
+
+    @Override
+    public void drawPair() {
+        long pair = drawPair(random);
+        drawnSource = (int) (pair >> 32);
+        drawnDestination = (int) pair;
+    }
+
+    @Override
+    public long drawPair(Random random) {
+
+        // Source group, then destination group with the diagonal excluded
+        int srcGroup = sourceTable.sample(random.nextDouble());
+        int dstGroup;
+        do {
+            dstGroup = destinationTable.sample(random.nextDouble());
+        } while (dstGroup == srcGroup);
+
+        // Uniformly within each group
+        int src = drawMember(random, srcGroup);
+        int dst = drawMember(random, dstGroup);
+        return ((long) src << 32) | (dst & 0xFFFFFFFFL);
+
+    }
+
+    /**
+     * Draw a member of a group uniformly at random.
+     *
+     * @param random    Random number generator instance
+     * @param group     Group index
+     *
+     * @return  Member identifier
+     */
+    private int drawMember(Random random, int group) {
+        int start = memberOffset[group];
+        return members[start + random.nextInt(memberOffset[group + 1] - start)];
+    }
+
+    @Override
+    public int getDrawnSource() {
+        return drawnSource;
+    }
+
+    @Override
+    public int getDrawnDestination() {
+        return drawnDestination;
+    }
+
+}
@@ -0,0 +1,42 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import java.util.Random;
+
+/**
+ * Sampler of random (source, destination) communication pairs.
+ * Drawing does not allocate: the drawn pair is retrieved
+ * via {@link #getDrawnSource()} and {@link #getDrawnDestination()}.
+ */
+public interface PairSampler {
+
+    /**
+     * Independently draw, respecting the pair probabilities, a next pair.
+     */
+    void drawPair();
+
+    /**
+     * Retrieve the source of the last drawn pair.
+     *
+     * @return  Source identifier
+     */
+    int getDrawnSource();
+
+    /**
+     * Retrieve the destination of the last drawn pair.
+     *
+     * @return  Destination identifier
+     */
+    int getDrawnDestination();
+
+    /**
+     * Draw a pair using the given random number generator instead of the sampler's
+     * own, without changing the last drawn pair (e.g. for parallel plan generation).
+     * Can be called concurrently.
+     *
+     * @param random    Random number generator instance
+     *
+     * @return  Drawn pair, encoded as (source &lt;&lt; 32) | destination
+     */
+    long drawPair(Random random);
+
+}
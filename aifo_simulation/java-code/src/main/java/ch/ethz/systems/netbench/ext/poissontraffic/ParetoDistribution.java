@@ -33,6 +33,17 @@ public class ParetoDistribution {
 
     }
 
+    /**
+     * Draw a value using the random number generator given at construction.
+     *
+     * @return  Value drawn from parametrized Pareto distribution
+     *
+     * @see #draw(Random)
+     */
+    public double draw() {
+        return draw(random);
+    }
+
     /**
      * Inverse of the CDF of a Pareto distribution:
      * CDF = 1 - (scale / x)^shape
@@ -43,9 +54,11 @@ public class ParetoDistribution {
      * Because outcome is drawn uniformly from [0, 1.0),
      * (1 - CDF) is replaced with the outcome.
      *
+     * @param random    Random number generator to draw the outcome from
+     *
      * @return  Value drawn from parametrized Pareto distribution
      */
-    public double draw() {
+    public double draw(Random random) {
         double outcome = random.nextDouble();
         return (scale / Math.pow(outcome, 1.0 / shape));
     }
@@ -0,0 +1,30 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+/**
+ * Next flow arrival of a lazy {@link PoissonArrivalPlanner}.
+ * When triggered, the planner starts the flow and registers
+ * the arrival following it.
+ */
+class PoissonArrivalEvent extends Event {
+
+    private final PoissonArrivalPlanner planner;
+
+    /**
+     * Create arrival event.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     * @param planner           Planner which draws the arrival
+     */
+    PoissonArrivalEvent(long timeFromNowNs, PoissonArrivalPlanner planner) {
+        super(timeFromNowNs);
+        this.planner = planner;
+    }
+
+    @Override
+    public void trigger() {
+        planner.triggerArrival();
+    }
+
+}
@@ -1,19 +1,24 @@
 package ch.ethz.systems.netbench.ext.poissontraffic;
 
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartBatch;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.FlowSizeDistribution;
+import ch.ethz.systems.netbench.core.log.LoggerCallback;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.SelfDefinedFlows;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class PoissonArrivalPlanner extends TrafficPlanner {
 
@@ -30,14 +35,77 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
     private double lambdaFlowStartsPerSecond;
     private final FlowSizeDistribution flowSizeDistribution;
     private final Random ownIndependentRng;
-    private final RandomCollection<Pair<Integer, Integer>> randomPairGenerator;
+    private final Random pairRandom;
+    private final AliasPairSampler randomPairGenerator;
+    private PairSampler pairSampler;
+
+    // Lazy arrivals: only the next arrival is in the event queue at any time
+    private final boolean lazyArrivals;
+    private long lazyDurationNs;
+    private long lazyNumFlows;
+    private long lazyInterArrivalSum;
+
+    // Sharded plan: the plan is generated as the superposition of this many independent shards
+    private final int numPlanShards;
+
+    // Time-varying arrival rate (null for a homogeneous Poisson process at lambda)
+    private final String arrivalProcess;
+    private final RateSchedule rateSchedule;
 
     private PoissonArrivalPlanner(Map<Integer, TransportLayer> idToTransportLayerMap, double lambdaFlowStartsPerSecond, FlowSizeDistribution flowSizeDistribution) {
         super(idToTransportLayerMap);
         this.lambdaFlowStartsPerSecond = lambdaFlowStartsPerSecond;
         this.flowSizeDistribution = flowSizeDistribution;
         this.ownIndependentRng = Simulator.selectIndependentRandom("poisson_inter_arrival");
-        this.randomPairGenerator = new RandomCollection<>(Simulator.selectIndependentRandom("pair_probabilities_draw"));
+        this.pairRandom = Simulator.selectIndependentRandom("pair_probabilities_draw");
+        this.randomPairGenerator = new AliasPairSampler(pairRandom);
+        this.pairSampler = randomPairGenerator;
+        this.lazyArrivals = Simulator.getConfiguration().getBooleanPropertyWithDefault("traffic_lazy_arrivals", false);
+        this.numPlanShards = Simulator.getConfiguration().getIntegerPropertyWithDefault("traffic_plan_shards", 1);
+        if (numPlanShards < 1 || (numPlanShards > 1 && lazyArrivals)) {
+            throw new PropertyValueInvalidException(Simulator.getConfiguration(), "traffic_plan_shards");
+        }
+
+        // Arrival process
+        this.arrivalProcess = Simulator.getConfiguration().getPropertyWithDefault("traffic_arrival_process", "poisson");
+        switch (arrivalProcess) {
+            case "poisson":
+                this.rateSchedule = null;
+                break;
+            case "nhpp":
+                this.rateSchedule = RateSchedule.parse(
+                        Simulator.getConfiguration().getPropertyOrFail("traffic_rate_schedule"),
+                        selectRateScheduleInterpolation()
+                );
+                break;
+            case "mmpp":
+                this.rateSchedule = null; // The state path is only drawn once the duration is known
+                break;
+            default:
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), "traffic_arrival_process");
+        }
+        if (!arrivalProcess.equals("poisson") && (lazyArrivals || numPlanShards > 1)) {
+            throw new PropertyValueInvalidException(Simulator.getConfiguration(), "traffic_arrival_process");
+        }
+    }
+
+    /**
+     * Select the interpolation of the rate schedule.
+     *
+     * Selected using following property:
+     * traffic_rate_schedule_interpolation=step|linear
+     *
+     * @return  Interpolation
+     */
+    private static RateSchedule.Interpolation selectRateScheduleInterpolation() {
+        switch (Simulator.getConfiguration().getPropertyWithDefault("traffic_rate_schedule_interpolation", "step")) {
+            case "step":
+                return RateSchedule.Interpolation.STEP;
+            case "linear":
+                return RateSchedule.Interpolation.LINEAR;
+            default:
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), "traffic_rate_schedule_interpolation");
+        }
     }
 
     /**
@@ -136,31 +204,15 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         }
         Collections.sort(probRes);
 
-        // Calculate how much probability is wasted on the diagonal
-        double torExcluded = 0.0;
+        // ToR-pair probability is the product of the ToR probabilities with diagonal waste normalized out,
+        // and uniform among the server pairs of the ToR pair
+        double[] torProbs = new double[tors.size()];
+        List<Set<Integer>> torServers = new ArrayList<>();
         for (int i = 0; i < tors.size(); i++) {
-            torExcluded += probRes.get(i) * probRes.get(i);
-        }
-
-        // Write away to random pair generator the pairs and their respective probability
-        for (int i = 0; i < tors.size(); i++) {
-            for (int j = 0; j < tors.size(); j++) {
-                if (i != j) {
-
-                    double torPairProb = probRes.get(i) * probRes.get(j) / (1 - torExcluded); // ToR-pair probability with diagonal waste normalized out
-                    List<Integer> srcServers = new ArrayList<>(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(i)));
-                    List<Integer> dstServers = new ArrayList<>(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(j)));
-
-                    double serverProb = torPairProb / (srcServers.size() * dstServers.size());
-                    for (int src : srcServers) {
-                        for (int dst : dstServers) {
-                            this.randomPairGenerator.add(serverProb, new ImmutablePair<>(src, dst));
-                        }
-                    }
-
-                }
-            }
+            torProbs[i] = probRes.get(i);
+            torServers.add(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(i)));
         }
+        this.pairSampler = new HierarchicalPairSampler(pairRandom, torProbs, torServers);
 
         System.out.println(" done.");
         System.out.println("Top 20 ToR probabilities:");
@@ -184,7 +236,7 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         for (Integer src : this.idToTransportLayerMap.keySet()){
             for (Integer dst : this.idToTransportLayerMap.keySet()){
                 if(!src.equals(dst)) {
-                    this.randomPairGenerator.add(pdfNumBytes, new ImmutablePair<>(src, dst));
+                    this.randomPairGenerator.add(pdfNumBytes, src, dst);
                 }
             }
         }
@@ -214,20 +266,16 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         }
         int numChosenServers = (int) Math.floor(servers.size() * activeFractionX);
 
-        // Probability between each server pair
-        double serverPairProb = 1.0 / (numChosenServers * (numChosenServers - 1));
-
-        // Go over every server pair
+        // Every chosen server pair is equally likely
         List<Integer> chosen = new ArrayList<>();
+        double[] serverProbs = new double[numChosenServers];
+        List<List<Integer>> serverGroups = new ArrayList<>();
         for (int i = 0; i < numChosenServers; i++) {
             chosen.add(servers.get(i));
-            for (int j = 0; j < numChosenServers; j++) {
-                if (i != j) {
-                    this.randomPairGenerator.add(serverPairProb, new ImmutablePair<>(servers.get(i), servers.get(j)));
-                }
-
-            }
+            serverProbs[i] = 1.0;
+            serverGroups.add(Collections.singletonList(servers.get(i)));
         }
+        this.pairSampler = new HierarchicalPairSampler(pairRandom, serverProbs, serverGroups);
 
         // Log chosen fraction
         Collections.sort(chosen);
@@ -245,7 +293,6 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
 
         // Retrieve necessary parameters from the extension
         int numTors = Simulator.getConfiguration().getGraphDetails().getNumTors();
-        int serversPerNodeToExtendWith = Simulator.getConfiguration().getIntegerPropertyOrFail("scenario_topology_extend_servers_per_tl_node");
         boolean fractionIsOrdered = Simulator.getConfiguration().getBooleanPropertyOrFail("traffic_probabilities_active_fraction_is_ordered");
         double activeFractionX = Simulator.getConfiguration().getDoublePropertyOrFail("traffic_probabilities_active_fraction");
 
@@ -259,32 +306,18 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         }
         int numChosenTors = (int) Math.floor(numTors * activeFractionX);
 
-        // Probability between each server pair
-        double serverPairProb = 1.0 / (numChosenTors * (numChosenTors - 1) * serversPerNodeToExtendWith * serversPerNodeToExtendWith);
-
         System.out.print("Generating all-to-all pair probabilities in " + (activeFractionX * 100) + "% fraction " + tors.size() + " ToRs between their servers...");
 
-        // Go over every ToR pair
+        // Every chosen ToR pair is equally likely, and uniform among its server pairs
         List<Integer> chosen = new ArrayList<>();
+        double[] torProbs = new double[numChosenTors];
+        List<Set<Integer>> torServers = new ArrayList<>();
         for (int i = 0; i < numChosenTors; i++) {
             chosen.add(tors.get(i));
-            for (int j = 0; j < numChosenTors; j++) {
-                if (i != j) {
-
-                    int torA = tors.get(i);
-                    int torB = tors.get(j);
-
-                    for (Integer svrA : Simulator.getConfiguration().getGraphDetails().getServersOfTor(torA)) {
-                        for (Integer svrB : Simulator.getConfiguration().getGraphDetails().getServersOfTor(torB)) {
-                            // Add to random pair generator
-                            this.randomPairGenerator.add(serverPairProb, new ImmutablePair<>(svrA, svrB));
-                        }
-                    }
-
-                }
-
-            }
+            torProbs[i] = 1.0;
+            torServers.add(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(i)));
         }
+        this.pairSampler = new HierarchicalPairSampler(pairRandom, torProbs, torServers);
 
         // Log chosen fraction
         Collections.sort(chosen);
@@ -324,40 +357,21 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         double probabilityPerA = probabilityMassA / (double) numChosenTorsA;
         double probabilityPerB = (1.0 - probabilityMassA) / (double) numChosenTorsB;
 
-        // Calculate how much probability is wasted on the diagonal
-        double wastedProbability = 0.0;
-        wastedProbability += numChosenTorsA * probabilityPerA * probabilityPerA;
-        wastedProbability += numChosenTorsB * probabilityPerB * probabilityPerB;
-
         SimulationLogger.logInfo("DUAL_FRACTION_A", "Portion A: (n=" + numChosenTorsA + ", p=" + probabilityPerA + ", tot=" + probabilityMassA + ")");
         SimulationLogger.logInfo("DUAL_FRACTION_B", "Portion B: (n=" + numChosenTorsB + ", p=" + probabilityPerB + ", tot=" + (1-probabilityMassA) + ")");
         System.out.println("Portion A: (n=" + numChosenTorsA + ", p=" + probabilityPerA + ", tot=" + probabilityMassA + ")");
         System.out.println("Portion B: (n=" + numChosenTorsB + ", p=" + probabilityPerB + ", tot=" + (1-probabilityMassA) + ")");
         System.out.print("Generating all-to-all dual fraction probabilities... ");
 
-        // Go over every ToR pair
+        // ToR-pair probability is the product of the ToR probabilities with diagonal waste normalized out,
+        // and uniform among the server pairs of the ToR pair
+        double[] torProbs = new double[tors.size()];
+        List<Set<Integer>> torServers = new ArrayList<>();
         for (int i = 0; i < tors.size(); i++) {
-            double torProbI = i < numChosenTorsA ? probabilityPerA : probabilityPerB;
-            for (int j = 0; j < tors.size(); j++) {
-                double torProbJ = j < numChosenTorsA ? probabilityPerA : probabilityPerB;
-                if (i != j) {
-
-                    // ToR-pair probability with diagonal waste normalized out
-                    double torPairProb = torProbI * torProbJ / (1 - wastedProbability);
-                    List<Integer> srcServers = new ArrayList<>(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(i)));
-                    List<Integer> dstServers = new ArrayList<>(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(j)));
-
-                    double serverProb = torPairProb / (srcServers.size() * dstServers.size());
-                    for (int src : srcServers) {
-                        for (int dst : dstServers) {
-                            this.randomPairGenerator.add(serverProb, new ImmutablePair<>(src, dst));
-                        }
-                    }
-
-                }
-
-            }
+            torProbs[i] = i < numChosenTorsA ? probabilityPerA : probabilityPerB;
+            torServers.add(Simulator.getConfiguration().getGraphDetails().getServersOfTor(tors.get(i)));
         }
+        this.pairSampler = new HierarchicalPairSampler(pairRandom, torProbs, torServers);
 
         System.out.println(" done.");
 
@@ -393,30 +407,20 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         double probabilityPerA = probabilityMassA / (double) numChosenTorsA;
         double probabilityPerB = (1.0 - probabilityMassA) / (double) numChosenTorsB;
 
-        // Calculate how much probability is wasted on the diagonal
-        double wastedProbability = 0.0;
-        wastedProbability += numChosenTorsA * probabilityPerA * probabilityPerA;
-        wastedProbability += numChosenTorsB * probabilityPerB * probabilityPerB;
-
         SimulationLogger.logInfo("SERVER_DUAL_FRACTION_A", "Portion A: (n=" + numChosenTorsA + ", p=" + probabilityPerA + ", tot=" + probabilityMassA + ")");
         SimulationLogger.logInfo("SERVER_DUAL_FRACTION_B", "Portion B: (n=" + numChosenTorsB + ", p=" + probabilityPerB + ", tot=" + (1-probabilityMassA) + ")");
         System.out.println("Portion A: (n=" + numChosenTorsA + ", p=" + probabilityPerA + ", tot=" + probabilityMassA + ")");
         System.out.println("Portion B: (n=" + numChosenTorsB + ", p=" + probabilityPerB + ", tot=" + (1-probabilityMassA) + ")");
         System.out.print("Generating all-to-all dual fraction probabilities... ");
 
-        // Go over every ToR pair
+        // ToR-pair probability is the product of the ToR probabilities with diagonal waste normalized out
+        double[] torProbs = new double[tors.size()];
+        List<List<Integer>> torGroups = new ArrayList<>();
         for (int i = 0; i < tors.size(); i++) {
-            double torProbI = i < numChosenTorsA ? probabilityPerA : probabilityPerB;
-            for (int j = 0; j < tors.size(); j++) {
-                double torProbJ = j < numChosenTorsA ? probabilityPerA : probabilityPerB;
-                if (i != j) {
-                    // ToR-pair probability with diagonal waste normalized out
-                    double torPairProb = torProbI * torProbJ / (1 - wastedProbability);
-                    this.randomPairGenerator.add(torPairProb, new ImmutablePair<>(tors.get(i), tors.get(j)));
-                }
-
-            }
+            torProbs[i] = i < numChosenTorsA ? probabilityPerA : probabilityPerB;
+            torGroups.add(Collections.singletonList(tors.get(i)));
         }
+        this.pairSampler = new HierarchicalPairSampler(pairRandom, torProbs, torGroups);
 
         System.out.println(" done.");
 
@@ -473,8 +477,8 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
             // Add to random pair generator
             for (Integer svrA : Simulator.getConfiguration().getGraphDetails().getServersOfTor(first)) {
                 for (Integer svrB : Simulator.getConfiguration().getGraphDetails().getServersOfTor(second)) {
-                    this.randomPairGenerator.add(serverPairProb, new ImmutablePair<>(svrA, svrB));
-                    this.randomPairGenerator.add(serverPairProb, new ImmutablePair<>(svrB, svrA));
+                    this.randomPairGenerator.add(serverPairProb, svrA, svrB);
+                    this.randomPairGenerator.add(serverPairProb, svrB, svrA);
                 }
             }
             chosen.add(new ImmutablePair<>(first, second));
@@ -544,7 +548,7 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
                 double pdfNumBytes = Double.valueOf(spl[3]);
 
                 // Add random pair generator
-                this.randomPairGenerator.add(pdfNumBytes, new ImmutablePair<>(src, dst));
+                this.randomPairGenerator.add(pdfNumBytes, src, dst);
 
                 // Add to total probability sum
                 totalPdfSum += pdfNumBytes;
@@ -601,7 +605,20 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         //changed it to 10*traffic for 10/40
         //lambdaFlowStartsPerSecond = lambdaFlowStartsPerSecond * 10;
         // ** DCN workload ---- web search, data mining
+        else if (lazyArrivals) {
+            createLazyPlan(durationNs);
+            return;
+        }
+        else if (numPlanShards > 1) {
+            createShardedPlan(durationNs);
+            return;
+        }
+        else if (!arrivalProcess.equals("poisson")) {
+            createTimeVaryingPlan(durationNs);
+            return;
+        }
         else {
+            FlowStartBatch batch = new FlowStartBatch((int) Math.min(Integer.MAX_VALUE - 8, 16 + 1.1 * lambdaFlowStartsPerSecond * durationNs / 1e9));
             while (time <= durationNs) {
                 // Poisson arrival
                 //
@@ -619,11 +636,8 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
                 sum += interArrivalTime;
 
                 // Register flow
-                Pair<Integer, Integer> pair;
-                pair = choosePair();
-
-                Random independentRng = new Random();
-                registerFlowWithPort(time, pair.getLeft(), pair.getRight(), flowSizeDistribution.generateFlowSizeByte(),80, 80);
+                choosePair();
+                batch.add(time, pairSampler.getDrawnSource(), pairSampler.getDrawnDestination(), flowSizeDistribution.generateFlowSizeByte(),80, 80);
 
                 // Advance time to next arrival
                 time += interArrivalTime;
@@ -636,6 +650,7 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
 
                 count ++;
             }
+            registerFlows(batch);
         }
 
         System.out.println(" done.");
@@ -653,11 +668,213 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
     }
 
     /**
-     * Choose a random pair based on their probability density weight.
+     * Instead of registering all flow starts up front, only register the
+     * first arrival: each arrival draws the next inter-arrival time, pair and
+     * flow size when it happens and then registers the arrival after it.
+     * The draws happen in the same order from the same random number
+     * generators as in the eager plan, so flow identifiers, pairs, sizes
+     * and start times are identical.
+     *
+     * @param durationNs    Duration in nanoseconds after which no more flows are started
+     */
+    private void createLazyPlan(long durationNs) {
+
+        this.lazyDurationNs = durationNs;
+        this.lazyNumFlows = 0;
+        this.lazyInterArrivalSum = 0;
+        Simulator.registerEvent(new PoissonArrivalEvent(0, this));
+
+        System.out.println(" done.");
+        System.out.println("Poisson Arrival plan created (lazy, arrivals are drawn during the run).");
+
+        // Flow count and mean inter-arrival time are only known at the end of the run
+        SimulationLogger.registerCallbackBeforeClose(new LoggerCallback() {
+            @Override
+            public void callBeforeClose() {
+                SimulationLogger.logInfo("Flow planner number flows", String.valueOf(lazyNumFlows));
+                SimulationLogger.logInfo("Flow planner mean inter-arrival time", String.valueOf(lazyNumFlows == 0 ? 0 : lazyInterArrivalSum / lazyNumFlows));
+            }
+        });
+        SimulationLogger.logInfo("Flow planner expected inter-arrival time", String.valueOf((1 / (lambdaFlowStartsPerSecond / 1e9))));
+        SimulationLogger.logInfo("Flow planner poisson rate lambda (flow starts/s)", String.valueOf(lambdaFlowStartsPerSecond));
+
+    }
+
+    /**
+     * Generate the plan as the superposition of independent Poisson processes,
+     * each with rate lambda / #shards and its own random number generators,
+     * in parallel. The shards are merged by start time and registered in that
+     * order, such that flow identifiers increase with start time.
+     *
+     * The plan is statistically equivalent to the single-stream plan, but
+     * not identical to it (it is deterministic given the seed and number of shards).
+     *
+     * @param durationNs    Duration in nanoseconds after which no more flows are started
+     */
+    private void createShardedPlan(long durationNs) {
+
+        // Random number generators are selected here, as the selection is not thread-safe
+        List<PoissonPlanShard> shards = new ArrayList<>();
+        for (int k = 0; k < numPlanShards; k++) {
+            shards.add(new PoissonPlanShard(
+                    lambdaFlowStartsPerSecond / numPlanShards,
+                    durationNs,
+                    Simulator.selectIndependentRandom("poisson_inter_arrival_shard_" + k),
+                    Simulator.selectIndependentRandom("pair_probabilities_draw_shard_" + k),
+                    pairSampler,
+                    flowSizeDistribution
+            ));
+        }
+
+        // Generate the shards in parallel
+        ForkJoinPool pool = new ForkJoinPool(Math.min(numPlanShards, Runtime.getRuntime().availableProcessors()));
+        try {
+            for (Future<PoissonPlanShard> future : pool.invokeAll(shards)) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Sharded Poisson arrival plan: failed to generate shard: " + e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+
+        // Register merged by start time
+        long[] order = PoissonPlanShard.merge(shards);
+        FlowStartBatch batch = new FlowStartBatch(order.length);
+        long lastTime = 0;
+        long sum = 0;
+        for (long entry : order) {
+            PoissonPlanShard shard = shards.get((int) (entry >> 32));
+            int i = (int) entry;
+            long time = shard.getStartTime(i);
+            sum += time - lastTime;
+            lastTime = time;
+            batch.add(time, shard.getSource(i), shard.getDestination(i), shard.getFlowSizeByte(i), 80, 80);
+        }
+        registerFlows(batch);
+        int x = order.length;
+
+        System.out.println(" done.");
+
+        // Log plan created
+        System.out.println("Poisson Arrival plan created (" + numPlanShards + " shards).");
+        System.out.println("Number of flows created: " + x + ".");
+        System.out.println("Mean inter-arrival time: " + (x == 0 ? 0 : sum / x) + " (expectation: "
+                + (1 / (lambdaFlowStartsPerSecond / 1e9)) + ")");
+        SimulationLogger.logInfo("Flow planner number flows", String.valueOf(x));
+        SimulationLogger.logInfo("Flow planner mean inter-arrival time", String.valueOf(x == 0 ? 0 : sum / x));
+        SimulationLogger.logInfo("Flow planner expected inter-arrival time", String.valueOf((1 / (lambdaFlowStartsPerSecond / 1e9))));
+        SimulationLogger.logInfo("Flow planner poisson rate lambda (flow starts/s)", String.valueOf(lambdaFlowStartsPerSecond));
+        SimulationLogger.logInfo("Flow planner plan shards", String.valueOf(numPlanShards));
+
+    }
+
+    /**
+     * Generate the plan of a time-varying arrival process by thinning, either
+     * a non-homogeneous Poisson process (NHPP) with a piecewise rate schedule, or
+     * a Markov-modulated Poisson process (MMPP) of which the state path is drawn first.
+     * The phases of the schedule (NHPP) or states (MMPP) are registered with the logger
+     * to summarize the flow completion times per phase.
      *
-     * @return (src, dst) pair
+     * @param durationNs    Duration in nanoseconds after which no more flows are started
+     */
+    private void createTimeVaryingPlan(long durationNs) {
+
+        // Schedule and phase labels
+        RateSchedule schedule;
+        String[] labels;
+        if (arrivalProcess.equals("mmpp")) {
+            double[] rates = parseDoubleList("traffic_mmpp_rates");
+            double[] meanSojournNs = parseDoubleList("traffic_mmpp_mean_sojourn_ns");
+            List<Integer> statePath = new ArrayList<>();
+            schedule = RateSchedule.drawMarkovModulated(rates, meanSojournNs, durationNs, Simulator.selectIndependentRandom("mmpp_state_path"), statePath);
+            labels = new String[schedule.getNumPhases()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = "state_" + statePath.get(i) + "(lambda=" + rates[statePath.get(i)] + ")";
+            }
+        } else {
+            schedule = rateSchedule;
+            labels = new String[schedule.getNumPhases()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = "phase_" + i + "(lambda=" + schedule.getPhaseRate(i) + ")";
+            }
+        }
+        long[] phaseStartNs = new long[schedule.getNumPhases()];
+        for (int i = 0; i < phaseStartNs.length; i++) {
+            phaseStartNs[i] = schedule.getPhaseStartNs(i);
+        }
+        SimulationLogger.registerFlowStartPhases(phaseStartNs, labels);
+
+        // Thinning
+        double expected = schedule.getExpectedArrivals(durationNs);
+        ThinningArrivalProcess process = new ThinningArrivalProcess(schedule, ownIndependentRng);
+        FlowStartBatch batch = new FlowStartBatch((int) Math.min(Integer.MAX_VALUE - 8, 16 + 1.1 * expected));
+        double time = process.nextArrivalNs();
+        while (time <= durationNs) {
+            choosePair();
+            batch.add((long) time, pairSampler.getDrawnSource(), pairSampler.getDrawnDestination(), flowSizeDistribution.generateFlowSizeByte(), 80, 80);
+            time = process.nextArrivalNs();
+        }
+        registerFlows(batch);
+
+        System.out.println(" done.");
+
+        // Log plan created
+        System.out.println("Time-varying arrival plan created (" + arrivalProcess + ", " + schedule.getNumPhases() + " phases).");
+        System.out.println("Number of flows created: " + batch.size() + " (expectation: " + expected + ").");
+        SimulationLogger.logInfo("Flow planner arrival process", arrivalProcess);
+        SimulationLogger.logInfo("Flow planner arrival phases", String.valueOf(schedule.getNumPhases()));
+        SimulationLogger.logInfo("Flow planner number flows", String.valueOf(batch.size()));
+        SimulationLogger.logInfo("Flow planner expected number flows", String.valueOf(expected));
+        SimulationLogger.logInfo("Flow planner thinning candidates", String.valueOf(process.getNumCandidates()));
+
+    }
+
+    /**
+     * Parse a comma-separated list of doubles property.
+     *
+     * @param key   Property key
+     *
+     * @return  Values
+     */
+    private static double[] parseDoubleList(String key) {
+        String[] spl = Simulator.getConfiguration().getPropertyOrFail(key).split(",");
+        double[] values = new double[spl.length];
+        try {
+            for (int i = 0; i < spl.length; i++) {
+                values[i] = Double.parseDouble(spl[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new PropertyValueInvalidException(Simulator.getConfiguration(), key);
+        }
+        return values;
+    }
+
+    /**
+     * Start the arrival happening now, and register the next
+     * arrival if it is still within the plan duration.
+     */
+    void triggerArrival() {
+
+        // Same draw order as the eager plan: inter-arrival time, pair, flow size
+        long interArrivalTime = (long) (-Math.log(ownIndependentRng.nextDouble()) / (lambdaFlowStartsPerSecond / 1e9));
+        lazyInterArrivalSum += interArrivalTime;
+        choosePair();
+        startFlowWithPort(pairSampler.getDrawnSource(), pairSampler.getDrawnDestination(), flowSizeDistribution.generateFlowSizeByte(), 80, 80);
+        lazyNumFlows++;
+
+        // Next arrival
+        if (Simulator.getCurrentTime() + interArrivalTime <= lazyDurationNs) {
+            Simulator.registerEvent(new PoissonArrivalEvent(interArrivalTime, this));
+        }
+
+    }
+
+    /**
+     * Choose a random pair based on their probability density weight
+     * (retrieved afterwards from the pair sampler).
      */
-    private Pair<Integer, Integer> choosePair() {
-        return this.randomPairGenerator.next();
+    private void choosePair() {
+        this.pairSampler.drawPair();
     }
 }
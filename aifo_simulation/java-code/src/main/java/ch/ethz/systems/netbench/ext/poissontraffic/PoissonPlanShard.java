@@ -0,0 +1,152 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.FlowSizeDistribution;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * One shard of a sharded Poisson arrival plan.
+ *
+ * The superposition of K independent Poisson processes with rate lambda / K is
+ * a Poisson process with rate lambda, and marking each arrival independently
+ * with a pair and flow size keeps the marks independent of the arrival times.
+ * Each shard can thus draw its own arrivals from its own random number generators,
+ * without any coordination with the other shards, after which the shards are merged by
+ * start time. Because every shard has its own generators, the merged plan only
+ * depends on the seed and the number of shards, not on the scheduling of the shards.
+ */
+class PoissonPlanShard implements Callable<PoissonPlanShard> {
+
+    private final double lambdaFlowStartsPerNs;
+    private final long durationNs;
+    private final Random interArrivalRng;
+    private final Random markRng;
+    private final PairSampler pairSampler;
+    private final FlowSizeDistribution flowSizeDistribution;
+
+    // Generated arrivals (in increasing start time)
+    private long[] startTime;
+    private long[] pair;
+    private long[] flowSizeByte;
+    private int numFlows;
+
+    /**
+     * Create shard.
+     *
+     * @param lambdaFlowStartsPerSecond     Poisson-arrival lambda of this shard
+     * @param durationNs                    Duration in nanoseconds after which no more flows are started
+     * @param interArrivalRng               Random number generator for the inter-arrival times
+     * @param markRng                       Random number generator for the pairs and flow sizes
+     * @param pairSampler                   Pair sampler (only {@link PairSampler#drawPair(Random)} is used)
+     * @param flowSizeDistribution          Flow size distribution (only {@link FlowSizeDistribution#generateFlowSizeByte(Random)} is used)
+     */
+    PoissonPlanShard(double lambdaFlowStartsPerSecond, long durationNs, Random interArrivalRng, Random markRng, PairSampler pairSampler, FlowSizeDistribution flowSizeDistribution) {
+        this.lambdaFlowStartsPerNs = lambdaFlowStartsPerSecond / 1e9;
+        this.durationNs = durationNs;
+        this.interArrivalRng = interArrivalRng;
+        this.markRng = markRng;
+        this.pairSampler = pairSampler;
+        this.flowSizeDistribution = flowSizeDistribution;
+    }
+
+    /**
+     * Generate the arrivals of this shard within [0, duration].
+     *
+     * @return  This shard
+     */
+    @Override
+    public PoissonPlanShard call() {
+
+        // Pre-size at the expected number of arrivals plus some slack
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, 16 + 1.1 * lambdaFlowStartsPerNs * durationNs);
+        startTime = new long[capacity];
+        pair = new long[capacity];
+        flowSizeByte = new long[capacity];
+        numFlows = 0;
+
+        long time = nextInterArrivalTime();
+        while (time <= durationNs) {
+            if (numFlows == startTime.length) {
+                int newCapacity = startTime.length + (startTime.length >> 1);
+                startTime = Arrays.copyOf(startTime, newCapacity);
+                pair = Arrays.copyOf(pair, newCapacity);
+                flowSizeByte = Arrays.copyOf(flowSizeByte, newCapacity);
+            }
+            startTime[numFlows] = time;
+            pair[numFlows] = pairSampler.drawPair(markRng);
+            flowSizeByte[numFlows] = flowSizeDistribution.generateFlowSizeByte(markRng);
+            numFlows++;
+            time += nextInterArrivalTime();
+        }
+
+        return this;
+    }
+
+    /**
+     * Draw an exponential inter-arrival time.
+     *
+     * @return  Inter-arrival time in nanoseconds
+     */
+    private long nextInterArrivalTime() {
+        return (long) (-Math.log(interArrivalRng.nextDouble()) / lambdaFlowStartsPerNs);
+    }
+
+    /**
+     * Merge the arrivals of generated shards by start time (ties are broken by
+     * shard index, and within a shard arrivals keep their order).
+     *
+     * @param shards    Generated shards
+     *
+     * @return  Per merged arrival (shard index &lt;&lt; 32) | index within the shard
+     */
+    static long[] merge(List<PoissonPlanShard> shards) {
+
+        int total = 0;
+        for (PoissonPlanShard shard : shards) {
+            total += shard.numFlows;
+        }
+
+        // The number of shards is small, so a linear scan for the minimum suffices
+        int[] position = new int[shards.size()];
+        long[] order = new long[total];
+        for (int i = 0; i < total; i++) {
+            int best = -1;
+            long bestTime = Long.MAX_VALUE;
+            for (int k = 0; k < shards.size(); k++) {
+                PoissonPlanShard shard = shards.get(k);
+                if (position[k] < shard.numFlows && shard.startTime[position[k]] < bestTime) {
+                    best = k;
+                    bestTime = shard.startTime[position[k]];
+                }
+            }
+            order[i] = ((long) best << 32) | position[best];
+            position[best]++;
+        }
+
+        return order;
+    }
+
+    int getNumFlows() {
+        return numFlows;
+    }
+
+    long getStartTime(int i) {
+        return startTime[i];
+    }
+
+    int getSource(int i) {
+        return (int) (pair[i] >> 32);
+    }
+
+    int getDestination(int i) {
+        return (int) pair[i];
+    }
+
+    long getFlowSizeByte(int i) {
+        return flowSizeByte[i];
+    }
+
+}
@@ -0,0 +1,268 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Piecewise arrival rate schedule lambda(t) in flow starts per second,
+ * defined by breakpoints (t_i, lambda_i) with t_0 = 0. Between breakpoints
+ * the rate is either constant (STEP: lambda_i on [t_i, t_i+1)) or linearly
+ * interpolated (LINEAR: from lambda_i at t_i to lambda_i+1 at t_i+1).
+ * After the last breakpoint the rate stays at the last rate.
+ *
+ * Every segment [t_i, t_i+1) is a phase of the schedule, with its own
+ * majorant max(lambda_i, lambda_i+1) for thinning (see {@link ThinningArrivalProcess}).
+ */
+public class RateSchedule {
+
+    public enum Interpolation {
+        STEP,
+        LINEAR
+    }
+
+    private final long[] startNs;
+    private final double[] rate;
+    private final Interpolation interpolation;
+
+    /**
+     * Create rate schedule. All rates can be zero (e.g. an MMPP state path which
+     * only visits an OFF state), in which case there are no arrivals.
+     *
+     * @param startNs           Start time of each breakpoint in nanoseconds (first must be 0, strictly increasing)
+     * @param rate              Rate at each breakpoint in flow starts per second (non-negative)
+     * @param interpolation     Interpolation between breakpoints
+     */
+    public RateSchedule(long[] startNs, double[] rate, Interpolation interpolation) {
+        if (startNs.length != rate.length || startNs.length == 0) {
+            throw new IllegalArgumentException("Rate schedule must be non-empty and have a rate for each breakpoint.");
+        }
+        if (startNs[0] != 0) {
+            throw new IllegalArgumentException("Rate schedule must start at time 0 (starts at " + startNs[0] + ").");
+        }
+        for (int i = 0; i < startNs.length; i++) {
+            if (i > 0 && startNs[i] <= startNs[i - 1]) {
+                throw new IllegalArgumentException("Rate schedule breakpoint times must be strictly increasing (breakpoint " + i + ").");
+            }
+            if (rate[i] < 0 || Double.isNaN(rate[i]) || Double.isInfinite(rate[i])) {
+                throw new IllegalArgumentException("Rate schedule rates must be finite and non-negative (breakpoint " + i + ").");
+            }
+        }
+        this.startNs = startNs.clone();
+        this.rate = rate.clone();
+        this.interpolation = interpolation;
+    }
+
+    /**
+     * Parse a rate schedule from its property value, a comma-separated
+     * list of breakpoints "t_ns:lambda", e.g. "0:5000,100000000:10000".
+     * At least one of the rates must be positive.
+     *
+     * @param value             Property value
+     * @param interpolation     Interpolation between breakpoints
+     *
+     * @return  Rate schedule
+     */
+    public static RateSchedule parse(String value, Interpolation interpolation) {
+        String[] spl = value.split(",");
+        long[] startNs = new long[spl.length];
+        double[] rate = new double[spl.length];
+        boolean positive = false;
+        for (int i = 0; i < spl.length; i++) {
+            String[] breakpoint = spl[i].trim().split(":");
+            if (breakpoint.length != 2) {
+                throw new IllegalArgumentException("Rate schedule breakpoint must be of the form t_ns:lambda (is " + spl[i] + ").");
+            }
+            startNs[i] = Long.parseLong(breakpoint[0].trim());
+            rate[i] = Double.parseDouble(breakpoint[1].trim());
+            positive |= rate[i] > 0;
+        }
+        if (!positive) {
+            throw new IllegalArgumentException("Rate schedule must have at least one positive rate.");
+        }
+        return new RateSchedule(startNs, rate, interpolation);
+    }
+
+    /**
+     * Draw the modulating state path of a Markov-modulated Poisson process (MMPP)
+     * over [0, duration], as a step rate schedule. The chain starts in state 0,
+     * stays in state i for an exponential sojourn time with mean meanSojournNs[i],
+     * and then moves to one of the other states uniformly at random.
+     *
+     * @param rates             Arrival rate in each state in flow starts per second
+     * @param meanSojournNs     Mean sojourn time in each state in nanoseconds
+     * @param durationNs        Duration in nanoseconds
+     * @param random            Random number generator instance
+     * @param statePath         Output: state of each phase of the returned schedule
+     *
+     * @return  Step rate schedule with one phase per visit of a state (all rates are zero
+     *          if the path only visits states with rate zero)
+     */
+    public static RateSchedule drawMarkovModulated(double[] rates, double[] meanSojournNs, long durationNs, Random random, List<Integer> statePath) {
+        if (rates.length != meanSojournNs.length || rates.length < 2) {
+            throw new IllegalArgumentException("MMPP must have at least two states, each with a rate and mean sojourn time.");
+        }
+        for (double sojourn : meanSojournNs) {
+            if (!(sojourn > 0)) {
+                throw new IllegalArgumentException("MMPP mean sojourn times must be positive.");
+            }
+        }
+
+        List<Long> starts = new ArrayList<>();
+        List<Double> phaseRates = new ArrayList<>();
+        statePath.clear();
+        int state = 0;
+        double time = 0;
+        while (time <= durationNs) {
+            starts.add((long) time);
+            phaseRates.add(rates[state]);
+            statePath.add(state);
+            time += -Math.log(random.nextDouble()) * meanSojournNs[state];
+            int next = random.nextInt(rates.length - 1);
+            state = next >= state ? next + 1 : next;
+        }
+
+        // Sojourns shorter than a nanosecond collapse: keep the last state starting at the same time
+        List<Long> uniqueStarts = new ArrayList<>();
+        List<Double> uniqueRates = new ArrayList<>();
+        List<Integer> uniqueStates = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            if (i + 1 < starts.size() && starts.get(i + 1).equals(starts.get(i))) {
+                continue;
+            }
+            uniqueStarts.add(starts.get(i));
+            uniqueRates.add(phaseRates.get(i));
+            uniqueStates.add(statePath.get(i));
+        }
+        statePath.clear();
+        statePath.addAll(uniqueStates);
+
+        long[] startNs = new long[uniqueStarts.size()];
+        double[] rate = new double[uniqueStarts.size()];
+        for (int i = 0; i < startNs.length; i++) {
+            startNs[i] = uniqueStarts.get(i);
+            rate[i] = uniqueRates.get(i);
+        }
+        return new RateSchedule(startNs, rate, Interpolation.STEP);
+    }
+
+    /**
+     * Retrieve the phase (segment) containing a point in time.
+     *
+     * @param timeNs    Time in nanoseconds (non-negative)
+     *
+     * @return  Phase index
+     */
+    public int getPhase(double timeNs) {
+        int lo = 0;
+        int hi = startNs.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (startNs[mid] <= timeNs) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Retrieve the rate at a point in time.
+     *
+     * @param timeNs    Time in nanoseconds (non-negative)
+     *
+     * @return  Rate in flow starts per second
+     */
+    public double getRate(double timeNs) {
+        int phase = getPhase(timeNs);
+        if (interpolation == Interpolation.STEP || phase == startNs.length - 1) {
+            return rate[phase];
+        }
+        double fraction = (timeNs - startNs[phase]) / (startNs[phase + 1] - startNs[phase]);
+        return rate[phase] + fraction * (rate[phase + 1] - rate[phase]);
+    }
+
+    /**
+     * Retrieve the upper bound of the rate within a phase.
+     *
+     * @param phase     Phase index
+     *
+     * @return  Majorant rate in flow starts per second
+     */
+    public double getMajorant(int phase) {
+        if (interpolation == Interpolation.STEP || phase == startNs.length - 1) {
+            return rate[phase];
+        }
+        return Math.max(rate[phase], rate[phase + 1]);
+    }
+
+    /**
+     * Check whether the rate is constant within a phase.
+     *
+     * @param phase     Phase index
+     *
+     * @return  True iff the rate is constant within the phase
+     */
+    public boolean isConstant(int phase) {
+        return interpolation == Interpolation.STEP || phase == startNs.length - 1 || rate[phase] == rate[phase + 1];
+    }
+
+    /**
+     * Retrieve the start of a phase.
+     *
+     * @param phase     Phase index
+     *
+     * @return  Start in nanoseconds
+     */
+    public long getPhaseStartNs(int phase) {
+        return startNs[phase];
+    }
+
+    /**
+     * Retrieve the end of a phase (exclusive).
+     *
+     * @param phase     Phase index
+     *
+     * @return  End in nanoseconds (Long.MAX_VALUE for the last phase)
+     */
+    public long getPhaseEndNs(int phase) {
+        return phase == startNs.length - 1 ? Long.MAX_VALUE : startNs[phase + 1];
+    }
+
+    /**
+     * Retrieve the rate at the start of a phase.
+     *
+     * @param phase     Phase index
+     *
+     * @return  Rate in flow starts per second
+     */
+    public double getPhaseRate(int phase) {
+        return rate[phase];
+    }
+
+    public int getNumPhases() {
+        return startNs.length;
+    }
+
+    /**
+     * Calculate the expected number of arrivals in [0, duration], i.e. the integral of the rate.
+     *
+     * @param durationNs    Duration in nanoseconds
+     *
+     * @return  Expected number of arrivals
+     */
+    public double getExpectedArrivals(long durationNs) {
+        double expected = 0;
+        for (int phase = 0; phase < startNs.length && startNs[phase] < durationNs; phase++) {
+            double end = Math.min(getPhaseEndNs(phase), durationNs);
+            double rateAtEnd = rate[phase];
+            if (!isConstant(phase)) {
+                rateAtEnd += (end - startNs[phase]) / (startNs[phase + 1] - startNs[phase]) * (rate[phase + 1] - rate[phase]);
+            }
+            expected += (rate[phase] + rateAtEnd) / 2 * (end - startNs[phase]) / 1e9;
+        }
+        return expected;
+    }
+
+}
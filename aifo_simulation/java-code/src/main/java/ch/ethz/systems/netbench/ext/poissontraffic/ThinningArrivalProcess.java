@@ -0,0 +1,93 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import java.util.Random;
+
+/**
+ * Non-homogeneous Poisson arrival process with rate lambda(t) given by a
+ * {@link RateSchedule}, generated by Lewis-Shedler thinning: candidate arrivals
+ * are drawn from a homogeneous process at a majorant rate m >= lambda(t), and
+ * each candidate at time t is accepted with probability lambda(t) / m.
+ *
+ * The majorant is taken per phase of the schedule instead of globally. When a
+ * candidate falls beyond the end of the phase, the candidate process restarts at
+ * the phase end with the majorant of the next phase (which is exact because the
+ * exponential is memoryless). For phases with a constant rate, the majorant is
+ * the rate itself and every candidate is accepted without drawing, such that a
+ * step schedule (or MMPP) costs one draw per arrival as a homogeneous process does.
+ */
+public class ThinningArrivalProcess {
+
+    private final RateSchedule schedule;
+    private final Random random;
+
+    // Time of the last arrival (not truncated to avoid a drift of the rate)
+    private double timeNs;
+
+    // Statistics
+    private long numCandidates;
+    private long numArrivals;
+
+    /**
+     * Create arrival process starting at time 0.
+     *
+     * @param schedule  Rate schedule
+     * @param random    Random number generator instance
+     */
+    public ThinningArrivalProcess(RateSchedule schedule, Random random) {
+        this.schedule = schedule;
+        this.random = random;
+        this.timeNs = 0;
+        this.numCandidates = 0;
+        this.numArrivals = 0;
+    }
+
+    /**
+     * Draw the time of the next arrival.
+     *
+     * @return  Next arrival time in nanoseconds (infinite if there are no more arrivals)
+     */
+    public double nextArrivalNs() {
+        double t = timeNs;
+        int phase = schedule.getPhase(t);
+        while (true) {
+            double majorant = schedule.getMajorant(phase);
+            long phaseEnd = schedule.getPhaseEndNs(phase);
+
+            // No arrivals in this phase: continue at the next
+            if (majorant <= 0) {
+                if (phaseEnd == Long.MAX_VALUE) {
+                    timeNs = Double.POSITIVE_INFINITY;
+                    return timeNs;
+                }
+                t = phaseEnd;
+                phase++;
+                continue;
+            }
+
+            // Candidate from the majorant, restarted at the phase end if beyond it
+            t += -Math.log(random.nextDouble()) / (majorant / 1e9);
+            numCandidates++;
+            if (t >= phaseEnd) {
+                t = phaseEnd;
+                phase++;
+                continue;
+            }
+
+            // Accept with probability lambda(t) / majorant
+            if (schedule.isConstant(phase) || random.nextDouble() * majorant <= schedule.getRate(t)) {
+                numArrivals++;
+                timeNs = t;
+                return t;
+            }
+        }
+    }
+
+    public long getNumCandidates() {
+        return numCandidates;
+    }
+
+    public long getNumArrivals() {
+        return numArrivals;
+    }
+
+}
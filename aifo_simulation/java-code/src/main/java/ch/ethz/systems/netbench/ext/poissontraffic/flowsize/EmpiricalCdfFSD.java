@@ -0,0 +1,183 @@
+package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
+
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Flow size distribution defined by an empirical cumulative distribution
+ * table, sampled by inversion: a uniform outcome u is mapped to the first
+ * table row i with u &lt;= cdf[i].
+ *
+ * Two interpolation modes are supported:
+ * (a) DISCRETE: the size of row i is returned (sizes are the upper bound of each bucket);
+ * (b) LINEAR: the size is linearly interpolated between rows i - 1 and i
+ *     (the first row marks the start of the distribution).
+ *
+ * A guide table maps the outcome directly to (close to) the correct row,
+ * such that a draw takes O(1) expected time and does not allocate.
+ *
+ * Tables can be read from a file with one "size [...] cdf" row per line
+ * (first column is the flow size in bytes, last column the cumulative
+ * probability, lines starting with # are ignored), which is the format
+ * of the pFabric/ns-2 workload CDF files.
+ */
+public class EmpiricalCdfFSD extends FlowSizeDistribution {
+
+    public enum Interpolation {
+        DISCRETE,
+        LINEAR
+    }
+
+    // Table
+    private final long[] sizeByte;
+    private final double[] cdf;
+    private final Interpolation interpolation;
+
+    // Guide table: guide[g] is the first row with cdf >= g / guide.length
+    private final int[] guide;
+
+    /**
+     * Create empirical CDF flow size distribution.
+     *
+     * @param sizeByte          Flow size in bytes of each row
+     * @param cdf               Cumulative probability of each row (non-decreasing, last must be 1)
+     * @param interpolation     Interpolation mode
+     */
+    public EmpiricalCdfFSD(long[] sizeByte, double[] cdf, Interpolation interpolation) {
+        super();
+
+        // Check table
+        if (sizeByte.length != cdf.length || cdf.length == 0) {
+            throw new IllegalArgumentException("Empirical CDF table must be non-empty and have a cumulative probability for each flow size.");
+        }
+        if (interpolation == Interpolation.LINEAR && cdf.length < 2) {
+            throw new IllegalArgumentException("Empirical CDF table must have at least two rows to interpolate linearly.");
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            if (cdf[i] < 0 || (i > 0 && cdf[i] < cdf[i - 1])) {
+                throw new IllegalArgumentException("Empirical CDF table cumulative probabilities must be non-negative and non-decreasing (row " + i + ").");
+            }
+            if (sizeByte[i] < 0 || (interpolation == Interpolation.LINEAR && i > 0 && sizeByte[i] < sizeByte[i - 1])) {
+                throw new IllegalArgumentException("Empirical CDF table flow sizes must be non-negative (and non-decreasing to interpolate) (row " + i + ").");
+            }
+        }
+        if (Math.abs(1.0 - cdf[cdf.length - 1]) > 1e-6) {
+            throw new IllegalArgumentException("Empirical CDF table must end at cumulative probability 1 (is " + cdf[cdf.length - 1] + ").");
+        }
+        this.sizeByte = sizeByte.clone();
+        this.cdf = cdf.clone();
+        this.cdf[cdf.length - 1] = 1.0;
+        this.interpolation = interpolation;
+
+        // Guide table
+        this.guide = new int[4 * cdf.length];
+        int row = 0;
+        for (int g = 0; g < guide.length; g++) {
+            double start = g / (double) guide.length;
+            while (this.cdf[row] < start) {
+                row++;
+            }
+            guide[g] = row;
+        }
+
+    }
+
+    /**
+     * Create empirical CDF flow size distribution from a table file.
+     *
+     * @param fileName          File name of the CDF table
+     * @param interpolation     Interpolation mode
+     */
+    public EmpiricalCdfFSD(String fileName, Interpolation interpolation) {
+        this(readTable(fileName), interpolation);
+        SimulationLogger.logInfo("Flow planner flow size dist.", "empirical CDF " + interpolation.name().toLowerCase() + " (file=" + fileName + ")");
+    }
+
+    private EmpiricalCdfFSD(Table table, Interpolation interpolation) {
+        this(table.sizeByte, table.cdf, interpolation);
+    }
+
+    /**
+     * Read a CDF table file.
+     *
+     * @param fileName  File name
+     *
+     * @return Table
+     */
+    private static Table readTable(String fileName) {
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            List<Long> sizes = new ArrayList<>();
+            List<Double> probabilities = new ArrayList<>();
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("") || line.startsWith("#")) {
+                    continue;
+                }
+                String[] spl = line.split("[\\s,]+");
+                if (spl.length < 2) {
+                    throw new IllegalArgumentException("Empirical CDF table line must have at least [size_byte, cdf]: " + line);
+                }
+                sizes.add((long) Double.parseDouble(spl[0]));
+                probabilities.add(Double.parseDouble(spl[spl.length - 1]));
+            }
+            Table table = new Table(sizes.size());
+            for (int i = 0; i < sizes.size(); i++) {
+                table.sizeByte[i] = sizes.get(i);
+                table.cdf[i] = probabilities.get(i);
+            }
+            return table;
+        } catch (IOException e) {
+            throw new RuntimeException("Empirical CDF: failed to read file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long generateFlowSizeByte(Random random) {
+        return sizeAt(random.nextDouble());
+    }
+
+    /**
+     * Inverse of the cumulative distribution.
+     *
+     * @param outcome   Uniform outcome in [0, 1]
+     *
+     * @return  Flow size in bytes
+     */
+    long sizeAt(double outcome) {
+
+        // Find first row with outcome <= cdf (starting from the guide)
+        int g = (int) (outcome * guide.length);
+        int row = guide[g < guide.length ? g : guide.length - 1];
+        while (cdf[row] < outcome) {
+            row++;
+        }
+
+        // Interpolate
+        if (interpolation == Interpolation.DISCRETE || row == 0 || cdf[row] == cdf[row - 1]) {
+            return sizeByte[row];
+        }
+        double fraction = (outcome - cdf[row - 1]) / (cdf[row] - cdf[row - 1]);
+        return sizeByte[row - 1] + Math.round(fraction * (sizeByte[row] - sizeByte[row - 1]));
+
+    }
+
+    private static class Table {
+
+        private final long[] sizeByte;
+        private final double[] cdf;
+
+        private Table(int numRows) {
+            this.sizeByte = new long[numRows];
+            this.cdf = new double[numRows];
+        }
+
+    }
+
+}
@@ -12,5 +12,23 @@ public abstract class FlowSizeDistribution {
         this.independentRng = Simulator.selectIndependentRandom("flow_size");
     }
 
-    public abstract long generateFlowSizeByte();
+    /**
+     * Independently generate a flow size.
+     *
+     * @return  Flow size in bytes
+     */
+    public long generateFlowSizeByte() {
+        return generateFlowSizeByte(independentRng);
+    }
+
+    /**
+     * Generate a flow size using the given random number generator instead of the
+     * distribution's own (e.g. for parallel plan generation). Implementations must
+     * not modify any state, such that it can be called concurrently.
+     *
+     * @param random    Random number generator instance
+     *
+     * @return  Flow size in bytes
+     */
+    public abstract long generateFlowSizeByte(Random random);
 }
@@ -25,40 +25,15 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
  * 184475 bytes
  * At 10 Gbps would take 18.6ms
 */
-public class PFabricSelfDefined extends FlowSizeDistribution {
+public class PFabricSelfDefined extends EmpiricalCdfFSD {
 
     public PFabricSelfDefined() {
-        super();
+        super(
+                new long[]{1000, 2000, 3000, 5000, 7000, 40000, 72000, 137000, 267000, 1187000, 2107000},
+                new double[]{0.5, 0.6, 0.7, 0.75, 0.8, 0.8125, 0.825, 0.85, 0.9, 0.95, 1.0},
+                Interpolation.DISCRETE
+        );
         SimulationLogger.logInfo("Flow planner flow size dist.", "pFabric self defined discrete");
     }
 
-    @Override
-    public long generateFlowSizeByte() {
-
-        double outcome = independentRng.nextDouble();
-
-        if (outcome >= 0.0 && outcome <= 0.5) {
-            return 1000;
-        } else if (outcome >= 0.5 && outcome <= 0.6) {
-            return 2000;
-        } else if (outcome >= 0.6 && outcome <= 0.7) {
-            return 3000;
-        } else if (outcome >= 0.7 && outcome <= 0.75) {
-            return 5000;
-        } else if (outcome >= 0.75 && outcome <= 0.8) {
-            return 7000;
-        } else if (outcome >= 0.8 && outcome <= 0.8125) {
-            return 40000;
-        } else if (outcome >= 0.8125 && outcome <= 0.825) {
-            return 72000;
-        } else if (outcome >= 0.825 && outcome <= 0.85) {
-            return 137000;
-        } else if (outcome >= 0.85 && outcome <= 0.9) {
-            return 267000;
-        } else if (outcome >= 0.9 && outcome <= 0.95) {
-            return 1187000;
-        } else {
-            return 2107000;
-        }
-    }
 }
@@ -27,42 +27,15 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
  * At 10 Gbps would take 1.95ms
  *
  */
-public class PFabricWebSearchUpperBoundFSD extends FlowSizeDistribution {
+public class PFabricWebSearchUpperBoundFSD extends EmpiricalCdfFSD {
 
     public PFabricWebSearchUpperBoundFSD() {
-        super();
+        super(
+                new long[]{10000, 20000, 30000, 50000, 80000, 200000, 1000000, 2000000, 5000000, 10000000, 30000000},
+                new double[]{0.15, 0.2, 0.3, 0.4, 0.53, 0.6, 0.7, 0.8, 0.9, 0.97, 1.0},
+                Interpolation.DISCRETE
+        );
         SimulationLogger.logInfo("Flow planner flow size dist.", "pFabric web search upper bound discrete");
     }
 
-    @Override
-    public long generateFlowSizeByte() {
-
-        double outcome = independentRng.nextDouble();
-
-        if (outcome >= 0.0 && outcome <= 0.15) {
-            return 10000;
-        } else if (outcome >= 0.15 && outcome <= 0.2) {
-            return 20000;
-        } else if (outcome >= 0.2 && outcome <= 0.3) {
-            return 30000;
-        } else if (outcome >= 0.3 && outcome <= 0.4) {
-            return 50000;
-        } else if (outcome >= 0.4 && outcome <= 0.53) {
-            return 80000;
-        } else if (outcome >= 0.53 && outcome <= 0.6) {
-            return 200000;
-        } else if (outcome >= 0.6 && outcome <= 0.7) {
-            return 1000000;
-        } else if (outcome >= 0.7 && outcome <= 0.8) {
-            return 2000000;
-        } else if (outcome >= 0.8 && outcome <= 0.9) {
-            return 5000000;
-        } else if (outcome >= 0.9 && outcome <= 0.97) {
-            return 10000000;
-        } else { // outcome >= 0.97 && outcome <= 1.0
-            return 30000000;
-        }
-
-    }
-
 }
@@ -2,6 +2,8 @@ package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
 
 import ch.ethz.systems.netbench.ext.poissontraffic.ParetoDistribution;
 
+import java.util.Random;
+
 /**
  * Pareto flow size distribution.
  *
@@ -45,9 +47,9 @@ public class ParetoFSD extends FlowSizeDistribution {
      * @return  Flow size drawn from parametrized Pareto distribution
      */
     @Override
-    public long generateFlowSizeByte() {
+    public long generateFlowSizeByte(Random random) {
         long oneGigabyte = 1024*1024*1024;
-        return Math.min((long) this.distribution.draw(), oneGigabyte);
+        return Math.min((long) this.distribution.draw(random), oneGigabyte);
     }
 
 }
@@ -1,5 +1,7 @@
 package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
 
+import java.util.Random;
+
 /**
  * Uniform flow size distribution.
  *
@@ -32,7 +34,7 @@ public class UniformFSD extends FlowSizeDistribution {
      * @return  Uniform flow size
      */
     @Override
-    public long generateFlowSizeByte() {
+    public long generateFlowSizeByte(Random random) {
         return uniformFlowSizeBytes;
     }
 
@@ -2,34 +2,15 @@ package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
 
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 
-public class pFabricDataMiningAlbert extends FlowSizeDistribution {
+public class pFabricDataMiningAlbert extends EmpiricalCdfFSD {
 
     public pFabricDataMiningAlbert() {
-        super();
+        super(
+                new long[]{1460, 2 * 1460, 3 * 1460, 7 * 1460, 267 * 1460, 2107 * 1460, 66667 * 1460, 666667 * 1460},
+                new double[]{0.5, 0.6, 0.7, 0.8, 0.9, 0.95, 0.99, 1.0},
+                Interpolation.DISCRETE
+        );
         SimulationLogger.logInfo("Flow planner flow size dist.", "pFabric data mining lower bound discrete");
     }
 
-    @Override
-    public long generateFlowSizeByte() {
-
-        double outcome = independentRng.nextDouble();
-
-        if (outcome >= 0.0 && outcome <= 0.5) {
-            return 1460;
-        } else if (outcome >= 0.5 && outcome <= 0.6){
-            return 2*1460;
-        } else if (outcome >= 0.6 && outcome <= 0.7) {
-            return 3*1460;
-        } else if (outcome >= 0.7 && outcome <= 0.8) {
-            return 7*1460;
-        } else if (outcome >= 0.8 && outcome <= 0.9) {
-            return 267*1460;
-        } else if (outcome >= 0.9 && outcome <= 0.95) {
-            return 2107*1460;
-        } else if (outcome >= 0.95 && outcome <= 0.99) {
-            return 66667*1460;
-        } else {
-            return 666667*1460;
-        }
-    }
 }
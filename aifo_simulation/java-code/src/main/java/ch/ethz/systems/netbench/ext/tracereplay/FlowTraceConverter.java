@@ -0,0 +1,87 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Converts a CSV flow trace into the binary flow trace format
+ * read by the {@link FlowTraceReader}.
+ *
+ * CSV line structure (lines starting with # are ignored):
+ * [time_ns], [src_id], [dst_id], [flow_size_byte](, [priority])
+ *
+ * Usage: java FlowTraceConverter [input.csv] [output.bin]
+ */
+public class FlowTraceConverter {
+
+    private FlowTraceConverter() {
+        // Static class only
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java FlowTraceConverter [input.csv] [output.bin]");
+            System.exit(1);
+        }
+        long numRecords = convert(args[0], args[1]);
+        System.out.println("Converted " + numRecords + " flows from " + args[0] + " to " + args[1] + ".");
+    }
+
+    /**
+     * Convert a CSV flow trace into a binary flow trace.
+     *
+     * @param csvFileName       Input CSV trace file name
+     * @param binaryFileName    Output binary trace file name
+     *
+     * @return  Number of flows converted
+     */
+    public static long convert(String csvFileName, String binaryFileName) throws IOException {
+        long numRecords = 0;
+        long lastTimeNs = 0;
+        try (
+                BufferedReader reader = new BufferedReader(new FileReader(csvFileName));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFileName), 1 << 16))
+        ) {
+
+            // Header
+            out.writeInt(FlowTraceReader.MAGIC);
+            out.writeInt(FlowTraceReader.VERSION);
+
+            // Records
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.equals("") || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] spl = line.split(",");
+                if (spl.length != 4 && spl.length != 5) {
+                    throw new IllegalArgumentException("Flow trace line " + lineNumber + " must have [time_ns, src_id, dst_id, flow_size_byte(, priority)]: " + line);
+                }
+                long timeNs = Long.parseLong(spl[0].trim());
+                if (timeNs < lastTimeNs) {
+                    throw new IllegalArgumentException("Flow trace must be ordered by start time (line " + lineNumber + ").");
+                }
+                lastTimeNs = timeNs;
+
+                out.writeLong(timeNs);
+                out.writeInt(Integer.parseInt(spl[1].trim()));
+                out.writeInt(Integer.parseInt(spl[2].trim()));
+                out.writeLong(Long.parseLong(spl[3].trim()));
+                out.writeInt(spl.length == 5 ? Integer.parseInt(spl[4].trim()) : -1);
+                numRecords++;
+
+            }
+
+        }
+        return numRecords;
+    }
+
+}
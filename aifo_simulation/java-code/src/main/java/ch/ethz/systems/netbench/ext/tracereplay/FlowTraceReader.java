@@ -0,0 +1,169 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import ch.ethz.systems.netbench.core.log.MappedLogWriter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential reader of a binary flow trace, which maps the trace file
+ * in segments instead of reading it into memory. A segment is unmapped
+ * as soon as the next one is mapped, and the last one on close.
+ *
+ * Binary trace format (big-endian):
+ * <pre>
+ *     [int magic "NBFT"] [int version]
+ *     [long time_ns] [int src_id] [int dst_id] [long flow_size_byte] [int priority]
+ *     ...
+ * </pre>
+ * Records are ordered by non-decreasing start time. A priority of -1 means none is given.
+ *
+ * @see FlowTraceConverter
+ */
+public class FlowTraceReader {
+
+    // Format
+    static final int MAGIC = 0x4E424654; // "NBFT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE_BYTES = 8;
+    static final int RECORD_SIZE_BYTES = 28;
+
+    // Default amount of records mapped at once (~56 MB)
+    private static final int DEFAULT_SEGMENT_RECORDS = 2 * 1024 * 1024;
+
+    // File
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long numRecords;
+    private final int segmentRecords;
+
+    // Current segment
+    private MappedByteBuffer segment;
+    private long nextRecord;
+
+    // Current record
+    private long timeNs;
+    private int srcId;
+    private int dstId;
+    private long flowSizeByte;
+    private int priority;
+
+    /**
+     * Open a binary flow trace.
+     *
+     * @param fileName  Trace file name
+     */
+    public FlowTraceReader(String fileName) throws IOException {
+        this(fileName, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Open a binary flow trace.
+     *
+     * @param fileName          Trace file name
+     * @param segmentRecords    Amount of records mapped at once
+     */
+    FlowTraceReader(String fileName, int segmentRecords) throws IOException {
+        this.file = new RandomAccessFile(fileName, "r");
+        this.channel = file.getChannel();
+        this.segmentRecords = segmentRecords;
+
+        // Header
+        long size = channel.size();
+        if (size < HEADER_SIZE_BYTES || file.readInt() != MAGIC) {
+            close();
+            throw new IllegalArgumentException("File " + fileName + " is not a binary flow trace.");
+        }
+        int version = file.readInt();
+        if (version != VERSION) {
+            close();
+            throw new IllegalArgumentException("Binary flow trace " + fileName + " has unsupported version " + version + ".");
+        }
+        if ((size - HEADER_SIZE_BYTES) % RECORD_SIZE_BYTES != 0) {
+            close();
+            throw new IllegalArgumentException("Binary flow trace " + fileName + " is truncated (size " + size + " bytes).");
+        }
+        this.numRecords = (size - HEADER_SIZE_BYTES) / RECORD_SIZE_BYTES;
+        this.nextRecord = 0;
+        this.segment = null;
+    }
+
+    /**
+     * Advance to the next record.
+     *
+     * @return  True iff there was a next record (then available via the getters)
+     */
+    public boolean next() throws IOException {
+        if (nextRecord >= numRecords) {
+            return false;
+        }
+
+        // Map next segment (releasing the previous one right away)
+        if (segment == null || !segment.hasRemaining()) {
+            if (segment != null) {
+                MappedLogWriter.unmap(segment);
+                segment = null;
+            }
+            long records = Math.min(segmentRecords, numRecords - nextRecord);
+            segment = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE_BYTES + nextRecord * RECORD_SIZE_BYTES,
+                    records * RECORD_SIZE_BYTES
+            );
+        }
+
+        // Read record
+        timeNs = segment.getLong();
+        srcId = segment.getInt();
+        dstId = segment.getInt();
+        flowSizeByte = segment.getLong();
+        priority = segment.getInt();
+        nextRecord++;
+        return true;
+
+    }
+
+    /**
+     * Retrieve the total number of records in the trace.
+     *
+     * @return  Number of records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    public long getTimeNs() {
+        return timeNs;
+    }
+
+    public int getSrcId() {
+        return srcId;
+    }
+
+    public int getDstId() {
+        return dstId;
+    }
+
+    public long getFlowSizeByte() {
+        return flowSizeByte;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Close the trace file, unmapping the current segment.
+     */
+    public void close() throws IOException {
+        if (segment != null) {
+            MappedLogWriter.unmap(segment);
+            segment = null;
+        }
+        channel.close();
+        file.close();
+    }
+
+}
@@ -0,0 +1,100 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartBatch;
+import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Replays a binary flow trace (see {@link FlowTraceReader}).
+ *
+ * The trace is not registered up front: the flow starts are registered
+ * window by window, each time just ahead of the simulated time, such that
+ * only the flow starts of the upcoming window are in the event queue.
+ * A window starts at the first flow start not yet registered, such that
+ * gaps in the trace do not cost a window event per window length.
+ */
+public class TraceReplayPlanner extends TrafficPlanner {
+
+    private final String fileName;
+    private final long windowNs;
+
+    // Trace state
+    private FlowTraceReader reader;
+    private boolean hasPending;
+    private long durationNs;
+    private long numFlows;
+    private final FlowStartBatch batch = new FlowStartBatch();
+
+    /**
+     * Constructor.
+     *
+     * @param idToTransportLayerMap     Maps a network device identifier to its corresponding transport layer
+     * @param fileName                  File name of the binary flow trace
+     * @param windowNs                  Window of flow starts registered ahead of simulated time
+     */
+    public TraceReplayPlanner(Map<Integer, TransportLayer> idToTransportLayerMap, String fileName, long windowNs) {
+        super(idToTransportLayerMap);
+        if (windowNs <= 0) {
+            throw new IllegalArgumentException("Trace replay window must be positive (is " + windowNs + " ns).");
+        }
+        this.fileName = fileName;
+        this.windowNs = windowNs;
+        SimulationLogger.logInfo("Flow planner", "TRACE_REPLAY(file=" + fileName + ", windowNs=" + windowNs + ")");
+    }
+
+    @Override
+    public void createPlan(long durationNs) {
+        try {
+            this.reader = new FlowTraceReader(fileName);
+            this.hasPending = reader.next();
+        } catch (IOException e) {
+            throw new RuntimeException("Trace replay: failed to read file: " + e.getMessage());
+        }
+        this.durationNs = durationNs;
+        this.numFlows = 0;
+        System.out.println("Trace replay of " + reader.getNumRecords() + " flows, registered in windows of " + windowNs + " ns.");
+        SimulationLogger.logInfo("Flow planner trace flows", String.valueOf(reader.getNumRecords()));
+        registerWindow();
+    }
+
+    /**
+     * Register the flow starts of the window [now, now + window), and
+     * the event to register the next window at the next flow start after it.
+     */
+    void registerWindow() {
+        long now = Simulator.getCurrentTime();
+        long windowEnd = now + windowNs;
+        try {
+
+            // Register all flows starting in this window
+            while (hasPending && reader.getTimeNs() < windowEnd && reader.getTimeNs() <= durationNs) {
+                if (reader.getTimeNs() < now) {
+                    throw new RuntimeException("Flow trace is not ordered by start time (flow starting at " + reader.getTimeNs() + " ns).");
+                }
+                batch.add(reader.getTimeNs() - now, reader.getSrcId(), reader.getDstId(), reader.getFlowSizeByte(), 80, 80);
+                numFlows++;
+                hasPending = reader.next();
+            }
+            registerFlows(batch);
+            batch.clear();
+
+            // Next window (starting at the next flow start, skipping empty windows), or done
+            if (hasPending && reader.getTimeNs() <= durationNs) {
+                Simulator.registerEvent(new TraceReplayWindowEvent(reader.getTimeNs() - now, this));
+            } else {
+                SimulationLogger.logInfo("Flow planner number flows", String.valueOf(numFlows));
+                reader.close();
+                hasPending = false;
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException("Trace replay: failed to read file: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+/**
+ * Start of the next window of a {@link TraceReplayPlanner}.
+ */
+class TraceReplayWindowEvent extends Event {
+
+    private final TraceReplayPlanner planner;
+
+    /**
+     * Create window event.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     * @param planner           Planner which registers the window
+     */
+    TraceReplayWindowEvent(long timeFromNowNs, TraceReplayPlanner planner) {
+        super(timeFromNowNs);
+        this.planner = planner;
+    }
+
+    @Override
+    public void trigger() {
+        planner.registerWindow();
+    }
+
+}
@@ -3,6 +3,7 @@ package ch.ethz.systems.netbench.ext.trafficpair;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartBatch;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 
 import java.io.BufferedReader;
@@ -75,6 +76,7 @@ public class TrafficPairPlanner extends TrafficPlanner {
             BufferedReader br = new BufferedReader(new InputStreamReader(fileStream));
 
             // Simply read in the node pairs
+            FlowStartBatch batch = new FlowStartBatch();
             String strLine;
             while ((strLine = br.readLine()) != null) {
 
@@ -84,9 +86,10 @@ public class TrafficPairPlanner extends TrafficPlanner {
                 int dstId = Integer.valueOf(match[1]);
 
                 // Register the flow immediately
-                registerFlow(0, srcId, dstId, flowSizeByte);
+                batch.add(0, srcId, dstId, flowSizeByte, 0, 0);
 
             }
+            registerFlows(batch);
 
             // Close input stream
             br.close();
@@ -101,9 +104,11 @@ public class TrafficPairPlanner extends TrafficPlanner {
      * Create planning from pair list given.
      */
     private void createPlanFromPairList() {
+        FlowStartBatch batch = new FlowStartBatch(trafficPairs.size());
         for (TrafficPair pair : trafficPairs) {
-            registerFlow(0, pair.getFrom(), pair.getTo(), flowSizeByte);
+            batch.add(0, pair.getFrom(), pair.getTo(), flowSizeByte, 0, 0);
         }
+        registerFlows(batch);
     }
 
 
@@ -6,8 +6,6 @@ import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.ext.ecmp.EcmpSwitch;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 
-import java.util.List;
-
 abstract class ValiantEcmpSwitch extends EcmpSwitch {
 
     boolean isWithinExtendedTopology;
@@ -60,13 +58,12 @@ abstract class ValiantEcmpSwitch extends EcmpSwitch {
 
             // If it is within an extended topology, it means that if it has the ability
             // to go the destination server, it should immediately
-            if (isWithinExtendedTopology && this.connectedTo.contains(actualDestination)) {
+            if (isWithinExtendedTopology && hasConnection(actualDestination)) {
                 destinationToGoTo = actualDestination;
             }
 
             // Forward to the next switch
-            List<Integer> possibilities = destinationToNextSwitch.get(destinationToGoTo);
-            this.targetIdToOutputPort.get(possibilities.get(encapsulation.getPacket().getHash(this.identifier) % possibilities.size())).enqueue(genericPacket);
+            this.outputPorts[destinationToNextSwitch.select(destinationToGoTo, encapsulation.getPacket().getHash(this.identifier))].enqueue(genericPacket);
 
         }
 
@@ -168,18 +168,11 @@ public class AIFOOutputPort extends OutputPort {
                 }
 
                 else {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                    if (ipHeader.getSourceId() == this.getOwnId()) {
-                        SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                    }
+                    countPacketDropped(packet);
                 }
             }
             else {
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                IpHeader ipHeader = (IpHeader) packet;
-                if (ipHeader.getSourceId() == this.getOwnId()) {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                }
+                countPacketDropped(packet);
             }
         } finally {
             this.reentrantLock.unlock();
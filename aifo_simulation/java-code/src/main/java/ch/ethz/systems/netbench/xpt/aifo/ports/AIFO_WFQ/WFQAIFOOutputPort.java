@@ -212,19 +212,12 @@ public class WFQAIFOOutputPort extends OutputPort {
 
                 else {
                     last_finishTime.put(packet.getFlowId(), (int)last_finishTime.get(packet.getFlowId()) - ((int)packet.getSizeBit()/8));
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                    if (ipHeader.getSourceId() == this.getOwnId()) {
-                        SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                    }
+                    countPacketDropped(packet);
                 }
             }
             else {
                 last_finishTime.put(packet.getFlowId(), (int)last_finishTime.get(packet.getFlowId()) - ((int)packet.getSizeBit()/8));
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-                IpHeader ipHeader = (IpHeader) packet;
-                if (ipHeader.getSourceId() == this.getOwnId()) {
-                    SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-                }
+                countPacketDropped(packet);
             }
         } finally {
             this.reentrantLock.unlock();
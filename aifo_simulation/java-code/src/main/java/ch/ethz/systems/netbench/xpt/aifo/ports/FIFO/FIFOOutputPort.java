@@ -61,10 +61,7 @@ public class FIFOOutputPort extends OutputPort {
             guaranteedEnqueue(packet);
 
         } else {
-            SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED");
-            if (ipHeader.getSourceId() == this.getOwnId()) {
-                SimulationLogger.increaseStatisticCounter("PACKETS_DROPPED_AT_SOURCE");
-            }
+            countPacketDropped(packet);
         }
     }
 }
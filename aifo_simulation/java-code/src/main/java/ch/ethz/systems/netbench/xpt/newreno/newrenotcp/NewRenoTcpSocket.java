@@ -2,6 +2,7 @@ package ch.ethz.systems.netbench.xpt.newreno.newrenotcp;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.log.StatisticCounter;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
@@ -70,6 +71,11 @@ public class NewRenoTcpSocket extends Socket {
     // Maximum flow size allowed in bytes
     private static final long MAXIMUM_FLOW_SIZE = 1000000000000L;
 
+    // Statistic counters
+    private static final StatisticCounter STATISTIC_TCP_FAST_RETRANSMIT = SimulationLogger.getStatisticCounter("TCP_FAST_RETRANSMIT");
+    private static final StatisticCounter STATISTIC_TCP_FLOWLET_OUT_OF_ORDER = SimulationLogger.getStatisticCounter("TCP_FLOWLET_OUT_OF_ORDER");
+    private static final StatisticCounter STATISTIC_TCP_RETRANSMISSION_TIMEOUT = SimulationLogger.getStatisticCounter("TCP_RETRANSMISSION_TIMEOUT");
+
     // Possible TCP states supported
     enum State {
         LISTEN,         // Awaiting a sender to connect to it
@@ -239,7 +245,7 @@ public class NewRenoTcpSocket extends Socket {
         this.currentFlowlet = 0;
 
         // TCP logger
-        this.tcpLogger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.tcpLogger = TcpLogger.create(flowId, flowSizeByte == -1);
 
     }
 
@@ -334,7 +340,7 @@ public class NewRenoTcpSocket extends Socket {
         this.currentFlowlet = 0;
 
         // TCP logger
-        this.tcpLogger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.tcpLogger = TcpLogger.create(flowId, flowSizeByte == -1);
 
     }
 
@@ -611,7 +617,7 @@ public class NewRenoTcpSocket extends Socket {
         sendOutDataPacket(seq, getFlowSizeByte(seq));
 
         // Log
-        SimulationLogger.increaseStatisticCounter("TCP_FAST_RETRANSMIT");
+        STATISTIC_TCP_FAST_RETRANSMIT.increase();
 
     }
 
@@ -710,7 +716,7 @@ public class NewRenoTcpSocket extends Socket {
 
         // Flowlet recording
         if (packet.getEchoFlowletId() < currentFlowlet) {
-            SimulationLogger.increaseStatisticCounter("TCP_FLOWLET_OUT_OF_ORDER");
+            STATISTIC_TCP_FLOWLET_OUT_OF_ORDER.increase();
         } else {
             currentFlowlet = packet.getEchoFlowletId();
             tcpLogger.logMaxFlowlet(currentFlowlet);
@@ -1025,7 +1031,7 @@ public class NewRenoTcpSocket extends Socket {
     public void handleRetransmissionTimeOut() {
 
         // Take congestion control measures
-        SimulationLogger.increaseStatisticCounter("TCP_RETRANSMISSION_TIMEOUT");
+        STATISTIC_TCP_RETRANSMISSION_TIMEOUT.increase();
         this.inFastRecovery = false;
 
         // Adjust slow start threshold and congestion window accordingly
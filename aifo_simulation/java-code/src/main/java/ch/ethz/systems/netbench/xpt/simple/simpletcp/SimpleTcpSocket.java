@@ -2,6 +2,7 @@ package ch.ethz.systems.netbench.xpt.simple.simpletcp;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.log.StatisticCounter;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
@@ -36,6 +37,14 @@ public class SimpleTcpSocket extends Socket {
     // Maximum flow size allowed in bytes (1 terabyte)
     private static final long MAXIMUM_FLOW_SIZE = 1000000000000L;
 
+    // Statistic counters
+    private static final StatisticCounter STATISTIC_TCP_ACK_PACKETS_RECEIVED = SimulationLogger.getStatisticCounter("TCP_ACK_PACKETS_RECEIVED");
+    private static final StatisticCounter STATISTIC_TCP_DATA_PACKETS_RECEIVED = SimulationLogger.getStatisticCounter("TCP_DATA_PACKETS_RECEIVED");
+    private static final StatisticCounter STATISTIC_TCP_FLOWLET_OUT_OF_ORDER = SimulationLogger.getStatisticCounter("TCP_FLOWLET_OUT_OF_ORDER");
+    private static final StatisticCounter STATISTIC_TCP_RESEND_OCCURRED = SimulationLogger.getStatisticCounter("TCP_RESEND_OCCURRED");
+    private static final StatisticCounter STATISTIC_TCP_ACK_PACKETS_SENT = SimulationLogger.getStatisticCounter("TCP_ACK_PACKETS_SENT");
+    private static final StatisticCounter STATISTIC_TCP_DATA_PACKETS_SENT = SimulationLogger.getStatisticCounter("TCP_DATA_PACKETS_SENT");
+
     // Possible TCP states supported
     enum State {
         LISTEN,         // Awaiting a sender to connect to it
@@ -174,7 +183,7 @@ public class SimpleTcpSocket extends Socket {
         currentFlowlet = 0;
 
         // TCP logger
-        this.tcpLogger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.tcpLogger = TcpLogger.create(flowId, flowSizeByte == -1);
 
     }
 
@@ -209,9 +218,9 @@ public class SimpleTcpSocket extends Socket {
 
         // Logging of packets
         if (packet.isACK() && !packet.isSYN()) {
-            SimulationLogger.increaseStatisticCounter("TCP_ACK_PACKETS_RECEIVED");
+            STATISTIC_TCP_ACK_PACKETS_RECEIVED.increase();
         } else {
-            SimulationLogger.increaseStatisticCounter("TCP_DATA_PACKETS_RECEIVED");
+            STATISTIC_TCP_DATA_PACKETS_RECEIVED.increase();
         }
 
         switch (currentState) {
@@ -455,7 +464,7 @@ public class SimpleTcpSocket extends Socket {
 
         // Flowlet recording
         if (packet.getEchoFlowletId() < currentFlowlet) {
-            SimulationLogger.increaseStatisticCounter("TCP_FLOWLET_OUT_OF_ORDER");
+            STATISTIC_TCP_FLOWLET_OUT_OF_ORDER.increase();
         } else {
             currentFlowlet = packet.getEchoFlowletId();
             tcpLogger.logMaxFlowlet(currentFlowlet);
@@ -715,7 +724,7 @@ public class SimpleTcpSocket extends Socket {
         );
 
         // Log statistic
-        SimulationLogger.increaseStatisticCounter("TCP_RESEND_OCCURRED");
+        STATISTIC_TCP_RESEND_OCCURRED.increase();
 
         // Halve congestion window as the congestion control action
         halveCongestionWindow();
@@ -786,7 +795,7 @@ public class SimpleTcpSocket extends Socket {
      * @param packet     TCP packet instance
      */
     private void sendWithoutResend(Packet packet) {
-        SimulationLogger.increaseStatisticCounter("TCP_ACK_PACKETS_SENT");
+        STATISTIC_TCP_ACK_PACKETS_SENT.increase();
         transportLayer.send(packet);
     }
 
@@ -797,7 +806,7 @@ public class SimpleTcpSocket extends Socket {
      * @param tcpPacket     TCP packet instance
      */
     private void sendWithResend(TcpPacket tcpPacket) {
-        SimulationLogger.increaseStatisticCounter("TCP_DATA_PACKETS_SENT");
+        STATISTIC_TCP_DATA_PACKETS_SENT.increase();
         registerResendEvent(tcpPacket);
         transportLayer.send(tcpPacket);
     }
@@ -3,6 +3,7 @@ package ch.ethz.systems.netbench.xpt.simple.simpleudp;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.log.StatisticCounter;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
@@ -10,56 +11,107 @@ import ch.ethz.systems.netbench.core.network.UDPSendPacketEvent;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 import ch.ethz.systems.netbench.xpt.tcpbase.TcpLogger;
-
-import java.util.Random;
 // **TODO change to UdpPacket
 public class SimpleUdpSocket extends Socket {
 
     private static final long MAX_SEGMENT_SIZE = 1380L / 4;
 
+    // Statistic counters
+    private static final StatisticCounter STATISTIC_NO_RESEND_PACKETS_SENT = SimulationLogger.getStatisticCounter("NO_RESEND_PACKETS_SENT");
+    private static final StatisticCounter STATISTIC_UDP_PACING_WAKEUPS = SimulationLogger.getStatisticCounter("UDP_PACING_WAKEUPS");
+    private static final StatisticCounter STATISTIC_UDP_PACING_EVENTS_SAVED = SimulationLogger.getStatisticCounter("UDP_PACING_EVENTS_SAVED");
+
     private long sendNextNumber;
     private double congestionWindow;
     private TcpLogger logger;
 
+    // Pacing
+    private long pacingIntervalNs;
+    private double bytesPerWakeup;
+    private double creditByte;
+    private UDPSendPacketEvent pacingEvent;
+
     public SimpleUdpSocket(TransportLayer transportLayer, long flowId, int sourceId, int destinationId, long flowSizeByte) {
         super(transportLayer, flowId, sourceId, destinationId, flowSizeByte);
-        this.logger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.logger = TcpLogger.create(flowId, flowSizeByte == -1);
         this.congestionWindow = 3 * 1380;
         this.sendNextNumber = 0;
+        readPacing();
     }
 
     public SimpleUdpSocket(TransportLayer transportLayer, long flowId, int sourceId, int destinationId, long flowSizeByte, long realFlowSizeByte) {
         super(transportLayer, flowId, sourceId, destinationId, flowSizeByte, true, realFlowSizeByte, 80, 80);
-        this.logger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.logger = TcpLogger.create(flowId, flowSizeByte == -1);
         this.congestionWindow = 3 * 1380;
         this.sendNextNumber = 0;
+        readPacing();
     }
 
     public SimpleUdpSocket(TransportLayer transportLayer, long flowId, int sourceId, int destinationId, long flowSizeByte, int sourcePort, int destinationPort) {
         super(transportLayer, flowId, sourceId, destinationId, flowSizeByte, sourcePort, destinationPort);
-        this.logger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.logger = TcpLogger.create(flowId, flowSizeByte == -1);
         this.congestionWindow = 3 * 1380;
         this.sendNextNumber = 0;
+        readPacing();
     }
 
     public SimpleUdpSocket(TransportLayer transportLayer, long flowId, int sourceId, int destinationId, long flowSizeByte, long realFlowSizeByte, int sourcePort, int destinationPort) {
         super(transportLayer, flowId, sourceId, destinationId, flowSizeByte, true, realFlowSizeByte, sourcePort, destinationPort);
-        this.logger = new TcpLogger(flowId, flowSizeByte == -1);
+        this.logger = TcpLogger.create(flowId, flowSizeByte == -1);
         this.congestionWindow = 3 * 1380;
         this.sendNextNumber = 0;
+        readPacing();
+    }
+
+    /**
+     * Read the pacing of the sender: every pacing interval it wakes up once and sends
+     * the segments its rate allows for (the remainder is carried over to the next wake-up).
+     *
+     * Properties:
+     * UDP_RATE_BIT_PER_S=... (default 23 Mbit/s: one segment per default interval)
+     * UDP_PACING_INTERVAL_NS=... (default 120000; for rack-scale: 12000 / 40 * 19)
+     */
+    private void readPacing() {
+        this.pacingIntervalNs = Simulator.getConfiguration().getLongPropertyWithDefault("UDP_PACING_INTERVAL_NS", 120000L);
+        long rateBitPerS = Simulator.getConfiguration().getLongPropertyWithDefault("UDP_RATE_BIT_PER_S", MAX_SEGMENT_SIZE * 8 * 1000000000L / 120000L);
+        if (pacingIntervalNs <= 0 || rateBitPerS <= 0) {
+            throw new IllegalArgumentException("UDP pacing interval (" + pacingIntervalNs + " ns) and rate (" + rateBitPerS + " bit/s) must be positive.");
+        }
+        this.bytesPerWakeup = (double) rateBitPerS * pacingIntervalNs / 8e9;
+        this.creditByte = 0;
     }
 
+    /**
+     * Wake-up of the sender (the first at the start of the flow, then every pacing
+     * interval by the single pacing event of this socket): send a burst of segments.
+     */
     @java.lang.Override
     public void start() {
-        Random rand = new Random();
-        int random_integer = rand.nextInt(470000-10000) + 10000;
-        boolean flag;
-
-        flag = sendOutPendingData();
-        if (flag == true) {
-            Simulator.registerEvent(new UDPSendPacketEvent(12000 / 4 * 10 * 4, this));
-            // * for rack-scale
-            // Simulator.registerEvent(new UDPSendPacketEvent(12000 / 40 * 19, this));
+
+        // Send as many segments as the accumulated credit allows
+        creditByte += bytesPerWakeup;
+        long numSent = 0;
+        boolean more = true;
+        while (more && creditByte >= MAX_SEGMENT_SIZE) {
+            more = sendOutPendingData();
+            creditByte -= MAX_SEGMENT_SIZE;
+            numSent++;
+        }
+
+        // A per-segment sender would have needed an event for every segment
+        STATISTIC_UDP_PACING_WAKEUPS.increase();
+        if (numSent > 1) {
+            STATISTIC_UDP_PACING_EVENTS_SAVED.increase(numSent - 1);
+        }
+
+        // Next wake-up
+        if (more) {
+            if (pacingEvent == null) {
+                pacingEvent = new UDPSendPacketEvent(pacingIntervalNs, this);
+                Simulator.registerEvent(pacingEvent);
+            } else {
+                pacingEvent.reschedule(pacingIntervalNs);
+            }
         }
 
     }
@@ -97,7 +149,7 @@ public class SimpleUdpSocket extends Socket {
     }
 
     private void sendWithoutResend(FullExtTcpPacket packet) {
-        SimulationLogger.increaseStatisticCounter("NO_RESEND_PACKETS_SENT");
+        STATISTIC_NO_RESEND_PACKETS_SENT.increase();
 
         transportLayer.send(packet);
     }
@@ -5,11 +5,17 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.run.routing.RoutingPopulator;
 import edu.asu.emit.algorithm.graph.Graph;
-import edu.asu.emit.algorithm.graph.Vertex;
 import edu.asu.emit.algorithm.graph.algorithms.YenTopKShortestPathsAlg;
 
-import java.io.*;
-import java.util.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static ch.ethz.systems.netbench.core.Simulator.getConfiguration;
 
@@ -38,18 +44,9 @@ public class KShortestPathsSwitchRouting extends RoutingPopulator {
         // Create graph and prepare shortest path algorithm
         Graph graph = getConfiguration().getGraph();
         try {
-            String fileName = getKspCacheFilename(details);
-            File f = new File(fileName);
-            if (f.exists()) {
-                BufferedReader br = new BufferedReader(new FileReader(fileName));
-                String kLine = br.readLine();
-                String spl[] = kLine.split("=");
-                int kInFile = Integer.valueOf(spl[1]);
-                if (kInFile >= k) {
-                    determineKspRoutingStateCached(k, details);
-                } else {
-                    determineKspRoutingStateUncached(k, details, graph);
-                }
+            int kInFile = KspPathCache.readK(getKspCacheFilename(details), details.getIdHash());
+            if (kInFile >= k) {
+                determineKspRoutingStateCached(k, details);
             } else {
                 determineKspRoutingStateUncached(k, details, graph);
             }
@@ -64,149 +61,126 @@ public class KShortestPathsSwitchRouting extends RoutingPopulator {
      * @param k         K in k-shortest paths
      * @param details   Graph details
      */
-    private void determineKspRoutingStateCached(int k, GraphDetails details) {
-
-        try {
-
-            System.out.print("Determining KSP-" + k + " routing state (cache present, so reading from file " + getKspCacheFilename(details) + ")...");
-
-            // Open file stream
-            FileReader input = new FileReader(getKspCacheFilename(details));
-            BufferedReader br = new BufferedReader(input);
-
-            // Go over parameter lines one-by-one, stop when encountering non-parameter lines
-            String line;
-            br.readLine(); // Skip the k=X line
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-
-                // Split up by comma
-                String[] split = line.split(",");
-                if (split.length != 4) {
-                    throw new IllegalArgumentException("Invalid k-paths line:\n" + line);
-                }
-
-                // Retrieve k value for this line and only add if it passes the threshold
-                int kPath = Integer.valueOf(split[0]);
-                if (kPath <= k) {
-
-                    // Retrieve source and destination graph device identifier
-                    int src = Integer.valueOf(split[1]);
-                    int dst = Integer.valueOf(split[2]);
-                    String pSpl [] = split[3].split("-");
-                    SourceRoutingPath path = new SourceRoutingPath();
-                    for (String s  : pSpl) {
-                        path.add(Integer.valueOf(s));
-                    }
-
-                    // Add path as potential path to graph device for the set destination
-                    ((SourceRoutingSwitch) idToNetworkDevice.get(src)).addPathToDestination(dst, path);
+    private void determineKspRoutingStateCached(int k, GraphDetails details) throws IOException {
 
-                }
-
-            }
+        System.out.print("Determining KSP-" + k + " routing state (cache present, so reading from file " + getKspCacheFilename(details) + ")...");
 
-            // Close stream
-            br.close();
+        // Add every path of at most rank k as potential path to graph device for the set destination
+        KspPathCache.read(getKspCacheFilename(details), k, (source, destination, rank, path) ->
+                ((SourceRoutingSwitch) idToNetworkDevice.get(source)).addPathToDestination(destination, toSourceRoutingPath(path))
+        );
 
-            System.out.println(" done.");
-
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        System.out.println(" done.");
 
     }
 
     /**
      * Determine the K-shortest paths between the ToRs without a cache present using Yen's K-shortest paths algorithm.
+     * The sources are divided over parallel tasks, which share the (immutable) compressed sparse row form of the graph.
      * It automatically creates a cache for the topology.
      *
      * @param k         K in k-shortest paths
      * @param details   Topology details
      * @param graph     Graph
      */
-    private void determineKspRoutingStateUncached(int k, GraphDetails details, Graph graph) {
+    private void determineKspRoutingStateUncached(final int k, GraphDetails details, final Graph graph) throws IOException {
 
         // Retrieve ToR nodes
-        Set<Integer> torNodes = details.getTorNodeIds();
+        final List<Integer> torNodes = new ArrayList<>(details.getTorNodeIds());
 
         System.out.print("Determining KSP-" + k + " routing state (no cache present; writing cache to " + getKspCacheFilename(details) + ")...");
 
-        try {
-
-            // Create path cache file
-            File f = new File(PATHS_CACHE_DIRECTORY);
-            if (!f.mkdirs() && !f.exists()) {
-                throw new RuntimeException("Could not create paths cache folder: " + PATHS_CACHE_DIRECTORY + ".");
-            }
-            BufferedWriter pathsFile = new BufferedWriter(
-                    new FileWriter(getKspCacheFilename(details))
-            );
-            pathsFile.write("k=" + k + "\n");
-
-            // Go over every graph device pair and set the forwarder switch routing table
-            for (Integer i : torNodes) {
-                for (Integer j : torNodes) {
-
-                    if (!i.equals(j)) {
-
-                        // Find shortest paths as many wanted
-                        YenTopKShortestPathsAlg alg = new YenTopKShortestPathsAlg(graph, graph.getVertex(i), graph.getVertex(j));
-                        int found = 0;
-                        while (alg.hasNext()) {
-
-                            // Start of the path line
-                            StringBuilder pathLine = new StringBuilder();
-                            pathLine.append(found + 1).append(",").append(i).append(",").append(j).append(",");
+        // Create path cache folder
+        File f = new File(PATHS_CACHE_DIRECTORY);
+        if (!f.mkdirs() && !f.exists()) {
+            throw new RuntimeException("Could not create paths cache folder: " + PATHS_CACHE_DIRECTORY + ".");
+        }
 
-                            // Get path in vertices
-                            SourceRoutingPath path = new SourceRoutingPath();
-                            for (Vertex v : alg.next().getVertexList()) {
-                                path.add(v.getId());
-                                pathLine.append(String.valueOf(v.getId())).append("-");
-                            }
+        // One task per source, each finding the paths to all other ToRs
+        List<Callable<List<int[]>>> tasks = new ArrayList<>();
+        for (final Integer i : torNodes) {
+            tasks.add(() -> determineKspFromSource(k, i, torNodes, graph));
+        }
 
-                            // Write away path line
-                            String temp = pathLine.substring(0, pathLine.length() - 1); // Remove last -
-                            temp += "\n";
-                            pathsFile.write(temp);
+        // Run the tasks in parallel, and add the paths in order of source
+        List<List<int[]>> paths = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            int done = 0;
+            for (Future<List<int[]>> future : pool.invokeAll(tasks)) {
+                List<int[]> pathsOfSource = future.get();
+                for (int[] path : pathsOfSource) {
+                    ((SourceRoutingSwitch) idToNetworkDevice.get(path[0])).addPathToDestination(path[path.length - 1], toSourceRoutingPath(path));
+                }
+                paths.add(pathsOfSource);
 
-                            // Add to routing state
-                            ((SourceRoutingSwitch) idToNetworkDevice.get(i)).addPathToDestination(j, path);
+                // Log progress...
+                done++;
+                if (torNodes.size() > 10 && done % (torNodes.size() / 10) == 0) {
+                    System.out.print(" " + ((double) done / torNodes.size() * 100) + "%...");
+                }
 
-                            // Finish if the maximum amount of paths is reached
-                            found++;
-                            if (found >= k) {
-                                break;
-                            }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("KSP routing: failed to determine k-shortest paths: " + e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
 
-                        }
+        // Write cache
+        KspPathCache.write(getKspCacheFilename(details), details.getIdHash(), k, paths);
 
-                        // Create warning message if not enough different paths could be found
-                        if (found != k) {
-                            System.out.println("WARNING: could only find " + found + " paths for " + i + " -> " + j + ", which is less than k=" + k + ".");
-                        }
+        System.out.println(" done.");
 
-                    }
+    }
 
+    /**
+     * Determine the K-shortest paths from a source ToR to all other ToRs.
+     *
+     * @param k         K in k-shortest paths
+     * @param i         Source ToR identifier
+     * @param torNodes  All ToR identifiers
+     * @param graph     Graph
+     *
+     * @return  Paths in order of destination and rank
+     */
+    private static List<int[]> determineKspFromSource(int k, int i, List<Integer> torNodes, Graph graph) {
+        List<int[]> paths = new ArrayList<>();
+        YenTopKShortestPathsAlg alg = new YenTopKShortestPathsAlg(graph);
+        for (int j : torNodes) {
+            if (i != j) {
+
+                // Find shortest paths as many wanted
+                alg.setEndpoints(i, j);
+                int found = 0;
+                while (found < k && alg.hasNext()) {
+                    paths.add(alg.nextPath());
+                    found++;
                 }
 
-                // Log progress...
-                if (torNodes.size() > 10 && ((i + 1) % Math.ceil((torNodes.size() / 100.0))) == 0) {
-                    System.out.print(" " + (((double) i + 1) / (torNodes.size()) * 100) + "%...");
+                // Create warning message if not enough different paths could be found
+                if (found != k) {
+                    System.out.println("WARNING: could only find " + found + " paths for " + i + " -> " + j + ", which is less than k=" + k + ".");
                 }
 
             }
-
-            System.out.println(" done.");
-
-            pathsFile.close();
-
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+        return paths;
+    }
 
-
+    /**
+     * Convert a path of vertex identifiers into a source routing path.
+     *
+     * @param path  Vertex identifiers
+     *
+     * @return  Source routing path
+     */
+    private static SourceRoutingPath toSourceRoutingPath(int[] path) {
+        SourceRoutingPath sourceRoutingPath = new SourceRoutingPath();
+        for (int v : path) {
+            sourceRoutingPath.add(v);
+        }
+        return sourceRoutingPath;
     }
 
     /**
@@ -217,7 +191,7 @@ public class KShortestPathsSwitchRouting extends RoutingPopulator {
      * @return The K-shortest paths cache file name (no guarantee that it exists, only what is expected)
      */
     private static String getKspCacheFilename(GraphDetails details) {
-        return PATHS_CACHE_DIRECTORY + "/" + details.getIdHash() + ".kspaths";
+        return PATHS_CACHE_DIRECTORY + "/" + details.getIdHash() + ".kspbin";
     }
 
 }
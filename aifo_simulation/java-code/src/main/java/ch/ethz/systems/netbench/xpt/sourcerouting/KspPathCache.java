@@ -0,0 +1,204 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary cache of the K-shortest paths between the ToRs of a topology.
+ *
+ * The file consists of big-endian integers, such that it can be memory-mapped
+ * and read without any parsing:
+ *
+ *   header:    magic, version, topology SHA-1 (20 bytes), k, number of paths (long),
+ *              total length of the paths (long)
+ *   per path:  source, destination, rank (1 to k), length, length x vertex identifier
+ *
+ * The paths of a pair are stored consecutively in order of rank.
+ *
+ * A cache is written into a temporary file of its own and atomically moved into place once
+ * complete, such that runs in parallel on the same topology do not corrupt each other's cache.
+ * A cache of which the size does not match the number of paths and their total length is not used.
+ */
+class KspPathCache {
+
+    private static final int MAGIC = 0x4B535043; // "KSPC"
+    private static final int VERSION = 4;
+    private static final int SHA1_LENGTH = 20;
+    private static final int HEADER_BYTES = 4 + 4 + SHA1_LENGTH + 4 + 8 + 8;
+
+    /**
+     * Consumer of the paths in the cache.
+     */
+    interface PathConsumer {
+
+        /**
+         * Accept a path.
+         *
+         * @param source        Source identifier
+         * @param destination   Destination identifier
+         * @param rank          Rank of the path among the paths of the pair (1 is shortest)
+         * @param path          Vertex identifiers of the path (source first, destination last)
+         */
+        void accept(int source, int destination, int rank, int[] path);
+
+    }
+
+    private KspPathCache() {
+        // Cannot be instantiated
+    }
+
+    /**
+     * Retrieve the k of a cache file.
+     *
+     * @param fileName      Cache file name
+     * @param topologyHash  SHA-1 hash (hexadecimal) of the topology the cache must belong to
+     *
+     * @return  The k the cache was created with, or -1 if there is no valid (complete) cache for the topology
+     */
+    static int readK(String fileName, String topologyHash) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists() || file.length() < HEADER_BYTES) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return -1;
+            }
+            byte[] hash = new byte[SHA1_LENGTH];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, decodeHash(topologyHash))) {
+                return -1;
+            }
+            int k = buffer.getInt();
+            long numPaths = buffer.getLong();
+            long totalLength = buffer.getLong();
+            if (numPaths < 0 || totalLength < 0 || HEADER_BYTES + (4 * numPaths + totalLength) * 4 != file.length()) {
+                return -1;
+            }
+            return k;
+        }
+    }
+
+    /**
+     * Read all paths of at most rank k from the cache file.
+     * The file must be a valid cache, as checked by {@link #readK(String, String)}.
+     *
+     * @param fileName  Cache file name
+     * @param k         Maximum rank of the paths to read
+     * @param consumer  Consumer of the paths (in order of the file)
+     */
+    static void read(String fileName, int k, PathConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(HEADER_BYTES - 16);
+            long numPaths = buffer.getLong();
+            buffer.getLong(); // Total length of the paths
+            IntBuffer ints = buffer.asIntBuffer();
+            for (long p = 0; p < numPaths; p++) {
+                int source = ints.get();
+                int destination = ints.get();
+                int rank = ints.get();
+                int length = ints.get();
+                if (rank <= k) {
+                    int[] path = new int[length];
+                    ints.get(path);
+                    consumer.accept(source, destination, rank, path);
+                } else {
+                    ints.position(ints.position() + length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a cache file, replacing it atomically once it is complete.
+     *
+     * @param fileName      Cache file name
+     * @param topologyHash  SHA-1 hash (hexadecimal) of the topology
+     * @param k             K in k-shortest paths
+     * @param paths         Paths of every source, each in order of destination and rank
+     */
+    static void write(String fileName, String topologyHash, int k, List<List<int[]>> paths) throws IOException {
+        long numPaths = 0;
+        long totalLength = 0;
+        for (List<int[]> pathsOfSource : paths) {
+            numPaths += pathsOfSource.size();
+            for (int[] path : pathsOfSource) {
+                totalLength += path.length;
+            }
+        }
+        File file = new File(fileName).getAbsoluteFile();
+        Path temporary = Files.createTempFile(file.getParentFile().toPath(), file.getName() + ".", ".tmp");
+        try {
+            writeTo(temporary, topologyHash, k, numPaths, totalLength, paths);
+            Files.move(temporary, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Write the cache content to a file.
+     *
+     * @param file          File path
+     * @param topologyHash  SHA-1 hash (hexadecimal) of the topology
+     * @param k             K in k-shortest paths
+     * @param numPaths      Number of paths
+     * @param totalLength   Total length of the paths
+     * @param paths         Paths of every source, each in order of destination and rank
+     */
+    private static void writeTo(Path file, String topologyHash, int k, long numPaths, long totalLength, List<List<int[]>> paths) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(decodeHash(topologyHash));
+            out.writeInt(k);
+            out.writeLong(numPaths);
+            out.writeLong(totalLength);
+            for (List<int[]> pathsOfSource : paths) {
+                int rank = 0;
+                int previousDestination = -1;
+                for (int[] path : pathsOfSource) {
+                    int destination = path[path.length - 1];
+                    rank = destination == previousDestination ? rank + 1 : 1;
+                    previousDestination = destination;
+                    out.writeInt(path[0]);
+                    out.writeInt(destination);
+                    out.writeInt(rank);
+                    out.writeInt(path.length);
+                    for (int v : path) {
+                        out.writeInt(v);
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] decodeHash(String topologyHash) {
+        try {
+            byte[] hash = Hex.decodeHex(topologyHash.toCharArray());
+            if (hash.length != SHA1_LENGTH) {
+                throw new IllegalArgumentException("Topology hash is not a SHA-1 hash: " + topologyHash);
+            }
+            return hash;
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Topology hash is not hexadecimal: " + topologyHash);
+        }
+    }
+
+}
@@ -6,14 +6,34 @@ import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 public class SourceRoutingEncapsulation extends IpPacket {
 
     private final TcpPacket packet;
-    private final SourceRoutingPath path;
+
+    // Hops of the path (shared by all packets on it, never modified)
+    private final int[] path;
+
+    // Hop after the last hop of the path (-1 if none)
+    private final int finalHop;
+
+    // Index in the path of the current hop (-1 if before the first hop)
     private int currentStep;
 
     public SourceRoutingEncapsulation(TcpPacket packet, SourceRoutingPath path) {
+        this(packet, path.toHops(), 0, -1);
+    }
+
+    /**
+     * Create encapsulation of a packet routed along a shared path.
+     *
+     * @param packet        TCP packet
+     * @param path          Hops of the path (not copied, so must not be modified)
+     * @param currentStep   Index of the current hop in the path (-1 if the current hop precedes the path)
+     * @param finalHop      Hop after the last hop of the path (-1 if the path ends at the destination)
+     */
+    SourceRoutingEncapsulation(TcpPacket packet, int[] path, int currentStep, int finalHop) {
         super(packet.getFlowId(), packet.getSizeBit() - 480L, packet.getSourceId(), packet.getDestinationId(), packet.getTTL());
         this.packet = packet;
         this.path = path;
-        this.currentStep = 0;
+        this.finalHop = finalHop;
+        this.currentStep = currentStep;
     }
 
     public TcpPacket getPacket() {
@@ -22,7 +42,7 @@ public class SourceRoutingEncapsulation extends IpPacket {
 
     public int nextHop() {
         currentStep++;
-        return path.get(currentStep);
+        return currentStep < path.length ? path[currentStep] : finalHop;
     }
 
     @Override
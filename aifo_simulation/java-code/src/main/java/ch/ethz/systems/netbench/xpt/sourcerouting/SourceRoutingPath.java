@@ -3,6 +3,18 @@ package ch.ethz.systems.netbench.xpt.sourcerouting;
 import java.util.ArrayList;
 
 public class SourceRoutingPath extends ArrayList<Integer> {
-    // No adaptations needed, it is only created for
-    // semantic purpose.
+
+    /**
+     * Retrieve the hops of the path as array.
+     *
+     * @return  Hops (copy)
+     */
+    int[] toHops() {
+        int[] hops = new int[size()];
+        for (int i = 0; i < hops.length; i++) {
+            hops[i] = get(i);
+        }
+        return hops;
+    }
+
 }
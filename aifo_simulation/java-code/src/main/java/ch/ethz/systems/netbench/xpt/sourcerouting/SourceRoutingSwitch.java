@@ -4,13 +4,17 @@ import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.*;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class SourceRoutingSwitch extends NetworkDevice {
 
-    // Routing table
-    private List<List<SourceRoutingPath>> destinationToPaths;
+    private static final int[][] NO_PATHS = new int[0][];
+
+    // Routing table of the hops of every path, shared by the packets sent on it
+    private final int[][][] destinationToHops;
+
+    // Path consisting of only the ToR of this server (created on first use)
+    private int[] torHop;
 
     private boolean isWithinExtendedTopology;
 
@@ -24,10 +28,8 @@ public class SourceRoutingSwitch extends NetworkDevice {
      */
     SourceRoutingSwitch(int identifier, TransportLayer transportLayer, int n, Intermediary intermediary) {
         super(identifier, transportLayer, intermediary);
-        this.destinationToPaths = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            this.destinationToPaths.add(new ArrayList<>());
-        }
+        this.destinationToHops = new int[n][][];
+        Arrays.fill(this.destinationToHops, NO_PATHS);
         isWithinExtendedTopology = Simulator.getConfiguration().getGraphDetails().isAutoExtended();
     }
 
@@ -53,12 +55,14 @@ public class SourceRoutingSwitch extends NetworkDevice {
     }
 
     /**
-     * Returns the paths list originating from this ToR switch.
+     * Retrieve the hops of the paths originating from this ToR switch to a destination.
+     *
+     * @param destinationId     Destination identifier
      *
-     * @return  The path list
+     * @return  Hops of each path (shared, must not be modified)
      */
-    public List<List<SourceRoutingPath>> getPathsList(){
-    		return destinationToPaths;
+    int[][] getHopsTo(int destinationId) {
+        return destinationToHops[destinationId];
     }
     
     /**
@@ -66,7 +70,8 @@ public class SourceRoutingSwitch extends NetworkDevice {
      * is oblivious to the source routing happening underneath.
      * The TCP packet is then encapsulated to carry information of the
      * route it must take. The sequential hash of the packet is used
-     * to determine the path it should be sent on.
+     * to determine the path it should be sent on. The encapsulation refers to
+     * the shared hops of the selected path, so no path is created per packet.
      *
      * @param genericPacket     TCP packet instance
      */
@@ -74,9 +79,9 @@ public class SourceRoutingSwitch extends NetworkDevice {
     public void receiveFromIntermediary(Packet genericPacket) {
         TcpPacket packet = (TcpPacket) genericPacket;
         
-	    // Retrieve possible valiant paths to choose from
-        List<SourceRoutingPath> possibilities;
-        SourceRoutingPath selectedPath;
+	    // Retrieve possible paths to choose from
+        int[][] possibilities;
+        SourceRoutingEncapsulation encapsulation;
 
         if (isWithinExtendedTopology) {
 
@@ -84,49 +89,38 @@ public class SourceRoutingSwitch extends NetworkDevice {
             int sourceTor = Simulator.getConfiguration().getGraphDetails().getTorIdOfServer(packet.getSourceId());
             int destinationTor = Simulator.getConfiguration().getGraphDetails().getTorIdOfServer(packet.getDestinationId());
 
-            // Create path
-            selectedPath = new SourceRoutingPath();
-
-            // If the servers are not on the same ToR
+            // The path is the source server, the ToR path, and the destination server
+            int[] torPath;
             if (sourceTor != destinationTor) {
 
                 // Retrieve ToR to which it is attached
                 SourceRoutingSwitch sourceTorDevice = (SourceRoutingSwitch) this.targetIdToOutputPort.get(sourceTor).getTargetDevice();
 
-                // Retrieve the src-ToR to dst-ToR path possibilities
-                possibilities = sourceTorDevice.getPathsList().get(destinationTor);
-
-                // Select a path out of all possibilities...
-                SourceRoutingPath orgPath = possibilities.get(packet.getHash(this.identifier) % possibilities.size());
-
-                // ... and add the path to the selected path for its own local copy
-                selectedPath.addAll(orgPath);
+                // Select a path out of the src-ToR to dst-ToR path possibilities
+                possibilities = sourceTorDevice.getHopsTo(destinationTor);
+                torPath = possibilities[packet.getHash(this.identifier) % possibilities.length];
 
             } else {
 
-                // If both servers are in the same ToR just create the single up-down path
-                selectedPath.add(sourceTor);
+                // If both servers are in the same ToR just use the single up-down path
+                if (torHop == null || torHop[0] != sourceTor) {
+                    torHop = new int[]{sourceTor};
+                }
+                torPath = torHop;
 
             }
 
-            // Now we add both the original server and the destination server to the path
-            selectedPath.add(0, packet.getSourceId());
-            selectedPath.add(packet.getDestinationId());
+            // Create encapsulation to propagate through the network (this server precedes the ToR path)
+            encapsulation = new SourceRoutingEncapsulation(packet, torPath, -1, packet.getDestinationId());
 
         } else {
 
             // If it is not extended, just use stored paths (all ToRs are servers themselves)
-            possibilities = destinationToPaths.get(packet.getDestinationId());
-            selectedPath = possibilities.get(packet.getHash(this.identifier) % possibilities.size());
+            possibilities = destinationToHops[packet.getDestinationId()];
+            encapsulation = new SourceRoutingEncapsulation(packet, possibilities[packet.getHash(this.identifier) % possibilities.length], 0, -1);
 
         }
         
-        // Create encapsulation to propagate through the network
-        SourceRoutingEncapsulation encapsulation = new SourceRoutingEncapsulation(
-                packet,
-                selectedPath
-        );
-        
 	    // Send to network
         receive(encapsulation);
 
@@ -169,8 +163,9 @@ public class SourceRoutingSwitch extends NetworkDevice {
         }
 
         // Check for duplicate
-        List<SourceRoutingPath> current = this.destinationToPaths.get(destinationId);
-        if (current.contains(path)) {
+        int[] pathHops = path.toHops();
+        int[][] current = this.destinationToHops[destinationId];
+        if (containsHops(current, pathHops)) {
             if (Simulator.getConfiguration().getBooleanPropertyWithDefault("allow_source_routing_skip_duplicate_paths", false)) {
                 System.out.println("For (" + this.getIdentifier() + "->" + destinationId + ") skipped duplicate path : " + path);
                 return;
@@ -182,10 +177,29 @@ public class SourceRoutingSwitch extends NetworkDevice {
         }
 
         // Add to current ones
-        current.add(path);
+        int[][] hops = Arrays.copyOf(current, current.length + 1);
+        hops[current.length] = pathHops;
+        destinationToHops[destinationId] = hops;
 
     }
 
+    /**
+     * Check whether the hops of a path are among the hops of the given paths.
+     *
+     * @param paths     Hops of each path
+     * @param hops      Hops of the path
+     *
+     * @return  True iff any of the paths has exactly these hops
+     */
+    private static boolean containsHops(int[][] paths, int[] hops) {
+        for (int[] p : paths) {
+            if (Arrays.equals(p, hops)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -194,11 +208,11 @@ public class SourceRoutingSwitch extends NetworkDevice {
         builder.append(", connected=");
         builder.append(connectedTo);
         builder.append(", routing: ");
-        for (int i = 0; i < destinationToPaths.size(); i++) {
+        for (int i = 0; i < destinationToHops.length; i++) {
             builder.append("for ");
             builder.append(i);
             builder.append(" possible paths are ");
-            builder.append(destinationToPaths.get(i));
+            builder.append(Arrays.deepToString(destinationToHops[i]));
             builder.append("; ");
         }
         builder.append(">");
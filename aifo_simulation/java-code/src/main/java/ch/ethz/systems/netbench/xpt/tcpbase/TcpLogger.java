@@ -1,34 +1,55 @@
 package ch.ethz.systems.netbench.xpt.tcpbase;
 
 import ch.ethz.systems.netbench.core.Simulator;
-import ch.ethz.systems.netbench.core.log.LogFailureException;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.log.LogSink;
 import ch.ethz.systems.netbench.core.log.LoggerCallback;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 
-import java.io.BufferedWriter;
-import java.io.IOException;
-
 public class TcpLogger implements LoggerCallback {
 
+    // Shared logger used when none of the TCP logs are enabled
+    private static final TcpLogger DISABLED = new TcpLogger(-1, true, LogSink.DISABLED, LogSink.DISABLED, LogSink.DISABLED);
+
     private final long flowId;
     private long maxFlowlet;
-    private final BufferedWriter congestionWindowWriter;
-    private final BufferedWriter packetBurstGapWriter;
-    private final BufferedWriter maxFlowletWriter;
-    private final boolean logPacketBurstGapEnabled;
-    private final boolean logCongestionWindowEnabled;
+    private final LogSink congestionWindowSink;
+    private final LogSink packetBurstGapSink;
+    private final LogSink maxFlowletSink;
     private final boolean isReceiver;
 
-    public TcpLogger(long flowId, boolean isReceiver) {
+    private TcpLogger(long flowId, boolean isReceiver, LogSink congestionWindowSink, LogSink packetBurstGapSink, LogSink maxFlowletSink) {
         this.flowId = flowId;
         this.maxFlowlet = 0;
-        this.congestionWindowWriter = SimulationLogger.getExternalWriter("congestion_window.csv.log");
-        this.packetBurstGapWriter = SimulationLogger.getExternalWriter("packet_burst_gap.csv.log");
-        this.maxFlowletWriter = SimulationLogger.getExternalWriter("max_flowlet.csv.log");
-        this.logPacketBurstGapEnabled = Simulator.getConfiguration().getBooleanPropertyWithDefault("enable_log_packet_burst_gap", false);
-        this.logCongestionWindowEnabled = Simulator.getConfiguration().getBooleanPropertyWithDefault("enable_log_congestion_window", false);
+        this.congestionWindowSink = congestionWindowSink;
+        this.packetBurstGapSink = packetBurstGapSink;
+        this.maxFlowletSink = maxFlowletSink;
         this.isReceiver = isReceiver;
-        SimulationLogger.registerCallbackBeforeClose(this);
+    }
+
+    /**
+     * Create the TCP logger of a flow. If none of the TCP logs
+     * (<i>enable_log_congestion_window</i>, <i>enable_log_packet_burst_gap</i>,
+     * <i>enable_log_max_flowlet</i>) is enabled, a shared no-op logger is returned.
+     *
+     * @param flowId        Flow identifier
+     * @param isReceiver    True iff the socket is the receiver of the flow
+     *
+     * @return  TCP logger instance
+     */
+    public static TcpLogger create(long flowId, boolean isReceiver) {
+        NBProperties configuration = Simulator.getConfiguration();
+        LogSink congestionWindowSink = SimulationLogger.getLogSink("congestion_window.csv.log", configuration.getBooleanPropertyWithDefault("enable_log_congestion_window", false));
+        LogSink packetBurstGapSink = SimulationLogger.getLogSink("packet_burst_gap.csv.log", configuration.getBooleanPropertyWithDefault("enable_log_packet_burst_gap", false));
+        LogSink maxFlowletSink = SimulationLogger.getLogSink("max_flowlet.csv.log", configuration.getBooleanPropertyWithDefault("enable_log_max_flowlet", false));
+        if (!congestionWindowSink.isEnabled() && !packetBurstGapSink.isEnabled() && !maxFlowletSink.isEnabled()) {
+            return DISABLED;
+        }
+        TcpLogger logger = new TcpLogger(flowId, isReceiver, congestionWindowSink, packetBurstGapSink, maxFlowletSink);
+        if (maxFlowletSink.isEnabled()) {
+            SimulationLogger.registerCallbackBeforeClose(logger);
+        }
+        return logger;
     }
 
     /**
@@ -37,12 +58,8 @@ public class TcpLogger implements LoggerCallback {
      * @param congestionWindow      Current size of congestion window
      */
     public void logCongestionWindow(double congestionWindow) {
-        if (logCongestionWindowEnabled) {
-            try {
-                congestionWindowWriter.write(flowId + "," + congestionWindow + "," + Simulator.getCurrentTime() + "\n");
-            } catch (IOException e) {
-                throw new LogFailureException(e);
-            }
+        if (congestionWindowSink.isEnabled()) {
+            congestionWindowSink.write(flowId + "," + congestionWindow + "," + Simulator.getCurrentTime() + "\n");
         }
     }
 
@@ -52,8 +69,10 @@ public class TcpLogger implements LoggerCallback {
      * @param flowlet   Flowlet identifier
      */
     public void logMaxFlowlet(long flowlet) {
-        assert(flowlet >= maxFlowlet);
-        maxFlowlet = flowlet;
+        if (maxFlowletSink.isEnabled()) {
+            assert(flowlet >= maxFlowlet);
+            maxFlowlet = flowlet;
+        }
     }
 
     /**
@@ -62,23 +81,15 @@ public class TcpLogger implements LoggerCallback {
      * @param gapNs Packet burst gap in nanoseconds
      */
     public void logPacketBurstGap(long gapNs) {
-        try {
-            if (logPacketBurstGapEnabled) {
-                packetBurstGapWriter.write(gapNs + "\n");
-            }
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (packetBurstGapSink.isEnabled()) {
+            packetBurstGapSink.write(gapNs + "\n");
         }
     }
 
     @Override
     public void callBeforeClose() {
-        try {
-            if (!isReceiver) {
-                maxFlowletWriter.write(flowId + "," + maxFlowlet + "\n");
-            }
-        } catch (IOException e) {
-            throw new LogFailureException(e);
+        if (!isReceiver) {
+            maxFlowletSink.write(flowId + "," + maxFlowlet + "\n");
         }
     }
 
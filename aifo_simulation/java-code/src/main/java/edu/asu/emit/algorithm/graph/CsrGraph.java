@@ -0,0 +1,335 @@
+package edu.asu.emit.algorithm.graph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The class defines a directed graph in compressed sparse row form.
+ *
+ * Vertices are the integers 0 to n - 1. The outgoing edges of vertex v are the
+ * edge indices outStart(v) to outEnd(v) - 1 (with target and weight in primitive
+ * arrays), and its incoming edges are listed the same way, each referring to the
+ * index of the outgoing edge it is. Both are in the adjacency order of the graph
+ * the structure was created from.
+ *
+ * The structure is immutable and can be shared between threads. On top of it,
+ * every view has its own deletion overlay (a bitmask of deleted vertices and one
+ * of deleted edges), which the shortest path algorithms use to exclude vertices
+ * and edges, e.g. for Yen's algorithm. A view created from a graph is shared
+ * (e.g. by {@link Graph#getCsrGraph()}) and cannot be modified: vertices and edges
+ * can only be deleted on a view created by {@link #withOwnOverlay()}.
+ */
+public class CsrGraph {
+
+    // Structure
+    private final int numVertices;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final long[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdges;
+
+    // Deletion overlay of this view (only modifiable if it is its own)
+    private final boolean ownOverlay;
+    private final long[] deletedVertices;
+    private final long[] deletedEdges;
+
+    /**
+     * Create the compressed sparse row form of a graph.
+     * The graph's vertex identifiers must be 0 to n - 1.
+     *
+     * @param graph     Graph instance
+     */
+    public CsrGraph(Graph graph) {
+        this(graph, identity(graph.getVertexList().size()), identity(graph.getVertexList().size()));
+    }
+
+    /**
+     * Create the compressed sparse row form of the subgraph induced by a selection
+     * of the vertices of a graph, which are renumbered.
+     *
+     * @param graph         Graph instance
+     * @param vertexToId    Graph vertex identifier of every vertex of the subgraph
+     * @param idToVertex    Vertex in the subgraph of every graph vertex identifier (negative if not selected)
+     */
+    public CsrGraph(Graph graph, int[] vertexToId, int[] idToVertex) {
+        this.numVertices = vertexToId.length;
+
+        // Outgoing edges
+        this.outOffsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++) {
+            outOffsets[v + 1] = outOffsets[v] + countSelected(graph.getAdjacentVertices(graph.getVertex(vertexToId[v])), idToVertex);
+        }
+        this.outTargets = new int[outOffsets[numVertices]];
+        this.outWeights = new long[outOffsets[numVertices]];
+        for (int v = 0; v < numVertices; v++) {
+            Vertex source = graph.getVertex(vertexToId[v]);
+            int e = outOffsets[v];
+            for (Vertex target : graph.getAdjacentVertices(source)) {
+                if (idToVertex[target.getId()] >= 0) {
+                    outTargets[e] = idToVertex[target.getId()];
+                    outWeights[e] = graph.getEdgeWeight(source, target);
+                    e++;
+                }
+            }
+        }
+
+        // Incoming edges
+        this.inOffsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++) {
+            inOffsets[v + 1] = inOffsets[v] + countSelected(graph.getPrecedentVertices(graph.getVertex(vertexToId[v])), idToVertex);
+        }
+        this.inSources = new int[inOffsets[numVertices]];
+        this.inEdges = new int[inOffsets[numVertices]];
+        for (int v = 0; v < numVertices; v++) {
+            int i = inOffsets[v];
+            for (Vertex origin : graph.getPrecedentVertices(graph.getVertex(vertexToId[v]))) {
+                int u = idToVertex[origin.getId()];
+                if (u >= 0) {
+                    inSources[i] = u;
+                    inEdges[i] = findEdge(u, v);
+                    i++;
+                }
+            }
+        }
+
+        this.ownOverlay = false;
+        this.deletedVertices = new long[(numVertices + 63) >>> 6];
+        this.deletedEdges = new long[(outTargets.length + 63) >>> 6];
+    }
+
+    /**
+     * Create a view on the structure of another view, with its own (empty) deletion overlay.
+     *
+     * @param structure     View of which to share the structure
+     */
+    private CsrGraph(CsrGraph structure) {
+        this.numVertices = structure.numVertices;
+        this.outOffsets = structure.outOffsets;
+        this.outTargets = structure.outTargets;
+        this.outWeights = structure.outWeights;
+        this.inOffsets = structure.inOffsets;
+        this.inSources = structure.inSources;
+        this.inEdges = structure.inEdges;
+        this.ownOverlay = true;
+        this.deletedVertices = new long[structure.deletedVertices.length];
+        this.deletedEdges = new long[structure.deletedEdges.length];
+    }
+
+    private static int[] identity(int n) {
+        int[] identity = new int[n];
+        for (int i = 0; i < n; i++) {
+            identity[i] = i;
+        }
+        return identity;
+    }
+
+    private static int countSelected(List<Vertex> vertices, int[] idToVertex) {
+        int count = 0;
+        for (Vertex vertex : vertices) {
+            if (idToVertex[vertex.getId()] >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Create a view on the same structure with its own (empty) deletion overlay,
+     * such that it can be used concurrently with this view.
+     *
+     * @return  Graph view
+     */
+    public CsrGraph withOwnOverlay() {
+        return new CsrGraph(this);
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumEdges() {
+        return outTargets.length;
+    }
+
+    public int outStart(int vertex) {
+        return outOffsets[vertex];
+    }
+
+    public int outEnd(int vertex) {
+        return outOffsets[vertex + 1];
+    }
+
+    public int outTarget(int edge) {
+        return outTargets[edge];
+    }
+
+    public long weight(int edge) {
+        return outWeights[edge];
+    }
+
+    public int inStart(int vertex) {
+        return inOffsets[vertex];
+    }
+
+    public int inEnd(int vertex) {
+        return inOffsets[vertex + 1];
+    }
+
+    public int inSource(int index) {
+        return inSources[index];
+    }
+
+    /**
+     * Retrieve the (outgoing) edge index of an incoming edge.
+     *
+     * @param index     Incoming edge index
+     *
+     * @return  Edge index
+     */
+    public int inEdge(int index) {
+        return inEdges[index];
+    }
+
+    /**
+     * Find the index of directed edge (source, target).
+     *
+     * @param source    Source vertex
+     * @param target    Target vertex
+     *
+     * @return  Edge index, or -1 if the edge does not exist
+     */
+    public int findEdge(int source, int target) {
+        for (int e = outOffsets[source]; e < outOffsets[source + 1]; e++) {
+            if (outTargets[e] == target) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieve the weight of directed edge (source, target), which must not be deleted.
+     *
+     * @param source    Source vertex
+     * @param target    Target vertex
+     *
+     * @return  Edge weight
+     */
+    public long getEdgeWeight(int source, int target) {
+        int e = findEdge(source, target);
+        if (e == -1 || isEdgeDeleted(e) || isVertexDeleted(source) || isVertexDeleted(target)) {
+            throw new RuntimeException("CsrGraph: getEdgeWeight: cannot retrieve edge weight of non-existing or removed edge.");
+        }
+        return outWeights[e];
+    }
+
+    /**
+     * Retrieve the weight of directed edge (source, target), regardless of deletion.
+     *
+     * @param source    Source vertex
+     * @param target    Target vertex
+     *
+     * @return  Edge weight
+     */
+    public long getEdgeWeightOfGraph(int source, int target) {
+        int e = findEdge(source, target);
+        if (e == -1) {
+            throw new RuntimeException("CsrGraph: getEdgeWeightOfGraph: cannot retrieve edge weight of non-existing edge.");
+        }
+        return outWeights[e];
+    }
+
+    public boolean isVertexDeleted(int vertex) {
+        return (deletedVertices[vertex >>> 6] & (1L << vertex)) != 0;
+    }
+
+    public boolean isEdgeDeleted(int edge) {
+        return (deletedEdges[edge >>> 6] & (1L << edge)) != 0;
+    }
+
+    public void deleteVertex(int vertex) {
+        checkOwnOverlay("deleteVertex");
+        deletedVertices[vertex >>> 6] |= 1L << vertex;
+    }
+
+    public void recoverDeletedVertex(int vertex) {
+        checkOwnOverlay("recoverDeletedVertex");
+        deletedVertices[vertex >>> 6] &= ~(1L << vertex);
+    }
+
+    /**
+     * Delete directed edge (source, target), if it exists.
+     *
+     * @param source    Source vertex
+     * @param target    Target vertex
+     */
+    public void deleteEdge(int source, int target) {
+        checkOwnOverlay("deleteEdge");
+        int e = findEdge(source, target);
+        if (e != -1) {
+            deletedEdges[e >>> 6] |= 1L << e;
+        }
+    }
+
+    /**
+     * Recover ('un-delete') directed edge (source, target), if it exists.
+     *
+     * @param source    Source vertex
+     * @param target    Target vertex
+     */
+    public void recoverDeletedEdge(int source, int target) {
+        checkOwnOverlay("recoverDeletedEdge");
+        int e = findEdge(source, target);
+        if (e != -1) {
+            deletedEdges[e >>> 6] &= ~(1L << e);
+        }
+    }
+
+    public void recoverDeletedVertices() {
+        checkOwnOverlay("recoverDeletedVertices");
+        Arrays.fill(deletedVertices, 0);
+    }
+
+    public void recoverDeletedEdges() {
+        checkOwnOverlay("recoverDeletedEdges");
+        Arrays.fill(deletedEdges, 0);
+    }
+
+    /**
+     * Check that this view has its own deletion overlay, such that it can be modified.
+     *
+     * @param method    Name of the modifying method
+     */
+    private void checkOwnOverlay(String method) {
+        if (!ownOverlay) {
+            throw new IllegalStateException("CsrGraph: " + method + ": view is shared and cannot be modified (use withOwnOverlay() first).");
+        }
+    }
+
+    /**
+     * Check whether an outgoing edge of a vertex can be followed, meaning
+     * that neither the edge nor its target is deleted.
+     *
+     * @param edge      Outgoing edge index
+     *
+     * @return  True iff the edge is not deleted and its target is not deleted
+     */
+    public boolean isOutEdgeUsable(int edge) {
+        return !isEdgeDeleted(edge) && !isVertexDeleted(outTargets[edge]);
+    }
+
+    /**
+     * Check whether an incoming edge of a vertex can be followed backwards, meaning
+     * that neither the edge nor its source is deleted.
+     *
+     * @param index     Incoming edge index
+     *
+     * @return  True iff the edge is not deleted and its source is not deleted
+     */
+    public boolean isInEdgeUsable(int index) {
+        return !isEdgeDeleted(inEdges[index]) && !isVertexDeleted(inSources[index]);
+    }
+
+}
@@ -62,6 +62,9 @@ public class Graph implements BaseGraph {
     // List of all vertices in the graph
     private final List<Vertex> vertexList;
 
+    // Compressed sparse row form (created on first use)
+    private CsrGraph csrGraph;
+
     /**
      * Constructor to create a graph of a certain size with the given edges.
      *
@@ -94,27 +97,25 @@ public class Graph implements BaseGraph {
     }
 
     /**
-     * Constructor to create a shallow copy of another graph.
+     * Retrieve the compressed sparse row form of the graph, which the shortest path
+     * algorithms operate on. It is created on first use, and the same structure is
+     * returned afterwards (the graph cannot change after construction).
+     * The vertex identifiers must be 0 to n - 1.
      *
-     * @param graph Graph instance
+     * @return  Compressed sparse row form (shared, so it cannot be modified; use
+     *          {@link CsrGraph#withOwnOverlay()} to delete vertices or edges)
      */
-	Graph(Graph graph) {
-
-        // Default instantiate data structures
-        this.idVertexIndex = new HashMap<>();
-        this.vertexList = new Vector<>();
-        this.edgeWeights = new HashMap<>();
-        this.inEdges = new HashMap<>();
-        this.outEdges = new HashMap<>();
-
-        // Shallow copy other graph
-        this.vertexList.addAll(graph.vertexList);
-        this.idVertexIndex.putAll(graph.idVertexIndex);
-        this.inEdges.putAll(graph.inEdges);
-        this.outEdges.putAll(graph.outEdges);
-        this.edgeWeights.putAll(graph.edgeWeights);
-
-	}
+    public synchronized CsrGraph getCsrGraph() {
+        if (csrGraph == null) {
+            for (int id = 0; id < vertexList.size(); id++) {
+                if (!idVertexIndex.containsKey(id)) {
+                    throw new IllegalStateException("Graph: getCsrGraph: vertex identifiers are not 0 to n - 1.");
+                }
+            }
+            csrGraph = new CsrGraph(this);
+        }
+        return csrGraph;
+    }
 
 	/**
 	 * Add edge (start, end): weight to the graph.
@@ -31,15 +31,24 @@
 
 package edu.asu.emit.algorithm.graph.algorithms;
 
+import edu.asu.emit.algorithm.graph.CsrGraph;
 import edu.asu.emit.algorithm.graph.Graph;
-import edu.asu.emit.algorithm.graph.Path;
-import edu.asu.emit.algorithm.graph.BaseGraph;
-import edu.asu.emit.algorithm.graph.Vertex;
 
-import java.util.*;
+import java.util.Arrays;
 
 
 /**
+ * Dijkstra's shortest path algorithm on a {@link CsrGraph} (respecting its deletion overlay).
+ *
+ * The distance and predecessor index are arrays over the vertices, which are only valid
+ * for a vertex if it is stamped with the current epoch; clearing the workspace is done
+ * by advancing the epoch, such that an instance can be reused for many searches at a
+ * cost proportional to the vertices each search visits. The candidate queue is an indexed
+ * binary heap (decreasing the key of a vertex already in it), which settles vertices of
+ * equal distance in the same order as the original priority queue, such that the same
+ * shortest paths are found. This also holds if all edge weights are 1, for which
+ * a breadth-first search would break ties between equally short paths differently.
+ *
  * @author <a href='mailto:Yan.Qi@asu.edu'>Yan Qi</a>
  * @version $Revision: 430 $
  * @latest $Date: 2008-07-27 16:31:56 -0700 (Sun, 27 Jul 2008) $
@@ -48,47 +57,109 @@ import java.util.*;
 public class DijkstraShortestPathAlg
 {
 	// Input
-	private final BaseGraph graph;
+	private final CsrGraph graph;
+
+	// Workspace (entries of a vertex valid only if stamped with the current epoch)
+	private final int[] stamp;
+	private final int[] settledStamp;
+	private final long[] distance;
+	private final int[] predecessor;
+	private int epoch;
+
+	// Indexed binary heap ordered by distance
+	private final int[] heap;
+	private final int[] heapPosition;
+	private int heapSize;
 
-	// Intermediate variables
-	private Set<Vertex> determinedVertexSet = new HashSet<Vertex>();
-	private PriorityQueue<Vertex> vertexCandidateQueue = new PriorityQueue<Vertex>();
-	private Map<Vertex, Long> startVertexDistanceIndex = new HashMap<Vertex, Long>();
-	private Map<Vertex, Vertex> predecessorIndex = new HashMap<Vertex, Vertex>();
+	// Work array for paths and backward correction
+	private int[] work;
 
 	/**
 	 * Default constructor.
-	 * @param graph
+	 *
+	 * @param graph     Graph
+	 */
+	public DijkstraShortestPathAlg(final Graph graph) {
+		this(graph.getCsrGraph());
+	}
+
+	/**
+	 * Constructor on a graph view.
+	 *
+	 * @param graph     Graph view (with deletion overlay)
 	 */
-	public DijkstraShortestPathAlg(final BaseGraph graph) {
-        this.graph = graph;
+	public DijkstraShortestPathAlg(final CsrGraph graph) {
+		this.graph = graph;
+		int n = graph.getNumVertices();
+		this.stamp = new int[n];
+		this.settledStamp = new int[n];
+		this.distance = new long[n];
+		this.predecessor = new int[n];
+		this.epoch = 0;
+		this.heap = new int[n];
+		this.heapPosition = new int[n];
+		this.heapSize = 0;
+		this.work = new int[Math.max(16, n)];
+		clear();
 	}
 
 	/**
 	 * Clear intermediate variables.
 	 */
 	public void clear()	{
-		determinedVertexSet.clear();
-		vertexCandidateQueue.clear();
-		startVertexDistanceIndex.clear();
-		predecessorIndex.clear();
+		if (epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			Arrays.fill(settledStamp, 0);
+			epoch = 0;
+		}
+		epoch++;
+		heapSize = 0;
 	}
 
 	/**
-	 * Getter for the distance in terms of the start vertex
-	 * 
-	 * @return
+	 * Check whether the vertex is in the distance index.
+	 *
+	 * @param vertex    Vertex
+	 *
+	 * @return  True iff a distance has been set
+	 */
+	private boolean isReached(int vertex) {
+		return stamp[vertex] == epoch;
+	}
+
+	/**
+	 * Retrieve the distance of a vertex in terms of the start vertex.
+	 *
+	 * @param vertex    Vertex
+	 *
+	 * @return  Distance (Graph.DISCONNECTED if not determined)
 	 */
-	public Map<Vertex, Long> getStartVertexDistanceIndex() {
-        return startVertexDistanceIndex;
+	public long getDistance(int vertex) {
+		return isReached(vertex) ? distance[vertex] : Graph.DISCONNECTED;
 	}
 
 	/**
-	 * Getter for the index of the predecessors of vertices
-	 * @return
+	 * Retrieve the predecessor of a vertex (in a flower: its successor towards the root).
+	 *
+	 * @param vertex    Vertex
+	 *
+	 * @return  Predecessor (-1 if none)
 	 */
-	public Map<Vertex, Vertex> getPredecessorIndex() {
-        return predecessorIndex;
+	public int getPredecessor(int vertex) {
+		return isReached(vertex) ? predecessor[vertex] : -1;
+	}
+
+	/**
+	 * Set the distance and predecessor of a vertex.
+	 *
+	 * @param vertex        Vertex
+	 * @param cost          Distance
+	 * @param predecessor   Predecessor
+	 */
+	void setDistance(int vertex, long cost, int predecessor) {
+		this.stamp[vertex] = epoch;
+		this.distance[vertex] = cost;
+		this.predecessor[vertex] = predecessor;
 	}
 
 	/**
@@ -97,8 +168,8 @@ public class DijkstraShortestPathAlg
 	 * 
 	 * @param root
 	 */
-	public void getShortestPathTree(Vertex root) {
-        determineShortestPaths(root, null, true);
+	public void getShortestPathTree(int root) {
+		determineShortestPaths(root, -1, true);
 	}
 	
 	/**
@@ -107,34 +178,32 @@ public class DijkstraShortestPathAlg
 	 * 
 	 * @param root
 	 */
-	public void getShortestPathFlower(Vertex root) {
-        determineShortestPaths(null, root, false);
+	public void getShortestPathFlower(int root) {
+		determineShortestPaths(-1, root, false);
 	}
 	
 	/**
 	 * Do the work
 	 */
-	protected void determineShortestPaths(Vertex sourceVertex,
-                                          Vertex sinkVertex, boolean isSource2sink)	{
+	protected void determineShortestPaths(int sourceVertex, int sinkVertex, boolean isSource2sink)	{
 		// 0. clean up variables
 		clear();
 		
 		// 1. initialize members
-		Vertex endVertex = isSource2sink ? sinkVertex : sourceVertex;
-		Vertex startVertex = isSource2sink ? sourceVertex : sinkVertex;
-		startVertexDistanceIndex.put(startVertex, 0l);
-		startVertex.setWeight(0l);
-		vertexCandidateQueue.add(startVertex);
+		int endVertex = isSource2sink ? sinkVertex : sourceVertex;
+		int startVertex = isSource2sink ? sourceVertex : sinkVertex;
+		setDistance(startVertex, 0, -1);
 
 		// 2. start searching for the shortest path
-		while (!vertexCandidateQueue.isEmpty()) {
-			Vertex curCandidate = vertexCandidateQueue.poll();
+		push(startVertex);
+		while (heapSize > 0) {
+			int curCandidate = pop();
 
-			if (curCandidate.equals(endVertex)) {
-                break;
-            }
+			if (curCandidate == endVertex) {
+				break;
+			}
 
-			determinedVertexSet.add(curCandidate);
+			settledStamp[curCandidate] = epoch;
 
 			updateVertex(curCandidate, isSource2sink);
 		}
@@ -144,63 +213,140 @@ public class DijkstraShortestPathAlg
 	 * Update the distance from the source to the concerned vertex.
 	 * @param vertex
 	 */
-	private void updateVertex(Vertex vertex, boolean isSource2sink)	{
-		// 1. get the neighboring vertices 
-        List<Vertex> neighborVertexList = isSource2sink ?
-			graph.getAdjacentVertices(vertex) : graph.getPrecedentVertices(vertex);
-			
-		// 2. update the distance passing on current vertex
-		for (Vertex curAdjacentVertex : neighborVertexList) {
+	private void updateVertex(int vertex, boolean isSource2sink)	{
+		if (graph.isVertexDeleted(vertex)) {
+			return;
+		}
+
+		// 1. go over the neighboring vertices
+		long distanceOfVertex = distance[vertex];
+		int start = isSource2sink ? graph.outStart(vertex) : graph.inStart(vertex);
+		int end = isSource2sink ? graph.outEnd(vertex) : graph.inEnd(vertex);
+		for (int k = start; k < end; k++) {
+			if (isSource2sink ? !graph.isOutEdgeUsable(k) : !graph.isInEdgeUsable(k)) {
+				continue;
+			}
+			int curAdjacentVertex = isSource2sink ? graph.outTarget(k) : graph.inSource(k);
 
 			// 2.1 skip if visited before
-			if (determinedVertexSet.contains(curAdjacentVertex)) {
-                continue;
-            }
-			
+			if (settledStamp[curAdjacentVertex] == epoch) {
+				continue;
+			}
+
 			// 2.2 calculate the new distance
-			long distance = startVertexDistanceIndex.containsKey(vertex)?
-					startVertexDistanceIndex.get(vertex) : Graph.DISCONNECTED;
-					
-			distance += isSource2sink ? graph.getEdgeWeight(vertex, curAdjacentVertex)
-					: graph.getEdgeWeight(curAdjacentVertex, vertex);
+			long cost = distanceOfVertex + graph.weight(isSource2sink ? k : graph.inEdge(k));
 
 			// 2.3 update the distance if necessary
-			if (!startVertexDistanceIndex.containsKey(curAdjacentVertex)
-			|| startVertexDistanceIndex.get(curAdjacentVertex) > distance) {
-				startVertexDistanceIndex.put(curAdjacentVertex, distance);
-
-				predecessorIndex.put(curAdjacentVertex, vertex);
-				
-				curAdjacentVertex.setWeight(distance);
-				vertexCandidateQueue.add(curAdjacentVertex);
+			if (!isReached(curAdjacentVertex)) {
+				setDistance(curAdjacentVertex, cost, vertex);
+				push(curAdjacentVertex);
+			} else if (distance[curAdjacentVertex] > cost) {
+				distance[curAdjacentVertex] = cost;
+				predecessor[curAdjacentVertex] = vertex;
+				siftUp(heapPosition[curAdjacentVertex], curAdjacentVertex);
 			}
 		}
 	}
-	
+
+	/**
+	 * Add a vertex to the heap.
+	 *
+	 * @param vertex    Vertex (not in the heap)
+	 */
+	private void push(int vertex) {
+		siftUp(heapSize++, vertex);
+	}
+
 	/**
+	 * Remove the vertex with the lowest distance from the heap.
+	 *
+	 * @return  Vertex
+	 */
+	private int pop() {
+		int result = heap[0];
+		int last = heap[--heapSize];
+		if (heapSize > 0) {
+			siftDown(0, last);
+		}
+		return result;
+	}
+
+	/**
+	 * Place a vertex at a heap position and move it up until its parent has a lower or equal distance.
+	 *
+	 * @param position  Heap position
+	 * @param vertex    Vertex
+	 */
+	private void siftUp(int position, int vertex) {
+		long key = distance[vertex];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			int e = heap[parent];
+			if (key >= distance[e]) {
+				break;
+			}
+			heap[position] = e;
+			heapPosition[e] = position;
+			position = parent;
+		}
+		heap[position] = vertex;
+		heapPosition[vertex] = position;
+	}
+
+	/**
+	 * Place a vertex at a heap position and move it down until its children have a higher or equal distance.
+	 *
+	 * @param position  Heap position
+	 * @param vertex    Vertex
+	 */
+	private void siftDown(int position, int vertex) {
+		long key = distance[vertex];
+		int half = heapSize >>> 1;
+		while (position < half) {
+			int child = (position << 1) + 1;
+			int c = heap[child];
+			int right = child + 1;
+			if (right < heapSize && distance[c] > distance[heap[right]]) {
+				c = heap[child = right];
+			}
+			if (key <= distance[c]) {
+				break;
+			}
+			heap[position] = c;
+			heapPosition[c] = position;
+			position = child;
+		}
+		heap[position] = vertex;
+		heapPosition[vertex] = position;
+	}
+
+	/**
+	 * Determine the shortest path from source to sink.
 	 * Note that, the source should not be as same as the sink! (we could extend 
 	 * this later on)
 	 *  
-	 * @param sourceVertex
-	 * @param sinkVertex
-	 * @return
+	 * @param sourceVertex  Source vertex
+	 * @param sinkVertex    Sink vertex
+	 *
+	 * @return  Vertices of the path (empty if disconnected), its weight is the distance of the sink
 	 */
-	public Path getShortestPath(Vertex sourceVertex, Vertex sinkVertex)	{
+	public int[] getShortestPath(int sourceVertex, int sinkVertex)	{
 		determineShortestPaths(sourceVertex, sinkVertex, true);
-		//
-		List<Vertex> vertexList = new Vector<Vertex>();
-		long weight = startVertexDistanceIndex.containsKey(sinkVertex) ?
-			startVertexDistanceIndex.get(sinkVertex) : Graph.DISCONNECTED;
-		if (weight != Graph.DISCONNECTED) {
-			Vertex curVertex = sinkVertex;
-			do {
-				vertexList.add(curVertex);
-				curVertex = predecessorIndex.get(curVertex);
-			} while (curVertex != null && curVertex != sourceVertex);
-			vertexList.add(sourceVertex);
-			Collections.reverse(vertexList);
+		if (getDistance(sinkVertex) == Graph.DISCONNECTED) {
+			return new int[0];
 		}
-		return new Path(vertexList, weight);
+		int length = 0;
+		int curVertex = sinkVertex;
+		do {
+			work[length++] = curVertex;
+			curVertex = getPredecessor(curVertex);
+		} while (curVertex != -1 && curVertex != sourceVertex);
+		work[length++] = sourceVertex;
+		int[] path = new int[length];
+		for (int i = 0; i < length; i++) {
+			path[i] = work[length - 1 - i];
+		}
+		return path;
 	}
 
 	/**
@@ -208,83 +354,93 @@ public class DijkstraShortestPathAlg
 	 * vertex using forward star form. 
 	 * (FLOWER)
 	 * 
-	 * @param vertex
+	 * @param vertex    Vertex
+	 *
+	 * @return  Vertices of the path from the vertex to the root if its distance improved
+	 *          (its weight is the distance of the vertex), else null
 	 */
-	public Path updateCostForward(Vertex vertex) {
+	public int[] updateCostForward(int vertex) {
 		long cost = Graph.DISCONNECTED;
 
-		// 1. get the set of successors of the input vertex
-        List<Vertex> adjVertexSet = graph.getAdjacentVertices(vertex);
-		
-		// 2. make sure the input vertex exists in the index
-		if (!startVertexDistanceIndex.containsKey(vertex)) {
-			startVertexDistanceIndex.put(vertex, Graph.DISCONNECTED);
+		// 1. make sure the input vertex exists in the index
+		if (!isReached(vertex)) {
+			setDistance(vertex, Graph.DISCONNECTED, -1);
 		}
 		
-		// 3. update the distance from the root to the input vertex if necessary
-		for (Vertex curVertex : adjVertexSet) {
-			// 3.1 get the distance from the root to one successor of the input vertex
-			long distance = startVertexDistanceIndex.containsKey(curVertex)?
-					startVertexDistanceIndex.get(curVertex) : Graph.DISCONNECTED;
-					
-			// 3.2 calculate the distance from the root to the input vertex
-			distance += graph.getEdgeWeight(vertex, curVertex);
-			//distance += ((VariableGraph)graph).get_edge_weight_of_graph(vertex, curVertex);
-			
-			// 3.3 update the distance if necessary 
-			long costOfVertex = startVertexDistanceIndex.get(vertex);
-
-			if(costOfVertex > distance)	{
-				startVertexDistanceIndex.put(vertex, distance);
-				predecessorIndex.put(vertex, curVertex);
-				cost = distance;
+		// 2. update the distance from the root to the input vertex if necessary
+		if (!graph.isVertexDeleted(vertex)) {
+			for (int e = graph.outStart(vertex); e < graph.outEnd(vertex); e++) {
+				if (!graph.isOutEdgeUsable(e)) {
+					continue;
+				}
+				int curVertex = graph.outTarget(e);
+
+				// 2.1 calculate the distance from the root to the input vertex via the successor
+				long fresh = getDistance(curVertex) + graph.weight(e);
+
+				// 2.2 update the distance if necessary
+				if (distance[vertex] > fresh) {
+					distance[vertex] = fresh;
+					predecessor[vertex] = curVertex;
+					cost = fresh;
+				}
 			}
 		}
 		
-		// 4. create the subPath if exists
-		Path subPath = null;
-
-		if (cost < Graph.DISCONNECTED) {
-			subPath = new Path(cost);
-			List<Vertex> vertexList = subPath.getVertexList();
-			vertexList.add(vertex);
-			
-			Vertex selVertex = predecessorIndex.get(vertex);
-			while (selVertex != null) {
-				vertexList.add(selVertex);
-				selVertex = predecessorIndex.get(selVertex);
+		// 3. create the subPath if exists
+		if (cost >= Graph.DISCONNECTED) {
+			return null;
+		}
+		int length = 0;
+		int selVertex = vertex;
+		while (selVertex != -1) {
+			if (length == work.length) {
+				work = Arrays.copyOf(work, length * 2);
 			}
+			work[length++] = selVertex;
+			selVertex = getPredecessor(selVertex);
 		}
-		
-		return subPath;
+		return Arrays.copyOf(work, length);
 	}
 	
 	/**
 	 * Correct costs of successors of the input vertex using backward star form.
 	 * (FLOWER)
 	 * 
-	 * @param vertex
+	 * @param vertex    Vertex
 	 */
-	public void correctCostBackward(Vertex vertex) {
+	public void correctCostBackward(int vertex) {
 		// 1. initialize the list of vertex to be updated
-		List<Vertex> vertexList = new LinkedList<Vertex>();
-		vertexList.add(vertex);
+		int head = 0;
+		int tail = 0;
+		work[tail++] = vertex;
 		
 		// 2. update the cost of relevant precedents of the input vertex
-		while (!vertexList.isEmpty()) {
-			Vertex curVertex = vertexList.remove(0);
-			long costOfCurVertex = startVertexDistanceIndex.get(curVertex);
-
-            List<Vertex> preVertexSet = graph.getPrecedentVertices(curVertex);
-			for (Vertex preVertex : preVertexSet) {
-				long costOfPreVertex = startVertexDistanceIndex.containsKey(preVertex) ?
-						startVertexDistanceIndex.get(preVertex) : Graph.DISCONNECTED;
-						
-				long freshCost = costOfCurVertex + graph.getEdgeWeight(preVertex, curVertex);
-				if (costOfPreVertex > freshCost) {
-					startVertexDistanceIndex.put(preVertex, freshCost);
-					predecessorIndex.put(preVertex, curVertex);
-					vertexList.add(preVertex);
+		while (head < tail) {
+			int curVertex = work[head++];
+			long costOfCurVertex = distance[curVertex];
+			if (graph.isVertexDeleted(curVertex)) {
+				continue;
+			}
+
+			for (int k = graph.inStart(curVertex); k < graph.inEnd(curVertex); k++) {
+				if (!graph.isInEdgeUsable(k)) {
+					continue;
+				}
+				int preVertex = graph.inSource(k);
+				long freshCost = costOfCurVertex + graph.weight(graph.inEdge(k));
+				if (getDistance(preVertex) > freshCost) {
+					setDistance(preVertex, freshCost, curVertex);
+					if (tail == work.length) {
+						if (head > 0) {
+							System.arraycopy(work, head, work, 0, tail - head);
+							tail -= head;
+							head = 0;
+						} else {
+							work = Arrays.copyOf(work, tail * 2);
+						}
+					}
+					work[tail++] = preVertex;
 				}
 			}
 		}
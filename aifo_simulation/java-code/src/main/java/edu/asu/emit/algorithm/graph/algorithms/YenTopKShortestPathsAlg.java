@@ -31,20 +31,26 @@
 
 package edu.asu.emit.algorithm.graph.algorithms;
 
+import edu.asu.emit.algorithm.graph.BaseElementWithWeight;
+import edu.asu.emit.algorithm.graph.BaseGraph;
+import edu.asu.emit.algorithm.graph.CsrGraph;
 import edu.asu.emit.algorithm.graph.Graph;
 import edu.asu.emit.algorithm.graph.Path;
-import edu.asu.emit.algorithm.graph.VariableGraph;
-import edu.asu.emit.algorithm.graph.BaseGraph;
 import edu.asu.emit.algorithm.graph.Vertex;
 import edu.asu.emit.algorithm.utils.QYPriorityQueue;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
 /**
+ * Yen's K-shortest paths algorithm. Paths are found on the {@link CsrGraph} of the graph,
+ * using a deletion overlay of its own to remove vertices and edges, such that multiple
+ * instances can operate on the same graph concurrently.
+ *
  * @author <a href='mailto:Yan.Qi@asu.edu'>Yan Qi</a>
  * @version $Revision: 783 $
  * @latest $Id: YenTopKShortestPathsAlg.java 783 2009-06-19 19:19:27Z qyan $
@@ -52,19 +58,77 @@ import java.util.Vector;
  */
 public class YenTopKShortestPathsAlg
 {
-	private VariableGraph graph = null;
+	private final Graph graph;
+	private final CsrGraph csr;
+
+	// shortest path search (workspace reused by all searches)
+	private final DijkstraShortestPathAlg dijkstraAlg;
 
 	// intermediate variables
-	private List<Path> resultList = new Vector<Path>();
-	private Map<Path, Vertex> pathDerivationVertexIndex = new HashMap<Path, Vertex>();
-	private QYPriorityQueue<Path> pathCandidates = new QYPriorityQueue<Path>();
+	private List<Candidate> resultList = new ArrayList<Candidate>();
+	private Map<Candidate, Integer> pathDerivationVertexIndex = new HashMap<Candidate, Integer>();
+	private QYPriorityQueue<Candidate> pathCandidates = new QYPriorityQueue<Candidate>();
 	
-	// the ending vertices of the paths
-	private Vertex sourceVertex = null;
-	private Vertex targetVertex = null;
+	// the ending vertices of the paths (-1 if not set)
+	private int sourceVertex = -1;
+	private int targetVertex = -1;
 	
 	// variables for debugging and testing
 	private int generatedPathNum = 0;
+
+	/**
+	 * Candidate path: its vertices (source to target) and total weight.
+	 */
+	private static class Candidate implements BaseElementWithWeight {
+
+		private final int[] vertices;
+		private final long weight;
+
+		Candidate(int[] vertices, long weight) {
+			this.vertices = vertices;
+			this.weight = weight;
+		}
+
+		@Override
+		public long getWeight() {
+			return weight;
+		}
+
+		int indexOf(int vertex) {
+			for (int i = 0; i < vertices.length; i++) {
+				if (vertices[i] == vertex) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Hash of the prefix of the path (as {@link List#hashCode()} of its vertices).
+		 *
+		 * @param length	Prefix length
+		 *
+		 * @return	Prefix hash
+		 */
+		int prefixHash(int length) {
+			int hash = 1;
+			for (int i = 0; i < length; i++) {
+				hash = 31 * hash + vertices[i];
+			}
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object right) {
+			return right instanceof Candidate && Arrays.equals(vertices, ((Candidate) right).vertices);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(vertices);
+		}
+
+	}
 	
 	/**
 	 * Default constructor.
@@ -87,9 +151,11 @@ public class YenTopKShortestPathsAlg
 		if (graph == null) {
 			throw new IllegalArgumentException("A NULL graph object occurs!");
 		}
-		this.graph = new VariableGraph((Graph)graph);
-		this.sourceVertex = sourceVertex;
-		this.targetVertex = targetVertex;
+		this.graph = (Graph) graph;
+		this.csr = this.graph.getCsrGraph().withOwnOverlay();
+		this.dijkstraAlg = new DijkstraShortestPathAlg(csr);
+		this.sourceVertex = sourceVertex == null ? -1 : sourceVertex.getId();
+		this.targetVertex = targetVertex == null ? -1 : targetVertex.getId();
 		init();
 	}
 	
@@ -99,20 +165,34 @@ public class YenTopKShortestPathsAlg
 	private void init()	{
 		clear();
 		// get the shortest path by default if both source and target exist
-		if (sourceVertex != null && targetVertex != null) {
-			Path shortestPath = getShortestPath(sourceVertex, targetVertex);
-			if (!shortestPath.getVertexList().isEmpty()) {
-				pathCandidates.add(shortestPath);
-				pathDerivationVertexIndex.put(shortestPath, sourceVertex);
+		if (sourceVertex != -1 && targetVertex != -1) {
+			int[] shortestPath = dijkstraAlg.getShortestPath(sourceVertex, targetVertex);
+			if (shortestPath.length != 0) {
+				Candidate candidate = new Candidate(shortestPath, dijkstraAlg.getDistance(targetVertex));
+				pathCandidates.add(candidate);
+				pathDerivationVertexIndex.put(candidate, sourceVertex);
 			}
 		}
 	}
 	
+	/**
+	 * Restart the algorithm for another source and target, such that the
+	 * workspace is reused across many pairs.
+	 *
+	 * @param sourceVertex	Source vertex identifier
+	 * @param targetVertex	Target vertex identifier
+	 */
+	public void setEndpoints(int sourceVertex, int targetVertex) {
+		this.sourceVertex = sourceVertex;
+		this.targetVertex = targetVertex;
+		init();
+	}
+	
 	/**
 	 * Clear the variables of the class. 
 	 */
 	public void clear()	{
-		pathCandidates = new QYPriorityQueue<Path>();
+		pathCandidates = new QYPriorityQueue<Candidate>();
 		pathDerivationVertexIndex.clear();
 		resultList.clear();
 		generatedPathNum = 0;
@@ -127,8 +207,8 @@ public class YenTopKShortestPathsAlg
 	 * @return
 	 */
 	public Path getShortestPath(Vertex sourceVertex, Vertex targetVertex)	{
-		DijkstraShortestPathAlg dijkstraAlg = new DijkstraShortestPathAlg(graph);
-		return dijkstraAlg.getShortestPath(sourceVertex, targetVertex);
+		int[] shortestPath = dijkstraAlg.getShortestPath(sourceVertex.getId(), targetVertex.getId());
+		return toPath(shortestPath, dijkstraAlg.getDistance(targetVertex.getId()));
 	}
 	
 	/**
@@ -146,22 +226,35 @@ public class YenTopKShortestPathsAlg
 	 * @return
 	 */
 	public Path next() {
+		Candidate curPath = nextCandidate();
+		return toPath(curPath.vertices, curPath.weight);
+	}
+
+	/**
+	 * Get the shortest path among all that connecting source with target,
+	 * as its vertex identifiers (source to target).
+	 *
+	 * @return	Vertex identifiers of the path
+	 */
+	public int[] nextPath() {
+		return nextCandidate().vertices.clone();
+	}
+
+	private Candidate nextCandidate() {
 		//3.1 prepare for removing vertices and arcs
-		Path curPath = pathCandidates.poll();
+		Candidate curPath = pathCandidates.poll();
 		resultList.add(curPath);
 
-		Vertex curDerivation = pathDerivationVertexIndex.get(curPath);
-		int curPathHash =
-			curPath.getVertexList().subList(0, curPath.getVertexList().indexOf(curDerivation)).hashCode();
+		int curDerivation = pathDerivationVertexIndex.get(curPath);
+		int curPathHash = curPath.prefixHash(curPath.indexOf(curDerivation));
 		
 		int count = resultList.size();
 		
 		//3.2 remove the vertices and arcs in the graph
 		for (int i = 0; i < count-1; ++i) {
-			Path curResultPath = resultList.get(i);
+			Candidate curResultPath = resultList.get(i);
 							
-			int curDevVertexId =
-				curResultPath.getVertexList().indexOf(curDerivation);
+			int curDevVertexId = curResultPath.indexOf(curDerivation);
 			
 			if (curDevVertexId < 0) {
                 continue;
@@ -169,101 +262,107 @@ public class YenTopKShortestPathsAlg
 
 			// Note that the following condition makes sure all candidates should be considered. 
 			/// The algorithm in the paper is not correct for removing some candidates by mistake. 
-			int pathHash = curResultPath.getVertexList().subList(0, curDevVertexId).hashCode();
+			int pathHash = curResultPath.prefixHash(curDevVertexId);
 			if (pathHash != curPathHash) {
                 continue;
             }
 			
-			Vertex curSuccVertex =
-				curResultPath.getVertexList().get(curDevVertexId + 1);
+			int curSuccVertex = curResultPath.vertices[curDevVertexId + 1];
 			
-			graph.deleteEdge(new ImmutablePair<Integer, Integer>(
-                    curDerivation.getId(), curSuccVertex.getId()));
+			csr.deleteEdge(curDerivation, curSuccVertex);
 		}
 		
-		int pathLength = curPath.getVertexList().size();
-		List<Vertex> curPathVertexList = curPath.getVertexList();
+		int[] curPathVertexList = curPath.vertices;
+		int pathLength = curPathVertexList.length;
 		for (int i = 0; i < pathLength-1; ++i) {
-			graph.deleteVertex(curPathVertexList.get(i).getId());
-			graph.deleteEdge(new ImmutablePair<Integer, Integer>(
-                    curPathVertexList.get(i).getId(),
-                    curPathVertexList.get(i + 1).getId()));
+			csr.deleteVertex(curPathVertexList[i]);
+			csr.deleteEdge(curPathVertexList[i], curPathVertexList[i + 1]);
 		}
 		
 		//3.3 calculate the shortest tree rooted at target vertex in the graph
-		DijkstraShortestPathAlg reverseTree = new DijkstraShortestPathAlg(graph);
+		DijkstraShortestPathAlg reverseTree = dijkstraAlg;
 		reverseTree.getShortestPathFlower(targetVertex);
 		
 		//3.4 recover the deleted vertices and update the cost and identify the new candidate results
 		boolean isDone = false;
 		for (int i=pathLength-2; i>=0 && !isDone; --i)	{
 			//3.4.1 get the vertex to be recovered
-			Vertex curRecoverVertex = curPathVertexList.get(i);
-			graph.recoverDeletedVertex(curRecoverVertex.getId());
+			int curRecoverVertex = curPathVertexList[i];
+			csr.recoverDeletedVertex(curRecoverVertex);
 			
 			//3.4.2 check if we should stop continuing in the next iteration
-			if (curRecoverVertex.getId() == curDerivation.getId()) {
+			if (curRecoverVertex == curDerivation) {
 				isDone = true;
 			}
 			
 			//3.4.3 calculate cost using forward star form
-			Path subPath = reverseTree.updateCostForward(curRecoverVertex);
+			int[] subPath = reverseTree.updateCostForward(curRecoverVertex);
 			
 			//3.4.4 get one candidate result if possible
 			if (subPath != null) {
 				++generatedPathNum;
+				long subPathCost = reverseTree.getDistance(curRecoverVertex);
 				
 				//3.4.4.1 get the prefix from the concerned path
 				long cost = 0;
-				List<Vertex> prePathList = new Vector<Vertex>();
 				reverseTree.correctCostBackward(curRecoverVertex);
 				
-				for (int j=0; j<pathLength; ++j) {
-					Vertex curVertex = curPathVertexList.get(j);
-					if (curVertex.getId() == curRecoverVertex.getId()) {
-						j=pathLength;
-					} else {
-						cost += graph.getEdgeWeightOfGraph(curPathVertexList.get(j),
-								curPathVertexList.get(j+1));
-						prePathList.add(curVertex);
-					}
+				int prefixLength = 0;
+				while (curPathVertexList[prefixLength] != curRecoverVertex) {
+					cost += csr.getEdgeWeightOfGraph(curPathVertexList[prefixLength],
+							curPathVertexList[prefixLength + 1]);
+					prefixLength++;
 				}
-				prePathList.addAll(subPath.getVertexList());
+				int[] vertices = new int[prefixLength + subPath.length];
+				System.arraycopy(curPathVertexList, 0, vertices, 0, prefixLength);
+				System.arraycopy(subPath, 0, vertices, prefixLength, subPath.length);
 
 				//3.4.4.2 compose a candidate
-				subPath.setWeight(cost + subPath.getWeight());
-				subPath.getVertexList().clear();
-				subPath.getVertexList().addAll(prePathList);
+				Candidate candidate = new Candidate(vertices, cost + subPathCost);
 				
 				//3.4.4.3 put it in the candidate pool if new
-				if (!pathDerivationVertexIndex.containsKey(subPath)) {
-					pathCandidates.add(subPath);
-					pathDerivationVertexIndex.put(subPath, curRecoverVertex);
+				if (!pathDerivationVertexIndex.containsKey(candidate)) {
+					pathCandidates.add(candidate);
+					pathDerivationVertexIndex.put(candidate, curRecoverVertex);
 				}
 			}
 			
 			//3.4.5 restore the edge
-			Vertex succVertex = curPathVertexList.get(i + 1);
-			graph.recoverDeletedEdge(new ImmutablePair<Integer, Integer>(
-                    curRecoverVertex.getId(), succVertex.getId()));
+			int succVertex = curPathVertexList[i + 1];
+			csr.recoverDeletedEdge(curRecoverVertex, succVertex);
 			
 			//3.4.6 update cost if necessary
-            long cost1 = graph.getEdgeWeight(curRecoverVertex, succVertex)
-				+ reverseTree.getStartVertexDistanceIndex().get(succVertex);
+            long cost1 = csr.getEdgeWeight(curRecoverVertex, succVertex)
+				+ reverseTree.getDistance(succVertex);
 			
-			if (reverseTree.getStartVertexDistanceIndex().get(curRecoverVertex) >  cost1) {
-				reverseTree.getStartVertexDistanceIndex().put(curRecoverVertex, cost1);
-				reverseTree.getPredecessorIndex().put(curRecoverVertex, succVertex);
+			if (reverseTree.getDistance(curRecoverVertex) > cost1) {
+				reverseTree.setDistance(curRecoverVertex, cost1, succVertex);
 				reverseTree.correctCostBackward(curRecoverVertex);
 			}
 		}
 		
 		//3.5 restore everything
-		graph.recoverDeletedEdges();
-		graph.recoverDeletedVertices();
+		csr.recoverDeletedEdges();
+		csr.recoverDeletedVertices();
 		
 		return curPath;
 	}
+
+	/**
+	 * Convert vertex identifiers into a path of the graph.
+	 *
+	 * @param vertices	Vertex identifiers
+	 * @param weight	Path weight
+	 *
+	 * @return	Path instance
+	 */
+	private Path toPath(int[] vertices, long weight) {
+		List<Vertex> vertexList = new Vector<Vertex>();
+		for (int vertex : vertices) {
+			vertexList.add(graph.getVertex(vertex));
+		}
+		return new Path(vertexList, vertices.length == 0 ? Graph.DISCONNECTED : weight);
+	}
 	
 	/**
 	 * Get the top-K shortest paths connecting the source and the target.  
@@ -276,8 +375,8 @@ public class YenTopKShortestPathsAlg
 	 */
 	public List<Path> getShortestPaths(Vertex source,
                                        Vertex target, int k) {
-		sourceVertex = source;
-		targetVertex = target;
+		sourceVertex = source.getId();
+		targetVertex = target.getId();
 		
 		init();
 		int count = 0;
@@ -286,7 +385,7 @@ public class YenTopKShortestPathsAlg
 			++count;
 		}
 		
-		return resultList;
+		return getResultList();
 	}
 		
 	/**
@@ -295,7 +394,11 @@ public class YenTopKShortestPathsAlg
 	 * @return
 	 */
 	public List<Path> getResultList() {
-        return resultList;
+		List<Path> paths = new Vector<Path>();
+		for (Candidate candidate : resultList) {
+			paths.add(toPath(candidate.vertices, candidate.weight));
+		}
+        return paths;
 	}
 
 	/**
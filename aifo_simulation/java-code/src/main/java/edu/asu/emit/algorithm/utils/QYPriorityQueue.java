@@ -30,7 +30,7 @@
  */
 package edu.asu.emit.algorithm.utils;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.asu.emit.algorithm.graph.BaseElementWithWeight;
@@ -42,7 +42,7 @@ import edu.asu.emit.algorithm.graph.BaseElementWithWeight;
  * @param <E> the type of the element in the queue
  */
 public class QYPriorityQueue<E extends BaseElementWithWeight> {
-	private List<E> elementWeightPairList = new LinkedList<E>();
+	private List<E> elementWeightPairList = new ArrayList<E>();
 	private int limitSize = -1;
 	private boolean isIncremental = false; 
 	
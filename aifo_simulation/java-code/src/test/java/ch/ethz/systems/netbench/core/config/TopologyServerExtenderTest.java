@@ -76,6 +76,51 @@ public class TopologyServerExtenderTest {
 
     }
 
+    @Test
+    public void testInMemoryExtensionEqualsFile() throws IOException {
+
+        // Graph: ring of four ToRs
+        File inFile = constructGraph(
+                4, 8,
+                "incl_range(0,3)", "set()", "incl_range(0,3)",
+                "0 1\n1 0\n1 2\n2 1\n2 3\n3 2\n3 0\n0 3"
+        );
+        Pair<Graph, GraphDetails> original = GraphReader.read(inFile.getAbsolutePath());
+
+        // Extend in memory, while writing the file in the background
+        File tempOut = File.createTempFile("topology", ".tmp");
+        TopologyServerExtender extender = new TopologyServerExtender(inFile.getAbsolutePath(), tempOut.getAbsolutePath());
+        extender.startWriting(original.getLeft(), original.getRight(), 3);
+        Pair<Graph, GraphDetails> inMemory = extender.extendRegular(original.getLeft(), original.getRight(), 3);
+        extender.awaitWritten();
+        Pair<Graph, GraphDetails> fromFile = GraphReader.read(tempOut.getAbsolutePath());
+        assertTrue(inFile.delete());
+        assertTrue(tempOut.delete());
+
+        // Same details
+        GraphDetails a = inMemory.getRight();
+        GraphDetails b = fromFile.getRight();
+        assertEquals(b.getNumNodes(), a.getNumNodes());
+        assertEquals(b.getNumEdges(), a.getNumEdges());
+        assertEquals(b.isAutoExtended(), a.isAutoExtended());
+        assertEquals(b.getServerNodeIds(), a.getServerNodeIds());
+        assertEquals(b.getSwitchNodeIds(), a.getSwitchNodeIds());
+        assertEquals(b.getTorNodeIds(), a.getTorNodeIds());
+        for (int i = 4; i < 16; i++) {
+            assertEquals(b.getTorIdOfServer(i), a.getTorIdOfServer(i));
+        }
+        assertEquals(40, a.getIdHash().length());
+
+        // Same edges in the same order
+        for (int v = 0; v < 16; v++) {
+            assertEquals(
+                    fromFile.getLeft().getAdjacentVertices(fromFile.getLeft().getVertex(v)).toString(),
+                    inMemory.getLeft().getAdjacentVertices(inMemory.getLeft().getVertex(v)).toString()
+            );
+        }
+
+    }
+
     public File constructGraph(
             int numNodes,
             int numEdges,
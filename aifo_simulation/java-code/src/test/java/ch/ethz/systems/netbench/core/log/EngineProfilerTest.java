@@ -0,0 +1,74 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EngineProfilerTest {
+
+    /**
+     * Event which takes a measurable amount of wall-clock time to trigger.
+     */
+    private static class BusyEvent extends Event {
+
+        BusyEvent() {
+            super(0);
+        }
+
+        @Override
+        public void trigger() {
+            long start = System.nanoTime();
+            while (System.nanoTime() == start) {
+                // Wait until the clock advances
+            }
+        }
+
+    }
+
+    private static class RareEvent extends BusyEvent {
+    }
+
+    private static class FrequentEvent extends BusyEvent {
+    }
+
+    @Before
+    public void setup() {
+        Simulator.setup(0);
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+    }
+
+    @Test
+    public void testRareAndFrequentClassesMeasured() {
+        EngineProfiler profiler = new EngineProfiler();
+        profiler.start();
+
+        // The rare event occurs every 64th event, in a fixed cycle with the frequent event
+        Event rare = new RareEvent();
+        Event frequent = new FrequentEvent();
+        for (int i = 0; i < 64 * 40; i++) {
+            profiler.trigger(i % 64 == 1 ? rare : frequent);
+        }
+        profiler.finish(0);
+
+        // Both are measured: the first 16 of each class, and then every 64th of the class
+        assertEquals(16, profiler.getSampledCount(RareEvent.class));
+        assertTrue(profiler.getSampledNs(RareEvent.class) > 0);
+        assertEquals(16 + (64 * 40 - 40) / 64, profiler.getSampledCount(FrequentEvent.class));
+        assertTrue(profiler.getSampledNs(FrequentEvent.class) > 0);
+        assertEquals(0, profiler.getSampledCount(BusyEvent.class));
+
+    }
+
+}
@@ -0,0 +1,42 @@
+package ch.ethz.systems.netbench.core.log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LogSinkTest {
+
+    @Test
+    public void testWritesAfterCloseIgnored() throws IOException {
+        File folder = Files.createTempDirectory("log-sink").toFile();
+        LogSink sink = new LogSink(folder.getAbsolutePath(), "test.log", true, false);
+        assertTrue(sink.isEnabled());
+        sink.write("a\n");
+        sink.close();
+
+        // Does not reopen (and thereby truncate) the finished log
+        assertFalse(sink.isEnabled());
+        sink.write("b\n");
+        File log = new File(folder, "test.log");
+        assertEquals("a\n", new String(Files.readAllBytes(log.toPath()), "US-ASCII"));
+        assertTrue(log.delete());
+        assertTrue(folder.delete());
+    }
+
+    @Test
+    public void testDisabledWithoutOpenLogger() {
+        assertFalse(SimulationLogger.hasFlowThroughputEnabled());
+        assertFalse(SimulationLogger.hasPortQueueStateEnabled());
+        assertFalse(SimulationLogger.hasRankMappingEnabled());
+    }
+
+}
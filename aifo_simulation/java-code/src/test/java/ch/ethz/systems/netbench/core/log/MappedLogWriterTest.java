@@ -0,0 +1,80 @@
+package ch.ethz.systems.netbench.core.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MappedLogWriterTest {
+
+    private File tempLogFile;
+
+    @Before
+    public void setup() throws IOException {
+        tempLogFile = File.createTempFile("temp-mapped-log", ".tmp");
+    }
+
+    @After
+    public void cleanup() {
+        assert(tempLogFile.delete());
+    }
+
+    private String readLog() throws IOException {
+        return new String(Files.readAllBytes(tempLogFile.toPath()), "US-ASCII");
+    }
+
+    @Test
+    public void testWriteAcrossSegments() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(tempLogFile.getAbsolutePath(), 7);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            writer.write("line," + i + "\n");
+            expected.append("line,").append(i).append("\n");
+        }
+        assertEquals(expected.length(), writer.getSizeBytes());
+        writer.close();
+        assertEquals(expected.length(), tempLogFile.length());
+        assertEquals(expected.toString(), readLog());
+    }
+
+    @Test
+    public void testWriteDecimalAndRecord() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(tempLogFile.getAbsolutePath(), 4);
+        writer.writeDecimal(0);
+        writer.write(',');
+        writer.writeDecimal(-1234567890123L);
+        writer.write(',');
+        writer.writeDecimal(Long.MAX_VALUE);
+        byte[] record = "#abc#".getBytes("US-ASCII");
+        writer.write(record, 1, 3);
+        writer.close();
+        assertEquals("0,-1234567890123," + Long.MAX_VALUE + "abc", readLog());
+    }
+
+    @Test
+    public void testNonAscii() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(tempLogFile.getAbsolutePath(), 3);
+        writer.write("flow,\u00e9t\u00e9,");
+        writer.write(new char[]{'x', '\u20ac', 'y'}, 1, 2);
+        writer.write('\u00fc');
+        writer.close();
+        assertEquals("flow,\u00e9t\u00e9,\u20acy\u00fc", new String(Files.readAllBytes(tempLogFile.toPath()), "UTF-8"));
+    }
+
+    @Test
+    public void testEmptyAndDoubleClose() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(tempLogFile.getAbsolutePath());
+        writer.close();
+        writer.close();
+        assertEquals(0, tempLogFile.length());
+    }
+
+}
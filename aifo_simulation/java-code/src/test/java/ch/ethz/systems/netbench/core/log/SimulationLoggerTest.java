@@ -0,0 +1,76 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SimulationLoggerTest {
+
+    private File baseDir;
+
+    @Before
+    public void setup() throws IOException {
+        baseDir = Files.createTempDirectory("simulation-logger").toFile();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        FileUtils.deleteDirectory(baseDir);
+    }
+
+    private NBProperties createConfiguration(String runFolderName) {
+        NBProperties configuration = new NBProperties(BaseAllowedProperties.LOG, BaseAllowedProperties.PROPERTIES_RUN);
+        configuration.overrideProperty("run_folder_base_dir", baseDir.getAbsolutePath());
+        configuration.overrideProperty("run_folder_name", runFolderName);
+        return configuration;
+    }
+
+    @Test
+    public void testFlowStartPhasesOfRun() {
+
+        // Phases registered during the run are summarized
+        SimulationLogger.open(createConfiguration("a"));
+        SimulationLogger.registerFlowStartPhases(new long[]{0}, new String[]{"all"});
+        SimulationLogger.close();
+        assertTrue(new File(baseDir, "a/flow_completion_phases.csv.log").exists());
+
+        // Phases left over from before the run (e.g. an aborted one) are not
+        SimulationLogger.registerFlowStartPhases(new long[]{0}, new String[]{"all"});
+        SimulationLogger.open(createConfiguration("b"));
+        SimulationLogger.close();
+        assertFalse(new File(baseDir, "b/flow_completion_phases.csv.log").exists());
+
+    }
+
+    @Test
+    public void testSettingsNotCarriedOver() {
+
+        NBProperties configuration = createConfiguration("a");
+        configuration.overrideProperty("log_memory_mapped_files", "flow_throughput.csv.log");
+        SimulationLogger.open(configuration);
+        assertTrue(SimulationLogger.getLogSink("flow_throughput.csv.log", true).isMemoryMapped());
+        SimulationLogger.close();
+
+        // Opening without run configuration falls back to the defaults
+        SimulationLogger.open();
+        assertFalse(SimulationLogger.getLogSink("flow_throughput.csv.log", true).isMemoryMapped());
+        assertNull(SimulationLogger.getStatisticCounter("TEST_COUNTER", "port 0->1").getScope());
+        SimulationLogger.closeAndThrowaway();
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package ch.ethz.systems.netbench.core.log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StatisticCounterTest {
+
+    @Test
+    public void testSameHandle() {
+        StatisticCounter counter = SimulationLogger.getStatisticCounter("TEST_STATISTIC_SAME_HANDLE");
+        assertSame(counter, SimulationLogger.getStatisticCounter("TEST_STATISTIC_SAME_HANDLE"));
+    }
+
+    @Test
+    public void testIncrease() {
+        StatisticCounter counter = SimulationLogger.getStatisticCounter("TEST_STATISTIC_INCREASE");
+        long start = counter.getValue();
+        counter.increase();
+        counter.increase();
+        SimulationLogger.increaseStatisticCounter("TEST_STATISTIC_INCREASE");
+        assertEquals(start + 3, counter.getValue());
+    }
+
+    @Test
+    public void testScopedIncreasesAggregate() {
+        StatisticCounter aggregate = SimulationLogger.getStatisticCounter("TEST_STATISTIC_SCOPED");
+        StatisticCounter scoped = new StatisticCounter("TEST_STATISTIC_SCOPED", "port 1->2", aggregate);
+        long start = aggregate.getValue();
+        scoped.increase();
+        assertEquals(1, scoped.getValue());
+        assertEquals(start + 1, aggregate.getValue());
+        scoped.reset();
+        assertEquals(0, scoped.getValue());
+    }
+
+}
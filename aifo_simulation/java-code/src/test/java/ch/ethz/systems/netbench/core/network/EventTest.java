@@ -60,4 +60,35 @@ public class EventTest {
 
     }
 
+    @Test
+    public void testRearmOrder() {
+
+        // Pacing event which is triggered and re-armed, and events created in between
+        UDPSendPacketEvent pacing = new UDPSendPacketEvent(1000, null);
+        Event before = new FlowStartEvent(1000, null, 0, 0);
+        assertEquals(-1, pacing.compareTo(before));
+        pacing.reschedule(1000);
+        Event after = new FlowStartEvent(1000, null, 0, 0);
+        Event earlier = new FlowStartEvent(999, null, 0, 0);
+
+        // Re-armed event is ordered as if it was created at re-arming: by time, then creation
+        assertEquals(1000, pacing.getTime());
+        assertEquals(1, pacing.compareTo(before));
+        assertEquals(-1, pacing.compareTo(after));
+        assertEquals(1, pacing.compareTo(earlier));
+        assertEquals(0, pacing.compareTo(pacing));
+
+        // Also in the queue
+        PriorityQueue<Event> queue = new PriorityQueue<>();
+        queue.add(after);
+        queue.add(pacing);
+        queue.add(before);
+        queue.add(earlier);
+        assertEquals(earlier, queue.poll());
+        assertEquals(before, queue.poll());
+        assertEquals(pacing, queue.poll());
+        assertEquals(after, queue.poll());
+
+    }
+
 }
@@ -0,0 +1,106 @@
+package ch.ethz.systems.netbench.core.run.routing;
+
+import ch.ethz.systems.netbench.core.config.GraphDetails;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RoutingStateCacheTest {
+
+    private static final String HASH = "f09faa5de4a14406a001dc1895604714ca81d14b";
+
+    @Mock
+    private GraphDetails details;
+
+    @Before
+    public void setup() {
+        when(details.getIdHash()).thenReturn(HASH);
+    }
+
+    @After
+    public void cleanup() {
+        new File(new RoutingStateCache(details, "test_a", true).getFileName()).delete();
+    }
+
+    @Test
+    public void testRecordReplay() {
+
+        // Not present yet
+        RoutingStateCache cache = new RoutingStateCache(details, "test_a", true);
+        final List<Integer> set = new ArrayList<>();
+        assertFalse(cache.read((i, j, v) -> set.add(i)));
+
+        // Record passes on the entries
+        RoutingStateCache.EntryConsumer recorder = cache.record((i, j, v) -> set.addAll(Arrays.asList(i, j, v)));
+        recorder.accept(0, 1, 2);
+        recorder.accept(3, 4, 5);
+        recorder.accept(3, 4, 6);
+        cache.commit();
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 3, 4, 6), set);
+
+        // Replay in order
+        final List<Integer> replayed = new ArrayList<>();
+        assertTrue(new RoutingStateCache(details, "test_a", true).read((i, j, v) -> replayed.addAll(Arrays.asList(i, j, v))));
+        assertEquals(set, replayed);
+
+        // Other routing or disabled
+        assertFalse(new RoutingStateCache(details, "test_b", true).read((i, j, v) -> replayed.add(i)));
+        assertFalse(new RoutingStateCache(details, "test_a", false).read((i, j, v) -> replayed.add(i)));
+        assertEquals(9, replayed.size());
+
+    }
+
+    @Test
+    public void testIncompleteRejected() throws IOException {
+
+        // Complete cache
+        RoutingStateCache cache = new RoutingStateCache(details, "test_a", true);
+        RoutingStateCache.EntryConsumer recorder = cache.record((i, j, v) -> {});
+        recorder.accept(0, 1, 2);
+        recorder.accept(3, 4, 5);
+        cache.commit();
+        final List<Integer> replayed = new ArrayList<>();
+        assertTrue(new RoutingStateCache(details, "test_a", true).read((i, j, v) -> replayed.add(i)));
+        assertEquals(Arrays.asList(0, 3), replayed);
+
+        // An entry less or more than the number of entries in the header
+        File file = new File(cache.getFileName());
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length - 12);
+        }
+        assertFalse(new RoutingStateCache(details, "test_a", true).read((i, j, v) -> replayed.add(i)));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length + 12);
+        }
+        assertFalse(new RoutingStateCache(details, "test_a", true).read((i, j, v) -> replayed.add(i)));
+        assertEquals(2, replayed.size());
+
+        // No temporary recording file is left behind
+        File[] left = file.getParentFile().listFiles((dir, name) -> name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, left.length);
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKey() {
+        new RoutingStateCache(details, "test a", true);
+    }
+
+}
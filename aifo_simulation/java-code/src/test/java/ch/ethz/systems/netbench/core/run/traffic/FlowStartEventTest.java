@@ -1,13 +1,16 @@
 package ch.ethz.systems.netbench.core.run.traffic;
 
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -58,6 +61,32 @@ public class FlowStartEventTest {
         verify(transportLayer, times(1)).startFlow(98, 100000);
     }
 
+    @Test
+    public void testRegisterEventsInOrder() {
+        TransportLayer transportLayer = mock(TransportLayer.class);
+
+        // Individually registered, large batch (queue is rebuilt) and small batch (inserted one-by-one)
+        Simulator.registerEvent(new FlowStartEvent(500, transportLayer, 1, 100, 0, 80, 80));
+        Event[] large = new Event[100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = new FlowStartEvent(1000 + 10 * i, transportLayer, 1, 100, i + 1, 80, 80);
+        }
+        Simulator.registerEvents(large);
+        Simulator.registerEvents(new Event[]{new FlowStartEvent(5000, transportLayer, 1, 100, 101, 80, 80), new FlowStartEvent(5, transportLayer, 1, 100, 102, 80, 80)});
+        assertEquals(103, Simulator.getEventSize());
+
+        // Triggered in time order
+        Simulator.runNs(10000);
+        assertEquals(0, Simulator.getEventSize());
+        InOrder inOrder = inOrder(transportLayer);
+        inOrder.verify(transportLayer).startFlowWithPortAndFlowId(1, 100, 102, false, 80, 80);
+        inOrder.verify(transportLayer).startFlowWithPortAndFlowId(1, 100, 0, false, 80, 80);
+        for (int i = 0; i < large.length; i++) {
+            inOrder.verify(transportLayer).startFlowWithPortAndFlowId(1, 100, i + 1, false, 80, 80);
+        }
+        inOrder.verify(transportLayer).startFlowWithPortAndFlowId(1, 100, 101, false, 80, 80);
+    }
+
     @Test
     public void testToString() {
         TransportLayer transportLayer = mock(TransportLayer.class);
@@ -0,0 +1,98 @@
+package ch.ethz.systems.netbench.core.utility;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongBitmapTest {
+
+    private static final long PAGE = 65536;
+
+    @Test
+    public void testAddContainsAcrossPages() {
+        LongBitmap bitmap = new LongBitmap();
+
+        // Around the page boundaries, and far beyond the first page
+        long[] values = new long[]{0, PAGE - 1, PAGE, PAGE + 1, 2 * PAGE - 1, 5 * PAGE + 7, 1000 * PAGE + 63, 1000 * PAGE + 64};
+        for (long value : values) {
+            assertFalse(bitmap.contains(value));
+            assertTrue(bitmap.add(value));
+            assertFalse(bitmap.add(value));
+        }
+        assertEquals(values.length, bitmap.size());
+        for (long value : values) {
+            assertTrue(bitmap.contains(value));
+        }
+
+        // Neighbors are absent
+        assertFalse(bitmap.contains(1));
+        assertFalse(bitmap.contains(PAGE - 2));
+        assertFalse(bitmap.contains(2 * PAGE));
+        assertFalse(bitmap.contains(5 * PAGE + 6));
+        assertFalse(bitmap.contains(1000 * PAGE + 62));
+        assertFalse(bitmap.contains(1000 * PAGE + 65));
+        assertFalse(bitmap.contains(2000 * PAGE));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    @Test
+    public void testFullPageCollapse() {
+        LongBitmap bitmap = new LongBitmap();
+
+        // Fill the second page except for its last value, and a value of the third page
+        for (long value = PAGE; value < 2 * PAGE - 1; value++) {
+            assertTrue(bitmap.add(value));
+        }
+        assertTrue(bitmap.add(2 * PAGE));
+        assertFalse(bitmap.isPageFull(PAGE));
+        assertFalse(bitmap.contains(2 * PAGE - 1));
+
+        // The last value makes it full
+        assertTrue(bitmap.add(2 * PAGE - 1));
+        assertTrue(bitmap.isPageFull(PAGE));
+        assertFalse(bitmap.isPageFull(0));
+        assertFalse(bitmap.isPageFull(2 * PAGE));
+        assertEquals(PAGE + 1, bitmap.size());
+
+        // All values of the full page are still present, and cannot be added again
+        for (long value = PAGE; value < 2 * PAGE; value++) {
+            assertTrue(bitmap.contains(value));
+        }
+        assertFalse(bitmap.add(PAGE + 12345));
+        assertEquals(PAGE + 1, bitmap.size());
+        assertFalse(bitmap.contains(PAGE - 1));
+        assertTrue(bitmap.contains(2 * PAGE));
+        assertFalse(bitmap.contains(2 * PAGE + 1));
+    }
+
+    @Test
+    public void testClear() {
+        LongBitmap bitmap = new LongBitmap();
+        for (long value = 0; value < PAGE; value++) {
+            bitmap.add(value);
+        }
+        bitmap.add(3 * PAGE);
+        assertTrue(bitmap.isPageFull(0));
+        bitmap.clear();
+        assertEquals(0, bitmap.size());
+        assertFalse(bitmap.isPageFull(0));
+        assertFalse(bitmap.contains(0));
+        assertFalse(bitmap.contains(3 * PAGE));
+
+        // Usable again after clearing
+        assertTrue(bitmap.add(3 * PAGE));
+        assertTrue(bitmap.contains(3 * PAGE));
+        assertEquals(1, bitmap.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNegative() {
+        new LongBitmap().add(-1);
+    }
+
+}
@@ -0,0 +1,102 @@
+package ch.ethz.systems.netbench.core.utility;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongObjectMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(5, "a"));
+        assertNull(map.put(-3, "b"));
+        assertEquals("a", map.put(5, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(5));
+        assertEquals("b", map.get(-3));
+        assertNull(map.get(6));
+        assertEquals("b", map.remove(-3));
+        assertNull(map.remove(-3));
+        assertFalse(map.containsKey(-3));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+    }
+
+    @Test
+    public void testNullValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        boolean thrown = false;
+        try {
+            map.put(1, null);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+
+        // Random insertions and removals (with many collisions in a narrow key range)
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(5000) * 1024L;
+            if (random.nextDouble() < 0.6) {
+                assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = 0; key < 5000 * 1024L; key += 1024) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+
+    }
+
+    @Test
+    public void testBitmap() {
+        LongBitmap bitmap = new LongBitmap();
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.add(0));
+        assertFalse(bitmap.add(0));
+        assertTrue(bitmap.add(1000000));
+        assertTrue(bitmap.contains(1000000));
+        assertFalse(bitmap.contains(999999));
+        assertFalse(bitmap.contains(-1));
+        assertFalse(bitmap.contains(Long.MAX_VALUE));
+        assertEquals(2, bitmap.size());
+
+        // Fill a complete page
+        for (long v = 65536; v < 2 * 65536; v++) {
+            assertTrue(bitmap.add(v));
+        }
+        assertEquals(2 + 65536, bitmap.size());
+        assertTrue(bitmap.contains(65536));
+        assertTrue(bitmap.contains(2 * 65536 - 1));
+        assertFalse(bitmap.contains(2 * 65536));
+        assertFalse(bitmap.add(70000));
+
+        bitmap.clear();
+        assertEquals(0, bitmap.size());
+        assertFalse(bitmap.contains(0));
+        assertFalse(bitmap.contains(70000));
+    }
+
+}
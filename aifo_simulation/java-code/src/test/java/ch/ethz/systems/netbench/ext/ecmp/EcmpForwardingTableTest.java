@@ -0,0 +1,51 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EcmpForwardingTableTest {
+
+    @Test
+    public void testAddAndSelect() {
+        EcmpForwardingTable table = new EcmpForwardingTable(4);
+        assertTrue(table.add(3, 1));
+        assertTrue(table.add(1, 0));
+        assertTrue(table.add(3, 2));
+        assertTrue(table.add(3, 0));
+        assertFalse(table.add(3, 2));
+        assertArrayEquals(new int[]{1, 2, 0}, table.getPorts(3));
+        assertArrayEquals(new int[0], table.getPorts(2));
+
+        // Lookups on the compacted table
+        assertEquals(1, table.select(3, 0));
+        assertEquals(2, table.select(3, 1));
+        assertEquals(0, table.select(3, 5));
+        assertEquals(0, table.select(1, 7));
+        assertArrayEquals(new int[]{1, 2, 0}, table.getPorts(3));
+        assertArrayEquals(new int[0], table.getPorts(0));
+    }
+
+    @Test
+    public void testAddAfterCompaction() {
+        EcmpForwardingTable table = new EcmpForwardingTable(3);
+        table.add(0, 4);
+        table.add(2, 1);
+        assertEquals(4, table.select(0, 3));
+
+        // Adding stages the table again, keeping the existing next hops
+        assertFalse(table.add(2, 1));
+        assertTrue(table.add(2, 3));
+        assertEquals(1, table.select(2, 0));
+        assertEquals(3, table.select(2, 1));
+        assertEquals(4, table.select(0, 0));
+        assertArrayEquals(new int[]{1, 3}, table.getPorts(2));
+    }
+
+}
@@ -0,0 +1,64 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import edu.asu.emit.algorithm.graph.CsrGraph;
+import edu.asu.emit.algorithm.graph.Graph;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EcmpRoutingUtilityTest {
+
+    @Test
+    public void testAgainstFloydWarshall() {
+
+        // Sparse random directed graph (such that some pairs are unreachable), spanning several tasks
+        int n = 300;
+        Random random = new Random(23);
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 2 * n; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b && !edges.contains(new ImmutablePair<>(a, b))) {
+                edges.add(new ImmutablePair<>(a, b));
+            }
+        }
+        Graph graph = new Graph(n, edges);
+
+        // Reference
+        int infinity = 999999999;
+        int[][] reference = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                reference[i][j] = i == j ? 0 : infinity;
+            }
+        }
+        for (Pair<Integer, Integer> edge : edges) {
+            reference[edge.getLeft()][edge.getRight()] = Math.min(reference[edge.getLeft()][edge.getRight()], 1);
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    reference[i][j] = Math.min(reference[i][j], reference[i][k] + reference[k][j]);
+                }
+            }
+        }
+
+        short[][] len = EcmpRoutingUtility.calculateShortestPaths(new CsrGraph(graph));
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(reference[i][j] == infinity ? EcmpRoutingUtility.UNREACHABLE : reference[i][j], len[i][j]);
+            }
+        }
+
+    }
+
+}
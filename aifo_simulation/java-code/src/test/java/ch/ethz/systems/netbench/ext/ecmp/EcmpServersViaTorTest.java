@@ -0,0 +1,190 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.GraphDetails;
+import ch.ethz.systems.netbench.core.config.GraphReader;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.TopologyServerExtender;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.ext.flowlet.IdentityFlowletIntermediary;
+import ch.ethz.systems.netbench.testutility.TestTopologyPortsConstruction;
+import edu.asu.emit.algorithm.graph.Graph;
+import edu.asu.emit.algorithm.graph.Vertex;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EcmpServersViaTorTest {
+
+    /*
+     * Topology: fat-tree of k=4 (ToRs 0-7, switches 8-19), extended
+     * with 2 servers per ToR (ToR 0 has servers 20 and 21, ..., ToR 7 has 34 and 35).
+     */
+    private static final String TOPOLOGY = "example/topologies/fat_tree/fat_tree_k4.topology";
+
+    private File tempRunConfig;
+    private Graph graph;
+    private GraphDetails details;
+
+    @Before
+    public void setup() throws IOException {
+
+        // Create temporary run configuration file
+        tempRunConfig = File.createTempFile("temp-run-config", ".tmp");
+        BufferedWriter runConfigWriter = new BufferedWriter(new FileWriter(tempRunConfig));
+        runConfigWriter.write(
+                "network_device_routing=ecmp\n" +
+                "scenario_topology_file=" + TOPOLOGY
+        );
+        runConfigWriter.close();
+        Simulator.setup(1, new NBProperties(tempRunConfig.getAbsolutePath(), BaseAllowedProperties.PROPERTIES_RUN, BaseAllowedProperties.LOG));
+
+        // Extend with servers
+        Pair<Graph, GraphDetails> original = GraphReader.read(TOPOLOGY);
+        Pair<Graph, GraphDetails> extended = new TopologyServerExtender(TOPOLOGY, null).extendRegular(original.getLeft(), original.getRight(), 2);
+        graph = extended.getLeft();
+        details = extended.getRight();
+        Simulator.getConfiguration().overrideGraph(graph, details);
+
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+        assertTrue(tempRunConfig.delete());
+    }
+
+    /**
+     * Create an ECMP switch for every node of the topology, connected in adjacency order,
+     * and populate their routing tables.
+     *
+     * @param serversViaTor     True iff the routing tables are server-aware
+     *
+     * @return  ECMP switches
+     */
+    private EcmpSwitch[] createSwitches(boolean serversViaTor) {
+
+        // Ports of every link
+        StringBuilder links = new StringBuilder();
+        for (Vertex v : graph.getVertexList()) {
+            for (Vertex w : graph.getAdjacentVertices(v)) {
+                if (v.getId() < w.getId()) {
+                    links.append(links.length() == 0 ? "" : ",").append(v.getId()).append("-").append(w.getId());
+                }
+            }
+        }
+        TestTopologyPortsConstruction topology = new TestTopologyPortsConstruction(links.toString());
+
+        // Switches
+        int n = details.getNumNodes();
+        EcmpSwitch[] switches = new EcmpSwitch[n];
+        Map<Integer, NetworkDevice> idToNetworkDevice = new HashMap<>();
+        for (Vertex v : graph.getVertexList()) {
+            EcmpSwitch device = new EcmpSwitch(v.getId(), null, n, new IdentityFlowletIntermediary());
+            for (Vertex w : graph.getAdjacentVertices(v)) {
+                device.addConnection(topology.getPort(v.getId(), w.getId()));
+            }
+            switches[v.getId()] = device;
+            idToNetworkDevice.put(v.getId(), device);
+        }
+
+        // Routing
+        Simulator.getConfiguration().overrideProperty("routing_ecmp_servers_via_tor", String.valueOf(serversViaTor));
+        EcmpRoutingUtility.populateShortestPathRoutingTables(idToNetworkDevice, true);
+        return switches;
+
+    }
+
+    /**
+     * Follow the next hops from a source to a destination.
+     *
+     * @param switches  ECMP switches
+     * @param src       Source identifier
+     * @param dst       Destination identifier
+     * @param hash      Hash selecting among the next hops
+     *
+     * @return  Path (including source and destination)
+     */
+    private static List<Integer> path(EcmpSwitch[] switches, int src, int dst, int hash) {
+        List<Integer> path = new ArrayList<>();
+        int current = src;
+        path.add(current);
+        while (current != dst) {
+            List<Integer> nextHops = switches[current].getNextHops(dst);
+            assertTrue(!nextHops.isEmpty() && path.size() <= switches.length);
+            current = nextHops.get(hash % nextHops.size());
+            path.add(current);
+        }
+        return path;
+    }
+
+    @Test
+    public void testSameAsFullEcmp() {
+        EcmpSwitch[] full = createSwitches(false);
+        EcmpSwitch[] serverAware = createSwitches(true);
+
+        // Every (switch, destination) pair has the same next hops, selected in the same way
+        for (int i = 0; i < full.length; i++) {
+            for (int j = 0; j < full.length; j++) {
+                if (i != j) {
+                    int[] ports = full[i].destinationToNextSwitch.getPorts(j);
+                    assertTrue(ports.length > 0);
+                    assertArrayEquals(i + "->" + j, ports, serverAware[i].destinationToNextSwitch.getPorts(j));
+                    assertEquals(full[i].getNextHops(j), serverAware[i].getNextHops(j));
+                    for (int hash = 0; hash < 2 * ports.length; hash++) {
+                        assertEquals(full[i].destinationToNextSwitch.select(j, hash), serverAware[i].destinationToNextSwitch.select(j, hash));
+                    }
+                }
+            }
+        }
+
+        // Server to server on the same ToR
+        assertEquals(Arrays.asList(20, 0, 21), path(serverAware, 20, 21, 0));
+        assertEquals(Arrays.asList(21, 0, 20), path(serverAware, 21, 20, 1));
+
+        // Server to server on different ToRs (in the same pod, and in another pod via the core)
+        for (int hash = 0; hash < 4; hash++) {
+            List<Integer> samePod = path(serverAware, 20, 22, hash);
+            assertEquals(path(full, 20, 22, hash), samePod);
+            assertEquals(5, samePod.size());
+            assertEquals(Arrays.asList(20, 0), samePod.subList(0, 2));
+            assertEquals(Arrays.asList(1, 22), samePod.subList(3, 5));
+
+            List<Integer> otherPod = path(serverAware, 20, 34, hash);
+            assertEquals(path(full, 20, 34, hash), otherPod);
+            assertEquals(7, otherPod.size());
+            assertEquals(Arrays.asList(20, 0), otherPod.subList(0, 2));
+            assertEquals(Arrays.asList(7, 34), otherPod.subList(5, 7));
+        }
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testServerOfOtherTor() {
+
+        // Servers are only known by their own ToR, all others route via the ToR
+        EcmpSwitch[] serverAware = createSwitches(true);
+        serverAware[8].destinationToNextSwitch.add(20, 0);
+
+    }
+
+}
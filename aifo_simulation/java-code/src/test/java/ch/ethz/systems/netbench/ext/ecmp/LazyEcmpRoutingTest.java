@@ -0,0 +1,108 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import edu.asu.emit.algorithm.graph.CsrGraph;
+import edu.asu.emit.algorithm.graph.Graph;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LazyEcmpRoutingTest {
+
+    @Test
+    public void testAgainstShortestPaths() {
+
+        // Sparse random directed graph (such that some pairs are unreachable)
+        int n = 80;
+        Random random = new Random(31);
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 3 * n; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b && !edges.contains(new ImmutablePair<>(a, b))) {
+                edges.add(new ImmutablePair<>(a, b));
+            }
+        }
+        CsrGraph graph = new Graph(n, edges).getCsrGraph();
+        short[][] len = EcmpRoutingUtility.calculateShortestPaths(graph);
+
+        // Small cache, such that destinations are evicted and calculated again
+        LazyEcmpRouting routing = new LazyEcmpRouting(graph, 5);
+        LazyEcmpForwardingTable[] tables = new LazyEcmpForwardingTable[n];
+        for (int i = 0; i < n; i++) {
+            tables[i] = new LazyEcmpForwardingTable(routing, i);
+            for (int k = graph.outStart(i); k < graph.outEnd(i); k++) {
+                assertTrue(tables[i].add(graph.outTarget(k), 100 + k)); // Port is edge index + 100
+            }
+        }
+
+        // Next hops are the edges on a shortest path, in adjacency order (as the full tables add them)
+        for (int round = 0; round < 2; round++) {
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    List<Integer> expected = new ArrayList<>();
+                    for (int k = graph.outStart(i); k < graph.outEnd(i); k++) {
+                        if (i != j && len[i][j] != EcmpRoutingUtility.UNREACHABLE && len[i][j] == len[graph.outTarget(k)][j] + 1) {
+                            expected.add(100 + k);
+                        }
+                    }
+                    int[] ports = tables[i].getPorts(j);
+                    assertEquals(expected.size(), ports.length);
+                    for (int p = 0; p < ports.length; p++) {
+                        assertEquals((int) expected.get(p), ports[p]);
+                        assertEquals(ports[p], tables[i].select(j, p + ports.length));
+                    }
+                }
+            }
+        }
+        assertEquals(2 * n, routing.getNumCalculated());
+
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() {
+
+        // Line 0 <-> 1 <-> 2 <-> 3
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            edges.add(new ImmutablePair<>(i, i + 1));
+            edges.add(new ImmutablePair<>(i + 1, i));
+        }
+        LazyEcmpRouting routing = new LazyEcmpRouting(new Graph(4, edges).getCsrGraph(), 2);
+        LazyEcmpForwardingTable table = new LazyEcmpForwardingTable(routing, 1);
+        table.add(0, 7);
+        table.add(2, 3);
+
+        assertArrayEquals(new int[]{3}, table.getPorts(3));
+        assertArrayEquals(new int[]{7}, table.getPorts(0));
+        assertArrayEquals(new int[]{3}, table.getPorts(3)); // Cached, now most recently used
+        assertEquals(2, routing.getNumCalculated());
+        assertArrayEquals(new int[]{3}, table.getPorts(2)); // Evicts 0
+        assertArrayEquals(new int[]{3}, table.getPorts(3));
+        assertEquals(3, routing.getNumCalculated());
+        assertEquals(7, table.select(0, 5)); // Calculated again
+        assertArrayEquals(new int[0], table.getPorts(1));
+        assertEquals(5, routing.getNumCalculated());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNonNeighbor() {
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        edges.add(new ImmutablePair<>(0, 1));
+        edges.add(new ImmutablePair<>(1, 2));
+        LazyEcmpForwardingTable table = new LazyEcmpForwardingTable(new LazyEcmpRouting(new Graph(3, edges).getCsrGraph(), 4), 0);
+        table.add(2, 0);
+    }
+
+}
@@ -0,0 +1,124 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AliasPairSamplerTest {
+
+    @Mock
+    private Random random;
+
+    @Test
+    public void testAddInvalidNegativeWeight() {
+        AliasPairSampler sampler = new AliasPairSampler(random);
+
+        boolean thrown = false;
+        try {
+            sampler.add(-0.0001, 1, 2);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+    }
+
+    @Test
+    public void testInvalidTotalWeight() {
+        AliasPairSampler sampler = new AliasPairSampler(random);
+        sampler.add(0.5, 1, 2);
+        sampler.add(0.4, 2, 1);
+
+        boolean thrown = false;
+        try {
+            sampler.nextIndex();
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+    }
+
+    @Test
+    public void testAddAfterDraw() {
+        AliasPairSampler sampler = new AliasPairSampler(random);
+        sampler.add(1.0, 1, 2);
+        when(random.nextDouble()).thenReturn(0.5);
+        sampler.nextIndex();
+
+        boolean thrown = false;
+        try {
+            sampler.add(0.1, 2, 1);
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+    }
+
+    @Test
+    public void testUniformBoundaries() {
+        AliasPairSampler sampler = new AliasPairSampler(random);
+        sampler.add(0.25, 0, 1);
+        sampler.add(0.25, 1, 2);
+        sampler.add(0.25, 2, 3);
+        sampler.add(0.25, 3, 0);
+
+        when(random.nextDouble()).thenReturn(0.0);
+        assertEquals(0, sampler.getSource(sampler.nextIndex()));
+
+        when(random.nextDouble()).thenReturn(0.3);
+        int index = sampler.nextIndex();
+        assertEquals(1, sampler.getSource(index));
+        assertEquals(2, sampler.getDestination(index));
+
+        when(random.nextDouble()).thenReturn(0.9999);
+        assertEquals(3, sampler.getSource(sampler.nextIndex()));
+
+        when(random.nextDouble()).thenReturn(1.0);
+        assertEquals(3, sampler.getSource(sampler.nextIndex()));
+
+    }
+
+    @Test
+    public void testWeightedFrequencies() {
+        double[] weights = new double[]{0.1, 0.2, 0.3, 0.1, 0.2, 0.1};
+        AliasPairSampler sampler = new AliasPairSampler(new Random(7));
+        for (int i = 0; i < weights.length; i++) {
+            sampler.add(weights[i], i, i + 1);
+        }
+        assertEquals(weights.length, sampler.size());
+
+        int draws = 600000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.getSource(sampler.nextIndex())]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i], counts[i] / (double) draws, 0.005);
+        }
+
+    }
+
+    @Test
+    public void testReproducible() {
+        AliasPairSampler a = new AliasPairSampler(new Random(42));
+        AliasPairSampler b = new AliasPairSampler(new Random(42));
+        for (int i = 0; i < 100; i++) {
+            a.add(0.01, i, i + 1);
+            b.add(0.01, i, i + 1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextIndex(), b.nextIndex());
+        }
+    }
+
+}
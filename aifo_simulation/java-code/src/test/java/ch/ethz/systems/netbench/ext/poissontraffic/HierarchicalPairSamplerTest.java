@@ -0,0 +1,104 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HierarchicalPairSamplerTest {
+
+    @Test
+    public void testSingleGroupInvalid() {
+        List<List<Integer>> groups = new ArrayList<>();
+        groups.add(Arrays.asList(1, 2, 3));
+        groups.add(Arrays.asList(4, 5));
+
+        boolean thrown = false;
+        try {
+            new HierarchicalPairSampler(new Random(1), new double[]{1.0, 0.0}, groups);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+    }
+
+    @Test
+    public void testEmptyGroupInvalid() {
+        List<List<Integer>> groups = new ArrayList<>();
+        groups.add(Arrays.asList(1, 2, 3));
+        groups.add(Collections.<Integer>emptyList());
+
+        boolean thrown = false;
+        try {
+            new HierarchicalPairSampler(new Random(1), new double[]{0.5, 0.5}, groups);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+    }
+
+    @Test
+    public void testPairProbabilities() {
+
+        // Three groups (ToRs) with servers 0-1, 2-4 and 5
+        double[] weights = new double[]{0.5, 0.3, 0.2};
+        int[] groupOf = new int[]{0, 0, 1, 1, 1, 2};
+        int[] groupSize = new int[]{2, 3, 1};
+        List<List<Integer>> groups = new ArrayList<>();
+        groups.add(Arrays.asList(0, 1));
+        groups.add(Arrays.asList(2, 3, 4));
+        groups.add(Collections.singletonList(5));
+        HierarchicalPairSampler sampler = new HierarchicalPairSampler(new Random(99), weights, groups);
+
+        // Draw
+        int draws = 1000000;
+        int[][] counts = new int[6][6];
+        for (int i = 0; i < draws; i++) {
+            sampler.drawPair();
+            counts[sampler.getDrawnSource()][sampler.getDrawnDestination()]++;
+        }
+
+        // Each server pair: w_i * w_j / (1 - sum w^2), uniform within the group pair
+        double diagonal = 0.5 * 0.5 + 0.3 * 0.3 + 0.2 * 0.2;
+        for (int src = 0; src < 6; src++) {
+            for (int dst = 0; dst < 6; dst++) {
+                int gs = groupOf[src];
+                int gd = groupOf[dst];
+                double expected = 0.0;
+                if (gs != gd) {
+                    expected = weights[gs] * weights[gd] / (1 - diagonal) / (groupSize[gs] * groupSize[gd]);
+                }
+                assertEquals(expected, counts[src][dst] / (double) draws, 0.002);
+            }
+        }
+
+    }
+
+    @Test
+    public void testSingletonGroupsNeverSelf() {
+        List<List<Integer>> groups = new ArrayList<>();
+        double[] weights = new double[10];
+        for (int i = 0; i < 10; i++) {
+            groups.add(Collections.singletonList(100 + i));
+            weights[i] = 1.0;
+        }
+        HierarchicalPairSampler sampler = new HierarchicalPairSampler(new Random(5), weights, groups);
+        for (int i = 0; i < 10000; i++) {
+            sampler.drawPair();
+            assertTrue(sampler.getDrawnSource() != sampler.getDrawnDestination());
+            assertTrue(sampler.getDrawnSource() >= 100 && sampler.getDrawnSource() < 110);
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.FlowSizeDistribution;
+import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.PFabricWebSearchUpperBoundFSD;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PoissonPlanShardTest {
+
+    private static final double LAMBDA = 1000000;
+    private static final long DURATION_NS = 100000000L;
+
+    // Pair probabilities of the pair sampler (indexed by source and destination)
+    private static final double[][] PAIRS = new double[][]{{0, 0.5, 0}, {0, 0, 0.3}, {0.2, 0, 0}};
+
+    private FlowSizeDistribution flowSizeDistribution;
+    private AliasPairSampler pairSampler;
+
+    @Before
+    public void setup() {
+        Simulator.setup(1234);
+        flowSizeDistribution = new PFabricWebSearchUpperBoundFSD();
+        pairSampler = new AliasPairSampler(new Random(1));
+        pairSampler.add(0.5, 0, 1);
+        pairSampler.add(0.3, 1, 2);
+        pairSampler.add(0.2, 2, 0);
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+    }
+
+    /**
+     * Generate a plan of the given number of shards.
+     *
+     * @param numShards     Number of shards
+     * @param seed          Seed of the shard random number generators
+     *
+     * @return  Merged plan as rows of [start time, source, destination, flow size]
+     */
+    private long[][] generate(int numShards, long seed) {
+        List<PoissonPlanShard> shards = new ArrayList<>();
+        for (int k = 0; k < numShards; k++) {
+            shards.add(new PoissonPlanShard(LAMBDA / numShards, DURATION_NS, new Random(seed + 2 * k), new Random(seed + 2 * k + 1), pairSampler, flowSizeDistribution));
+        }
+        for (PoissonPlanShard shard : shards) {
+            shard.call();
+        }
+        long[] order = PoissonPlanShard.merge(shards);
+        long[][] plan = new long[order.length][];
+        for (int j = 0; j < order.length; j++) {
+            PoissonPlanShard shard = shards.get((int) (order[j] >> 32));
+            int i = (int) order[j];
+            plan[j] = new long[]{shard.getStartTime(i), shard.getSource(i), shard.getDestination(i), shard.getFlowSizeByte(i)};
+        }
+        return plan;
+    }
+
+    /**
+     * Check the arrival process and pair frequencies of a plan.
+     *
+     * @param plan              Plan
+     * @param pairProbability   Expected probability of each pair (indexed by source and destination)
+     *
+     * @return  Mean flow size of the plan
+     */
+    private double assertPoissonPlan(long[][] plan, double[][] pairProbability) {
+
+        // Number of arrivals (expected 100000, standard deviation ~316)
+        double expected = LAMBDA * DURATION_NS / 1e9;
+        assertEquals(expected, plan.length, 0.02 * expected);
+
+        // Inter-arrival times are exponential: mean 1000ns, coefficient of variation 1, median mean * ln(2)
+        double sum = 0;
+        double sumSquares = 0;
+        int belowMedian = 0;
+        long last = 0;
+        for (long[] row : plan) {
+            long gap = row[0] - last;
+            assertTrue(gap >= 0);
+            assertTrue(row[0] <= DURATION_NS);
+            sum += gap;
+            sumSquares += (double) gap * gap;
+            belowMedian += gap < 1000 * Math.log(2) ? 1 : 0;
+            last = row[0];
+        }
+        double mean = sum / plan.length;
+        double std = Math.sqrt(sumSquares / plan.length - mean * mean);
+        assertEquals(1000, mean, 20);
+        assertEquals(1.0, std / mean, 0.03);
+        assertEquals(0.5, belowMedian / (double) plan.length, 0.01);
+
+        // Pair frequencies
+        int[][] pairCount = new int[pairProbability.length][pairProbability.length];
+        double sizeSum = 0;
+        for (long[] row : plan) {
+            pairCount[(int) row[1]][(int) row[2]]++;
+            sizeSum += row[3];
+        }
+        for (int src = 0; src < pairProbability.length; src++) {
+            for (int dst = 0; dst < pairProbability.length; dst++) {
+                assertEquals(pairProbability[src][dst], pairCount[src][dst] / (double) plan.length, 0.01);
+            }
+        }
+
+        return sizeSum / plan.length;
+    }
+
+    /**
+     * Create the plan of a Poisson arrival planner with all-to-all traffic between three nodes,
+     * and run it to collect the flows it starts.
+     *
+     * @param numShards     Number of plan shards (1 is the single-stream plan)
+     *
+     * @return  Started flows as rows of [start time, source, destination, flow size]
+     */
+    private long[][] runPlanner(int numShards) throws IOException {
+
+        // Run configuration
+        File tempRunConfig = File.createTempFile("temp-run-config", ".tmp");
+        BufferedWriter runConfigWriter = new BufferedWriter(new FileWriter(tempRunConfig));
+        runConfigWriter.write("scenario_topology_file=example/topologies/simple/simple_n5.topology\n");
+        runConfigWriter.write("traffic_plan_shards=" + numShards + "\n");
+        runConfigWriter.close();
+        Simulator.reset();
+        Simulator.setup(1234, new NBProperties(
+                tempRunConfig.getAbsolutePath(),
+                BaseAllowedProperties.LOG,
+                BaseAllowedProperties.PROPERTIES_RUN,
+                BaseAllowedProperties.EXPERIMENTAL
+        ));
+        assertTrue(tempRunConfig.delete());
+
+        // Transport layers which record the flows they are asked to start
+        final List<long[]> started = new ArrayList<>();
+        Map<Integer, TransportLayer> idToTransportLayer = new HashMap<>();
+        for (int id = 0; id < 3; id++) {
+            final int src = id;
+            TransportLayer transportLayer = mock(TransportLayer.class);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                    Object[] args = invocation.getArguments();
+                    started.add(new long[]{Simulator.getCurrentTime(), src, (Integer) args[0], (Long) args[1]});
+                    return null;
+                }
+            }).when(transportLayer).startFlowWithPortAndFlowId(anyInt(), anyLong(), anyLong(), anyBoolean(), anyInt(), anyInt());
+            idToTransportLayer.put(id, transportLayer);
+        }
+
+        PoissonArrivalPlanner planner = new PoissonArrivalPlanner(idToTransportLayer, LAMBDA, flowSizeDistribution, PoissonArrivalPlanner.PairDistribution.ALL_TO_ALL);
+        planner.createPlan(DURATION_NS);
+        Simulator.runNs(DURATION_NS);
+
+        // Flows starting at the same time are started in random order
+        long[][] plan = started.toArray(new long[started.size()][]);
+        Arrays.sort(plan, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(a[0], b[0]);
+            }
+        });
+        return plan;
+    }
+
+    @Test
+    public void testSingleStream() {
+        assertPoissonPlan(generate(1, 42), PAIRS);
+    }
+
+    @Test
+    public void testShardedEquivalentToSingleStream() throws IOException {
+        long[][] single = runPlanner(1);
+        long[][] sharded = runPlanner(8);
+        double[][] allToAll = new double[3][3];
+        for (int src = 0; src < 3; src++) {
+            for (int dst = 0; dst < 3; dst++) {
+                allToAll[src][dst] = src == dst ? 0 : 1.0 / 6;
+            }
+        }
+        double singleMeanSize = assertPoissonPlan(single, allToAll);
+        double shardedMeanSize = assertPoissonPlan(sharded, allToAll);
+
+        // Number of arrivals (difference standard deviation ~447) and mean flow size of both plans
+        assertEquals(single.length, sharded.length, 2500);
+        assertEquals(singleMeanSize, shardedMeanSize, 0.05 * singleMeanSize);
+    }
+
+    @Test
+    public void testShardedDeterministic() {
+        long[][] a = generate(4, 7);
+        long[][] b = generate(4, 7);
+        assertEquals(a.length, b.length);
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(a[i][j], b[i][j]);
+            }
+        }
+    }
+
+    @Test
+    public void testMergeTieBreak() {
+        PoissonPlanShard a = new PoissonPlanShard(2e9, 0, new Random(1), new Random(2), pairSampler, flowSizeDistribution);
+        PoissonPlanShard b = new PoissonPlanShard(2e9, 0, new Random(3), new Random(4), pairSampler, flowSizeDistribution);
+        a.call();
+        b.call();
+        List<PoissonPlanShard> shards = new ArrayList<>();
+        shards.add(a);
+        shards.add(b);
+
+        // Only arrivals at time 0 are possible, ordered by shard and then within the shard
+        long[] order = PoissonPlanShard.merge(shards);
+        assertTrue(a.getNumFlows() > 0 && b.getNumFlows() > 0);
+        assertEquals(a.getNumFlows() + b.getNumFlows(), order.length);
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(order[i - 1] < order[i]);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ThinningArrivalProcessTest {
+
+    /**
+     * Count the arrivals per phase of the schedule within [0, duration].
+     */
+    private long[] countPerPhase(RateSchedule schedule, long durationNs, long seed) {
+        ThinningArrivalProcess process = new ThinningArrivalProcess(schedule, new Random(seed));
+        long[] count = new long[schedule.getNumPhases()];
+        double last = 0;
+        double time = process.nextArrivalNs();
+        while (time <= durationNs) {
+            assertTrue(time >= last);
+            count[schedule.getPhase(time)]++;
+            last = time;
+            time = process.nextArrivalNs();
+        }
+        return count;
+    }
+
+    @Test
+    public void testParse() {
+        RateSchedule schedule = RateSchedule.parse("0:1000, 500:2000,1000:0", RateSchedule.Interpolation.STEP);
+        assertEquals(3, schedule.getNumPhases());
+        assertEquals(0, schedule.getPhase(0));
+        assertEquals(0, schedule.getPhase(499.9));
+        assertEquals(1, schedule.getPhase(500));
+        assertEquals(2, schedule.getPhase(1e12));
+        assertEquals(1000, schedule.getRate(250), 1e-9);
+        assertEquals(2000, schedule.getRate(999), 1e-9);
+        assertEquals(0, schedule.getRate(5000), 1e-9);
+        assertEquals(Long.MAX_VALUE, schedule.getPhaseEndNs(2));
+    }
+
+    @Test
+    public void testInvalidSchedules() {
+        String[] invalid = new String[]{"5:1000", "0:1000,0:2000", "0:-1", "0:0,100:0", "0-1000"};
+        for (String value : invalid) {
+            boolean thrown = false;
+            try {
+                RateSchedule.parse(value, RateSchedule.Interpolation.STEP);
+            } catch (IllegalArgumentException e) {
+                thrown = true;
+            }
+            assertTrue(value, thrown);
+        }
+    }
+
+    @Test
+    public void testLinearRate() {
+        RateSchedule schedule = RateSchedule.parse("0:0,1000:1000", RateSchedule.Interpolation.LINEAR);
+        assertEquals(0, schedule.getRate(0), 1e-9);
+        assertEquals(500, schedule.getRate(500), 1e-9);
+        assertEquals(1000, schedule.getRate(2000), 1e-9);
+        assertEquals(1000, schedule.getMajorant(0), 1e-9);
+        assertEquals(false, schedule.isConstant(0));
+        assertEquals(true, schedule.isConstant(1));
+    }
+
+    @Test
+    public void testStepScheduleCounts() {
+
+        // 100ms at 100k/s, 100ms at 0, 100ms at 400k/s (expected 10000, 0, 40000)
+        RateSchedule schedule = RateSchedule.parse("0:100000,100000000:0,200000000:400000", RateSchedule.Interpolation.STEP);
+        assertEquals(50000, schedule.getExpectedArrivals(300000000L), 1e-6);
+        long[] count = countPerPhase(schedule, 300000000L, 7);
+        assertEquals(10000, count[0], 400);
+        assertEquals(0, count[1]);
+        assertEquals(40000, count[2], 800);
+
+    }
+
+    @Test
+    public void testStepScheduleNoRejections() {
+        RateSchedule schedule = RateSchedule.parse("0:100000,100000000:200000", RateSchedule.Interpolation.STEP);
+        ThinningArrivalProcess process = new ThinningArrivalProcess(schedule, new Random(3));
+        while (process.nextArrivalNs() <= 200000000L) {
+            // Drain
+        }
+
+        // Only the candidates crossing the phase boundary are not arrivals
+        assertTrue(process.getNumCandidates() - process.getNumArrivals() <= 2);
+    }
+
+    @Test
+    public void testLinearRampCounts() {
+
+        // Ramp from 0 to 200k/s over 200ms, then constant (expected 20000 in the ramp, 10000 in the next 50ms)
+        RateSchedule schedule = RateSchedule.parse("0:0,200000000:200000", RateSchedule.Interpolation.LINEAR);
+        assertEquals(30000, schedule.getExpectedArrivals(250000000L), 1e-6);
+        long[] count = countPerPhase(schedule, 250000000L, 11);
+        assertEquals(20000, count[0], 600);
+        assertEquals(10000, count[1], 400);
+
+        // Within the ramp, the first half should see a quarter of the arrivals
+        ThinningArrivalProcess process = new ThinningArrivalProcess(schedule, new Random(13));
+        long firstHalf = 0;
+        double time = process.nextArrivalNs();
+        while (time <= 200000000L) {
+            firstHalf += time < 100000000L ? 1 : 0;
+            time = process.nextArrivalNs();
+        }
+        assertEquals(5000, firstHalf, 300);
+
+    }
+
+    @Test
+    public void testMarkovModulated() {
+        List<Integer> statePath = new ArrayList<>();
+        RateSchedule schedule = RateSchedule.drawMarkovModulated(
+                new double[]{10000, 1000000},
+                new double[]{9000000, 1000000},
+                1000000000L,
+                new Random(5),
+                statePath
+        );
+
+        // Two states alternate, starting in state 0
+        assertEquals(schedule.getNumPhases(), statePath.size());
+        assertEquals(0, (int) statePath.get(0));
+        long timeInState1 = 0;
+        for (int i = 0; i < statePath.size(); i++) {
+            if (i > 0) {
+                assertTrue(!statePath.get(i).equals(statePath.get(i - 1)));
+            }
+            if (statePath.get(i) == 1) {
+                timeInState1 += Math.min(schedule.getPhaseEndNs(i), 1000000000L) - schedule.getPhaseStartNs(i);
+            }
+        }
+
+        // About 10% of the time in the bursty state, and the arrivals follow the path
+        assertEquals(0.1, timeInState1 / 1e9, 0.03);
+        long[] count = countPerPhase(schedule, 1000000000L, 17);
+        long total = 0;
+        for (long c : count) {
+            total += c;
+        }
+        double expected = schedule.getExpectedArrivals(1000000000L);
+        assertEquals(expected, total, 5 * Math.sqrt(expected));
+
+    }
+
+    @Test
+    public void testMarkovModulatedAllOff() {
+
+        // The OFF state 0 lasts far longer than the duration, so the path never leaves it
+        List<Integer> statePath = new ArrayList<>();
+        RateSchedule schedule = RateSchedule.drawMarkovModulated(
+                new double[]{0, 1000000},
+                new double[]{1e15, 1000000},
+                1000000000L,
+                new Random(5),
+                statePath
+        );
+        assertEquals(1, schedule.getNumPhases());
+        assertEquals(0, (int) statePath.get(0));
+        assertEquals(0, schedule.getExpectedArrivals(1000000000L), 1e-9);
+
+        // No arrivals at all
+        ThinningArrivalProcess process = new ThinningArrivalProcess(schedule, new Random(17));
+        assertEquals(Double.POSITIVE_INFINITY, process.nextArrivalNs(), 0.0);
+        assertEquals(0, process.getNumArrivals());
+
+    }
+
+}
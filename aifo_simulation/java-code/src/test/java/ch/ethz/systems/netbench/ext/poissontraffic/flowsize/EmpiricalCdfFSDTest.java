@@ -0,0 +1,114 @@
+package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmpiricalCdfFSDTest {
+
+    @Before
+    public void setup() {
+        Simulator.setup(1234);
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+    }
+
+    @Test
+    public void testDiscreteBoundaries() {
+        EmpiricalCdfFSD fsd = new PFabricWebSearchUpperBoundFSD();
+        assertEquals(10000, fsd.sizeAt(0.0));
+        assertEquals(10000, fsd.sizeAt(0.15));
+        assertEquals(20000, fsd.sizeAt(0.1500001));
+        assertEquals(80000, fsd.sizeAt(0.53));
+        assertEquals(200000, fsd.sizeAt(0.531));
+        assertEquals(10000000, fsd.sizeAt(0.97));
+        assertEquals(30000000, fsd.sizeAt(0.9700001));
+        assertEquals(30000000, fsd.sizeAt(1.0));
+    }
+
+    @Test
+    public void testGuideMatchesScan() {
+        long[] sizes = new long[]{1, 180, 216, 560, 900, 1100, 1870, 3160, 10000, 400000, 3160000, 100000000};
+        double[] cdf = new double[]{0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 0.95, 0.98, 1.0};
+        EmpiricalCdfFSD fsd = new EmpiricalCdfFSD(sizes, cdf, EmpiricalCdfFSD.Interpolation.DISCRETE);
+        for (int i = 0; i <= 100000; i++) {
+            double outcome = i / 100000.0;
+            int row = 0;
+            while (cdf[row] < outcome) {
+                row++;
+            }
+            assertEquals(sizes[row], fsd.sizeAt(outcome));
+        }
+    }
+
+    @Test
+    public void testLinear() {
+        EmpiricalCdfFSD fsd = new EmpiricalCdfFSD(
+                new long[]{0, 1000, 2000, 10000},
+                new double[]{0.0, 0.5, 0.5, 1.0},
+                EmpiricalCdfFSD.Interpolation.LINEAR
+        );
+        assertEquals(0, fsd.sizeAt(0.0));
+        assertEquals(500, fsd.sizeAt(0.25));
+        assertEquals(1000, fsd.sizeAt(0.5));
+        assertEquals(6000, fsd.sizeAt(0.75));
+        assertEquals(10000, fsd.sizeAt(1.0));
+        for (int i = 0; i < 1000; i++) {
+            long size = fsd.generateFlowSizeByte();
+            assertTrue(size >= 0 && size <= 10000);
+        }
+    }
+
+    @Test
+    public void testInvalidTable() {
+        boolean thrown = false;
+        try {
+            new EmpiricalCdfFSD(new long[]{1, 2}, new double[]{0.5, 0.9}, EmpiricalCdfFSD.Interpolation.DISCRETE);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+        thrown = false;
+        try {
+            new EmpiricalCdfFSD(new long[]{1, 2}, new double[]{0.6, 0.5}, EmpiricalCdfFSD.Interpolation.DISCRETE);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testFromFile() throws IOException {
+        File tempCdfFile = File.createTempFile("temp-cdf", ".tmp");
+        BufferedWriter writer = new BufferedWriter(new FileWriter(tempCdfFile));
+        writer.write("# size 1 cdf\n");
+        writer.write("0 1 0\n");
+        writer.write("1000 1 0.5\n");
+        writer.write("\n");
+        writer.write("3000 1 1.0\n");
+        writer.close();
+
+        EmpiricalCdfFSD fsd = new EmpiricalCdfFSD(tempCdfFile.getAbsolutePath(), EmpiricalCdfFSD.Interpolation.LINEAR);
+        assertEquals(500, fsd.sizeAt(0.25));
+        assertEquals(2000, fsd.sizeAt(0.75));
+
+        assertTrue(tempCdfFile.delete());
+    }
+
+}
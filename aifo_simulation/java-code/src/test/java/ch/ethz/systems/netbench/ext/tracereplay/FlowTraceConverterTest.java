@@ -0,0 +1,100 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FlowTraceConverterTest {
+
+    private File tempCsvFile;
+    private File tempBinaryFile;
+
+    @Before
+    public void setup() throws IOException {
+        tempCsvFile = File.createTempFile("temp-trace", ".csv");
+        tempBinaryFile = File.createTempFile("temp-trace", ".bin");
+    }
+
+    @After
+    public void cleanup() {
+        assertTrue(tempCsvFile.delete());
+        assertTrue(tempBinaryFile.delete());
+    }
+
+    private void writeCsv(String content) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(tempCsvFile));
+        writer.write(content);
+        writer.close();
+    }
+
+    @Test
+    public void testRoundTripAcrossSegments() throws IOException {
+
+        // Write CSV trace
+        StringBuilder csv = new StringBuilder("# time_ns, src, dst, size, priority\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append(i * 1000L).append(", ").append(i % 4).append(", ").append((i + 1) % 4).append(", ").append(10000L * i + 1);
+            if (i % 2 == 0) {
+                csv.append(", ").append(i);
+            }
+            csv.append("\n");
+        }
+        writeCsv(csv.toString());
+
+        // Convert
+        assertEquals(25, FlowTraceConverter.convert(tempCsvFile.getAbsolutePath(), tempBinaryFile.getAbsolutePath()));
+        assertEquals(FlowTraceReader.HEADER_SIZE_BYTES + 25 * FlowTraceReader.RECORD_SIZE_BYTES, tempBinaryFile.length());
+
+        // Read back with small segments
+        FlowTraceReader reader = new FlowTraceReader(tempBinaryFile.getAbsolutePath(), 4);
+        assertEquals(25, reader.getNumRecords());
+        for (int i = 0; i < 25; i++) {
+            assertTrue(reader.next());
+            assertEquals(i * 1000L, reader.getTimeNs());
+            assertEquals(i % 4, reader.getSrcId());
+            assertEquals((i + 1) % 4, reader.getDstId());
+            assertEquals(10000L * i + 1, reader.getFlowSizeByte());
+            assertEquals(i % 2 == 0 ? i : -1, reader.getPriority());
+        }
+        assertFalse(reader.next());
+        reader.close();
+
+    }
+
+    @Test
+    public void testUnorderedInvalid() throws IOException {
+        writeCsv("100,0,1,1000\n50,1,0,1000\n");
+        boolean thrown = false;
+        try {
+            FlowTraceConverter.convert(tempCsvFile.getAbsolutePath(), tempBinaryFile.getAbsolutePath());
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testNotATrace() throws IOException {
+        writeCsv("0,0,1,1000\n");
+        boolean thrown = false;
+        try {
+            new FlowTraceReader(tempCsvFile.getAbsolutePath());
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+}
@@ -0,0 +1,134 @@
+package ch.ethz.systems.netbench.ext.tracereplay;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TraceReplayPlannerTest {
+
+    private File tempRunConfig;
+    private File tempCsvFile;
+    private File tempBinaryFile;
+
+    // Times at which flow starts are registered, and at which flows start
+    private List<Long> registrationTimes;
+    private List<Long> startTimes;
+    private Map<Integer, TransportLayer> idToTransportLayer;
+
+    @Before
+    public void setup() throws IOException {
+        Simulator.reset();
+        tempCsvFile = File.createTempFile("temp-trace", ".csv");
+        tempBinaryFile = File.createTempFile("temp-trace", ".bin");
+
+        // Create temporary run configuration file
+        tempRunConfig = File.createTempFile("temp-run-config", ".tmp");
+        BufferedWriter runConfigWriter = new BufferedWriter(new FileWriter(tempRunConfig));
+        runConfigWriter.write("scenario_topology_file=example/topologies/simple/simple_n5.topology");
+        runConfigWriter.close();
+        Simulator.setup(1, new NBProperties(tempRunConfig.getAbsolutePath(), BaseAllowedProperties.PROPERTIES_RUN, BaseAllowedProperties.LOG));
+
+        // Transport layers which record when flows start
+        registrationTimes = new ArrayList<>();
+        startTimes = new ArrayList<>();
+        idToTransportLayer = new HashMap<>();
+        for (int id = 0; id < 2; id++) {
+            TransportLayer transportLayer = mock(TransportLayer.class);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) {
+                    startTimes.add(Simulator.getCurrentTime());
+                    return null;
+                }
+            }).when(transportLayer).startFlowWithPortAndFlowId(anyInt(), anyLong(), anyLong(), anyBoolean(), anyInt(), anyInt());
+            idToTransportLayer.put(id, transportLayer);
+        }
+
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+        assertTrue(tempRunConfig.delete());
+        assertTrue(tempCsvFile.delete());
+        assertTrue(tempBinaryFile.delete());
+    }
+
+    /**
+     * Replay a trace of flows from 0 to 1 starting at the given times.
+     *
+     * @param windowNs      Window of flow starts registered ahead of simulated time
+     * @param durationNs    Duration after which no more flows are started
+     * @param times         Flow start times (ordered)
+     */
+    private void replay(long windowNs, long durationNs, long... times) throws IOException {
+
+        // Trace
+        BufferedWriter writer = new BufferedWriter(new FileWriter(tempCsvFile));
+        for (long time : times) {
+            writer.write(time + ",0,1,1000\n");
+        }
+        writer.close();
+        FlowTraceConverter.convert(tempCsvFile.getAbsolutePath(), tempBinaryFile.getAbsolutePath());
+
+        // Planner which records when it registers a window
+        TraceReplayPlanner planner = new TraceReplayPlanner(idToTransportLayer, tempBinaryFile.getAbsolutePath(), windowNs) {
+            @Override
+            void registerWindow() {
+                registrationTimes.add(Simulator.getCurrentTime());
+                super.registerWindow();
+            }
+        };
+        planner.createPlan(durationNs);
+        Simulator.runNs(durationNs);
+
+    }
+
+    @Test
+    public void testWindowsAtFlowStarts() throws IOException {
+
+        // Window [0, 1000) has three flows, the next window starts at the next flow (after a long gap)
+        replay(1000, 1000000000L, 0, 100, 999, 10000000, 10000500, 10001000, 10001001);
+        assertEquals(Arrays.asList(0L, 10000000L, 10001000L), registrationTimes);
+        assertEquals(Arrays.asList(0L, 100L, 999L, 10000000L, 10000500L, 10001000L, 10001001L), startTimes);
+
+    }
+
+    @Test
+    public void testWindowsUntilDuration() throws IOException {
+
+        // Flows after the duration are not registered
+        replay(1000, 5000, 10, 1500, 4999, 5001, 7000);
+        assertEquals(Arrays.asList(0L, 1500L, 4999L), registrationTimes);
+        assertEquals(Arrays.asList(10L, 1500L, 4999L), startTimes);
+
+    }
+
+}
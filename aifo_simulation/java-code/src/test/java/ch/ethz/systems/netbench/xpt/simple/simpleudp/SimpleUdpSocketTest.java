@@ -0,0 +1,108 @@
+package ch.ethz.systems.netbench.xpt.simple.simpleudp;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.ext.basic.TcpPacket;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SimpleUdpSocketTest {
+
+    @Mock
+    private NetworkDevice networkDevice;
+
+    @After
+    public void cleanup() {
+        Simulator.reset();
+    }
+
+    /**
+     * Send a flow from 88 to 77 and run until it is sent.
+     *
+     * @param configuration     Run configuration
+     * @param flowSizeByte      Flow size in bytes
+     *
+     * @return  Segments sent, as [send time, data size]
+     */
+    private List<long[]> send(NBProperties configuration, long flowSizeByte) {
+        Simulator.setup(1, configuration);
+
+        // Record every segment handed to the network device
+        final List<long[]> sent = new ArrayList<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                TcpPacket packet = (TcpPacket) invocation.getArguments()[0];
+                sent.add(new long[]{Simulator.getCurrentTime(), packet.getDataSizeByte()});
+                return null;
+            }
+        }).when(networkDevice).receiveFromTransportLayer(any(Packet.class));
+
+        SimpleUdpTransportLayer layer = new SimpleUdpTransportLayer(88);
+        layer.setNetworkDevice(networkDevice);
+        new SimpleUdpSocket(layer, 0, 88, 77, flowSizeByte).start();
+        Simulator.runNs(1000000000L);
+        return sent;
+    }
+
+    private static NBProperties createConfiguration() {
+        return new NBProperties(
+                BaseAllowedProperties.LOG,
+                BaseAllowedProperties.PROPERTIES_RUN,
+                BaseAllowedProperties.EXPERIMENTAL
+        );
+    }
+
+    @Test
+    public void testDefaultPacing() {
+
+        // One segment of 345 bytes every 120 microseconds (the last wake-up sends the empty remainder)
+        List<long[]> sent = send(createConfiguration(), 5 * 345);
+        assertEquals(6, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertEquals(i * 120000L, sent.get(i)[0]);
+            assertEquals(i < 5 ? 345 : 0, sent.get(i)[1]);
+        }
+
+    }
+
+    @Test
+    public void testConfiguredPacing() {
+
+        // 115 Mbit/s with a wake-up every 60 microseconds: 862.5 bytes or 2.5 segments per wake-up
+        NBProperties configuration = createConfiguration();
+        configuration.overrideProperty("UDP_RATE_BIT_PER_S", "115000000");
+        configuration.overrideProperty("UDP_PACING_INTERVAL_NS", "60000");
+        List<long[]> sent = send(configuration, 10 * 345);
+
+        // The remaining credit carries over: 2, 3, 2, 3 segments, then the empty remainder
+        long[] segmentsPerWakeup = new long[]{2, 3, 2, 3, 1};
+        int i = 0;
+        for (int wakeup = 0; wakeup < segmentsPerWakeup.length; wakeup++) {
+            for (int s = 0; s < segmentsPerWakeup[wakeup]; s++) {
+                assertEquals(wakeup * 60000L, sent.get(i)[0]);
+                assertEquals(i < 10 ? 345 : 0, sent.get(i)[1]);
+                i++;
+            }
+        }
+        assertEquals(i, sent.size());
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KspPathCacheTest {
+
+    private static final String HASH = "009faa5de4a14406a001dc1895604714ca81d14b";
+
+    @Test
+    public void testWriteRead() throws IOException {
+        File file = File.createTempFile("ksp-cache", ".tmp");
+        file.deleteOnExit();
+
+        // Two paths 0 -> 2, one path 0 -> 1, one path 2 -> 0
+        List<List<int[]>> paths = new ArrayList<>();
+        paths.add(Arrays.asList(new int[]{0, 1}, new int[]{0, 2}, new int[]{0, 1, 2}));
+        paths.add(Arrays.asList(new int[]{2, 1, 0}));
+        KspPathCache.write(file.getAbsolutePath(), HASH, 2, paths);
+
+        // Header is keyed by topology hash
+        assertEquals(2, KspPathCache.readK(file.getAbsolutePath(), HASH));
+        assertEquals(-1, KspPathCache.readK(file.getAbsolutePath(), "109faa5de4a14406a001dc1895604714ca81d14b"));
+        assertEquals(-1, KspPathCache.readK(file.getAbsolutePath() + ".non-existing", HASH));
+
+        // All paths
+        final List<int[]> read = new ArrayList<>();
+        final List<Integer> ranks = new ArrayList<>();
+        KspPathCache.read(file.getAbsolutePath(), 2, (source, destination, rank, path) -> {
+            assertEquals(path[0], source);
+            assertEquals(path[path.length - 1], destination);
+            read.add(path);
+            ranks.add(rank);
+        });
+        assertEquals(4, read.size());
+        assertArrayEquals(new int[]{0, 1, 2}, read.get(2));
+        assertArrayEquals(new int[]{2, 1, 0}, read.get(3));
+        assertEquals(Arrays.asList(1, 1, 2, 1), ranks);
+
+        // Only the shortest of each pair
+        read.clear();
+        KspPathCache.read(file.getAbsolutePath(), 1, (source, destination, rank, path) -> read.add(path));
+        assertEquals(3, read.size());
+        assertArrayEquals(new int[]{2, 1, 0}, read.get(2));
+    }
+
+    @Test
+    public void testIncompleteCacheRejected() throws IOException {
+        File folder = Files.createTempDirectory("ksp-cache").toFile();
+        File file = new File(folder, "cache.bin");
+
+        List<List<int[]>> paths = new ArrayList<>();
+        paths.add(Arrays.asList(new int[]{0, 1}, new int[]{0, 2, 1}));
+        KspPathCache.write(file.getAbsolutePath(), HASH, 2, paths);
+        assertEquals(2, KspPathCache.readK(file.getAbsolutePath(), HASH));
+
+        // Only the cache itself is left in the folder (no temporary file)
+        assertArrayEquals(new String[]{"cache.bin"}, folder.list());
+
+        // Truncated (e.g. a killed run) with the header intact
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        assertEquals(-1, KspPathCache.readK(file.getAbsolutePath(), HASH));
+
+        // Replaced by a complete cache
+        KspPathCache.write(file.getAbsolutePath(), HASH, 3, paths);
+        assertEquals(3, KspPathCache.readK(file.getAbsolutePath(), HASH));
+
+        assertTrue(file.delete());
+        assertTrue(folder.delete());
+    }
+
+}
@@ -6,6 +6,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -80,4 +81,25 @@ public class SourceRoutingEncapsulationTest {
 
     }
 
+    @Test
+    public void sharedPathWithServers() {
+
+        // ToR path shared by two packets, from server 46 to server 88
+        int[] torPath = new int[]{3, 8, 12};
+        SourceRoutingEncapsulation first = new SourceRoutingEncapsulation(packet, torPath, -1, 88);
+        SourceRoutingEncapsulation second = new SourceRoutingEncapsulation(packet, torPath, -1, 88);
+
+        // Each has its own progress
+        assertEquals(3, first.nextHop());
+        assertEquals(8, first.nextHop());
+        assertEquals(3, second.nextHop());
+        assertEquals(12, first.nextHop());
+        assertEquals(88, first.nextHop());
+        assertEquals(8, second.nextHop());
+
+        // Path is not modified
+        assertArrayEquals(new int[]{3, 8, 12}, torPath);
+
+    }
+
 }
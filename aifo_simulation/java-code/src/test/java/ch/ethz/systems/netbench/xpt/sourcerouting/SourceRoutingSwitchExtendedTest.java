@@ -19,8 +19,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -141,6 +143,89 @@ public class SourceRoutingSwitchExtendedTest {
 
     }
 
+    @Test
+    public void testServerToServerViaToRPath() {
+
+        // ToRs along both paths from 0 to 3
+        SourceRoutingSwitch deviceToR0 = new SourceRoutingSwitch(0, null, 12, new IdentityFlowletIntermediary());
+        deviceToR0.addConnection(topology.getPort(0, 1));
+        deviceToR0.addConnection(topology.getPort(0, 2));
+        deviceToR0.addConnection(topology.getPort(0, 4));
+        deviceToR0.addConnection(topology.getPort(0, 5));
+        deviceToR0.addPathToDestination(3, makePath(new Integer[]{0,1,3}));
+        deviceToR0.addPathToDestination(3, makePath(new Integer[]{0,2,3}));
+        SourceRoutingSwitch deviceToR2 = new SourceRoutingSwitch(2, null, 12, new IdentityFlowletIntermediary());
+        deviceToR2.addConnection(topology.getPort(2, 3));
+        SourceRoutingSwitch deviceToR3 = new SourceRoutingSwitch(3, null, 12, new IdentityFlowletIntermediary());
+        deviceToR3.addConnection(topology.getPort(3, 11));
+
+        // Source server
+        SourceRoutingSwitch device = new SourceRoutingSwitch(4, null, 12, new IdentityFlowletIntermediary());
+        device.addConnection(topology.getPort(4, 0));
+        when(topology.getPort(4, 0).getTargetDevice()).thenReturn(deviceToR0);
+
+        // Packets from 4->11, the hash selects the second path
+        when(packet.getSourceId()).thenReturn(4);
+        when(packet.getDestinationId()).thenReturn(11);
+        when(packet.getHash(4)).thenReturn(1);
+        device.receiveFromTransportLayer(packet);
+        device.receiveFromTransportLayer(packet);
+
+        ArgumentCaptor<SourceRoutingEncapsulation> captor = ArgumentCaptor.forClass(SourceRoutingEncapsulation.class);
+        verify(topology.getPort(4, 0), times(2)).enqueue(captor.capture());
+        assertEquals(2, captor.getAllValues().size());
+
+        // Each packet is forwarded along 4-0-2-3-11 by the switches themselves
+        for (SourceRoutingEncapsulation encapsulation : captor.getAllValues()) {
+            assertTrue(packet == encapsulation.getPacket());
+            deviceToR0.receive(encapsulation);
+            deviceToR2.receive(encapsulation);
+            deviceToR3.receive(encapsulation);
+        }
+        verify(topology.getPort(0, 2), times(2)).enqueue(any(SourceRoutingEncapsulation.class));
+        verify(topology.getPort(2, 3), times(2)).enqueue(any(SourceRoutingEncapsulation.class));
+        verify(topology.getPort(3, 11), times(2)).enqueue(any(SourceRoutingEncapsulation.class));
+        verify(topology.getPort(0, 1), never()).enqueue(any(SourceRoutingEncapsulation.class));
+
+        // The ToR paths themselves are not affected by the packets
+        assertArrayEquals(new int[]{0, 1, 3}, deviceToR0.getHopsTo(3)[0]);
+        assertArrayEquals(new int[]{0, 2, 3}, deviceToR0.getHopsTo(3)[1]);
+
+    }
+
+    @Test
+    public void testServerToServerWithinSameToR() {
+
+        // ToR of both servers
+        SourceRoutingSwitch deviceToR = new SourceRoutingSwitch(0, null, 12, new IdentityFlowletIntermediary());
+        deviceToR.addConnection(topology.getPort(0, 4));
+        deviceToR.addConnection(topology.getPort(0, 5));
+
+        // Source server
+        SourceRoutingSwitch device = new SourceRoutingSwitch(4, null, 12, new IdentityFlowletIntermediary());
+        device.addConnection(topology.getPort(4, 0));
+
+        // Packets from 4->5
+        when(packet.getSourceId()).thenReturn(4);
+        when(packet.getDestinationId()).thenReturn(5);
+        device.receiveFromTransportLayer(packet);
+        device.receiveFromTransportLayer(packet);
+
+        ArgumentCaptor<SourceRoutingEncapsulation> captor = ArgumentCaptor.forClass(SourceRoutingEncapsulation.class);
+        verify(topology.getPort(4, 0), times(2)).enqueue(captor.capture());
+        assertEquals(2, captor.getAllValues().size());
+
+        // Single hop 4-0-5: the ToR hands it directly to the destination server
+        for (SourceRoutingEncapsulation encapsulation : captor.getAllValues()) {
+            assertTrue(packet == encapsulation.getPacket());
+            assertEquals(5, encapsulation.getDestinationId());
+            deviceToR.receive(encapsulation);
+        }
+        verify(topology.getPort(0, 5), times(2)).enqueue(any(SourceRoutingEncapsulation.class));
+        verify(topology.getPort(0, 4), never()).enqueue(any(SourceRoutingEncapsulation.class));
+
+    }
+
     private SourceRoutingPath makePath(Integer[] path) {
         SourceRoutingPath p = new SourceRoutingPath();
         Collections.addAll(p, path);
@@ -0,0 +1,87 @@
+package edu.asu.emit.algorithm.graph;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CsrGraphTest {
+
+    private static Graph createTriangle() {
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        edges.add(new ImmutablePair<>(0, 1));
+        edges.add(new ImmutablePair<>(1, 2));
+        edges.add(new ImmutablePair<>(2, 0));
+        edges.add(new ImmutablePair<>(0, 2));
+        return new Graph(3, edges);
+    }
+
+    @Test
+    public void testStructure() {
+        CsrGraph csr = createTriangle().getCsrGraph();
+        assertEquals(3, csr.getNumVertices());
+        assertEquals(4, csr.getNumEdges());
+        assertEquals(1, csr.getEdgeWeight(0, 1));
+
+        // Outgoing edges of 0 in adjacency order
+        assertEquals(2, csr.outEnd(0) - csr.outStart(0));
+        assertEquals(1, csr.outTarget(csr.outStart(0)));
+        assertEquals(2, csr.outTarget(csr.outStart(0) + 1));
+
+        // Incoming edges of 2 refer to the outgoing edges
+        assertEquals(2, csr.inEnd(2) - csr.inStart(2));
+        for (int i = csr.inStart(2); i < csr.inEnd(2); i++) {
+            assertEquals(csr.findEdge(csr.inSource(i), 2), csr.inEdge(i));
+        }
+        assertEquals(-1, csr.findEdge(1, 0));
+    }
+
+    @Test
+    public void testSharedViewCannotBeModified() {
+        Graph graph = createTriangle();
+        CsrGraph shared = graph.getCsrGraph();
+        assertTrue(shared == graph.getCsrGraph());
+
+        // Every modification of the shared view is refused
+        int refused = 0;
+        for (int method = 0; method < 6; method++) {
+            try {
+                switch (method) {
+                    case 0: shared.deleteVertex(1); break;
+                    case 1: shared.recoverDeletedVertex(1); break;
+                    case 2: shared.deleteEdge(0, 1); break;
+                    case 3: shared.recoverDeletedEdge(0, 1); break;
+                    case 4: shared.recoverDeletedVertices(); break;
+                    default: shared.recoverDeletedEdges(); break;
+                }
+            } catch (IllegalStateException e) {
+                refused++;
+            }
+        }
+        assertEquals(6, refused);
+
+        // A view with its own overlay can delete, without affecting the shared view
+        CsrGraph own = shared.withOwnOverlay();
+        own.deleteVertex(1);
+        own.deleteEdge(0, 2);
+        assertTrue(own.isVertexDeleted(1));
+        assertTrue(own.isEdgeDeleted(own.findEdge(0, 2)));
+        assertFalse(own.isOutEdgeUsable(own.outStart(0)));
+        assertFalse(shared.isVertexDeleted(1));
+        assertFalse(shared.isEdgeDeleted(shared.findEdge(0, 2)));
+        assertTrue(shared.isOutEdgeUsable(shared.outStart(0)));
+        own.recoverDeletedVertices();
+        own.recoverDeletedEdges();
+        assertTrue(own.isOutEdgeUsable(own.outStart(0)));
+    }
+
+}
@@ -0,0 +1,105 @@
+package edu.asu.emit.algorithm.graph.algorithms;
+
+import edu.asu.emit.algorithm.graph.CsrGraph;
+import edu.asu.emit.algorithm.graph.Graph;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DijkstraShortestPathAlgTest {
+
+    @Test
+    public void testAgainstBreadthFirst() {
+
+        // Sparse random directed graph
+        int n = 60;
+        Random random = new Random(11);
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        boolean[][] adjacent = new boolean[n][n];
+        for (int i = 0; i < 3 * n; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b && !adjacent[a][b]) {
+                adjacent[a][b] = true;
+                edges.add(new ImmutablePair<>(a, b));
+            }
+        }
+        CsrGraph csr = new Graph(n, edges).getCsrGraph().withOwnOverlay();
+
+        // The workspace is reused for every search, with a changing deletion overlay
+        DijkstraShortestPathAlg alg = new DijkstraShortestPathAlg(csr);
+        boolean[] deleted = new boolean[n];
+        for (int root = 0; root < n; root++) {
+            csr.recoverDeletedVertices();
+            Arrays.fill(deleted, false);
+            for (int d = 0; d < 2; d++) {
+                int v = random.nextInt(n);
+                csr.deleteVertex(v);
+                deleted[v] = true;
+            }
+
+            alg.getShortestPathTree(root);
+            long[] expected = breadthFirst(adjacent, deleted, root, true);
+            for (int v = 0; v < n; v++) {
+                assertEquals(expected[v], alg.getDistance(v));
+            }
+
+            alg.getShortestPathFlower(root);
+            expected = breadthFirst(adjacent, deleted, root, false);
+            for (int v = 0; v < n; v++) {
+                assertEquals(expected[v], alg.getDistance(v));
+            }
+
+            int sink = (root + 1) % n;
+            expected = breadthFirst(adjacent, deleted, root, true);
+            int[] path = alg.getShortestPath(root, sink);
+            assertEquals(expected[sink], alg.getDistance(sink));
+            assertEquals(expected[sink] == Graph.DISCONNECTED ? 0 : expected[sink] + 1, path.length);
+        }
+
+    }
+
+    /**
+     * Reference distances of unit weight edges, not passing deleted vertices.
+     *
+     * @param adjacent  Adjacency matrix
+     * @param deleted   Deleted vertices
+     * @param root      Root (its edges are not followed if it is deleted)
+     * @param forward   True iff following edges forward (else backward)
+     *
+     * @return  Distance of every vertex (Graph.DISCONNECTED if not reached)
+     */
+    private static long[] breadthFirst(boolean[][] adjacent, boolean[] deleted, int root, boolean forward) {
+        int n = adjacent.length;
+        long[] distance = new long[n];
+        Arrays.fill(distance, Graph.DISCONNECTED);
+        distance[root] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (deleted[u]) {
+                continue;
+            }
+            for (int v = 0; v < n; v++) {
+                if ((forward ? adjacent[u][v] : adjacent[v][u]) && !deleted[v] && distance[v] == Graph.DISCONNECTED) {
+                    distance[v] = distance[u] + 1;
+                    queue.add(v);
+                }
+            }
+        }
+        return distance;
+    }
+
+}
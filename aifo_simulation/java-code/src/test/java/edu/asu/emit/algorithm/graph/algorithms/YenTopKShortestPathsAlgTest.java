@@ -0,0 +1,143 @@
+package edu.asu.emit.algorithm.graph.algorithms;
+
+import ch.ethz.systems.netbench.core.config.GraphReader;
+import edu.asu.emit.algorithm.graph.Graph;
+import edu.asu.emit.algorithm.graph.Path;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class YenTopKShortestPathsAlgTest {
+
+    @Test
+    public void testSquare() {
+
+        // Paths 0 -> 1 -> 3 and 0 -> 2 -> 3, and the detour 0 -> 1 -> 2 -> 3
+        List<Pair<Integer, Integer>> edges = new ArrayList<>();
+        edges.add(new ImmutablePair<>(0, 1));
+        edges.add(new ImmutablePair<>(1, 3));
+        edges.add(new ImmutablePair<>(0, 2));
+        edges.add(new ImmutablePair<>(2, 3));
+        edges.add(new ImmutablePair<>(1, 2));
+        Graph graph = new Graph(4, edges);
+
+        YenTopKShortestPathsAlg alg = new YenTopKShortestPathsAlg(graph, graph.getVertex(0), graph.getVertex(3));
+        assertArrayEquals(new int[]{0, 1, 3}, alg.nextPath());
+        assertArrayEquals(new int[]{0, 2, 3}, alg.nextPath());
+        Path last = alg.next();
+        assertEquals(3, last.getWeight());
+        assertEquals("[0, 1, 2, 3]", last.getVertexList().toString());
+        assertFalse(alg.hasNext());
+
+        // No path in the other direction
+        alg = new YenTopKShortestPathsAlg(graph, graph.getVertex(3), graph.getVertex(0));
+        assertFalse(alg.hasNext());
+        assertEquals(Graph.DISCONNECTED, alg.getShortestPath(graph.getVertex(3), graph.getVertex(0)).getWeight());
+
+    }
+
+    @Test
+    public void testAgainstEnumeration() {
+
+        // Small random directed graphs
+        Random random = new Random(7);
+        for (int t = 0; t < 20; t++) {
+            int n = 8;
+            List<Pair<Integer, Integer>> edges = new ArrayList<>();
+            boolean[][] adjacent = new boolean[n][n];
+            for (int i = 0; i < 3 * n; i++) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (a != b && !adjacent[a][b]) {
+                    adjacent[a][b] = true;
+                    edges.add(new ImmutablePair<>(a, b));
+                }
+            }
+            Graph graph = new Graph(n, edges);
+
+            // All simple paths from 0 to n - 1 by length
+            List<Integer> lengths = new ArrayList<>();
+            enumerate(adjacent, new ArrayList<>(Collections.singletonList(0)), n - 1, lengths);
+            Collections.sort(lengths);
+
+            // The k shortest paths must be distinct, simple and have the k smallest lengths
+            int k = 5;
+            YenTopKShortestPathsAlg alg = new YenTopKShortestPathsAlg(graph, graph.getVertex(0), graph.getVertex(n - 1));
+            Set<List<Integer>> found = new HashSet<>();
+            for (int p = 0; p < Math.min(k, lengths.size()); p++) {
+                assertTrue(alg.hasNext());
+                int[] path = alg.nextPath();
+                List<Integer> vertices = new ArrayList<>();
+                for (int i = 0; i < path.length; i++) {
+                    assertFalse(vertices.contains(path[i]));
+                    vertices.add(path[i]);
+                    if (i > 0) {
+                        assertTrue(adjacent[path[i - 1]][path[i]]);
+                    }
+                }
+                assertEquals(0, path[0]);
+                assertEquals(n - 1, path[path.length - 1]);
+                assertEquals((int) lengths.get(p), path.length - 1);
+                assertTrue(found.add(vertices));
+            }
+            assertEquals(lengths.size() > k, alg.hasNext());
+        }
+
+    }
+
+    @Test
+    public void testXpanderReference() {
+
+        // Shipped topology, of which the 3 shortest paths of a sample of the pairs are fixed
+        // (ties between equally short paths must be broken as by the original algorithm)
+        Graph graph = GraphReader.read("example/topologies/xpander/xpander_n100_d10.topology").getLeft();
+        int n = graph.getVertexList().size();
+        StringBuilder all = new StringBuilder();
+        for (int s = 0; s < n; s += 11) {
+            for (int t = 1; t < n; t += 7) {
+                if (s != t) {
+                    YenTopKShortestPathsAlg alg = new YenTopKShortestPathsAlg(graph, graph.getVertex(s), graph.getVertex(t));
+                    for (int r = 0; r < 3 && alg.hasNext(); r++) {
+                        all.append(s).append(' ').append(t).append(' ').append(r).append(' ').append(alg.next().getVertexList()).append('\n');
+                    }
+                }
+            }
+        }
+        assertTrue(all.toString().startsWith("0 1 0 [0, 97, 1]\n0 1 1 [0, 46, 1]\n"));
+        assertTrue(all.toString().contains("0 15 0 [0, 97, 1, 15]\n0 15 1 [0, 97, 58, 15]\n0 15 2 [0, 6, 98, 15]\n"));
+        assertEquals("b8e13811b5e8bf77bb99b9f8761b2553a4727de1", DigestUtils.sha1Hex(all.toString()));
+
+    }
+
+    private static void enumerate(boolean[][] adjacent, List<Integer> prefix, int target, List<Integer> lengths) {
+        int last = prefix.get(prefix.size() - 1);
+        if (last == target) {
+            lengths.add(prefix.size() - 1);
+            return;
+        }
+        for (int v = 0; v < adjacent.length; v++) {
+            if (adjacent[last][v] && !prefix.contains(v)) {
+                prefix.add(v);
+                enumerate(adjacent, prefix, target, lengths);
+                prefix.remove(prefix.size() - 1);
+            }
+        }
+    }
+
+}